@@ -0,0 +1,79 @@
+package com.leavetracker.benchmarks;
+
+import com.leavetracker.auth.AuthService;
+import com.leavetracker.auth.PasswordHasher;
+import com.leavetracker.model.User;
+import com.leavetracker.repository.UserRepository;
+import com.leavetracker.util.ConnectionPool;
+import com.leavetracker.util.SchemaMigrations;
+import com.leavetracker.util.SchemaMigrator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AuthService#login} for existing users. At the lowest BCrypt cost the
+ * result is dominated by the user lookup and cache; at the production cost it
+ * is dominated by hashing, bounded by the hasher's thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+    private static final int USERS = 100;
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"4", "10"})
+    public int cost;
+
+    private ConnectionPool pool;
+    private PasswordHasher hasher;
+    private AuthService auth;
+
+    @Setup(Level.Trial)
+    public void register() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:auth-bench-" + cost + ";DB_CLOSE_DELAY=-1", "sa", "",
+                4, 64, 10_000, 1, 64);
+        new SchemaMigrator(pool, SchemaMigrations.all()).migrate();
+        int threads = Runtime.getRuntime().availableProcessors();
+        hasher = new PasswordHasher(cost, threads, 1_024);
+        auth = new AuthService(new UserRepository(pool), hasher);
+        for (int i = 0; i < USERS; i++) {
+            auth.register(SeededDatabase.user(i), PASSWORD, "USER");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        hasher.close();
+        pool.close();
+    }
+
+    @Benchmark
+    public User login() {
+        return auth.login(SeededDatabase.user(ThreadLocalRandom.current().nextInt(USERS)), PASSWORD);
+    }
+
+    @Benchmark
+    public User loginWrongPassword() {
+        return auth.login(SeededDatabase.user(ThreadLocalRandom.current().nextInt(USERS)), "wrong");
+    }
+}
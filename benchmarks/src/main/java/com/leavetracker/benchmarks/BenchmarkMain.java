@@ -0,0 +1,44 @@
+package com.leavetracker.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the benchmarks once per thread count and writes one JSON result file
+ * per run, so releases can be compared with any JMH result viewer or diff.
+ * <p>
+ * Thread counts come from {@code -Dthreads=1,4,16} (the default); results go
+ * to {@code -Dresults=results}. Any other arguments are passed to JMH as
+ * usual, e.g. a benchmark regex or {@code -p rows=10000}.
+ * </p>
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        Path results = Path.of(System.getProperty("results", "results"));
+        Files.createDirectories(results);
+        for (String t : System.getProperty("threads", "1,4,16").split(",")) {
+            int threads = Integer.parseInt(t.trim());
+            Options opts = new OptionsBuilder()
+                    .parent(cli)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(results.resolve("jmh-" + threads + "t.json").toString())
+                    .build();
+            new Runner(opts).run();
+        }
+    }
+}
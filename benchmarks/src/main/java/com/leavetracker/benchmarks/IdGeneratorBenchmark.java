@@ -0,0 +1,67 @@
+package com.leavetracker.benchmarks;
+
+import com.leavetracker.util.ConnectionPool;
+import com.leavetracker.util.HiLoIdGenerator;
+import com.leavetracker.util.IdGenerator;
+import com.leavetracker.util.SchemaMigrations;
+import com.leavetracker.util.SchemaMigrator;
+import com.leavetracker.util.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ID generator throughput; run at several thread counts to see contention.
+ * The plain {@link AtomicLong} counter is the old, single-JVM-only baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"atomic", "snowflake", "hilo"})
+    public String generator;
+
+    private ConnectionPool pool;
+    private IdGenerator ids;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:id-bench-" + generator + ";DB_CLOSE_DELAY=-1", "sa", "",
+                1, 4, 10_000, 1, 8);
+        new SchemaMigrator(pool, SchemaMigrations.all()).migrate();
+        ids = switch (generator) {
+            case "atomic" -> new AtomicLong()::getAndIncrement;
+            case "snowflake" -> new SnowflakeIdGenerator(1);
+            case "hilo" -> new HiLoIdGenerator(pool, "leave_request_id_seq");
+            default -> throw new IllegalArgumentException("Unknown generator: " + generator);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        pool.close();
+    }
+
+    @Benchmark
+    public long nextId() {
+        return ids.nextId();
+    }
+}
@@ -0,0 +1,85 @@
+package com.leavetracker.benchmarks;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-row and bulk reads and writes through
+ * {@link com.leavetracker.repository.LeaveRequestRepository} against a seeded
+ * database. Thread count comes from the runner ({@code -t}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LeaveRequestRepositoryBenchmark {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 1, 5);
+
+    /**
+     * Every request becomes pending again before each iteration, so
+     * {@link #updateStatus} measures real updates rather than rejected ones
+     * until the iteration has touched every row.
+     */
+    @Setup(Level.Iteration)
+    public void resetStatuses(SeededDatabase db) throws SQLException {
+        try (Connection conn = db.pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "UPDATE leave_requests SET status = ? WHERE status <> ?")) {
+            ps.setShort(1, LeaveStatus.PENDING.code());
+            ps.setShort(2, LeaveStatus.PENDING.code());
+            ps.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public boolean save(SeededDatabase db) {
+        long id = db.nextId.getAndIncrement();
+        return db.repo.save(new LeaveRequest(id, SeededDatabase.randomUser(), DAY, DAY.plusDays(2),
+                LeaveType.VACATION, "benchmark"));
+    }
+
+    @Benchmark
+    public Optional<LeaveRequest> findById(SeededDatabase db) {
+        return db.repo.findById(db.randomId());
+    }
+
+    @Benchmark
+    public List<LeaveRequest> findByUsername(SeededDatabase db) {
+        return db.repo.findByUsername(SeededDatabase.randomUser());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<LeaveRequest> findAll(SeededDatabase db) {
+        return db.repo.findAll();
+    }
+
+    @Benchmark
+    public boolean updateStatus(SeededDatabase db) {
+        return db.repo.updateStatus(db.randomId(), LeaveStatus.APPROVED);
+    }
+}
@@ -0,0 +1,93 @@
+package com.leavetracker.benchmarks;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.repository.LeaveRequestRepository;
+import com.leavetracker.util.ConnectionPool;
+import com.leavetracker.util.SchemaMigrations;
+import com.leavetracker.util.SchemaMigrator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory H2 database, migrated to the current schema and seeded with
+ * {@link #rows} pending leave requests spread over {@value #USERS} users.
+ * Shared by every benchmark thread; rebuilt for each {@code rows} value.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    /** Distinct usernames in the seed data. */
+    public static final int USERS = 1_000;
+
+    private static final int SEED_BATCH = 5_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    ConnectionPool pool;
+    LeaveRequestRepository repo;
+    /** Next ID for requests inserted by a benchmark; seeded IDs are {@code [0, rows)}. */
+    final AtomicLong nextId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:bench-" + rows + ";DB_CLOSE_DELAY=-1", "sa", "",
+                4, 64, 10_000, 1, 64);
+        new SchemaMigrator(pool, SchemaMigrations.all()).migrate();
+        repo = new LeaveRequestRepository(pool);
+
+        Random rnd = new Random(42);
+        LocalDate epoch = LocalDate.of(2020, 1, 1);
+        List<LeaveRequest> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < rows; i++) {
+            LocalDate start = epoch.plusDays(rnd.nextInt(5 * 365));
+            batch.add(new LeaveRequest(i, user(rnd.nextInt(USERS)), start, start.plusDays(rnd.nextInt(21)),
+                    LeaveType.values()[rnd.nextInt(LeaveType.values().length)], "seeded request " + i));
+            if (batch.size() == SEED_BATCH) {
+                repo.saveAll(batch, SEED_BATCH);
+                batch.clear();
+            }
+        }
+        repo.saveAll(batch, SEED_BATCH);
+        nextId.set(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void drop() throws SQLException {
+        try (Connection conn = pool.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        } finally {
+            pool.close();
+        }
+    }
+
+    /** @return a seeded request ID */
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(rows);
+    }
+
+    /** @return a username that owns seeded requests */
+    static String randomUser() {
+        return user(ThreadLocalRandom.current().nextInt(USERS));
+    }
+
+    static String user(int n) {
+        return "user" + n;
+    }
+}
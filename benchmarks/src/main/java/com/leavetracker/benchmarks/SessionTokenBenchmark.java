@@ -0,0 +1,55 @@
+package com.leavetracker.benchmarks;
+
+import com.leavetracker.auth.SessionToken;
+import com.leavetracker.auth.SessionTokens;
+import com.leavetracker.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issuing and verifying {@link SessionTokens}. Compare with
+ * {@link AuthServiceBenchmark#login}, the BCrypt check a token replaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionTokenBenchmark {
+
+    private SessionTokens tokens;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void issueOne() {
+        tokens = new SessionTokens(List.of(new byte[32]), Duration.ofHours(1), Clock.systemUTC());
+        user = new User("user123", "unused", "USER");
+        token = tokens.issue(user);
+    }
+
+    @Benchmark
+    public String issue() {
+        return tokens.issue(user);
+    }
+
+    @Benchmark
+    public SessionToken verify() {
+        return tokens.verify(token);
+    }
+}
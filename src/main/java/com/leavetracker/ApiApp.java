@@ -0,0 +1,31 @@
+package com.leavetracker;
+
+import com.leavetracker.api.ApiServer;
+import com.leavetracker.auth.AuthService;
+import com.leavetracker.jfr.FieldRecording;
+import com.leavetracker.metrics.MetricsReporter;
+import com.leavetracker.service.AccrualJob;
+import com.leavetracker.service.ArchiveJob;
+import com.leavetracker.service.LeaveService;
+
+import java.io.IOException;
+import java.time.LocalTime;
+
+/**
+ * Headless entry point serving the HTTP/JSON API; see {@link ApiServer} for
+ * the endpoints and settings. This is the process that runs nightly
+ * archiving; see {@link ArchiveJob}.
+ */
+public class ApiApp {
+    public static void main(String[] args) throws IOException {
+        FieldRecording.startFromSystemProperties();
+        AccrualJob.fromSystemProperties().scheduleNightly(LocalTime.of(2, 0));
+        if (Boolean.parseBoolean(System.getProperty("leavetracker.archive.nightly", "true"))) {
+            ArchiveJob.fromSystemProperties().scheduleNightly(LocalTime.of(3, 0));
+        }
+        MetricsReporter.fromSystemProperties().start();
+        ApiServer server = ApiServer.fromSystemProperties(new AuthService(), new LeaveService());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "api-shutdown"));
+        server.start();
+    }
+}
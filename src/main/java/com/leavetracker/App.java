@@ -1,11 +1,19 @@
 package com.leavetracker;
 
 import com.leavetracker.auth.AuthService;
+import com.leavetracker.jfr.FieldRecording;
+import com.leavetracker.metrics.MetricsReporter;
+import com.leavetracker.service.AccrualJob;
 import com.leavetracker.service.LeaveService;
 import com.leavetracker.ui.ConsoleUI;
 
+import java.time.LocalTime;
+
 public class App {
     public static void main(String[] args) {
+        FieldRecording.startFromSystemProperties();
+        AccrualJob.fromSystemProperties().scheduleNightly(LocalTime.of(2, 0));
+        MetricsReporter.fromSystemProperties().start();
         var auth = new AuthService();
         var leave = new LeaveService();
         new ConsoleUI(auth, leave).start();
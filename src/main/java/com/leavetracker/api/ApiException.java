@@ -0,0 +1,25 @@
+package com.leavetracker.api;
+
+/**
+ * A request the API refuses, carrying the HTTP status to answer with.
+ */
+class ApiException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    /**
+     * @param status  HTTP status code
+     * @param message reason reported to the client
+     */
+    ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    /** @return HTTP status code */
+    int status() {
+        return status;
+    }
+}
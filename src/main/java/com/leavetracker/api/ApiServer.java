@@ -0,0 +1,564 @@
+package com.leavetracker.api;
+
+import com.leavetracker.auth.AuthService;
+import com.leavetracker.auth.SessionToken;
+import com.leavetracker.auth.SessionTokens;
+import com.leavetracker.metrics.LatencyHistogram;
+import com.leavetracker.metrics.Metrics;
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.repository.Page;
+import com.leavetracker.repository.PageCursor;
+import com.leavetracker.service.LeaveConflictException;
+import com.leavetracker.service.LeaveService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Embedded HTTP/JSON API over {@link AuthService} and {@link LeaveService}.
+ * <p>
+ * Connections are accepted and parsed by the JDK server's single selector
+ * thread; each request then runs on a fixed pool of handler threads, so
+ * thousands of mostly idle keep-alive clients cost a socket each rather than
+ * a thread each. The pool only needs to be large enough to keep the database
+ * pool busy: logins are answered from {@link AuthService#loginAsync}
+ * without holding a handler thread, and get 503 when hashing is saturated.
+ * Requests beyond a bounded queue in front of the handlers get 503 at once,
+ * answered on the selector thread, rather than piling up in memory.
+ * </p>
+ * <p>
+ * The server speaks plain HTTP and binds to loopback by default; passwords
+ * and tokens cross the wire in clear, so any other deployment needs TLS in
+ * front of it.
+ * </p>
+ * <pre>
+ * POST /api/login                    {"username","password"} -&gt; {"token",...}
+ * POST /api/logout                   revokes the caller's token
+ * GET  /api/requests?limit=&amp;after=&amp;user=   one page, next cursor in "next"
+ * POST /api/requests                 {"startDate","endDate","type","reason"}
+ * GET  /api/requests/{id}
+ * POST /api/requests/{id}/approve    admins only
+ * POST /api/requests/{id}/deny       admins only
+ * POST /api/requests/{id}/cancel     owner or admin
+ * </pre>
+ * Every call except login needs {@code Authorization: Bearer <token>}, a
+ * {@link SessionTokens} token checked without touching the database.
+ * Calls are timed as {@code api.*} in {@link Metrics#shared()}.
+ */
+public class ApiServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiServer.class);
+
+    private static final String PREFIX = "/api/";
+    private static final int MAX_BODY = 16 * 1024;
+    static final int DEFAULT_PAGE = 50;
+    static final int MAX_PAGE = 500;
+
+    private static final LatencyHistogram LOGIN_TIMER = Metrics.shared().timer("api.login");
+    private static final LatencyHistogram LIST_TIMER = Metrics.shared().timer("api.list");
+    private static final LatencyHistogram GET_TIMER = Metrics.shared().timer("api.get");
+    private static final LatencyHistogram CREATE_TIMER = Metrics.shared().timer("api.create");
+    private static final LatencyHistogram DECISION_TIMER = Metrics.shared().timer("api.decision");
+    private static final LongAdder ERRORS = Metrics.shared().counter("api.errors");
+    private static final LongAdder REJECTED = Metrics.shared().counter("api.rejected");
+    /** Handler queue slots used by constructors that do not take a queue size. */
+    static final int DEFAULT_QUEUE = 1024;
+    /** Set while a request the handler pool refused runs on the selector thread. */
+    private static final ThreadLocal<Boolean> SHEDDING = ThreadLocal.withInitial(() -> false);
+
+    static {
+        // read once by the JDK server: keep more than the default 200 idle keep-alive
+        // connections, and disable Nagle so small responses are not held back by delayed ACKs
+        defaultProperty("sun.net.httpserver.maxIdleConnections", "4096");
+        defaultProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final AuthService auth;
+    private final LeaveService leave;
+    private final SessionTokens tokens;
+    private final HttpServer server;
+    private final ThreadPoolExecutor handlers;
+    private final ScheduledExecutorService housekeeping = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "api-revocations");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Bind the server; requests are not served until {@link #start()}.
+     *
+     * @param auth       sign-in
+     * @param leave      leave requests
+     * @param address    where to listen; port 0 picks a free port
+     * @param threads    handler threads
+     * @param backlog    pending connections the OS may queue
+     * @param tokens     issues and checks the bearer tokens returned by login
+     * @throws IOException if the address cannot be bound
+     */
+    public ApiServer(AuthService auth, LeaveService leave, InetSocketAddress address,
+                     int threads, int backlog, SessionTokens tokens) throws IOException {
+        this(auth, leave, address, threads, DEFAULT_QUEUE, backlog, tokens);
+    }
+
+    /**
+     * Bind the server; requests are not served until {@link #start()}.
+     *
+     * @param auth       sign-in
+     * @param leave      leave requests
+     * @param address    where to listen; port 0 picks a free port
+     * @param threads    handler threads
+     * @param queue      requests that may wait for a handler thread before the rest get 503
+     * @param backlog    pending connections the OS may queue
+     * @param tokens     issues and checks the bearer tokens returned by login
+     * @throws IOException if the address cannot be bound
+     */
+    public ApiServer(AuthService auth, LeaveService leave, InetSocketAddress address,
+                     int threads, int queue, int backlog, SessionTokens tokens) throws IOException {
+        this.auth = auth;
+        this.leave = leave;
+        this.tokens = tokens;
+        AtomicInteger seq = new AtomicInteger();
+        this.handlers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue),
+                r -> {
+                    Thread t = new Thread(r, "api-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, pool) -> shed(r));
+        this.server = HttpServer.create(address, backlog);
+        server.setExecutor(handlers);
+        server.createContext(PREFIX, this::handle);
+    }
+
+    /**
+     * Bind to {@code leavetracker.api.host} (default 127.0.0.1) and
+     * {@code leavetracker.api.port} (default 8080) with
+     * {@code leavetracker.api.threads} handler threads (default 64),
+     * {@code leavetracker.api.queue} waiting requests (default 1024),
+     * {@code leavetracker.api.backlog} (default 1024) and tokens from
+     * {@link SessionTokens#fromSystemProperties()}.
+     *
+     * @param auth  sign-in
+     * @param leave leave requests
+     * @return a bound, not yet started server
+     * @throws IOException if the port cannot be bound
+     */
+    public static ApiServer fromSystemProperties(AuthService auth, LeaveService leave) throws IOException {
+        return new ApiServer(auth, leave,
+                new InetSocketAddress(System.getProperty("leavetracker.api.host", "127.0.0.1"),
+                        Integer.getInteger("leavetracker.api.port", 8080)),
+                Integer.getInteger("leavetracker.api.threads", 64),
+                Integer.getInteger("leavetracker.api.queue", DEFAULT_QUEUE),
+                Integer.getInteger("leavetracker.api.backlog", 1024),
+                SessionTokens.fromSystemProperties());
+    }
+
+    /** Start serving requests. */
+    public void start() {
+        server.start();
+        housekeeping.scheduleAtFixedRate(tokens::purgeRevocations, 1, 1, TimeUnit.MINUTES);
+        log.info("API listening on {}", server.getAddress());
+    }
+
+    /** @return the bound port */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stop accepting connections and let running requests finish. */
+    @Override
+    public void close() {
+        server.stop(0);
+        housekeeping.shutdownNow();
+        handlers.shutdown();
+    }
+
+    /** Run a request the handler pool refused just far enough to answer 503. */
+    private static void shed(Runnable exchange) {
+        REJECTED.increment();
+        SHEDDING.set(true);
+        try {
+            exchange.run();
+        } finally {
+            SHEDDING.set(false);
+        }
+    }
+
+    private void handle(HttpExchange ex) {
+        if (SHEDDING.get()) {
+            send(ex, error(503, "Server busy, try again shortly"));
+            return;
+        }
+        CompletableFuture<Response> pending;
+        try {
+            pending = route(ex);
+        } catch (IOException | RuntimeException e) {
+            pending = CompletableFuture.failedFuture(e);
+        }
+        pending.handle((response, err) -> err == null ? response : failure(ex, err))
+                .thenAccept(response -> send(ex, response));
+    }
+
+    private CompletableFuture<Response> route(HttpExchange ex) throws IOException {
+        String path = ex.getRequestURI().getPath();
+        String rest = path.length() > PREFIX.length() ? path.substring(PREFIX.length()) : "";
+        if (rest.endsWith("/")) {
+            rest = rest.substring(0, rest.length() - 1);
+        }
+        String[] parts = rest.split("/");
+        String method = ex.getRequestMethod();
+
+        if (parts.length == 1 && parts[0].equals("login")) {
+            requireMethod(method, "POST");
+            return login(readBody(ex));
+        }
+        if (parts.length == 1 && parts[0].equals("logout")) {
+            requireMethod(method, "POST");
+            tokens.revoke(authenticate(ex));
+            return completedFuture(new Response(200, "{}"));
+        }
+        if (parts[0].equals("requests")) {
+            SessionToken session = authenticate(ex);
+            switch (parts.length) {
+                case 1:
+                    if (method.equals("GET")) {
+                        return completedFuture(list(session, query(ex)));
+                    }
+                    requireMethod(method, "POST");
+                    return completedFuture(create(session, readBody(ex)));
+                case 2:
+                    requireMethod(method, "GET");
+                    return completedFuture(get(session, parseId(parts[1])));
+                case 3:
+                    requireMethod(method, "POST");
+                    return completedFuture(decide(session, parseId(parts[1]), parts[2]));
+                default:
+                    break;
+            }
+        }
+        throw new ApiException(404, "No such endpoint: " + path);
+    }
+
+    /**
+     * Verify the password on the hasher's executor without holding a handler
+     * thread, so a burst of sign-ins cannot starve the other endpoints.
+     */
+    private CompletableFuture<Response> login(Map<String, String> body) {
+        long start = System.nanoTime();
+        String username = required(body, "username");
+        String password = required(body, "password");
+        return auth.loginAsync(username, password)
+                .thenApplyAsync(user -> {
+                    if (user == null) {
+                        throw new ApiException(401, "Invalid username or password");
+                    }
+                    return new Response(200, new Json.Writer().beginObject()
+                            .field("token", tokens.issue(user))
+                            .field("username", user.getUsername())
+                            .field("role", user.getRole())
+                            .field("expiresIn", tokens.ttl().toSeconds())
+                            .endObject().toString());
+                }, handlers)
+                .whenComplete((response, err) -> LOGIN_TIMER.recordSince(start));
+    }
+
+    private Response list(SessionToken session, Map<String, String> query) {
+        long start = System.nanoTime();
+        try {
+            int limit = query.containsKey("limit") ? parseInt(query.get("limit"), "limit") : DEFAULT_PAGE;
+            if (limit < 1 || limit > MAX_PAGE) {
+                throw new ApiException(400, "limit must be between 1 and " + MAX_PAGE);
+            }
+            PageCursor after = parseCursor(query.get("after"));
+            String user = query.get("user");
+            if (!session.isAdmin()) {
+                if (user != null && !user.equals(session.username())) {
+                    throw new ApiException(403, "Only admins can list other users' requests");
+                }
+                user = session.username();
+            }
+            Page<LeaveRequest> page = user == null
+                    ? leave.getAllRequestsPage(after, limit)
+                    : leave.getRequestsForUserPage(user, after, limit);
+
+            Json.Writer json = new Json.Writer().beginObject().beginArray("items");
+            for (LeaveRequest r : page.items()) {
+                write(json, r);
+            }
+            json.endArray().field("next", page.hasNext() ? formatCursor(page.next()) : null);
+            return new Response(200, json.endObject().toString());
+        } finally {
+            LIST_TIMER.recordSince(start);
+        }
+    }
+
+    private Response get(SessionToken session, long id) {
+        long start = System.nanoTime();
+        try {
+            LeaveRequest r = visibleRequest(session, id);
+            return new Response(200, write(new Json.Writer(), r).toString());
+        } finally {
+            GET_TIMER.recordSince(start);
+        }
+    }
+
+    private Response create(SessionToken session, Map<String, String> body) {
+        long start = System.nanoTime();
+        try {
+            LocalDate startDate = parseDate(required(body, "startDate"), "startDate");
+            LocalDate endDate = parseDate(required(body, "endDate"), "endDate");
+            if (endDate.isBefore(startDate)) {
+                throw new ApiException(400, "endDate is before startDate");
+            }
+            LeaveType type;
+            try {
+                type = LeaveType.valueOf(required(body, "type"));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Unknown leave type: " + body.get("type"));
+            }
+            String reason = body.getOrDefault("reason", "");
+            LeaveRequest r = leave.createRequest(session.username(), startDate, endDate, type,
+                    reason == null ? "" : reason);
+            return new Response(201, write(new Json.Writer(), r).toString());
+        } finally {
+            CREATE_TIMER.recordSince(start);
+        }
+    }
+
+    private Response decide(SessionToken session, long id, String action) {
+        long start = System.nanoTime();
+        try {
+            LeaveRequest r = visibleRequest(session, id);
+            boolean done;
+            LeaveStatus target;
+            switch (action) {
+                case "approve" -> {
+                    requireAdmin(session);
+                    done = leave.approveRequest(id, session.username());
+                    target = LeaveStatus.APPROVED;
+                }
+                case "deny" -> {
+                    requireAdmin(session);
+                    done = leave.denyRequest(id, session.username());
+                    target = LeaveStatus.DENIED;
+                }
+                case "cancel" -> {
+                    done = leave.cancelRequest(id, session.username());
+                    target = LeaveStatus.CANCELLED;
+                }
+                default -> throw new ApiException(404, "No such action: " + action);
+            }
+            if (!done) {
+                throw new ApiException(409, "Request " + id + " cannot be moved from " + r.getStatus()
+                        + " to " + target);
+            }
+            return new Response(200, new Json.Writer().beginObject()
+                    .field("id", id)
+                    .field("status", target.name())
+                    .endObject().toString());
+        } finally {
+            DECISION_TIMER.recordSince(start);
+        }
+    }
+
+    /** @return the request if it exists and the caller may see it */
+    private LeaveRequest visibleRequest(SessionToken session, long id) {
+        return leave.getRequestById(id)
+                .filter(r -> session.isAdmin() || r.getUsername().equals(session.username()))
+                .orElseThrow(() -> new ApiException(404, "No leave request " + id));
+    }
+
+    private SessionToken authenticate(HttpExchange ex) {
+        String header = ex.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            throw new ApiException(401, "Missing bearer token");
+        }
+        SessionToken session = tokens.verify(header.substring(7).trim());
+        if (session == null) {
+            throw new ApiException(401, "Invalid or expired token");
+        }
+        return session;
+    }
+
+    private static void requireAdmin(SessionToken session) {
+        if (!session.isAdmin()) {
+            throw new ApiException(403, "Only admins can approve or deny requests");
+        }
+    }
+
+    private static void requireMethod(String actual, String expected) {
+        if (!actual.equals(expected)) {
+            throw new ApiException(405, "Use " + expected);
+        }
+    }
+
+    private static Map<String, String> readBody(HttpExchange ex) throws IOException {
+        byte[] bytes;
+        try (InputStream in = ex.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY + 1);
+        }
+        if (bytes.length > MAX_BODY) {
+            throw new ApiException(413, "Request body is larger than " + MAX_BODY + " bytes");
+        }
+        try {
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "Malformed JSON: " + e.getMessage());
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> params = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null || value.isBlank()) {
+            throw new ApiException(400, "Missing " + name);
+        }
+        return value;
+    }
+
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "No leave request " + text);
+        }
+    }
+
+    private static int parseInt(String text, String name) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be a number");
+        }
+    }
+
+    private static LocalDate parseDate(String text, String name) {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, name + " must be an ISO date such as 2025-06-01");
+        }
+    }
+
+    /** Cursors travel as {@code <startDate>_<id>}. */
+    static String formatCursor(PageCursor cursor) {
+        return cursor.startDate() + "_" + cursor.id();
+    }
+
+    static PageCursor parseCursor(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        int sep = text.indexOf('_');
+        try {
+            return new PageCursor(LocalDate.parse(text.substring(0, sep)), Long.parseLong(text.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new ApiException(400, "Malformed cursor: " + text);
+        }
+    }
+
+    private static Json.Writer write(Json.Writer json, LeaveRequest r) {
+        return json.beginObject()
+                .field("id", r.getId())
+                .field("username", r.getUsername())
+                .field("startDate", r.getStartDate().toString())
+                .field("endDate", r.getEndDate().toString())
+                .field("type", r.getType().name())
+                .field("reason", r.getReason())
+                .field("status", r.getStatus().name())
+                .field("version", r.getVersion())
+                .endObject();
+    }
+
+    private static void defaultProperty(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+
+    private static Response failure(HttpExchange ex, Throwable err) {
+        Throwable e = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+        if (e instanceof ApiException api) {
+            return error(api.status(), api.getMessage());
+        }
+        if (e instanceof LeaveConflictException) {
+            return error(409, e.getMessage());
+        }
+        if (e instanceof RejectedExecutionException) {
+            return error(503, "Too many sign-ins in progress, try again shortly");
+        }
+        if (e instanceof IOException) {
+            log.debug("Could not read {} {}", ex.getRequestMethod(), ex.getRequestURI(), e);
+            return error(400, "Could not read request");
+        }
+        ERRORS.increment();
+        log.error("Error handling {} {}", ex.getRequestMethod(), ex.getRequestURI(), e);
+        return error(500, "Internal error");
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, new Json.Writer().beginObject().field("error", message).endObject().toString());
+    }
+
+    private static void send(HttpExchange ex, Response response) {
+        try {
+            byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (response.status() == 503) {
+                ex.getResponseHeaders().set("Retry-After", "1");
+            }
+            ex.sendResponseHeaders(response.status(), bytes.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            log.debug("Client went away during {} {}", ex.getRequestMethod(), ex.getRequestURI(), e);
+        } finally {
+            ex.close();
+        }
+    }
+
+    private record Response(int status, String body) {
+    }
+}
@@ -0,0 +1,234 @@
+package com.leavetracker.api;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the API: request bodies are flat objects whose values
+ * are read as strings, and responses are written with {@link Writer}.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Parse a flat object such as {@code {"username":"ann","days":3}}. Nested
+     * objects and arrays are rejected; numbers, booleans and null are returned
+     * as their literal text (null as a Java null).
+     *
+     * @param text request body
+     * @return member values by name
+     * @throws IllegalArgumentException if the body is not a flat JSON object
+     */
+    static Map<String, String> parseObject(String text) {
+        Parser p = new Parser(text);
+        Map<String, String> members = new HashMap<>();
+        p.skipWhitespace();
+        p.expect('{');
+        p.skipWhitespace();
+        if (p.peek() == '}') {
+            p.pos++;
+        } else {
+            while (true) {
+                p.skipWhitespace();
+                String name = p.string();
+                p.skipWhitespace();
+                p.expect(':');
+                p.skipWhitespace();
+                members.put(name, p.value());
+                p.skipWhitespace();
+                if (p.peek() == ',') {
+                    p.pos++;
+                    continue;
+                }
+                p.expect('}');
+                break;
+            }
+        }
+        p.skipWhitespace();
+        if (p.pos != text.length()) {
+            throw new IllegalArgumentException("Trailing characters after JSON object");
+        }
+        return members;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON");
+            }
+            return text.charAt(pos);
+        }
+
+        void expect(char c) {
+            if (peek() != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at offset " + pos);
+            }
+            pos++;
+        }
+
+        void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        String value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("Nested values are not supported at offset " + pos);
+            }
+            int start = pos;
+            while (pos < text.length() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Missing value at offset " + start);
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = peek();
+                pos++;
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = peek();
+                pos++;
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("Bad unicode escape at offset " + pos);
+                        }
+                        sb.append((char) Integer.parseInt(text, pos, pos + 4, 16));
+                        pos += 4;
+                    }
+                    default -> throw new IllegalArgumentException("Bad escape at offset " + pos);
+                }
+            }
+        }
+    }
+
+    /** Appends JSON objects and arrays to a buffer, inserting commas as needed. */
+    static final class Writer {
+        private final StringBuilder out = new StringBuilder(256);
+        private boolean first = true;
+
+        Writer beginObject() {
+            separate();
+            out.append('{');
+            first = true;
+            return this;
+        }
+
+        Writer endObject() {
+            out.append('}');
+            first = false;
+            return this;
+        }
+
+        Writer beginArray(String name) {
+            name(name);
+            out.append('[');
+            first = true;
+            return this;
+        }
+
+        Writer endArray() {
+            out.append(']');
+            first = false;
+            return this;
+        }
+
+        Writer field(String name, String value) {
+            name(name);
+            if (value == null) {
+                out.append("null");
+            } else {
+                quote(value);
+            }
+            first = false;
+            return this;
+        }
+
+        Writer field(String name, long value) {
+            name(name);
+            out.append(value);
+            first = false;
+            return this;
+        }
+
+        Writer field(String name, boolean value) {
+            name(name);
+            out.append(value);
+            first = false;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return out.toString();
+        }
+
+        private void name(String name) {
+            separate();
+            quote(name);
+            out.append(':');
+            first = true;
+        }
+
+        private void separate() {
+            if (!first) {
+                out.append(',');
+            }
+        }
+
+        private void quote(String s) {
+            out.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"' -> out.append("\\\"");
+                    case '\\' -> out.append("\\\\");
+                    case '\n' -> out.append("\\n");
+                    case '\r' -> out.append("\\r");
+                    case '\t' -> out.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            out.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.append(c);
+                        }
+                    }
+                }
+            }
+            out.append('"');
+        }
+    }
+}
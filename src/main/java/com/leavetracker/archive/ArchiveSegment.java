@@ -0,0 +1,359 @@
+package com.leavetracker.archive;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable archive file of leave requests, read through a
+ * {@link MappedByteBuffer}.
+ * <p>
+ * Rows are stored column by column, each column deflated on its own, so a
+ * query only inflates the columns it filters on until it has found matching
+ * rows. The uncompressed header doubles as the segment's index: the date
+ * range its rows cover and the sorted list of usernames in it, which is
+ * also the dictionary the username column is encoded against.
+ * </p>
+ * <pre>
+ *   int    magic "LVAR"      short format
+ *   int    rows              int   min start, int max end (epoch days)
+ *   int    user count        then per user: short length, UTF-8 bytes
+ *   per column: int offset, int compressed length, int raw length
+ *   column data
+ * </pre>
+ */
+final class ArchiveSegment {
+
+    static final int MAGIC = 0x4C564152;
+    static final short FORMAT = 1;
+
+    private static final int COL_ID = 0;
+    private static final int COL_USER = 1;
+    private static final int COL_START = 2;
+    private static final int COL_END = 3;
+    private static final int COL_TYPE = 4;
+    private static final int COL_STATUS = 5;
+    private static final int COL_VERSION = 6;
+    private static final int COL_REASON = 7;
+    private static final int COLUMNS = 8;
+
+    private final Path file;
+    private final MappedByteBuffer map;
+    private final int rows;
+    private final long minStart;
+    private final long maxEnd;
+    private final String[] users;
+    private final int[] offsets = new int[COLUMNS];
+    private final int[] lengths = new int[COLUMNS];
+    private final int[] rawLengths = new int[COLUMNS];
+
+    private ArchiveSegment(Path file, MappedByteBuffer map) throws IOException {
+        this.file = file;
+        this.map = map;
+        if (map.getInt(0) != MAGIC || map.getShort(4) != FORMAT) {
+            throw new IOException("Not an archive segment: " + file);
+        }
+        ByteBuffer header = map.duplicate().position(6);
+        rows = header.getInt();
+        minStart = header.getInt();
+        maxEnd = header.getInt();
+        users = new String[header.getInt()];
+        for (int i = 0; i < users.length; i++) {
+            byte[] name = new byte[Short.toUnsignedInt(header.getShort())];
+            header.get(name);
+            users[i] = new String(name, StandardCharsets.UTF_8);
+        }
+        for (int c = 0; c < COLUMNS; c++) {
+            offsets[c] = header.getInt();
+            lengths[c] = header.getInt();
+            rawLengths[c] = header.getInt();
+        }
+    }
+
+    /**
+     * Map a segment file and read its header.
+     *
+     * @param file an existing segment
+     * @return the open segment
+     * @throws IOException if the file cannot be read or is not a segment
+     */
+    static ArchiveSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new ArchiveSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write rows as a new segment. The file is written under a temporary
+     * name, forced to disk and then renamed, so {@code file} either does not
+     * exist or is complete.
+     *
+     * @param file where the segment goes
+     * @param rows the rows to store, at least one
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path file, List<LeaveRequest> rows) throws IOException {
+        int n = rows.size();
+        String[] users = rows.stream().map(LeaveRequest::getUsername).distinct().sorted().toArray(String[]::new);
+        Map<String, Integer> codes = new HashMap<>();
+        for (int i = 0; i < users.length; i++) {
+            codes.put(users[i], i);
+        }
+        ByteBuffer ids = ByteBuffer.allocate(8 * n);
+        ByteBuffer userCodes = ByteBuffer.allocate(4 * n);
+        ByteBuffer starts = ByteBuffer.allocate(4 * n);
+        ByteBuffer ends = ByteBuffer.allocate(4 * n);
+        ByteBuffer types = ByteBuffer.allocate(n);
+        ByteBuffer statuses = ByteBuffer.allocate(n);
+        ByteBuffer versions = ByteBuffer.allocate(4 * n);
+        ByteArrayOutputStream reasons = new ByteArrayOutputStream(32 * n);
+        long minStart = Long.MAX_VALUE;
+        long maxEnd = Long.MIN_VALUE;
+        for (LeaveRequest r : rows) {
+            long start = r.getStartDate().toEpochDay();
+            long end = r.getEndDate().toEpochDay();
+            minStart = Math.min(minStart, start);
+            maxEnd = Math.max(maxEnd, end);
+            ids.putLong(r.getId());
+            userCodes.putInt(codes.get(r.getUsername()));
+            starts.putInt((int) start);
+            ends.putInt((int) end);
+            types.put((byte) r.getType().code());
+            statuses.put((byte) r.getStatus().code());
+            versions.putInt(r.getVersion());
+            byte[] reason = r.getReason() == null ? null : r.getReason().getBytes(StandardCharsets.UTF_8);
+            writeInt(reasons, reason == null ? -1 : reason.length);
+            if (reason != null) {
+                reasons.write(reason, 0, reason.length);
+            }
+        }
+        byte[][] raw = {ids.array(), userCodes.array(), starts.array(), ends.array(),
+                types.array(), statuses.array(), versions.array(), reasons.toByteArray()};
+        byte[][] packed = new byte[COLUMNS][];
+        for (int c = 0; c < COLUMNS; c++) {
+            packed[c] = deflate(raw[c]);
+        }
+
+        byte[][] names = new byte[users.length][];
+        int headerSize = 4 + 2 + 4 + 4 + 4 + 4 + COLUMNS * 12;
+        for (int i = 0; i < users.length; i++) {
+            names[i] = users[i].getBytes(StandardCharsets.UTF_8);
+            headerSize += 2 + names[i].length;
+        }
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.putInt(MAGIC).putShort(FORMAT).putInt(n).putInt((int) minStart).putInt((int) maxEnd);
+        header.putInt(users.length);
+        for (byte[] name : names) {
+            header.putShort((short) name.length).put(name);
+        }
+        int offset = headerSize;
+        for (int c = 0; c < COLUMNS; c++) {
+            header.putInt(offset).putInt(packed[c].length).putInt(raw[c].length);
+            offset += packed[c].length;
+        }
+        header.flip();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+            for (byte[] column : packed) {
+                writeFully(channel, ByteBuffer.wrap(column));
+            }
+            channel.force(true);
+        }
+        // never replace a segment someone else wrote; FileAlreadyExistsException instead
+        Files.move(tmp, file);
+    }
+
+    /** @return the segment file */
+    Path file() {
+        return file;
+    }
+
+    /** @return rows stored */
+    int rows() {
+        return rows;
+    }
+
+    /** @return earliest start date of any row */
+    LocalDate minStart() {
+        return LocalDate.ofEpochDay(minStart);
+    }
+
+    /** @return latest end date of any row */
+    LocalDate maxEnd() {
+        return LocalDate.ofEpochDay(maxEnd);
+    }
+
+    /**
+     * @param username a user
+     * @return true if the segment holds any of that user's requests
+     */
+    boolean containsUser(String username) {
+        return Arrays.binarySearch(users, username) >= 0;
+    }
+
+    /**
+     * @param from first day of the range
+     * @param to   last day of the range
+     * @return true if some row may share a day with the range
+     */
+    boolean mayOverlap(LocalDate from, LocalDate to) {
+        return maxEnd >= from.toEpochDay() && minStart <= to.toEpochDay();
+    }
+
+    /**
+     * @param username a user
+     * @return that user's rows, in stored order
+     */
+    List<LeaveRequest> findByUsername(String username) {
+        int code = Arrays.binarySearch(users, username);
+        if (code < 0) {
+            return List.of();
+        }
+        ByteBuffer userCodes = column(COL_USER);
+        int[] matches = new int[rows];
+        int found = 0;
+        for (int i = 0; i < rows; i++) {
+            if (userCodes.getInt(4 * i) == code) {
+                matches[found++] = i;
+            }
+        }
+        return materialize(Arrays.copyOf(matches, found));
+    }
+
+    /**
+     * @param from first day of the range
+     * @param to   last day of the range
+     * @return rows that share at least one day with the range, in stored order
+     */
+    List<LeaveRequest> findOverlapping(LocalDate from, LocalDate to) {
+        if (!mayOverlap(from, to)) {
+            return List.of();
+        }
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        ByteBuffer starts = column(COL_START);
+        ByteBuffer ends = column(COL_END);
+        int[] matches = new int[rows];
+        int found = 0;
+        for (int i = 0; i < rows; i++) {
+            if (starts.getInt(4 * i) <= last && ends.getInt(4 * i) >= first) {
+                matches[found++] = i;
+            }
+        }
+        return materialize(Arrays.copyOf(matches, found));
+    }
+
+    /** Decode the remaining columns for the given rows, in ascending row order. */
+    private List<LeaveRequest> materialize(int[] matches) {
+        List<LeaveRequest> out = new ArrayList<>(matches.length);
+        if (matches.length == 0) {
+            return out;
+        }
+        ByteBuffer ids = column(COL_ID);
+        ByteBuffer userCodes = column(COL_USER);
+        ByteBuffer starts = column(COL_START);
+        ByteBuffer ends = column(COL_END);
+        ByteBuffer types = column(COL_TYPE);
+        ByteBuffer statuses = column(COL_STATUS);
+        ByteBuffer versions = column(COL_VERSION);
+        ByteBuffer reasons = column(COL_REASON);
+        int row = 0;
+        for (int i : matches) {
+            // reasons are variable length, so walk past the rows in between
+            for (; row < i; row++) {
+                int len = reasons.getInt();
+                reasons.position(reasons.position() + Math.max(len, 0));
+            }
+            int len = reasons.getInt();
+            String reason = null;
+            if (len >= 0) {
+                reason = new String(reasons.array(), reasons.position(), len, StandardCharsets.UTF_8);
+                reasons.position(reasons.position() + len);
+            }
+            row++;
+            LeaveRequest req = new LeaveRequest(ids.getLong(8 * i), users[userCodes.getInt(4 * i)],
+                    LocalDate.ofEpochDay(starts.getInt(4 * i)), LocalDate.ofEpochDay(ends.getInt(4 * i)),
+                    LeaveType.fromCode(types.get(i)), reason);
+            req.setStatus(LeaveStatus.fromCode(statuses.get(i)));
+            req.setVersion(versions.getInt(4 * i));
+            out.add(req);
+        }
+        return out;
+    }
+
+    private ByteBuffer column(int c) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(map.slice(offsets[c], lengths[c]));
+            ByteBuffer out = ByteBuffer.allocate(rawLengths[c]);
+            while (out.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(out) == 0 && inflater.needsInput()) {
+                    break;
+                }
+            }
+            if (out.hasRemaining()) {
+                throw new IOException("Truncated column " + c + " in " + file);
+            }
+            return out.flip();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupt column " + c + " in " + file, e));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+}
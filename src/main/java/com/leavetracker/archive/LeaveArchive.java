@@ -0,0 +1,320 @@
+package com.leavetracker.archive;
+
+import com.leavetracker.model.LeaveRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Read-mostly store of closed leave requests moved out of {@code leave_requests}.
+ * <p>
+ * The archive is a directory of immutable segment files (see
+ * {@link ArchiveSegment}), each added by one {@link #append} call. Queries
+ * first consult every segment's header to skip those that cannot match, then
+ * scan the rest in parallel. If a crash left a request both in a segment and
+ * in the live table it can be archived twice; reads collapse such duplicates
+ * by ID.
+ * </p>
+ * <p>
+ * Writers are serialized across processes by an exclusive lock on
+ * {@value #LOCK_FILE} in the directory (see {@link #lockForWriting()}). The
+ * next segment number is taken from the files on disk while that lock is
+ * held, and a segment is never renamed over an existing file. Segments
+ * written by other processes are picked up by the next query after the
+ * directory changes.
+ * </p>
+ */
+public class LeaveArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaveArchive.class);
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".seg";
+    private static final String LOCK_FILE = "archive.lock";
+    /** One lock per directory, since a JVM cannot hold two file locks on the same file. */
+    private static final Map<Path, ReentrantLock> DIR_LOCKS = new ConcurrentHashMap<>();
+    private static final Comparator<LeaveRequest> BY_START =
+            Comparator.comparing(LeaveRequest::getStartDate).thenComparingLong(LeaveRequest::getId);
+
+    private final Path dir;
+    private final ReentrantLock writeLock;
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private final Set<Long> loaded = new HashSet<>();
+    private long nextSegment;
+    private FileTime scannedAt;
+    // held while writeLock is, by the thread holding it
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+
+    private LeaveArchive(Path dir) {
+        this.dir = dir;
+        this.writeLock = dir == null ? null
+                : DIR_LOCKS.computeIfAbsent(dir.toAbsolutePath().normalize(), d -> new ReentrantLock());
+    }
+
+    /**
+     * Open (or create) an archive directory and map its segments.
+     *
+     * @param dir where segment files live
+     * @return the archive
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    public static LeaveArchive open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        LeaveArchive archive = new LeaveArchive(dir);
+        // tidy up after a crash now if no writer is busy; otherwise the next writer will
+        Closeable lock = archive.tryLockForWriting();
+        if (lock != null) {
+            lock.close();
+        } else {
+            archive.scan();
+        }
+        return archive;
+    }
+
+    /** @return an archive with no segments that rejects appends */
+    public static LeaveArchive empty() {
+        return new LeaveArchive(null);
+    }
+
+    /**
+     * The archive shared by every service in this JVM, opened on first use at
+     * {@code leavetracker.archive.dir} (default {@code ./data/archive}).
+     *
+     * @return the shared archive
+     */
+    public static LeaveArchive shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Become the only writer of this archive directory, waiting for any other
+     * thread or process that is writing to it. Hold the lock across a whole
+     * archiving run so two runs cannot archive the same rows; {@link #append}
+     * takes it by itself if the caller does not hold it.
+     *
+     * @return closes to release the lock
+     * @throws IOException           if the lock file cannot be opened or locked
+     * @throws IllegalStateException if this is the {@link #empty()} archive
+     */
+    public Closeable lockForWriting() throws IOException {
+        requireDirectory();
+        writeLock.lock();
+        return acquired(true);
+    }
+
+    /**
+     * Write rows as a new segment and make them visible to queries.
+     *
+     * @param rows closed requests to archive
+     * @return the new segment file, or null if {@code rows} is empty
+     * @throws IOException           if the segment cannot be written, or its file already exists
+     * @throws IllegalStateException if this is the {@link #empty()} archive
+     */
+    public Path append(List<LeaveRequest> rows) throws IOException {
+        requireDirectory();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        try (Closeable lock = lockForWriting()) {
+            Path file;
+            synchronized (this) {
+                file = dir.resolve(String.format("%s%010d%s", PREFIX, nextSegment, SUFFIX));
+            }
+            ArchiveSegment.write(file, rows);
+            synchronized (this) {
+                loaded.add(nextSegment);
+                nextSegment++;
+                segments.add(ArchiveSegment.open(file));
+            }
+            return file;
+        }
+    }
+
+    /**
+     * @param username whose archived requests to fetch
+     * @return the user's archived requests ordered by start date
+     */
+    public List<LeaveRequest> findByUsername(String username) {
+        return query(s -> s.containsUser(username), s -> s.findByUsername(username));
+    }
+
+    /**
+     * @param from first day of the range
+     * @param to   last day of the range
+     * @return archived requests sharing at least one day with the range, ordered by start date
+     */
+    public List<LeaveRequest> findOverlapping(LocalDate from, LocalDate to) {
+        return query(s -> s.mayOverlap(from, to), s -> s.findOverlapping(from, to));
+    }
+
+    /** @return number of segment files */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /** @return archived rows, counting any duplicates */
+    public long size() {
+        long rows = 0;
+        for (ArchiveSegment s : segments) {
+            rows += s.rows();
+        }
+        return rows;
+    }
+
+    /** @return segments a query for {@code username} has to read */
+    int segmentsToRead(String username) {
+        return (int) segments.stream().filter(s -> s.containsUser(username)).count();
+    }
+
+    private List<LeaveRequest> query(Predicate<ArchiveSegment> mayMatch,
+                                     Function<ArchiveSegment, List<LeaveRequest>> scan) {
+        if (dir != null) {
+            try {
+                if (!Files.getLastModifiedTime(dir).equals(scannedAt)) {
+                    scan();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading leave archive " + dir, e);
+            }
+        }
+        List<ArchiveSegment> candidates = segments.stream().filter(mayMatch).toList();
+        Map<Long, LeaveRequest> byId = new LinkedHashMap<>();
+        candidates.parallelStream()
+                .map(scan)
+                .toList()
+                .forEach(rows -> rows.forEach(r -> byId.putIfAbsent(r.getId(), r)));
+        List<LeaveRequest> out = new ArrayList<>(byId.values());
+        out.sort(BY_START);
+        return out;
+    }
+
+    private void requireDirectory() {
+        if (dir == null) {
+            throw new IllegalStateException("This archive has no directory to write to");
+        }
+    }
+
+    /** @return the write lock, or null if another thread or process holds it */
+    private Closeable tryLockForWriting() throws IOException {
+        if (!writeLock.tryLock()) {
+            return null;
+        }
+        return acquired(false);
+    }
+
+    /** Finish taking the write lock once {@link #writeLock} is held by this thread. */
+    private Closeable acquired(boolean wait) throws IOException {
+        if (writeLock.getHoldCount() > 1) {
+            return writeLock::unlock;
+        }
+        try {
+            lockChannel = FileChannel.open(dir.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            fileLock = wait ? lockChannel.lock() : lockChannel.tryLock();
+            if (fileLock == null) {
+                releaseFileLock();
+                writeLock.unlock();
+                return null;
+            }
+            removeIncomplete();
+            scan();
+        } catch (IOException | RuntimeException e) {
+            releaseFileLock();
+            writeLock.unlock();
+            throw e;
+        }
+        return () -> {
+            try {
+                if (writeLock.getHoldCount() == 1) {
+                    releaseFileLock();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        };
+    }
+
+    private void releaseFileLock() throws IOException {
+        fileLock = null;
+        FileChannel channel = lockChannel;
+        lockChannel = null;
+        if (channel != null) {
+            // closing the channel releases its lock
+            channel.close();
+        }
+    }
+
+    /** Delete segments that were never renamed into place; only safe while holding the file lock. */
+    private void removeIncomplete() throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, PREFIX + "*")) {
+            for (Path p : entries) {
+                if (!p.getFileName().toString().endsWith(SUFFIX)) {
+                    // its rows are still live
+                    log.warn("Removing incomplete archive segment {}", p);
+                    Files.delete(p);
+                }
+            }
+        }
+    }
+
+    /** Map segments added since the last scan, e.g. by another process, and move past their numbers. */
+    private synchronized void scan() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(dir);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            entries.forEach(files::add);
+        }
+        files.sort(Comparator.naturalOrder());
+        for (Path p : files) {
+            long seq = sequenceOf(p);
+            if (loaded.add(seq)) {
+                segments.add(ArchiveSegment.open(p));
+            }
+            nextSegment = Math.max(nextSegment, seq + 1);
+        }
+        scannedAt = modified;
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /** Opened on first use so processes that never archive never map anything. */
+    private static final class Shared {
+        static final LeaveArchive INSTANCE = openShared();
+
+        private static LeaveArchive openShared() {
+            Path dir = Path.of(System.getProperty("leavetracker.archive.dir", "./data/archive"));
+            try {
+                return open(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open leave archive " + dir, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.leavetracker.audit;
+
+/**
+ * Kinds of event recorded in the audit log, stored as a one-byte {@link #code()}.
+ */
+public enum AuditAction {
+    CREATE(0),
+    APPROVE(1),
+    DENY(2),
+    CANCEL(3),
+    LOGIN(4),
+    LOGIN_FAILED(5);
+
+    private static final AuditAction[] BY_CODE = new AuditAction[values().length];
+
+    static {
+        for (AuditAction a : values()) {
+            BY_CODE[a.code] = a;
+        }
+    }
+
+    private final byte code;
+
+    AuditAction(int code) {
+        this.code = (byte) code;
+    }
+
+    /** @return the value stored in the log file */
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * @param code a stored action code
+     * @return the matching action
+     * @throws IllegalArgumentException if no action has that code
+     */
+    public static AuditAction fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown audit action code: " + code);
+        }
+        return BY_CODE[code];
+    }
+}
@@ -0,0 +1,15 @@
+package com.leavetracker.audit;
+
+/**
+ * One entry of the audit log as stored.
+ *
+ * @param seq       position in the log, starting at 1
+ * @param timeMillis when the event was recorded, as epoch milliseconds
+ * @param action    what happened
+ * @param username  who performed the action (for logins, the name tried), or empty if not known
+ * @param requestId the leave request involved, or 0 for none
+ * @param hash      hex SHA-256 of the previous entry's hash and this entry
+ */
+public record AuditEntry(long seq, long timeMillis, AuditAction action, String username, long requestId,
+                         String hash) {
+}
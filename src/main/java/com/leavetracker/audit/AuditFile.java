@@ -0,0 +1,92 @@
+package com.leavetracker.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * On-disk layout of the audit log: fixed-size big-endian records, each
+ * ending with SHA-256 over the previous record's hash and its own body.
+ * <pre>
+ *   0  seq         long
+ *   8  time        long, epoch millis
+ *  16  action      byte
+ *  17  request ID  long
+ *  25  name length byte
+ *  26  username    64 bytes, UTF-8, zero padded
+ *  90  hash        32 bytes
+ * </pre>
+ * Fixed sizes let a reader find the last entry, or any range of entries,
+ * without scanning. The first record chains from a hash of all zeros.
+ */
+final class AuditFile {
+
+    static final int USERNAME_BYTES = 64;
+    static final int HASH_BYTES = 32;
+    static final int BODY_BYTES = 8 + 8 + 1 + 8 + 1 + USERNAME_BYTES;
+    static final int RECORD_SIZE = BODY_BYTES + HASH_BYTES;
+    static final byte[] GENESIS = new byte[HASH_BYTES];
+
+    private AuditFile() {
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Encode one record at the buffer's position and advance past it. Longer
+     * usernames are cut to {@link #USERNAME_BYTES}.
+     *
+     * @param buf  a heap buffer with room for one record
+     * @param sha  digest to reuse
+     * @param prev hash of the previous record
+     * @return this record's hash
+     */
+    static byte[] append(ByteBuffer buf, MessageDigest sha, byte[] prev, long seq, long timeMillis,
+                         AuditAction action, String username, long requestId) {
+        int start = buf.position();
+        byte[] name = username == null ? new byte[0] : username.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(name.length, USERNAME_BYTES);
+        buf.putLong(seq).putLong(timeMillis).put(action.code()).putLong(requestId).put((byte) len).put(name, 0, len);
+        // the buffer is reused, so clear whatever the last record left in the padding
+        for (int i = len; i < USERNAME_BYTES; i++) {
+            buf.put((byte) 0);
+        }
+        sha.update(prev);
+        sha.update(buf.array(), buf.arrayOffset() + start, BODY_BYTES);
+        byte[] hash = sha.digest();
+        buf.put(hash);
+        return hash;
+    }
+
+    /**
+     * @param buf    holds at least one record at {@code offset}
+     * @param offset where the record starts
+     * @return the decoded entry
+     */
+    static AuditEntry decode(ByteBuffer buf, int offset) {
+        int len = Byte.toUnsignedInt(buf.get(offset + 25));
+        byte[] name = new byte[len];
+        buf.get(offset + 26, name);
+        byte[] hash = new byte[HASH_BYTES];
+        buf.get(offset + BODY_BYTES, hash);
+        return new AuditEntry(
+                buf.getLong(offset),
+                buf.getLong(offset + 8),
+                AuditAction.fromCode(buf.get(offset + 16)),
+                new String(name, StandardCharsets.UTF_8),
+                buf.getLong(offset + 17),
+                hex(hash));
+    }
+
+    static String hex(byte[] hash) {
+        return HexFormat.of().formatHex(hash);
+    }
+}
@@ -0,0 +1,339 @@
+package com.leavetracker.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only, hash-chained audit log backed by a file.
+ * <p>
+ * {@link #record} only stamps the time and publishes the event to an
+ * in-memory {@link AuditRing}; it never touches the disk. A single writer
+ * thread drains the ring, chains and encodes each event (see
+ * {@link AuditFile}), writes the whole batch and then forces it to disk once,
+ * so one fsync covers every event that arrived while the previous one ran.
+ * Callers only wait if the writer falls a full ring behind.
+ * </p>
+ * <p>
+ * If the writer hits an I/O error it stops, and every later {@link #record}
+ * throws, so actions cannot carry on unaudited. A partly written record left
+ * by a crash is dropped when the file is reopened.
+ * </p>
+ * <p>
+ * Several logs, in this or other processes, may share a file. Each batch is
+ * written under an exclusive lock on the file: the writer re-reads the last
+ * entry's sequence and hash, chains the batch onto it, appends, forces and
+ * only then releases, so the file stays one unbroken chain.
+ * </p>
+ */
+public class AuditLog implements AuditSink, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    /** Ring slots used by {@link #open(Path)}. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    /** Most events written per fsync. */
+    static final int MAX_BATCH = 4096;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    /** One lock per file, since a JVM cannot hold two file locks on the same file. */
+    private static final Map<Path, ReentrantLock> FILE_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ReentrantLock fileLock;
+    private final AuditRing<Pending> ring;
+    private final Thread writer;
+    private final AtomicLong submitted = new AtomicLong();
+    private final Object progress = new Object();
+    private volatile long written;
+    private volatile String headHash;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    private AuditLog(Path file, FileChannel channel, ReentrantLock fileLock, int capacity) {
+        this.file = file;
+        this.channel = channel;
+        this.fileLock = fileLock;
+        this.ring = new AuditRing<>(capacity);
+        this.writer = new Thread(this::runWriter, "audit-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Open (or create) a log with {@link #DEFAULT_CAPACITY} ring slots.
+     *
+     * @param file where entries are appended
+     * @return a running log
+     * @throws IOException if the file cannot be opened
+     */
+    public static AuditLog open(Path file) throws IOException {
+        return open(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Open (or create) a log and start its writer thread. New entries carry
+     * on the sequence and hash chain of any entries already in the file.
+     *
+     * @param file     where entries are appended
+     * @param capacity ring slots, a power of two
+     * @return a running log
+     * @throws IOException if the file cannot be opened or read
+     */
+    public static AuditLog open(Path file, int capacity) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            AuditLog auditLog = new AuditLog(file, channel,
+                    FILE_LOCKS.computeIfAbsent(file.toAbsolutePath().normalize(), f -> new ReentrantLock()),
+                    capacity);
+            auditLog.fileLock.lock();
+            try (FileLock lock = channel.lock()) {
+                auditLog.headHash = auditLog.tail().headHash();
+            } finally {
+                auditLog.fileLock.unlock();
+            }
+            auditLog.writer.start();
+            return auditLog;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The log shared by every service in this JVM, opened on first use at
+     * {@code leavetracker.audit.file} (default {@code ./data/audit.log}) and
+     * flushed at shutdown.
+     *
+     * @return the shared log
+     */
+    public static AuditLog shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Queue an event for writing. Returns without waiting for the disk.
+     *
+     * @throws IllegalStateException if the log is closed or its writer has failed
+     */
+    @Override
+    public void record(AuditAction action, String username, long requestId) {
+        if (closed) {
+            throw new IllegalStateException("Audit log is closed: " + file);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Audit log writer failed: " + file, failure);
+        }
+        ring.put(new Pending(System.currentTimeMillis(), action, username, requestId));
+        submitted.incrementAndGet();
+    }
+
+    /**
+     * Wait until every event recorded before this call is on disk.
+     *
+     * @param timeout how long to wait
+     * @return true if they were written in time
+     * @throws IllegalStateException if the writer has failed
+     * @throws InterruptedException  if interrupted while waiting
+     */
+    public boolean flush(Duration timeout) throws InterruptedException {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        LockSupport.unpark(writer);
+        synchronized (progress) {
+            while (written < target) {
+                if (failure != null) {
+                    throw new IllegalStateException("Audit log writer failed: " + file, failure);
+                }
+                long left = deadline - System.nanoTime();
+                if (left <= 0 || !writer.isAlive()) {
+                    return false;
+                }
+                progress.wait(Math.max(1, left / 1_000_000));
+            }
+        }
+        return true;
+    }
+
+    /** @return events written and forced to disk since this log was opened */
+    public long written() {
+        return written;
+    }
+
+    /** @return hex hash of the newest entry on disk as of this log's last write, or empty if there is none */
+    public String headHash() {
+        return headHash;
+    }
+
+    /** @return the file this log appends to */
+    public Path file() {
+        return file;
+    }
+
+    /** Write out every queued event, stop the writer and close the file. */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing audit log {}", file, e);
+        }
+    }
+
+    /**
+     * Read every complete entry of a log file, oldest first.
+     *
+     * @param file an audit log
+     * @return its entries
+     * @throws IOException if the file cannot be read
+     */
+    public static List<AuditEntry> read(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        List<AuditEntry> entries = new ArrayList<>(bytes.length / AuditFile.RECORD_SIZE);
+        for (int off = 0; off + AuditFile.RECORD_SIZE <= bytes.length; off += AuditFile.RECORD_SIZE) {
+            entries.add(AuditFile.decode(buf, off));
+        }
+        return entries;
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        ByteBuffer buf = ByteBuffer.allocate(MAX_BATCH * AuditFile.RECORD_SIZE);
+        MessageDigest sha = AuditFile.sha256();
+        try {
+            while (true) {
+                // read before draining, so events queued before close() are always written
+                boolean stopping = closed;
+                int n = ring.drainTo(batch, MAX_BATCH);
+                if (n == 0) {
+                    if (stopping) {
+                        return;
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                fileLock.lock();
+                try (FileLock lock = channel.lock()) {
+                    // another log may have appended since our last batch
+                    Tail tail = tail();
+                    byte[] prevHash = tail.hash();
+                    long seq = tail.seq();
+                    for (Pending p : batch) {
+                        prevHash = AuditFile.append(buf, sha, prevHash, ++seq,
+                                p.timeMillis(), p.action(), p.username(), p.requestId());
+                    }
+                    buf.flip();
+                    long position = tail.size();
+                    while (buf.hasRemaining()) {
+                        position += channel.write(buf, position);
+                    }
+                    channel.force(false);
+                    headHash = AuditFile.hex(prevHash);
+                } finally {
+                    fileLock.unlock();
+                }
+                buf.clear();
+                batch.clear();
+                synchronized (progress) {
+                    written += n;
+                    progress.notifyAll();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Audit log writer for {} failed; no further events will be accepted", file, e);
+            synchronized (progress) {
+                failure = e;
+                progress.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Read the last complete entry, dropping any partly written one after it.
+     * Only call while holding the file lock, so the partial entry cannot be
+     * another writer's batch in progress.
+     */
+    private Tail tail() throws IOException {
+        long size = channel.size();
+        long whole = size - size % AuditFile.RECORD_SIZE;
+        if (whole != size) {
+            log.warn("Dropping {} bytes of a partly written audit entry from {}", size - whole, file);
+            channel.truncate(whole);
+        }
+        if (whole == 0) {
+            return new Tail(0, 0, AuditFile.GENESIS);
+        }
+        ByteBuffer last = ByteBuffer.allocate(AuditFile.RECORD_SIZE);
+        readFully(channel, last, whole - AuditFile.RECORD_SIZE);
+        byte[] hash = new byte[AuditFile.HASH_BYTES];
+        last.get(AuditFile.BODY_BYTES, hash);
+        return new Tail(whole, last.getLong(0), hash);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Unexpected end of audit log");
+            }
+        }
+    }
+
+    /** Where the file ends and the entry it ends with. */
+    private record Tail(long size, long seq, byte[] hash) {
+        String headHash() {
+            return seq == 0 ? "" : AuditFile.hex(hash);
+        }
+    }
+
+    /** An event waiting in the ring for the writer. */
+    private record Pending(long timeMillis, AuditAction action, String username, long requestId) {
+    }
+
+    /** Opened on first use so processes that never audit never create the file. */
+    private static final class Shared {
+        static final AuditLog INSTANCE = openShared();
+
+        private static AuditLog openShared() {
+            Path path = Path.of(System.getProperty("leavetracker.audit.file", "./data/audit.log"));
+            try {
+                AuditLog shared = open(path);
+                Runtime.getRuntime().addShutdownHook(new Thread(shared::close, "audit-log-shutdown"));
+                return shared;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open audit log " + path, e);
+            }
+        }
+    }
+}
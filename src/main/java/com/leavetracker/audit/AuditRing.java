@@ -0,0 +1,92 @@
+package com.leavetracker.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer for many producers and one consumer.
+ * <p>
+ * Every slot carries a sequence number. A producer claims the next slot with
+ * one CAS on the tail, stores its item and then advances the slot's sequence,
+ * which publishes the item to the consumer. Producers never take a lock and
+ * only wait when the consumer has fallen a full ring behind.
+ * </p>
+ *
+ * @param <T> item type
+ */
+final class AuditRing<T> {
+
+    private static final long FULL_BACKOFF_NANOS = 50_000;
+
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /** Next position to consume; only touched by the consumer. */
+    private long head;
+
+    /**
+     * @param capacity number of slots, a power of two
+     */
+    AuditRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        items = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Add an item, waiting only while the ring is full.
+     *
+     * @param item what to publish
+     */
+    void put(T item) {
+        long pos;
+        while (true) {
+            pos = tail.get();
+            long diff = sequences.get((int) (pos & mask)) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                LockSupport.parkNanos(FULL_BACKOFF_NANOS);
+            }
+            // diff > 0: another producer claimed this slot first; retry
+        }
+        int slot = (int) (pos & mask);
+        items[slot] = item;
+        sequences.set(slot, pos + 1);
+    }
+
+    /**
+     * Move published items to {@code out}, oldest first. Consumer only.
+     *
+     * @param out where to add the items
+     * @param max most items to move
+     * @return number of items moved
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<? super T> out, int max) {
+        int n = 0;
+        while (n < max) {
+            int slot = (int) (head & mask);
+            if (sequences.get(slot) != head + 1) {
+                break;
+            }
+            out.add((T) items[slot]);
+            items[slot] = null;
+            sequences.set(slot, head + items.length);
+            head++;
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,22 @@
+package com.leavetracker.audit;
+
+/**
+ * Where services report auditable events. Implementations must return
+ * quickly and must not block on disk.
+ */
+@FunctionalInterface
+public interface AuditSink {
+
+    /** A sink that records nothing. */
+    AuditSink NONE = (action, username, requestId) -> {
+    };
+
+    /**
+     * Record one event.
+     *
+     * @param action    what happened
+     * @param username  who performed the action (for logins, the name tried), or null if not known
+     * @param requestId the leave request involved, or 0 for none
+     */
+    void record(AuditAction action, String username, long requestId);
+}
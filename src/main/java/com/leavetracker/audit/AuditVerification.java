@@ -0,0 +1,17 @@
+package com.leavetracker.audit;
+
+/**
+ * Result of checking an audit log's hash chain.
+ *
+ * @param entries  complete entries in the file
+ * @param firstBad sequence number of the first entry that does not chain, or -1 if all do
+ * @param headHash hex hash of the last entry, or empty for an empty log; compare it with
+ *                 a copy kept elsewhere to detect entries cut from the end
+ */
+public record AuditVerification(long entries, long firstBad, String headHash) {
+
+    /** @return true if every entry chains to the one before it */
+    public boolean ok() {
+        return firstBad < 0;
+    }
+}
@@ -1,17 +1,75 @@
 package com.leavetracker.auth;
 
+import com.leavetracker.audit.AuditAction;
+import com.leavetracker.audit.AuditLog;
+import com.leavetracker.audit.AuditSink;
+import com.leavetracker.metrics.LatencyHistogram;
+import com.leavetracker.metrics.Metrics;
 import com.leavetracker.model.User;
 import com.leavetracker.repository.UserRepository;
-import org.mindrot.jbcrypt.BCrypt;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Handles user sign-up and sign-in against the H2 database.
+ * <p>
+ * BCrypt work runs through a {@link PasswordHasher}. The synchronous methods
+ * hash on the caller's thread; the {@code *Async} variants use the hasher's
+ * bounded executor and fail fast with {@link RejectedExecutionException}
+ * when it is saturated. Hashes older than the hasher's cost are upgraded in
+ * the background after a successful login by a {@link PasswordRehasher}.
+ * </p>
+ * Logins and registrations are timed as {@code auth.login} and
+ * {@code auth.register} in {@link Metrics#shared()}.
  */
 public class AuthService {
 
-    private final UserRepository userRepo = new UserRepository();
+    private static final LatencyHistogram LOGIN_TIMER = Metrics.shared().timer("auth.login");
+    private static final LatencyHistogram REGISTER_TIMER = Metrics.shared().timer("auth.register");
+    private static final LongAdder LOGIN_FAILURES = Metrics.shared().counter("auth.login.failed");
+
+    private final UserRepository userRepo;
+    private final PasswordHasher hasher;
+    private final PasswordRehasher rehasher;
+    private final AuditSink audit;
+
+    /**
+     * Create a service using the JVM-wide hasher configured from system
+     * properties and the shared audit log.
+     */
+    public AuthService() {
+        this(new UserRepository(), SharedHasher.INSTANCE, AuditLog.shared());
+    }
+
+    /**
+     * Create a service with explicit collaborators that audits nothing.
+     *
+     * @param userRepo where users are stored
+     * @param hasher   BCrypt hashing and executor
+     */
+    public AuthService(UserRepository userRepo, PasswordHasher hasher) {
+        this(userRepo, hasher, AuditSink.NONE);
+    }
+
+    /**
+     * Create a service with explicit collaborators.
+     *
+     * @param userRepo where users are stored
+     * @param hasher   BCrypt hashing and executor
+     * @param audit    receives an event for every login attempt
+     */
+    public AuthService(UserRepository userRepo, PasswordHasher hasher, AuditSink audit) {
+        this.userRepo = userRepo;
+        this.hasher = hasher;
+        this.audit = audit;
+        this.rehasher = new PasswordRehasher(userRepo, hasher,
+                Integer.getInteger("leavetracker.bcrypt.rehashBatch", 50),
+                Duration.ofMillis(Long.getLong("leavetracker.bcrypt.rehashFlushMs", 5_000L)));
+    }
 
     /**
      * Register a new user by hashing their password and saving to the DB.
@@ -22,9 +80,14 @@ public class AuthService {
      * @return true if saved; false if username already exists
      */
     public boolean register(String username, String password, String role) {
-        String hash = BCrypt.hashpw(password, BCrypt.gensalt());
-        User user = new User(username, hash, role);
-        return userRepo.save(user);
+        long start = System.nanoTime();
+        try {
+            String hash = hasher.hash(password);
+            User user = new User(username, hash, role);
+            return userRepo.save(user);
+        } finally {
+            REGISTER_TIMER.recordSince(start);
+        }
     }
 
     /**
@@ -35,10 +98,57 @@ public class AuthService {
      * @return the User on success; null if login fails
      */
     public User login(String username, String password) {
-        Optional<User> opt = userRepo.findByUsername(username);
-        if (opt.isPresent() && BCrypt.checkpw(password, opt.get().getPasswordHash())) {
-            return opt.get();
+        long start = System.nanoTime();
+        try {
+            Optional<User> opt = userRepo.findByUsername(username);
+            if (opt.isPresent() && hasher.verify(password, opt.get().getPasswordHash())) {
+                rehasher.maybeUpgrade(username, password, opt.get().getPasswordHash());
+                audit.record(AuditAction.LOGIN, username, 0);
+                return opt.get();
+            }
+            LOGIN_FAILURES.increment();
+            audit.record(AuditAction.LOGIN_FAILED, username, 0);
+            return null;
+        } finally {
+            LOGIN_TIMER.recordSince(start);
         }
-        return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * {@link #register} on the hashing executor.
+     *
+     * @param username unique login name
+     * @param password plain-text password
+     * @param role     the user’s role
+     * @return future of true if saved; false if the username exists
+     */
+    public CompletableFuture<Boolean> registerAsync(String username, String password, String role) {
+        return hasher.submit(() -> register(username, password, role));
+    }
+
+    /**
+     * {@link #login} on the hashing executor.
+     *
+     * @param username login name
+     * @param password plain-text password
+     * @return future of the User on success, or null if login fails
+     */
+    public CompletableFuture<User> loginAsync(String username, String password) {
+        return hasher.submit(() -> login(username, password));
+    }
+
+    /** @return hashing queue depth, rejections and timings */
+    public HasherStats hasherStats() {
+        return hasher.stats();
+    }
+
+    /** @return progress of background hash cost upgrades */
+    public PasswordRehasher.RehashStats rehashStats() {
+        return rehasher.stats();
+    }
+
+    /** Lazily created so the executor and any calibration only happen on first use. */
+    private static final class SharedHasher {
+        static final PasswordHasher INSTANCE = PasswordHasher.fromSystemProperties();
+    }
+}
@@ -0,0 +1,30 @@
+package com.leavetracker.auth;
+
+/**
+ * Snapshot of {@link PasswordHasher} activity.
+ *
+ * @param cost             work factor used for new hashes
+ * @param queueDepth       tasks waiting for a hashing thread
+ * @param activeThreads    hashing threads currently busy
+ * @param completedTasks   tasks finished on the executor
+ * @param rejectedTasks    tasks refused because the queue was full
+ * @param hashes           hash operations performed
+ * @param totalHashNanos   time spent hashing
+ * @param verifies         verify operations performed
+ * @param totalVerifyNanos time spent verifying
+ */
+public record HasherStats(int cost, int queueDepth, int activeThreads,
+                          long completedTasks, long rejectedTasks,
+                          long hashes, long totalHashNanos,
+                          long verifies, long totalVerifyNanos) {
+
+    /** @return mean hash time in milliseconds, or 0 if none were made */
+    public double averageHashMillis() {
+        return hashes == 0 ? 0 : totalHashNanos / 1_000_000.0 / hashes;
+    }
+
+    /** @return mean verify time in milliseconds, or 0 if none were made */
+    public double averageVerifyMillis() {
+        return verifies == 0 ? 0 : totalVerifyNanos / 1_000_000.0 / verifies;
+    }
+}
@@ -0,0 +1,226 @@
+package com.leavetracker.auth;
+
+import com.leavetracker.jfr.PasswordHashEvent;
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BCrypt hashing and verification with a fixed work factor, plus a bounded
+ * executor to run them off the caller's thread.
+ * <p>
+ * The executor has a fixed number of threads and a fixed-size queue. When
+ * the queue is full, new work is rejected immediately instead of piling up,
+ * so a burst of logins degrades into fast "try again" failures rather than
+ * every core and UI thread stalling.
+ * </p>
+ */
+public class PasswordHasher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    /** Lowest and highest work factors jBCrypt accepts. */
+    public static final int MIN_COST = 4;
+    public static final int MAX_COST = 30;
+
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder verifies = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+
+    /**
+     * @param cost          BCrypt log2 work factor for new hashes
+     * @param threads       hashing threads
+     * @param queueCapacity tasks allowed to wait for a thread before new ones are rejected
+     */
+    public PasswordHasher(int cost, int threads, int queueCapacity) {
+        if (cost < MIN_COST || cost > MAX_COST) {
+            throw new IllegalArgumentException("BCrypt cost must be between " + MIN_COST + " and " + MAX_COST);
+        }
+        this.cost = cost;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Password hashing queue is full");
+                });
+    }
+
+    /**
+     * Build the shared hasher from system properties: {@code leavetracker.bcrypt.threads}
+     * (default: available processors), {@code leavetracker.bcrypt.queue} (default 64 per
+     * thread) and either {@code leavetracker.bcrypt.targetMillis}, which calibrates the
+     * cost on start-up, or {@code leavetracker.bcrypt.cost} (default 10).
+     *
+     * @return a new hasher
+     */
+    static PasswordHasher fromSystemProperties() {
+        int threads = Integer.getInteger("leavetracker.bcrypt.threads",
+                Runtime.getRuntime().availableProcessors());
+        int queue = Integer.getInteger("leavetracker.bcrypt.queue", 64 * threads);
+        Long targetMillis = Long.getLong("leavetracker.bcrypt.targetMillis");
+        int cost = targetMillis != null
+                ? calibrate(Duration.ofMillis(targetMillis))
+                : Integer.getInteger("leavetracker.bcrypt.cost", 10);
+        return new PasswordHasher(cost, threads, queue);
+    }
+
+    /**
+     * Find the highest work factor whose hash time on this machine stays within
+     * {@code target}. Each step doubles the cost, so this stops as soon as one
+     * measurement exceeds the target.
+     *
+     * @param target acceptable time for one hash or verify
+     * @return the chosen cost, at least {@link #MIN_COST}
+     */
+    public static int calibrate(Duration target) {
+        long targetNanos = target.toNanos();
+        BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_COST)); // warm up
+        int chosen = MIN_COST;
+        for (int c = MIN_COST; c <= MAX_COST; c++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", BCrypt.gensalt(c));
+            long elapsed = System.nanoTime() - start;
+            if (elapsed > targetNanos) {
+                break;
+            }
+            chosen = c;
+        }
+        log.info("Calibrated BCrypt cost {} for a {} ms target", chosen, target.toMillis());
+        return chosen;
+    }
+
+    /** @return work factor used for new hashes */
+    public int cost() {
+        return cost;
+    }
+
+    /** @return tasks currently waiting for a hashing thread */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Read the work factor a BCrypt hash was created with.
+     *
+     * @param hash a BCrypt hash such as {@code $2a$10$...}
+     * @return the cost, or -1 if the hash is not in BCrypt format
+     */
+    public static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash, 4, 6, 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Hash a password on the calling thread.
+     *
+     * @param password plain-text password
+     * @return BCrypt hash at this hasher's cost
+     */
+    public String hash(String password) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            return BCrypt.hashpw(password, BCrypt.gensalt(cost));
+        } finally {
+            hashes.increment();
+            hashNanos.add(System.nanoTime() - start);
+            commit(event, "hash", cost, true);
+        }
+    }
+
+    /**
+     * Verify a password against a stored hash on the calling thread.
+     *
+     * @param password plain-text password
+     * @param hash     stored BCrypt hash
+     * @return true if they match
+     */
+    public boolean verify(String password, String hash) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean matched = false;
+        try {
+            matched = BCrypt.checkpw(password, hash);
+            return matched;
+        } finally {
+            verifies.increment();
+            verifyNanos.add(System.nanoTime() - start);
+            commit(event, "verify", costOf(hash), matched);
+        }
+    }
+
+    private static void commit(PasswordHashEvent event, String operation, int cost, boolean matched) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.cost = cost;
+            event.matched = matched;
+            event.commit();
+        }
+    }
+
+    /**
+     * Run hashing work on the bounded executor.
+     *
+     * @param task the work, usually a call to {@link #hash} or {@link #verify}
+     * @param <T>  result type
+     * @return a future for the result; completed exceptionally with
+     *         {@link RejectedExecutionException} if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /** @return queue depth, throughput and timing counters */
+    public HasherStats stats() {
+        return new HasherStats(cost, executor.getQueue().size(), executor.getActiveCount(),
+                executor.getCompletedTaskCount(), rejected.sum(),
+                hashes.sum(), hashNanos.sum(), verifies.sum(), verifyNanos.sum());
+    }
+
+    /** Stop accepting work; queued tasks still run. */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
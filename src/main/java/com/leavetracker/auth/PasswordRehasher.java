@@ -0,0 +1,159 @@
+package com.leavetracker.auth;
+
+import com.leavetracker.repository.PasswordHashChange;
+import com.leavetracker.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Upgrades password hashes created with a lower BCrypt cost than the current
+ * target, using the plain-text password seen at a successful login.
+ * <p>
+ * The new hash is computed on the {@link PasswordHasher} executor, but only
+ * when no logins are waiting for it. Finished hashes are collected and
+ * written in one batch on a separate flush thread, either when
+ * {@code batchSize} are pending or {@code flushDelay} after the first one
+ * arrived, so database writes never hold up a BCrypt worker. Each write is conditional
+ * on the old hash, so it never overwrites a password change made meanwhile.
+ * A skipped upgrade is simply retried at the user's next login.
+ * </p>
+ */
+public class PasswordRehasher {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordRehasher.class);
+
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "bcrypt-rehash-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final UserRepository userRepo;
+    private final PasswordHasher hasher;
+    private final int batchSize;
+    private final Duration flushDelay;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<String, PasswordHashChange> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * @param userRepo   where upgraded hashes are written
+     * @param hasher     computes new hashes at its configured cost
+     * @param batchSize  pending upgrades that trigger an immediate write
+     * @param flushDelay longest time an upgrade waits before being written
+     */
+    public PasswordRehasher(UserRepository userRepo, PasswordHasher hasher, int batchSize, Duration flushDelay) {
+        this.userRepo = userRepo;
+        this.hasher = hasher;
+        this.batchSize = batchSize;
+        this.flushDelay = flushDelay;
+    }
+
+    /**
+     * Queue a rehash if {@code currentHash} is weaker than the hasher's cost.
+     * Returns immediately; call only after the password has been verified.
+     *
+     * @param username    who just logged in
+     * @param password    their verified plain-text password
+     * @param currentHash the hash it was verified against
+     * @return a future completing with true once the new hash is pending
+     *         write, or false if no upgrade was queued
+     */
+    public CompletableFuture<Boolean> maybeUpgrade(String username, String password, String currentHash) {
+        int cost = PasswordHasher.costOf(currentHash);
+        if (cost < 0 || cost >= hasher.cost()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (hasher.queueDepth() > 0 || !inFlight.add(username)) {
+            skipped.increment();
+            return CompletableFuture.completedFuture(false);
+        }
+        return hasher.submit(() -> hasher.hash(password))
+                .thenApply(newHash -> {
+                    pending.put(username, new PasswordHashChange(username, currentHash, newHash));
+                    queued.increment();
+                    if (pending.size() >= batchSize) {
+                        FLUSHER.execute(this::flush);
+                    } else {
+                        scheduleFlush();
+                    }
+                    return true;
+                })
+                .exceptionally(e -> {
+                    inFlight.remove(username);
+                    skipped.increment();
+                    return false;
+                });
+    }
+
+    /**
+     * Write every pending upgrade now.
+     *
+     * @return number of users whose hash was replaced
+     */
+    public int flush() {
+        List<PasswordHashChange> batch = new ArrayList<>(pending.size());
+        for (String username : List.copyOf(pending.keySet())) {
+            PasswordHashChange change = pending.remove(username);
+            if (change != null) {
+                batch.add(change);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            int updated = userRepo.updatePasswordHashes(batch);
+            written.add(updated);
+            log.debug("Upgraded {} of {} password hash(es) to cost {}", updated, batch.size(), hasher.cost());
+            return updated;
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} upgraded password hash(es)", batch.size(), e);
+            return 0;
+        } finally {
+            batch.forEach(c -> inFlight.remove(c.username()));
+        }
+    }
+
+    /** @return upgrades computed, written and skipped since creation */
+    public RehashStats stats() {
+        return new RehashStats(queued.sum(), written.sum(), skipped.sum(), pending.size());
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            FLUSHER.schedule(() -> {
+                flushScheduled.set(false);
+                flush();
+            }, flushDelay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Counters for {@link PasswordRehasher}.
+     *
+     * @param queued  new hashes computed and queued for writing
+     * @param written hashes replaced in the database
+     * @param skipped upgrades not attempted because the hasher was busy or failed
+     * @param pending hashes waiting for the next batch write
+     */
+    public record RehashStats(long queued, long written, long skipped, int pending) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.leavetracker.auth;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Set of revoked token IDs, each kept only until the token would have
+ * expired anyway.
+ * <p>
+ * IDs and expiry times live in two parallel {@code long[]} tables with open
+ * addressing and linear probing, 16 bytes per entry and no boxing. ID 0
+ * marks an empty slot. Expired entries are dropped whenever the table is
+ * rebuilt, which happens when it fills past half or on {@link #purge}.
+ * </p>
+ * Lookups may run concurrently; changes take an exclusive lock.
+ */
+class RevocationList {
+
+    private static final int MIN_CAPACITY = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] ids = new long[MIN_CAPACITY];
+    private long[] expiries = new long[MIN_CAPACITY];
+    private int size;
+
+    /**
+     * @param id           token ID, never 0
+     * @param expiresEpoch second after which the entry can be forgotten
+     * @param nowEpoch     current second, used to drop expired entries on growth
+     */
+    void add(long id, long expiresEpoch, long nowEpoch) {
+        lock.writeLock().lock();
+        try {
+            if ((size + 1) * 2 > ids.length) {
+                rebuild(nowEpoch, size + 1);
+            }
+            int slot = slot(ids, id);
+            if (ids[slot] == 0) {
+                ids[slot] = id;
+                size++;
+            }
+            expiries[slot] = Math.max(expiries[slot], expiresEpoch);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id token ID
+     * @return true if the token has been revoked
+     */
+    boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return size > 0 && ids[slot(ids, id)] == id;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forget entries for tokens that have expired.
+     *
+     * @param nowEpoch current second
+     */
+    void purge(long nowEpoch) {
+        lock.writeLock().lock();
+        try {
+            rebuild(nowEpoch, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return revoked tokens currently remembered */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rebuild(long nowEpoch, int needed) {
+        int live = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != 0 && expiries[i] > nowEpoch) {
+                live++;
+            }
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < Math.max(live, needed) * 4) {
+            capacity <<= 1;
+        }
+        long[] newIds = new long[capacity];
+        long[] newExpiries = new long[capacity];
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] != 0 && expiries[i] > nowEpoch) {
+                int slot = slot(newIds, ids[i]);
+                newIds[slot] = ids[i];
+                newExpiries[slot] = expiries[i];
+            }
+        }
+        ids = newIds;
+        expiries = newExpiries;
+        size = live;
+    }
+
+    /** @return the slot holding {@code id}, or the empty slot where it would go */
+    private static int slot(long[] table, long id) {
+        int mask = table.length - 1;
+        int i = Long.hashCode(id * 0x9E3779B97F4A7C15L) & mask;
+        while (table[i] != 0 && table[i] != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+}
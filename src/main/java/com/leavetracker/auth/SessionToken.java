@@ -0,0 +1,19 @@
+package com.leavetracker.auth;
+
+import java.time.Instant;
+
+/**
+ * Identity carried by a signed session token.
+ *
+ * @param id        random token ID, used to revoke this token
+ * @param username  who signed in
+ * @param role      their role at sign-in, e.g. "USER" or "ADMIN"
+ * @param expiresAt when the token stops being accepted
+ */
+public record SessionToken(long id, String username, String role, Instant expiresAt) {
+
+    /** @return true if the holder may approve and deny requests */
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+}
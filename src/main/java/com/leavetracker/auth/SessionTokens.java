@@ -0,0 +1,318 @@
+package com.leavetracker.auth;
+
+import com.leavetracker.metrics.Metrics;
+import com.leavetracker.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Issues and checks stateless session tokens, so a client pays for BCrypt
+ * once at sign-in and proves its identity afterwards with a MAC check.
+ * <p>
+ * A token is the base64url encoding of
+ * {@code version | keyId | tokenId | expiry | roleLength | role | username}
+ * followed by an HMAC-SHA256 of those bytes, about 80 characters for a
+ * typical user. Verifying one decodes it, recomputes the MAC with a
+ * per-thread {@link Mac} and compares in constant time; nothing touches the
+ * database. Revoked token IDs are kept in a {@link RevocationList} until the
+ * tokens expire.
+ * </p>
+ * <p>
+ * Keys are identified by a one-byte ID carried in the token. {@link #rotate}
+ * signs new tokens with a fresh key while tokens signed with older keys stay
+ * valid for one more token lifetime; after that the old key is dropped.
+ * </p>
+ */
+public class SessionTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokens.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int MAC_BYTES = 32;
+    /** version, key ID, token ID, expiry, role length. */
+    private static final int HEADER_BYTES = 1 + 1 + 8 + 8 + 1;
+    private static final int KEY_BYTES = 32;
+
+    private static final LongAdder REJECTED = Metrics.shared().counter("auth.token.rejected");
+
+    private final SecureRandom random = new SecureRandom();
+    private final Duration ttl;
+    private final Clock clock;
+    private final RevocationList revoked = new RevocationList();
+    /** Replaced as a whole on rotation; the last entry signs. */
+    private volatile List<SigningKey> keys;
+
+    /**
+     * @param secrets signing secrets, oldest first; the last one signs new tokens
+     * @param ttl     how long an issued token stays valid
+     * @param clock   time source for expiry
+     */
+    public SessionTokens(List<byte[]> secrets, Duration ttl, Clock clock) {
+        if (secrets.isEmpty() || secrets.size() > 256) {
+            throw new IllegalArgumentException("Between 1 and 256 signing secrets are required");
+        }
+        this.ttl = ttl;
+        this.clock = clock;
+        List<SigningKey> initial = new ArrayList<>();
+        for (int i = 0; i < secrets.size(); i++) {
+            initial.add(new SigningKey(i, secrets.get(i), null));
+        }
+        this.keys = List.copyOf(initial);
+    }
+
+    /**
+     * Create tokens valid for {@code leavetracker.session.ttlMinutes} (default 60),
+     * signed with the secrets in {@code leavetracker.session.keyFile}: one base64
+     * secret per line, oldest first, the last one signing. Without a key file a
+     * random secret is generated, so tokens do not survive a restart.
+     *
+     * @return a new token service
+     */
+    public static SessionTokens fromSystemProperties() {
+        Duration ttl = Duration.ofMinutes(Long.getLong("leavetracker.session.ttlMinutes", 60L));
+        String keyFile = System.getProperty("leavetracker.session.keyFile");
+        if (keyFile == null || keyFile.isBlank()) {
+            log.info("No leavetracker.session.keyFile set; session tokens are signed with a per-process key");
+            return new SessionTokens(List.of(newSecret(new SecureRandom())), ttl, Clock.systemUTC());
+        }
+        try {
+            List<byte[]> secrets = new ArrayList<>();
+            for (String line : Files.readAllLines(Path.of(keyFile), StandardCharsets.UTF_8)) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    secrets.add(Base64.getDecoder().decode(line.trim()));
+                }
+            }
+            return new SessionTokens(secrets, ttl, Clock.systemUTC());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read session key file " + keyFile, e);
+        }
+    }
+
+    /**
+     * Issue a token for a user who has just proved their password.
+     *
+     * @param user the signed-in user
+     * @return the encoded token
+     */
+    public String issue(User user) {
+        byte[] role = user.getRole().getBytes(StandardCharsets.UTF_8);
+        byte[] name = user.getUsername().getBytes(StandardCharsets.UTF_8);
+        if (role.length > 255) {
+            throw new IllegalArgumentException("Role is too long for a session token");
+        }
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0);
+        long expires = clock.instant().plus(ttl).getEpochSecond();
+        SigningKey key = signingKey();
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + role.length + name.length + MAC_BYTES);
+        buf.put(VERSION).put((byte) key.id()).putLong(id).putLong(expires).put((byte) role.length)
+                .put(role).put(name);
+        Mac mac = key.mac();
+        mac.update(buf.array(), 0, buf.position());
+        try {
+            mac.doFinal(buf.array(), buf.position());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign session token", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+    }
+
+    /**
+     * Check a token's signature, expiry and revocation.
+     *
+     * @param token encoded token from the client
+     * @return who the token identifies, or null if it is malformed, forged, expired or revoked
+     */
+    public SessionToken verify(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return reject();
+        }
+        if (bytes.length < HEADER_BYTES + MAC_BYTES || bytes[0] != VERSION) {
+            return reject();
+        }
+        SigningKey key = acceptedKey(bytes[1] & 0xFF);
+        if (key == null) {
+            return reject();
+        }
+        int signed = bytes.length - MAC_BYTES;
+        Mac mac = key.mac();
+        mac.update(bytes, 0, signed);
+        byte[] expected = mac.doFinal();
+        byte[] actual = new byte[MAC_BYTES];
+        System.arraycopy(bytes, signed, actual, 0, MAC_BYTES);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return reject();
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(bytes, 2, signed - 2);
+        long id = buf.getLong();
+        long expires = buf.getLong();
+        int roleLength = buf.get() & 0xFF;
+        if (roleLength > buf.remaining()) {
+            return reject();
+        }
+        if (clock.instant().getEpochSecond() >= expires || revoked.contains(id)) {
+            return reject();
+        }
+        String role = new String(bytes, HEADER_BYTES, roleLength, StandardCharsets.UTF_8);
+        String username = new String(bytes, HEADER_BYTES + roleLength, signed - HEADER_BYTES - roleLength,
+                StandardCharsets.UTF_8);
+        return new SessionToken(id, username, role, Instant.ofEpochSecond(expires));
+    }
+
+    /**
+     * Stop accepting a token before it expires, e.g. on sign-out.
+     *
+     * @param token a verified token
+     */
+    public void revoke(SessionToken token) {
+        revoked.add(token.id(), token.expiresAt().getEpochSecond(), clock.instant().getEpochSecond());
+    }
+
+    /**
+     * Sign new tokens with a freshly generated secret.
+     *
+     * @return the new key's ID
+     */
+    public int rotate() {
+        return rotate(newSecret(random));
+    }
+
+    /**
+     * Sign new tokens with {@code secret}. Tokens signed with the previous key
+     * are accepted for one more token lifetime; keys retired longer ago than
+     * that are dropped.
+     *
+     * @param secret the new signing secret
+     * @return the new key's ID
+     */
+    public synchronized int rotate(byte[] secret) {
+        Instant now = clock.instant();
+        List<SigningKey> next = new ArrayList<>();
+        SigningKey current = signingKey();
+        for (SigningKey k : keys) {
+            if (k == current) {
+                next.add(new SigningKey(k.id(), k.secret(), now));
+            } else if (k.retiredAt().plus(ttl).isAfter(now)) {
+                next.add(k);
+            }
+        }
+        int id = (current.id() + 1) & 0xFF;
+        if (next.stream().anyMatch(k -> k.id() == id)) {
+            throw new IllegalStateException("Key ID " + id + " is still in use; wait for older keys to expire");
+        }
+        next.add(new SigningKey(id, secret, null));
+        keys = List.copyOf(next);
+        log.info("Rotated session signing key to ID {}", id);
+        return id;
+    }
+
+    /** Forget revocations of tokens that have since expired. */
+    public void purgeRevocations() {
+        revoked.purge(clock.instant().getEpochSecond());
+    }
+
+    /** @return how long issued tokens stay valid */
+    public Duration ttl() {
+        return ttl;
+    }
+
+    private SigningKey signingKey() {
+        List<SigningKey> k = keys;
+        return k.get(k.size() - 1);
+    }
+
+    /** @return the key with this ID if it may still verify tokens */
+    private SigningKey acceptedKey(int id) {
+        Instant now = null;
+        for (SigningKey k : keys) {
+            if (k.id() != id) {
+                continue;
+            }
+            if (k.retiredAt() == null) {
+                return k;
+            }
+            now = now == null ? clock.instant() : now;
+            return k.retiredAt().plus(ttl).isAfter(now) ? k : null;
+        }
+        return null;
+    }
+
+    private static SessionToken reject() {
+        REJECTED.increment();
+        return null;
+    }
+
+    private static byte[] newSecret(SecureRandom random) {
+        byte[] secret = new byte[KEY_BYTES];
+        random.nextBytes(secret);
+        return secret;
+    }
+
+    /** One signing secret, with a {@link Mac} per thread since they are not thread-safe. */
+    private static final class SigningKey {
+        private final int id;
+        private final byte[] secret;
+        private final Instant retiredAt;
+        private final ThreadLocal<Mac> macs;
+
+        SigningKey(int id, byte[] secret, Instant retiredAt) {
+            this.id = id;
+            this.secret = secret.clone();
+            this.retiredAt = retiredAt;
+            SecretKeySpec spec = new SecretKeySpec(this.secret, ALGORITHM);
+            this.macs = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac mac = Mac.getInstance(ALGORITHM);
+                    mac.init(spec);
+                    return mac;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(ALGORITHM + " is not available", e);
+                }
+            });
+        }
+
+        int id() {
+            return id;
+        }
+
+        byte[] secret() {
+            return secret;
+        }
+
+        /** @return when this key stopped signing, or null if it is current */
+        Instant retiredAt() {
+            return retiredAt;
+        }
+
+        Mac mac() {
+            return macs.get();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.leavetracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Borrowing a connection from the pool, including any wait for a free one. */
+@Name("com.leavetracker.ConnectionBorrow")
+@Label("Connection Borrow")
+@Category({"Leave Tracker", "Database"})
+@Description("Time spent in ConnectionPool.getConnection, e.g. via DatabaseUtil.getConnection")
+public class ConnectionBorrowEvent extends Event {
+
+    @Label("Active Connections")
+    @Description("Connections checked out once this borrow finished")
+    public int active;
+
+    @Label("Open Connections")
+    public int open;
+
+    @Label("Timed Out")
+    public boolean timedOut;
+}
@@ -0,0 +1,82 @@
+package com.leavetracker.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Flight recordings with the bundled {@code /jfr/leavetracker.jfc} profile:
+ * the application's own events plus the JDK events that explain stalls
+ * (lock contention, parking, GC pauses, slow I/O, CPU samples).
+ * <p>
+ * Set {@code leavetracker.jfr.file} to record from start-up; the recording
+ * keeps the last {@code leavetracker.jfr.maxAgeMinutes} (default 30) and is
+ * written to that file on exit. The profile can also be extracted from the
+ * jar and used with {@code -XX:StartFlightRecording:settings=<file>} or
+ * {@code jcmd <pid> JFR.start settings=<file>}.
+ * </p>
+ */
+public final class FieldRecording {
+
+    private static final Logger log = LoggerFactory.getLogger(FieldRecording.class);
+
+    /** Classpath location of the bundled profile. */
+    public static final String PROFILE = "/jfr/leavetracker.jfc";
+
+    private FieldRecording() {
+    }
+
+    /** @return the bundled profile */
+    public static Configuration configuration() {
+        try (InputStream in = FieldRecording.class.getResourceAsStream(PROFILE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing " + PROFILE);
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + PROFILE, e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid " + PROFILE, e);
+        }
+    }
+
+    /**
+     * Start a recording if {@code leavetracker.jfr.file} is set.
+     *
+     * @return the running recording, or empty if none was requested or JFR is unavailable
+     */
+    public static Optional<Recording> startFromSystemProperties() {
+        String file = System.getProperty("leavetracker.jfr.file");
+        if (file == null || file.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            Recording recording = new Recording(configuration());
+            recording.setName("leavetracker");
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(Long.getLong("leavetracker.jfr.maxAgeMinutes", 30L)));
+            recording.setDestination(Path.of(file));
+            recording.setDumpOnExit(true);
+            recording.start();
+            log.info("Flight recording to {}", file);
+            return Optional.of(recording);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not start flight recording to {}", file, e);
+            return Optional.empty();
+        }
+    }
+}
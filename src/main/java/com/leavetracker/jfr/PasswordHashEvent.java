@@ -0,0 +1,23 @@
+package com.leavetracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One BCrypt hash or verify. */
+@Name("com.leavetracker.PasswordHash")
+@Label("Password Hash")
+@Category({"Leave Tracker", "Authentication"})
+public class PasswordHashEvent extends Event {
+
+    /** {@code hash} or {@code verify}. */
+    @Label("Operation")
+    public String operation;
+
+    @Label("BCrypt Cost")
+    public int cost;
+
+    @Label("Matched")
+    public boolean matched;
+}
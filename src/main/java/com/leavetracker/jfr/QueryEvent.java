@@ -0,0 +1,37 @@
+package com.leavetracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One execution of a prepared statement. For queries the event lasts until
+ * the result set is closed, so it includes reading and mapping the rows.
+ */
+@Name("com.leavetracker.Query")
+@Label("SQL Query")
+@Category({"Leave Tracker", "Database"})
+@Description("A prepared statement executed through the connection pool")
+public class QueryEvent extends Event {
+
+    @Label("SQL Id")
+    @Description("Short stable identifier of the statement text, for grouping")
+    public String sqlId;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows")
+    @Description("Rows read for queries, rows changed for updates")
+    public long rows;
+
+    /**
+     * @param sql statement text
+     * @return the identifier recorded in {@link #sqlId}
+     */
+    public static String idOf(String sql) {
+        return String.format("%08x", sql.hashCode());
+    }
+}
@@ -0,0 +1,21 @@
+package com.leavetracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A dashboard table reload, from the request until the new row count is shown. */
+@Name("com.leavetracker.TableRefresh")
+@Label("Table Refresh")
+@Category({"Leave Tracker", "User Interface"})
+@Description("DashboardController.refreshTable and other reloads of the request table")
+public class TableRefreshEvent extends Event {
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Filter")
+    public String filter;
+}
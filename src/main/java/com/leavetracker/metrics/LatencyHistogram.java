@@ -0,0 +1,88 @@
+package com.leavetracker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ * <p>
+ * Buckets are log-linear, as in HdrHistogram: values below
+ * {@value #SUB_COUNT} get a bucket each, and every power of two above that is
+ * split into {@value #SUB_COUNT} equal buckets, so any recorded value is
+ * reported within about 1.6% of its true value. Recording is one atomic
+ * increment plus two adders, with no allocation. Values above
+ * {@link #MAX_VALUE} (about 73 minutes) are counted as {@code MAX_VALUE}.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BITS = 6;
+    static final int SUB_COUNT = 1 << SUB_BITS;
+    /** Largest value that gets its own bucket. */
+    public static final long MAX_VALUE = (1L << 42) - 1;
+    static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param nanos a duration; negative values count as 0
+     */
+    public void record(long nanos) {
+        long v = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        buckets.incrementAndGet(index(v));
+        total.add(v);
+        long m;
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+            // another thread raised the max; re-check against it
+        }
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos}.
+     *
+     * @param startNanos a value of {@link System#nanoTime()} taken when the operation began
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /** @return everything recorded so far */
+    public LatencySnapshot snapshot() {
+        return LatencySnapshot.of(counts(), total.sum(), max.get());
+    }
+
+    /** @return a copy of the bucket counts, for computing the difference between two points in time */
+    long[] counts() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = buckets.get(i);
+        }
+        return copy;
+    }
+
+    /** @return sum of all recorded values */
+    long totalNanos() {
+        return total.sum();
+    }
+
+    static int index(long v) {
+        if (v < SUB_COUNT) {
+            return (int) v;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) (v >>> shift) - SUB_COUNT;
+    }
+
+    /** @return the largest value that falls into bucket {@code index} */
+    static long highestEquivalent(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long lowest = (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
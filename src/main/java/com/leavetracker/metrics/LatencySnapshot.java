@@ -0,0 +1,75 @@
+package com.leavetracker.metrics;
+
+/**
+ * Summary of a {@link LatencyHistogram} at one point in time, or over an interval.
+ * Percentiles are upper bounds of the bucket they fall in.
+ *
+ * @param count      values recorded
+ * @param totalNanos sum of the values
+ * @param maxNanos   largest value
+ * @param p50Nanos   median
+ * @param p90Nanos   90th percentile
+ * @param p99Nanos   99th percentile
+ * @param p999Nanos  99.9th percentile
+ */
+public record LatencySnapshot(long count, long totalNanos, long maxNanos,
+                              long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos) {
+
+    /** A snapshot with nothing recorded. */
+    public static final LatencySnapshot EMPTY = new LatencySnapshot(0, 0, 0, 0, 0, 0, 0);
+
+    /** @return mean value in nanoseconds, or 0 if nothing was recorded */
+    public double meanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * @param buckets    counts per bucket
+     * @param totalNanos sum of the values counted
+     * @param maxNanos   exact maximum, or a negative value to estimate it from the buckets
+     */
+    static LatencySnapshot of(long[] buckets, long totalNanos, long maxNanos) {
+        long count = 0;
+        int highest = -1;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] > 0) {
+                count += buckets[i];
+                highest = i;
+            }
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        long max = maxNanos >= 0 ? maxNanos : LatencyHistogram.highestEquivalent(highest);
+        long[] ranks = {rank(count, 0.50), rank(count, 0.90), rank(count, 0.99), rank(count, 0.999)};
+        long[] values = new long[ranks.length];
+        long seen = 0;
+        int next = 0;
+        for (int i = 0; i <= highest && next < ranks.length; i++) {
+            seen += buckets[i];
+            while (next < ranks.length && seen >= ranks[next]) {
+                values[next++] = Math.min(LatencyHistogram.highestEquivalent(i), max);
+            }
+        }
+        return new LatencySnapshot(count, totalNanos, max, values[0], values[1], values[2], values[3]);
+    }
+
+    /**
+     * @param buckets       counts per bucket now
+     * @param totalNanos    sum of the values now
+     * @param earlier       counts per bucket at the start of the interval
+     * @param earlierTotal  sum of the values at the start of the interval
+     * @return what was recorded in between; the maximum is estimated from the buckets
+     */
+    static LatencySnapshot between(long[] buckets, long totalNanos, long[] earlier, long earlierTotal) {
+        long[] diff = new long[buckets.length];
+        for (int i = 0; i < diff.length; i++) {
+            diff[i] = buckets[i] - earlier[i];
+        }
+        return of(diff, totalNanos - earlierTotal, -1);
+    }
+
+    private static long rank(long count, double quantile) {
+        return Math.max(1, (long) Math.ceil(count * quantile));
+    }
+}
@@ -0,0 +1,78 @@
+package com.leavetracker.metrics;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of named timers, counters and gauges.
+ * <p>
+ * Look a metric up once, e.g. into a static final field, and record into it
+ * directly; only the lookup touches the registry. Timer names are
+ * dot-separated, e.g. {@code leave.approve} or {@code repo.leave.findById};
+ * SQL statements are timed as {@code sql <statement text>}.
+ * </p>
+ */
+public final class Metrics {
+
+    private final ConcurrentMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    /** @return the registry shared by every component in this JVM */
+    public static Metrics shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * @param name timer name
+     * @return the timer, created on first use
+     */
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /**
+     * @param name counter name
+     * @return the counter, created on first use
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Report a value that is read when a snapshot is taken, replacing any
+     * gauge with the same name.
+     *
+     * @param name  gauge name
+     * @param value reads the current value; must be cheap and thread-safe
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /** @return every metric as of now */
+    public MetricsSnapshot snapshot() {
+        SortedMap<String, LatencySnapshot> t = new TreeMap<>();
+        timers.forEach((name, h) -> t.put(name, h.snapshot()));
+        SortedMap<String, Long> c = new TreeMap<>();
+        counters.forEach((name, adder) -> c.put(name, adder.sum()));
+        SortedMap<String, Long> g = new TreeMap<>();
+        gauges.forEach((name, value) -> g.put(name, value.getAsLong()));
+        return new MetricsSnapshot(Instant.now(), t, c, g);
+    }
+
+    /** @return the live timers, for reporters that compute intervals */
+    Map<String, LatencyHistogram> timers() {
+        return timers;
+    }
+
+    private static final class Shared {
+        static final Metrics INSTANCE = new Metrics();
+    }
+}
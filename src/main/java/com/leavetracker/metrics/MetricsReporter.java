@@ -0,0 +1,108 @@
+package com.leavetracker.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically logs what each timer recorded since the previous dump
+ * (count, mean, p50, p99, max), followed by the counters and gauges.
+ * Timers with nothing new are left out.
+ */
+public class MetricsReporter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsReporter.class);
+
+    private final Metrics metrics;
+    private final Duration interval;
+    private final Map<String, long[]> lastCounts = new HashMap<>();
+    private final Map<String, Long> lastTotals = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "metrics-reporter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param metrics  registry to report
+     * @param interval time between dumps
+     */
+    public MetricsReporter(Metrics metrics, Duration interval) {
+        this.metrics = metrics;
+        this.interval = interval;
+    }
+
+    /**
+     * Create a reporter for the shared registry that dumps every
+     * {@code leavetracker.metrics.dumpSeconds} seconds (default 60; 0 disables {@link #start()}).
+     *
+     * @return a new reporter
+     */
+    public static MetricsReporter fromSystemProperties() {
+        return new MetricsReporter(Metrics.shared(),
+                Duration.ofSeconds(Long.getLong("leavetracker.metrics.dumpSeconds", 60L)));
+    }
+
+    /** Start dumping at the configured interval, unless it is zero. */
+    public void start() {
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        scheduler.scheduleAtFixedRate(this::dump, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Log one report now. */
+    public void dump() {
+        try {
+            String report = report();
+            if (!report.isEmpty()) {
+                log.info("Metrics for the last {}s:\n{}", interval.toSeconds(), report);
+            }
+        } catch (RuntimeException e) {
+            // keep the schedule alive
+            log.warn("Could not report metrics", e);
+        }
+    }
+
+    /**
+     * Build the report and start a new interval.
+     *
+     * @return one line per active timer, then counters and gauges; empty if nothing happened
+     */
+    public synchronized String report() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(metrics.timers()).entrySet()) {
+            long[] counts = e.getValue().counts();
+            long total = e.getValue().totalNanos();
+            long[] before = lastCounts.put(e.getKey(), counts);
+            Long beforeTotal = lastTotals.put(e.getKey(), total);
+            LatencySnapshot s = before == null
+                    ? LatencySnapshot.of(counts, total, -1)
+                    : LatencySnapshot.between(counts, total, before, beforeTotal);
+            if (s.count() > 0) {
+                out.append(String.format("  %-60.60s n=%-8d mean=%9.3fms p50=%9.3fms p99=%9.3fms max=%9.3fms%n",
+                        e.getKey(), s.count(), s.meanNanos() / 1e6, s.p50Nanos() / 1e6, s.p99Nanos() / 1e6,
+                        s.maxNanos() / 1e6));
+            }
+        }
+        if (out.length() == 0) {
+            return "";
+        }
+        MetricsSnapshot snapshot = metrics.snapshot();
+        snapshot.counters().forEach((name, value) -> out.append(String.format("  %-60.60s %d%n", name, value)));
+        snapshot.gauges().forEach((name, value) -> out.append(String.format("  %-60.60s %d%n", name, value)));
+        return out.toString();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,32 @@
+package com.leavetracker.metrics;
+
+import java.time.Instant;
+import java.util.SortedMap;
+
+/**
+ * Every metric in a {@link Metrics} registry at one point in time, sorted by name.
+ *
+ * @param takenAt  when the snapshot was taken
+ * @param timers   latency per operation since start-up
+ * @param counters event counts since start-up
+ * @param gauges   current values, e.g. connections in use
+ */
+public record MetricsSnapshot(Instant takenAt, SortedMap<String, LatencySnapshot> timers,
+                              SortedMap<String, Long> counters, SortedMap<String, Long> gauges) {
+
+    /**
+     * @param name timer name
+     * @return the timer's figures, or {@link LatencySnapshot#EMPTY} if it never recorded
+     */
+    public LatencySnapshot timer(String name) {
+        return timers.getOrDefault(name, LatencySnapshot.EMPTY);
+    }
+
+    /**
+     * @param name counter name
+     * @return the counter's value, or 0 if it does not exist
+     */
+    public long counter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+}
@@ -11,9 +11,10 @@ public class LeaveRequest {
     private final String username;
     private final LocalDate startDate;
     private final LocalDate endDate;
-    private final String type;    // e.g. "VACATION", "EMERGENCY"
+    private final LeaveType type;
     private final String reason;
-    private String status;        // "PENDING", "APPROVED", "DENIED"
+    private LeaveStatus status;
+    private int version;
 
     /**
      * Create a new leave request. Defaults status to PENDING.
@@ -26,14 +27,14 @@ public class LeaveRequest {
      * @param reason    explanation for the request
      */
     public LeaveRequest(long id, String username, LocalDate startDate, LocalDate endDate,
-                        String type, String reason) {
+                        LeaveType type, String reason) {
         this.id = id;
         this.username = username;
         this.startDate = startDate;
         this.endDate = endDate;
         this.type = type;
         this.reason = reason;
-        this.status = "PENDING";
+        this.status = LeaveStatus.PENDING;
     }
 
     /** @return the unique request ID */
@@ -57,7 +58,7 @@ public class LeaveRequest {
     }
 
     /** @return the leave category */
-    public String getType() {
+    public LeaveType getType() {
         return type;
     }
 
@@ -67,19 +68,34 @@ public class LeaveRequest {
     }
 
     /** @return current approval status */
-    public String getStatus() {
+    public LeaveStatus getStatus() {
         return status;
     }
 
     /**
-     * Update the approval status of this request.
+     * Update the approval status of this request. No transition rules are
+     * checked here; see {@link LeaveStatus#canTransitionTo}.
      *
-     * @param status new status, e.g. "APPROVED" or "DENIED"
+     * @param status new status
      */
-    public void setStatus(String status) {
+    public void setStatus(LeaveStatus status) {
         this.status = status;
     }
 
+    /** @return row version as last read or written; bumped on every status change */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Record the row version this copy reflects.
+     *
+     * @param version stored row version
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "LeaveRequest{" +
@@ -87,9 +103,10 @@ public class LeaveRequest {
                 ", username='" + username + '\'' +
                 ", startDate=" + startDate +
                 ", endDate=" + endDate +
-                ", type='" + type + '\'' +
+                ", type=" + type +
                 ", reason='" + reason + '\'' +
-                ", status='" + status + '\'' +
+                ", status=" + status +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
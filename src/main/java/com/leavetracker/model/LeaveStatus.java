@@ -0,0 +1,76 @@
+package com.leavetracker.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Lifecycle state of a leave request, stored as a SMALLINT {@link #code()}.
+ * <p>
+ * A request starts as {@link #PENDING} and may be approved, denied or
+ * cancelled. Approved leave may still be cancelled; denied and cancelled
+ * requests are final.
+ * </p>
+ */
+public enum LeaveStatus {
+    PENDING(0),
+    APPROVED(1),
+    DENIED(2),
+    CANCELLED(3);
+
+    private static final LeaveStatus[] BY_CODE = new LeaveStatus[values().length];
+
+    static {
+        for (LeaveStatus s : values()) {
+            BY_CODE[s.code] = s;
+        }
+    }
+
+    private final short code;
+
+    LeaveStatus(int code) {
+        this.code = (short) code;
+    }
+
+    /** @return the value stored in the database */
+    public short code() {
+        return code;
+    }
+
+    /**
+     * @param code a stored status code
+     * @return the matching status
+     * @throws IllegalArgumentException if no status has that code
+     */
+    public static LeaveStatus fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown leave status code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * @param next the proposed new status
+     * @return true if a request in this status may move to {@code next}
+     */
+    public boolean canTransitionTo(LeaveStatus next) {
+        return switch (this) {
+            case PENDING -> next == APPROVED || next == DENIED || next == CANCELLED;
+            case APPROVED -> next == CANCELLED;
+            case DENIED, CANCELLED -> false;
+        };
+    }
+
+    /**
+     * @param target the status being moved to
+     * @return every status that may move to {@code target}
+     */
+    public static Set<LeaveStatus> sourcesOf(LeaveStatus target) {
+        Set<LeaveStatus> sources = EnumSet.noneOf(LeaveStatus.class);
+        for (LeaveStatus s : values()) {
+            if (s.canTransitionTo(target)) {
+                sources.add(s);
+            }
+        }
+        return sources;
+    }
+}
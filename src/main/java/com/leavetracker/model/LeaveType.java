@@ -0,0 +1,53 @@
+package com.leavetracker.model;
+
+/**
+ * Category of leave, stored as a SMALLINT {@link #code()}.
+ */
+public enum LeaveType {
+    VACATION(0),
+    EMERGENCY(1),
+    /** Anything else, including free-text types recorded before this enum existed. */
+    OTHER(2);
+
+    private static final LeaveType[] BY_CODE = new LeaveType[values().length];
+
+    static {
+        for (LeaveType t : values()) {
+            BY_CODE[t.code] = t;
+        }
+    }
+
+    private final short code;
+
+    LeaveType(int code) {
+        this.code = (short) code;
+    }
+
+    /** @return the value stored in the database */
+    public short code() {
+        return code;
+    }
+
+    /**
+     * @param code a stored type code
+     * @return the matching type
+     * @throws IllegalArgumentException if no type has that code
+     */
+    public static LeaveType fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown leave type code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * Parse user input such as {@code "vacation"}, ignoring case and surrounding blanks.
+     *
+     * @param text the type name
+     * @return the matching type
+     * @throws IllegalArgumentException if the name is not a leave type
+     */
+    public static LeaveType parse(String text) {
+        return valueOf(text.trim().toUpperCase());
+    }
+}
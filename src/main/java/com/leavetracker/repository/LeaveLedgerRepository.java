@@ -0,0 +1,430 @@
+package com.leavetracker.repository;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.util.ConnectionProvider;
+import com.leavetracker.util.DatabaseUtil;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Append-only ledger of leave accrued and taken, with a running balance per user.
+ * <p>
+ * Every ledger insert updates {@code leave_balances} in the same transaction,
+ * so {@link #balance(String)} is a single primary-key read rather than a sum
+ * over the user's history. Charges and refunds lock the user's balance row
+ * first, which serialises concurrent changes for the same user. Under that
+ * lock a charge re-reads the request's status and skips it unless it is still
+ * approved, and a refund reads what is charged only after taking the lock, so
+ * it waits for a charge in flight. A cancellation racing the approval is
+ * therefore never left charged.
+ * </p>
+ */
+public class LeaveLedgerRepository {
+
+    private static final String ENSURE_BALANCE_SQL =
+            "MERGE INTO leave_balances b USING (VALUES (CAST(? AS VARCHAR(50)))) s(username) "
+                    + "ON b.username = s.username WHEN NOT MATCHED THEN INSERT VALUES (s.username, 0)";
+    private static final String LOCK_BALANCE_SQL =
+            "SELECT balance FROM leave_balances WHERE username = ? FOR UPDATE";
+    private static final String ADD_BALANCE_SQL =
+            "UPDATE leave_balances SET balance = balance + ? WHERE username = ?";
+    private static final String SELECT_BALANCE_SQL =
+            "SELECT balance FROM leave_balances WHERE username = ?";
+    private static final String OWNER_SQL =
+            "SELECT username FROM leave_requests WHERE id = ? "
+                    + "UNION SELECT username FROM leave_ledger WHERE request_id = ?";
+    private static final String NET_FOR_REQUEST_SQL =
+            "SELECT username, SUM(days) FROM leave_ledger WHERE request_id = ? GROUP BY username";
+    private static final String INSERT_SQL =
+            "INSERT INTO leave_ledger(username, entry_date, kind, days, request_id, accrual_month) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ACCRUAL_SQL =
+            "INSERT INTO leave_ledger(username, entry_date, kind, days, request_id, accrual_month) "
+                    + "SELECT ?, ?, 'ACCRUAL', ?, NULL, ? FROM DUAL WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM leave_ledger WHERE username = ? AND accrual_month = ?)";
+    private static final String LOCK_BALANCES_SQL =
+            "SELECT balance FROM leave_balances WHERE username = ANY(?) FOR UPDATE";
+    private static final String CHARGED_AMONG_SQL =
+            "SELECT request_id FROM leave_ledger WHERE request_id = ANY(?) GROUP BY request_id HAVING SUM(days) <> 0";
+    private static final String IS_APPROVED_SQL =
+            "SELECT 1 FROM leave_requests WHERE id = ? AND status = ?";
+    private static final String APPROVED_AMONG_SQL =
+            "SELECT id FROM leave_requests WHERE id = ANY(?) AND status = ?";
+    private static final String SELECT_BY_USER_SQL =
+            "SELECT * FROM leave_ledger WHERE username = ? ORDER BY id";
+
+    private final ConnectionProvider connections;
+
+    /** Create a repository backed by the shared connection pool. */
+    public LeaveLedgerRepository() {
+        this(DatabaseUtil.provider());
+    }
+
+    /**
+     * Create a repository backed by the given connection source.
+     *
+     * @param connections where to obtain database connections
+     */
+    public LeaveLedgerRepository(ConnectionProvider connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * @param request an inclusive date range
+     * @return calendar days the request takes, weekends included
+     */
+    public static BigDecimal daysCharged(LeaveRequest request) {
+        return BigDecimal.valueOf(ChronoUnit.DAYS.between(request.getStartDate(), request.getEndDate()) + 1);
+    }
+
+    /**
+     * Charge an approved request against the user's balance. Does nothing if
+     * the request is already charged, so repeated approvals are harmless, or
+     * if it is no longer approved.
+     *
+     * @param request the approved request
+     * @param today   date to record the entry under
+     * @return true if a charge was written
+     */
+    public boolean charge(LeaveRequest request, LocalDate today) {
+        try (Connection conn = connections.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                lockBalance(conn, request.getUsername());
+                boolean charged = false;
+                if (isApproved(conn, request.getId()) && netForRequest(conn, request.getId()).signum() == 0) {
+                    BigDecimal days = daysCharged(request).negate();
+                    insert(conn, request.getUsername(), today, LedgerEntry.CHARGE, days, request.getId());
+                    addBalance(conn, request.getUsername(), days);
+                    charged = true;
+                }
+                conn.commit();
+                return charged;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error charging leave request", e);
+        }
+    }
+
+    /**
+     * Charge many approved requests in one transaction using JDBC batches.
+     * Requests that are already charged or no longer approved are skipped, as
+     * with {@link #charge}.
+     *
+     * @param requests the approved requests
+     * @param today    date to record the entries under
+     * @return number of requests charged
+     */
+    public int chargeAll(Collection<LeaveRequest> requests, LocalDate today) {
+        if (requests.isEmpty()) {
+            return 0;
+        }
+        // sorted so concurrent bulk charges lock balance rows in the same order
+        Set<String> users = new TreeSet<>();
+        Long[] ids = new Long[requests.size()];
+        int n = 0;
+        for (LeaveRequest r : requests) {
+            users.add(r.getUsername());
+            ids[n++] = r.getId();
+        }
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ensure = conn.prepareStatement(ENSURE_BALANCE_SQL);
+             PreparedStatement lock = conn.prepareStatement(LOCK_BALANCES_SQL);
+             PreparedStatement approved = conn.prepareStatement(APPROVED_AMONG_SQL);
+             PreparedStatement charged = conn.prepareStatement(CHARGED_AMONG_SQL);
+             PreparedStatement insert = conn.prepareStatement(INSERT_SQL);
+             PreparedStatement add = conn.prepareStatement(ADD_BALANCE_SQL)) {
+
+            conn.setAutoCommit(false);
+            try {
+                for (String user : users) {
+                    ensure.setString(1, user);
+                    ensure.addBatch();
+                }
+                ensure.executeBatch();
+                lock.setArray(1, conn.createArrayOf("VARCHAR", users.toArray()));
+                lock.executeQuery().close();
+
+                Set<Long> stillApproved = new HashSet<>();
+                approved.setArray(1, conn.createArrayOf("BIGINT", ids));
+                approved.setShort(2, LeaveStatus.APPROVED.code());
+                try (ResultSet rs = approved.executeQuery()) {
+                    while (rs.next()) {
+                        stillApproved.add(rs.getLong(1));
+                    }
+                }
+                Set<Long> already = new HashSet<>();
+                charged.setArray(1, conn.createArrayOf("BIGINT", ids));
+                try (ResultSet rs = charged.executeQuery()) {
+                    while (rs.next()) {
+                        already.add(rs.getLong(1));
+                    }
+                }
+                Map<String, BigDecimal> perUser = new HashMap<>();
+                int count = 0;
+                for (LeaveRequest r : requests) {
+                    if (!stillApproved.contains(r.getId()) || !already.add(r.getId())) {
+                        continue;
+                    }
+                    BigDecimal days = daysCharged(r).negate();
+                    insert.setString(1, r.getUsername());
+                    insert.setDate(2, Date.valueOf(today));
+                    insert.setString(3, LedgerEntry.CHARGE);
+                    insert.setBigDecimal(4, days);
+                    insert.setLong(5, r.getId());
+                    insert.setNull(6, Types.DATE);
+                    insert.addBatch();
+                    perUser.merge(r.getUsername(), days, BigDecimal::add);
+                    count++;
+                }
+                if (count > 0) {
+                    insert.executeBatch();
+                    for (Map.Entry<String, BigDecimal> e : perUser.entrySet()) {
+                        add.setBigDecimal(1, e.getValue());
+                        add.setString(2, e.getKey());
+                        add.addBatch();
+                    }
+                    add.executeBatch();
+                }
+                conn.commit();
+                return count;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error charging leave requests", e);
+        }
+    }
+
+    /**
+     * Give back whatever a request currently has charged, e.g. when approved
+     * leave is cancelled.
+     *
+     * @param requestId the request to refund
+     * @param today     date to record the entry under
+     * @return true if a refund was written
+     */
+    public boolean refund(long requestId, LocalDate today) {
+        try (Connection conn = connections.getConnection()) {
+            String username;
+            try (PreparedStatement ps = conn.prepareStatement(OWNER_SQL)) {
+                ps.setLong(1, requestId);
+                ps.setLong(2, requestId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    username = rs.getString(1);
+                }
+            }
+            conn.setAutoCommit(false);
+            try {
+                lockBalance(conn, username);
+                // read only under the lock: a charge or refund in flight commits first
+                BigDecimal net = netForRequest(conn, requestId);
+                boolean refunded = false;
+                if (net.signum() != 0) {
+                    insert(conn, username, today, LedgerEntry.REFUND, net.negate(), requestId);
+                    addBalance(conn, username, net.negate());
+                    refunded = true;
+                }
+                conn.commit();
+                return refunded;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error refunding leave request", e);
+        }
+    }
+
+    /**
+     * Credit a month's accrual to many users in one JDBC batch and transaction.
+     * Users already credited for {@code month} are skipped.
+     *
+     * @param usernames who to credit
+     * @param month     the month being accrued
+     * @param days      days earned per user
+     * @param today     date to record the entries under
+     * @return number of users credited
+     */
+    public int accrue(Collection<String> usernames, YearMonth month, BigDecimal days, LocalDate today) {
+        if (usernames.isEmpty()) {
+            return 0;
+        }
+        Date monthStart = Date.valueOf(month.atDay(1));
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ensure = conn.prepareStatement(ENSURE_BALANCE_SQL);
+             PreparedStatement insert = conn.prepareStatement(INSERT_ACCRUAL_SQL);
+             PreparedStatement add = conn.prepareStatement(ADD_BALANCE_SQL)) {
+
+            conn.setAutoCommit(false);
+            try {
+                List<String> users = new ArrayList<>(usernames);
+                for (String user : users) {
+                    ensure.setString(1, user);
+                    ensure.addBatch();
+                    insert.setString(1, user);
+                    insert.setDate(2, Date.valueOf(today));
+                    insert.setBigDecimal(3, days);
+                    insert.setDate(4, monthStart);
+                    insert.setString(5, user);
+                    insert.setDate(6, monthStart);
+                    insert.addBatch();
+                }
+                ensure.executeBatch();
+                int[] inserted = insert.executeBatch();
+                int credited = 0;
+                for (int i = 0; i < inserted.length; i++) {
+                    if (inserted[i] > 0) {
+                        add.setBigDecimal(1, days);
+                        add.setString(2, users.get(i));
+                        add.addBatch();
+                        credited++;
+                    }
+                }
+                if (credited > 0) {
+                    add.executeBatch();
+                }
+                conn.commit();
+                return credited;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error accruing leave", e);
+        }
+    }
+
+    /**
+     * @param username whose balance to read
+     * @return days of leave available, or zero if the user has no ledger yet
+     */
+    public BigDecimal balance(String username) {
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_BALANCE_SQL)) {
+
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBigDecimal(1) : BigDecimal.ZERO;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error querying leave balance", e);
+        }
+    }
+
+    /**
+     * @param username whose ledger to read
+     * @return every entry for the user, oldest first
+     */
+    public List<LedgerEntry> findByUsername(String username) {
+        List<LedgerEntry> list = new ArrayList<>();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_BY_USER_SQL)) {
+
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long requestId = rs.getLong("request_id");
+                    list.add(new LedgerEntry(
+                            rs.getLong("id"),
+                            rs.getString("username"),
+                            rs.getDate("entry_date").toLocalDate(),
+                            rs.getString("kind"),
+                            rs.getBigDecimal("days"),
+                            rs.wasNull() ? null : requestId));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error querying leave ledger", e);
+        }
+        return list;
+    }
+
+    private static void lockBalance(Connection conn, String username) throws SQLException {
+        try (PreparedStatement ensure = conn.prepareStatement(ENSURE_BALANCE_SQL)) {
+            ensure.setString(1, username);
+            ensure.executeUpdate();
+        } catch (SQLException e) {
+            // another transaction created the row while we waited; it exists now
+            if (!"23505".equals(e.getSQLState())) {
+                throw e;
+            }
+        }
+        try (PreparedStatement lock = conn.prepareStatement(LOCK_BALANCE_SQL)) {
+            lock.setString(1, username);
+            lock.executeQuery().close();
+        }
+    }
+
+    private static boolean isApproved(Connection conn, long requestId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(IS_APPROVED_SQL)) {
+            ps.setLong(1, requestId);
+            ps.setShort(2, LeaveStatus.APPROVED.code());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static BigDecimal netForRequest(Connection conn, long requestId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(NET_FOR_REQUEST_SQL)) {
+            ps.setLong(1, requestId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBigDecimal(2) : BigDecimal.ZERO;
+            }
+        }
+    }
+
+    private static void insert(Connection conn, String username, LocalDate date, String kind,
+                               BigDecimal days, long requestId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            ps.setString(1, username);
+            ps.setDate(2, Date.valueOf(date));
+            ps.setString(3, kind);
+            ps.setBigDecimal(4, days);
+            ps.setLong(5, requestId);
+            ps.setNull(6, Types.DATE);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void addBalance(Connection conn, String username, BigDecimal days) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(ADD_BALANCE_SQL)) {
+            ps.setBigDecimal(1, days);
+            ps.setString(2, username);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.leavetracker.repository;
+
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Criteria for server-side filtering of leave requests. Null fields match everything.
+ *
+ * @param status   exact status
+ * @param type     exact leave type
+ * @param username exact username
+ * @param from     only requests that end on or after this day
+ * @param to       only requests that start on or before this day
+ * @param ids      only these request IDs, e.g. the hits of a full-text search
+ */
+public record LeaveRequestFilter(LeaveStatus status, LeaveType type, String username,
+                                 LocalDate from, LocalDate to, Collection<Long> ids) {
+
+    /** A filter that matches every request. */
+    public static final LeaveRequestFilter NONE = new LeaveRequestFilter(null, null, null, null, null);
+
+    /** A filter with no restriction on IDs. */
+    public LeaveRequestFilter(LeaveStatus status, LeaveType type, String username, LocalDate from, LocalDate to) {
+        this(status, type, username, from, to, null);
+    }
+
+    /**
+     * @param username user to restrict to
+     * @return a copy of this filter limited to one user
+     */
+    public LeaveRequestFilter forUser(String username) {
+        return new LeaveRequestFilter(status, type, username, from, to, ids);
+    }
+
+    /**
+     * @param ids request IDs to restrict to
+     * @return a copy of this filter limited to those IDs
+     */
+    public LeaveRequestFilter withIds(Collection<Long> ids) {
+        return new LeaveRequestFilter(status, type, username, from, to, ids);
+    }
+}
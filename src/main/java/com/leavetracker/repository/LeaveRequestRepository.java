@@ -1,13 +1,28 @@
 package com.leavetracker.repository;
 
+import com.leavetracker.metrics.LatencyHistogram;
+import com.leavetracker.metrics.Metrics;
 import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.util.ConnectionProvider;
 import com.leavetracker.util.DatabaseUtil;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Persists and retrieves leave requests from the database.
@@ -21,9 +36,87 @@ public class LeaveRequestRepository {
     private static final String SELECT_BY_ID_SQL =
             "SELECT * FROM leave_requests WHERE id = ?";
     private static final String UPDATE_STATUS_SQL =
-            "UPDATE leave_requests SET status = ? WHERE id = ?";
+            "UPDATE leave_requests SET status = ?, version = version + 1 WHERE id = ? AND status IN (%s)";
+    private static final String TRANSITION_SQL =
+            "UPDATE leave_requests SET status = ?, version = version + 1 WHERE id = ? AND status = ?";
+    private static final String TRANSITION_VERSION_SQL =
+            "UPDATE leave_requests SET status = ?, version = version + 1 WHERE id = ? AND status = ? AND version = ?";
+    // a data change delta table returns the rows that actually moved in the same round trip
+    private static final String TRANSITION_ALL_SQL =
+            "SELECT * FROM FINAL TABLE (UPDATE leave_requests SET status = ?, version = version + 1"
+                    + " WHERE id = ANY(?) AND status = ?)";
+    private static final String TRANSITION_MATCHING_SQL =
+            "SELECT * FROM FINAL TABLE (UPDATE leave_requests SET status = ?, version = version + 1%s)";
     private static final String DELETE_SQL =
             "DELETE FROM leave_requests WHERE id = ?";
+    private static final String DELETE_ALL_SQL =
+            "DELETE FROM leave_requests WHERE id = ANY(?)";
+    private static final String SELECT_BY_IDS_SQL =
+            "SELECT * FROM leave_requests WHERE id = ANY(?)";
+    private static final String SELECT_IDS_SQL =
+            "SELECT id FROM leave_requests ORDER BY id";
+    private static final String SELECT_CLOSED_SQL =
+            "SELECT * FROM leave_requests WHERE status <> ? AND end_date < ? ORDER BY start_date, id LIMIT ?";
+    private static final String SELECT_ALL_SQL =
+            "SELECT * FROM leave_requests ORDER BY start_date, id";
+    private static final String SELECT_FIRST_PAGE_SQL =
+            "SELECT * FROM leave_requests ORDER BY start_date, id LIMIT ?";
+    private static final String SELECT_PAGE_SQL =
+            "SELECT * FROM leave_requests WHERE (start_date, id) > (?, ?) ORDER BY start_date, id LIMIT ?";
+    private static final String SELECT_USER_FIRST_PAGE_SQL =
+            "SELECT * FROM leave_requests WHERE username = ? ORDER BY start_date, id LIMIT ?";
+    private static final String SELECT_USER_PAGE_SQL =
+            "SELECT * FROM leave_requests WHERE username = ? AND (start_date, id) > (?, ?) ORDER BY start_date, id LIMIT ?";
+    private static final String LAZY_ON_SQL = "SET LAZY_QUERY_EXECUTION TRUE";
+    private static final String LAZY_OFF_SQL = "SET LAZY_QUERY_EXECUTION FALSE";
+    /** One conditional UPDATE per target status, allowing only its valid predecessors. */
+    private static final Map<LeaveStatus, String> UPDATE_STATUS_SQLS = new EnumMap<>(LeaveStatus.class);
+
+    static {
+        for (LeaveStatus target : LeaveStatus.values()) {
+            String sources = LeaveStatus.sourcesOf(target).stream()
+                    .map(s -> Short.toString(s.code()))
+                    .collect(Collectors.joining(", "));
+            if (!sources.isEmpty()) {
+                UPDATE_STATUS_SQLS.put(target, String.format(UPDATE_STATUS_SQL, sources));
+            }
+        }
+    }
+
+    private static final Metrics METRICS = Metrics.shared();
+    private static final LatencyHistogram SAVE_TIMER = METRICS.timer("repo.leave.save");
+    private static final LatencyHistogram SAVE_ALL_TIMER = METRICS.timer("repo.leave.saveAll");
+    private static final LatencyHistogram FIND_BY_USER_TIMER = METRICS.timer("repo.leave.findByUsername");
+    private static final LatencyHistogram FIND_BY_ID_TIMER = METRICS.timer("repo.leave.findById");
+    private static final LatencyHistogram FIND_BY_IDS_TIMER = METRICS.timer("repo.leave.findByIds");
+    private static final LatencyHistogram UPDATE_STATUS_TIMER = METRICS.timer("repo.leave.updateStatus");
+    private static final LatencyHistogram TRANSITION_TIMER = METRICS.timer("repo.leave.transition");
+    private static final LatencyHistogram TRANSITION_ALL_TIMER = METRICS.timer("repo.leave.transitionAll");
+    private static final LatencyHistogram TRANSITION_MATCHING_TIMER = METRICS.timer("repo.leave.transitionMatching");
+    private static final LatencyHistogram COUNT_TIMER = METRICS.timer("repo.leave.count");
+    private static final LatencyHistogram FIND_WINDOW_TIMER = METRICS.timer("repo.leave.findWindow");
+
+    /** Rows per batch and transaction used by {@link #saveAll(Collection)}. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** Rows fetched per round trip by {@link #streamAll()}. */
+    public static final int STREAM_FETCH_SIZE = 500;
+
+    private final ConnectionProvider connections;
+
+    /** Create a repository backed by the shared connection pool. */
+    public LeaveRequestRepository() {
+        this(DatabaseUtil.provider());
+    }
+
+    /**
+     * Create a repository backed by the given connection source.
+     *
+     * @param connections where to obtain database connections
+     */
+    public LeaveRequestRepository(ConnectionProvider connections) {
+        this.connections = connections;
+    }
 
     /**
      * Save a new leave request.
@@ -32,20 +125,79 @@ public class LeaveRequestRepository {
      * @return true if inserted; false otherwise
      */
     public boolean save(LeaveRequest req) {
-        try (Connection conn = DatabaseUtil.getConnection();
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
 
-            ps.setLong(1, req.getId());
-            ps.setString(2, req.getUsername());
-            ps.setDate(3, Date.valueOf(req.getStartDate()));
-            ps.setDate(4, Date.valueOf(req.getEndDate()));
-            ps.setString(5, req.getType());
-            ps.setString(6, req.getReason());
-            ps.setString(7, req.getStatus());
+            bindInsert(ps, req);
             return ps.executeUpdate() == 1;
 
         } catch (SQLException e) {
             throw new RuntimeException("Error inserting leave request", e);
+        } finally {
+            SAVE_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Save many leave requests using JDBC batching, committing every
+     * {@link #DEFAULT_BATCH_SIZE} rows.
+     *
+     * @param requests the leave requests to store
+     * @return number of rows inserted
+     * @see #saveAll(Collection, int)
+     */
+    public int saveAll(Collection<LeaveRequest> requests) {
+        return saveAll(requests, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Save many leave requests using JDBC batching. Rows are sent in chunks of
+     * {@code chunkSize}, each in its own transaction. If a chunk fails it is
+     * rolled back and an exception is thrown; earlier chunks stay committed.
+     *
+     * @param requests  the leave requests to store
+     * @param chunkSize rows per batch and transaction
+     * @return number of rows inserted
+     */
+    public int saveAll(Collection<LeaveRequest> requests, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if (requests.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+
+            conn.setAutoCommit(false);
+            try {
+                int saved = 0;
+                int pending = 0;
+                for (LeaveRequest req : requests) {
+                    bindInsert(ps, req);
+                    ps.addBatch();
+                    if (++pending == chunkSize) {
+                        saved += flushBatch(conn, ps);
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    saved += flushBatch(conn, ps);
+                }
+                return saved;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error batch inserting leave requests", e);
+        } finally {
+            SAVE_ALL_TIMER.recordSince(start);
         }
     }
 
@@ -57,7 +209,8 @@ public class LeaveRequestRepository {
      */
     public List<LeaveRequest> findByUsername(String username) {
         List<LeaveRequest> list = new ArrayList<>();
-        try (Connection conn = DatabaseUtil.getConnection();
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
              PreparedStatement ps = conn.prepareStatement(SELECT_BY_USER_SQL)) {
 
             ps.setString(1, username);
@@ -68,6 +221,8 @@ public class LeaveRequestRepository {
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching leave requests", e);
+        } finally {
+            FIND_BY_USER_TIMER.recordSince(start);
         }
         return list;
     }
@@ -79,7 +234,8 @@ public class LeaveRequestRepository {
      * @return Optional containing the request if found
      */
     public Optional<LeaveRequest> findById(long id) {
-        try (Connection conn = DatabaseUtil.getConnection();
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
              PreparedStatement ps = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             ps.setLong(1, id);
@@ -90,27 +246,172 @@ public class LeaveRequestRepository {
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching leave request", e);
+        } finally {
+            FIND_BY_ID_TIMER.recordSince(start);
         }
         return Optional.empty();
     }
 
     /**
-     * Update only the status of a leave request.
+     * Move a leave request to a new status, if its current status allows it
+     * (see {@link LeaveStatus#canTransitionTo}). The check and the update are
+     * one statement, so concurrent callers cannot both succeed.
      *
      * @param id     the request ID
      * @param status new status value
-     * @return true if updated; false otherwise
+     * @return true if updated; false if the request is missing or the transition is not allowed
+     */
+    public boolean updateStatus(long id, LeaveStatus status) {
+        String sql = UPDATE_STATUS_SQLS.get(status);
+        if (sql == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setShort(1, status.code());
+            ps.setLong(2, id);
+            return ps.executeUpdate() == 1;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating leave status", e);
+        } finally {
+            UPDATE_STATUS_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Compare-and-set a request's status: it only changes if the stored
+     * status is still {@code expected}. No locks are held, so a caller that
+     * lost a race gets false straight away and can re-read.
+     *
+     * @param id       the request ID
+     * @param expected status the caller last saw
+     * @param next     status to move to
+     * @return true if updated; false if the request is missing or no longer in {@code expected}
+     * @throws IllegalArgumentException if {@code expected} may never move to {@code next}
      */
-    public boolean updateStatus(long id, String status) {
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(UPDATE_STATUS_SQL)) {
+    public boolean transition(long id, LeaveStatus expected, LeaveStatus next) {
+        checkTransition(expected, next);
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(TRANSITION_SQL)) {
 
-            ps.setString(1, status);
+            ps.setShort(1, next.code());
             ps.setLong(2, id);
+            ps.setShort(3, expected.code());
             return ps.executeUpdate() == 1;
 
         } catch (SQLException e) {
             throw new RuntimeException("Error updating leave status", e);
+        } finally {
+            TRANSITION_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Compare-and-set a request's status against the exact row version the
+     * caller read, so any change made since then makes this one fail. On
+     * success {@code seen} is updated to the new status and version.
+     *
+     * @param seen the request as the caller last read it
+     * @param next status to move to
+     * @return true if updated; false if the request is missing or has changed since it was read
+     * @throws IllegalArgumentException if the request's status may never move to {@code next}
+     */
+    public boolean transition(LeaveRequest seen, LeaveStatus next) {
+        checkTransition(seen.getStatus(), next);
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(TRANSITION_VERSION_SQL)) {
+
+            ps.setShort(1, next.code());
+            ps.setLong(2, seen.getId());
+            ps.setShort(3, seen.getStatus().code());
+            ps.setInt(4, seen.getVersion());
+            if (ps.executeUpdate() != 1) {
+                return false;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating leave status", e);
+        } finally {
+            TRANSITION_TIMER.recordSince(start);
+        }
+        seen.setStatus(next);
+        seen.setVersion(seen.getVersion() + 1);
+        return true;
+    }
+
+    /**
+     * Compare-and-set the status of many requests in one statement. Each
+     * request moves only if it is still in {@code expected}; the rest are
+     * left alone and simply missing from the result.
+     *
+     * @param ids      the request IDs
+     * @param expected status the caller last saw
+     * @param next     status to move to
+     * @return the requests that were updated, as stored afterwards
+     * @throws IllegalArgumentException if {@code expected} may never move to {@code next}
+     */
+    public List<LeaveRequest> transitionAll(Collection<Long> ids, LeaveStatus expected, LeaveStatus next) {
+        checkTransition(expected, next);
+        List<LeaveRequest> moved = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return moved;
+        }
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(TRANSITION_ALL_SQL)) {
+
+            ps.setShort(1, next.code());
+            ps.setArray(2, conn.createArrayOf("BIGINT", ids.toArray()));
+            ps.setShort(3, expected.code());
+            readAll(ps, moved);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating leave status", e);
+        } finally {
+            TRANSITION_ALL_TIMER.recordSince(start);
+        }
+        return moved;
+    }
+
+    /**
+     * Move every request that matches a filter and is in {@code expected} to
+     * {@code next}, in one set-based statement.
+     *
+     * @param filter   which requests to consider; a status in the filter must equal {@code expected} to match
+     * @param expected status a request must be in to move
+     * @param next     status to move to
+     * @return the requests that were updated, as stored afterwards
+     * @throws IllegalArgumentException if {@code expected} may never move to {@code next}
+     */
+    public List<LeaveRequest> transitionMatching(LeaveRequestFilter filter, LeaveStatus expected,
+                                                 LeaveStatus next) {
+        checkTransition(expected, next);
+        List<Object> params = new ArrayList<>();
+        params.add(next.code());
+        StringBuilder where = new StringBuilder(whereClause(filter, params));
+        append(where, "status = ?");
+        params.add(expected.code());
+        List<LeaveRequest> moved = new ArrayList<>();
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(String.format(TRANSITION_MATCHING_SQL, where))) {
+
+            bind(ps, params);
+            readAll(ps, moved);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating leave status", e);
+        } finally {
+            TRANSITION_MATCHING_TIMER.recordSince(start);
+        }
+        return moved;
+    }
+
+    private static void checkTransition(LeaveStatus expected, LeaveStatus next) {
+        if (!expected.canTransitionTo(next)) {
+            throw new IllegalArgumentException("Cannot move leave request from " + expected + " to " + next);
         }
     }
 
@@ -121,7 +422,7 @@ public class LeaveRequestRepository {
      * @return true if deleted; false otherwise
      */
     public boolean delete(long id) {
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = connections.getConnection();
              PreparedStatement ps = conn.prepareStatement(DELETE_SQL)) {
 
             ps.setLong(1, id);
@@ -132,32 +433,393 @@ public class LeaveRequestRepository {
         }
     }
 
+    /**
+     * Remove many leave requests in one statement, e.g. after archiving them.
+     *
+     * @param ids the request IDs to delete
+     * @return number of rows deleted
+     */
+    public int deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(DELETE_ALL_SQL)) {
+
+            ps.setArray(1, conn.createArrayOf("BIGINT", ids.toArray()));
+            return ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting leave requests", e);
+        }
+    }
+
+    /**
+     * Fetch many leave requests by ID in one statement.
+     *
+     * @param ids the request IDs to fetch
+     * @return the requests that exist, in no particular order
+     */
+    public List<LeaveRequest> findByIds(Collection<Long> ids) {
+        List<LeaveRequest> list = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return list;
+        }
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_BY_IDS_SQL)) {
+
+            ps.setArray(1, conn.createArrayOf("BIGINT", ids.toArray()));
+            readAll(ps, list);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching leave requests by ID", e);
+        } finally {
+            FIND_BY_IDS_TIMER.recordSince(start);
+        }
+        return list;
+    }
+
+    /**
+     * @return every request ID, ascending
+     */
+    public long[] findAllIds() {
+        LongStream.Builder ids = LongStream.builder();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_IDS_SQL)) {
+
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching leave request IDs", e);
+        }
+        return ids.build().toArray();
+    }
+
+    /**
+     * Fetch the oldest closed requests, i.e. anything no longer pending,
+     * whose leave ended before {@code cutoff}.
+     *
+     * @param cutoff only requests ending before this day
+     * @param limit  maximum rows to return
+     * @return matching requests ordered by {@code (start_date, id)}
+     */
+    public List<LeaveRequest> findClosedBefore(LocalDate cutoff, int limit) {
+        List<LeaveRequest> list = new ArrayList<>(Math.min(limit, 1024));
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_CLOSED_SQL)) {
+
+            ps.setShort(1, LeaveStatus.PENDING.code());
+            ps.setDate(2, Date.valueOf(cutoff));
+            ps.setInt(3, limit);
+            readAll(ps, list);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching closed leave requests", e);
+        }
+        return list;
+    }
+
+    private static void bindInsert(PreparedStatement ps, LeaveRequest req) throws SQLException {
+        ps.setLong(1, req.getId());
+        ps.setString(2, req.getUsername());
+        ps.setDate(3, Date.valueOf(req.getStartDate()));
+        ps.setDate(4, Date.valueOf(req.getEndDate()));
+        ps.setShort(5, req.getType().code());
+        ps.setString(6, req.getReason());
+        ps.setShort(7, req.getStatus().code());
+    }
+
+    private static int flushBatch(Connection conn, PreparedStatement ps) throws SQLException {
+        int rows = 0;
+        for (int count : ps.executeBatch()) {
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        conn.commit();
+        return rows;
+    }
+
     private LeaveRequest mapRow(ResultSet rs) throws SQLException {
+        // status and type map to shared enum constants, and dates are read
+        // directly as LocalDate, so only username and reason allocate per row
         long id = rs.getLong("id");
         String user = rs.getString("username");
-        LocalDate start = rs.getDate("start_date").toLocalDate();
-        LocalDate end = rs.getDate("end_date").toLocalDate();
-        String type = rs.getString("type");
+        LocalDate start = rs.getObject("start_date", LocalDate.class);
+        LocalDate end = rs.getObject("end_date", LocalDate.class);
+        LeaveType type = LeaveType.fromCode(rs.getShort("type"));
         String reason = rs.getString("reason");
-        String status = rs.getString("status");
         LeaveRequest req = new LeaveRequest(id, user, start, end, type, reason);
-        req.setStatus(status);
+        req.setStatus(LeaveStatus.fromCode(rs.getShort("status")));
+        req.setVersion(rs.getInt("version"));
         return req;
     }
 
+    /**
+     * List every leave request, ordered by start date.
+     * Prefer {@link #findAllPage} or {@link #streamAll()} on large tables.
+     *
+     * @return all requests
+     */
     public List<LeaveRequest> findAll() {
-        List<LeaveRequest> list = new ArrayList<>();
-        String sql = "SELECT * FROM leave_requests";
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                list.add(mapRow(rs));
+        try (Stream<LeaveRequest> rows = streamAll()) {
+            return rows.collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Fetch one page of all leave requests, ordered by {@code (start_date, id)}.
+     *
+     * @param after position to continue from, or null for the first page
+     * @param limit maximum rows to return
+     * @return the page and the cursor for the next one
+     */
+    public Page<LeaveRequest> findAllPage(PageCursor after, int limit) {
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(after == null ? SELECT_FIRST_PAGE_SQL : SELECT_PAGE_SQL)) {
+
+            int i = 1;
+            if (after != null) {
+                ps.setDate(i++, Date.valueOf(after.startDate()));
+                ps.setLong(i++, after.id());
             }
+            ps.setInt(i, limit + 1);
+            return readPage(ps, limit);
+
         } catch (SQLException e) {
-            throw new RuntimeException("Error fetching all leave requests", e);
+            throw new RuntimeException("Error fetching leave request page", e);
+        }
+    }
+
+    /**
+     * Fetch one page of a user's leave requests, ordered by {@code (start_date, id)}.
+     *
+     * @param username the user to look up
+     * @param after    position to continue from, or null for the first page
+     * @param limit    maximum rows to return
+     * @return the page and the cursor for the next one
+     */
+    public Page<LeaveRequest> findByUsernamePage(String username, PageCursor after, int limit) {
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     after == null ? SELECT_USER_FIRST_PAGE_SQL : SELECT_USER_PAGE_SQL)) {
+
+            int i = 1;
+            ps.setString(i++, username);
+            if (after != null) {
+                ps.setDate(i++, Date.valueOf(after.startDate()));
+                ps.setLong(i++, after.id());
+            }
+            ps.setInt(i, limit + 1);
+            return readPage(ps, limit);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching leave request page", e);
+        }
+    }
+
+    /**
+     * Count the leave requests matching a filter.
+     *
+     * @param filter criteria to apply
+     * @return number of matching rows
+     */
+    public long count(LeaveRequestFilter filter) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM leave_requests" + whereClause(filter, params);
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting leave requests", e);
+        } finally {
+            COUNT_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Fetch a window of filtered, sorted leave requests, e.g. the rows
+     * currently visible in a table.
+     *
+     * @param filter criteria to apply
+     * @param sort   order of the full result
+     * @param offset index of the first row to return
+     * @param limit  maximum rows to return
+     * @return the rows in {@code [offset, offset + limit)}
+     */
+    public List<LeaveRequest> findWindow(LeaveRequestFilter filter, LeaveRequestSort sort, long offset, int limit) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT * FROM leave_requests" + whereClause(filter, params)
+                + " ORDER BY " + sort.toSql() + " LIMIT ? OFFSET ?";
+        params.add(limit);
+        params.add(offset);
+        List<LeaveRequest> list = new ArrayList<>(limit);
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching leave requests", e);
+        } finally {
+            FIND_WINDOW_TIMER.recordSince(start);
         }
         return list;
     }
 
-}
\ No newline at end of file
+    /**
+     * Stream every leave request in {@code (start_date, id)} order without
+     * loading the whole table. The stream holds a database connection until it
+     * is closed, so always use it in a try-with-resources block.
+     *
+     * @return a lazily populated stream of requests
+     */
+    public Stream<LeaveRequest> streamAll() {
+        Connection conn = null;
+        try {
+            conn = connections.getConnection();
+            try (Statement st = conn.createStatement()) {
+                st.execute(LAZY_ON_SQL);
+            }
+            PreparedStatement ps = conn.prepareStatement(SELECT_ALL_SQL);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ResultSet rs = ps.executeQuery();
+            Connection owned = conn;
+            return StreamSupport.stream(new ResultSetSpliterator(rs), false)
+                    .onClose(() -> closeStream(owned, ps, rs));
+        } catch (SQLException e) {
+            if (conn != null) {
+                closeStream(conn, null, null);
+            }
+            throw new RuntimeException("Error streaming leave requests", e);
+        }
+    }
+
+    /**
+     * Visit every leave request in {@code (start_date, id)} order without
+     * loading the whole table.
+     *
+     * @param action called once per request
+     */
+    public void forEach(Consumer<LeaveRequest> action) {
+        try (Stream<LeaveRequest> rows = streamAll()) {
+            rows.forEachOrdered(action);
+        }
+    }
+
+    private void readAll(PreparedStatement ps, List<LeaveRequest> into) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                into.add(mapRow(rs));
+            }
+        }
+    }
+
+    private Page<LeaveRequest> readPage(PreparedStatement ps, int limit) throws SQLException {
+        List<LeaveRequest> items = new ArrayList<>(Math.min(limit, 1024));
+        boolean more = false;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                if (items.size() == limit) {
+                    more = true;
+                    break;
+                }
+                items.add(mapRow(rs));
+            }
+        }
+        PageCursor next = more ? PageCursor.after(items.get(items.size() - 1)) : null;
+        return new Page<>(items, next);
+    }
+
+    /**
+     * Build a WHERE clause for the non-null filter fields. The SQL text only
+     * depends on which fields are set, so each combination is cached as one
+     * prepared statement.
+     */
+    private static String whereClause(LeaveRequestFilter filter, List<Object> params) {
+        StringBuilder where = new StringBuilder();
+        if (filter.status() != null) {
+            append(where, "status = ?");
+            params.add(filter.status().code());
+        }
+        if (filter.type() != null) {
+            append(where, "type = ?");
+            params.add(filter.type().code());
+        }
+        if (filter.username() != null) {
+            append(where, "username = ?");
+            params.add(filter.username());
+        }
+        if (filter.to() != null) {
+            append(where, "start_date <= ?");
+            params.add(Date.valueOf(filter.to()));
+        }
+        if (filter.from() != null) {
+            append(where, "end_date >= ?");
+            params.add(Date.valueOf(filter.from()));
+        }
+        if (filter.ids() != null) {
+            append(where, "id = ANY(?)");
+            params.add(filter.ids().toArray(new Long[0]));
+        }
+        return where.toString();
+    }
+
+    private static void append(StringBuilder where, String condition) {
+        where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition);
+    }
+
+    private static void bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object param = params.get(i);
+            if (param instanceof Long[] ids) {
+                ps.setArray(i + 1, ps.getConnection().createArrayOf("BIGINT", ids));
+            } else {
+                ps.setObject(i + 1, param);
+            }
+        }
+    }
+
+    private static void closeStream(Connection conn, PreparedStatement ps, ResultSet rs) {
+        try (conn; ps; rs; Statement st = conn.createStatement()) {
+            st.execute(LAZY_OFF_SQL);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error closing leave request stream", e);
+        }
+    }
+
+    /** Adapts an open ResultSet to a Spliterator, mapping one row per advance. */
+    private final class ResultSetSpliterator extends Spliterators.AbstractSpliterator<LeaveRequest> {
+        private final ResultSet rs;
+
+        ResultSetSpliterator(ResultSet rs) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.rs = rs;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super LeaveRequest> action) {
+            try {
+                if (!rs.next()) {
+                    return false;
+                }
+                action.accept(mapRow(rs));
+                return true;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error streaming leave requests", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.leavetracker.repository;
+
+/**
+ * Server-side sort order for leave request queries. The request ID is always
+ * appended as a tie-breaker so the order is stable across pages.
+ *
+ * @param field     column to sort by
+ * @param ascending true for ascending order
+ */
+public record LeaveRequestSort(Field field, boolean ascending) {
+
+    /** Default order: by start date, oldest first. */
+    public static final LeaveRequestSort DEFAULT = new LeaveRequestSort(Field.START_DATE, true);
+
+    /** Sortable columns, mapped to their SQL names. */
+    public enum Field {
+        ID("id"),
+        USERNAME("username"),
+        START_DATE("start_date"),
+        END_DATE("end_date"),
+        TYPE("type"),
+        STATUS("status");
+
+        private final String column;
+
+        Field(String column) {
+            this.column = column;
+        }
+
+        /** @return the SQL column name */
+        public String column() {
+            return column;
+        }
+    }
+
+    /** @return the ORDER BY clause for this sort, without the keyword */
+    String toSql() {
+        String dir = ascending ? "ASC" : "DESC";
+        return field == Field.ID
+                ? "id " + dir
+                : field.column() + " " + dir + ", id " + dir;
+    }
+}
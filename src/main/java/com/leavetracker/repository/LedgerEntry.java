@@ -0,0 +1,25 @@
+package com.leavetracker.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One line of a user's leave ledger.
+ *
+ * @param id        ledger row ID, increasing in the order entries were written
+ * @param username  whose balance the entry affects
+ * @param entryDate day the entry was recorded
+ * @param kind      {@link #ACCRUAL}, {@link #CHARGE} or {@link #REFUND}
+ * @param days      change to the balance; negative for charges
+ * @param requestId leave request charged or refunded, or null for accruals
+ */
+public record LedgerEntry(long id, String username, LocalDate entryDate, String kind,
+                          BigDecimal days, Long requestId) {
+
+    /** Monthly leave earned. */
+    public static final String ACCRUAL = "ACCRUAL";
+    /** Days taken by an approved request. */
+    public static final String CHARGE = "CHARGE";
+    /** Days given back when an approved request is cancelled or denied. */
+    public static final String REFUND = "REFUND";
+}
@@ -0,0 +1,18 @@
+package com.leavetracker.repository;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query.
+ *
+ * @param items the rows on this page, in {@code (start_date, id)} order
+ * @param next  cursor for the following page, or null if this is the last one
+ * @param <T>   row type
+ */
+public record Page<T>(List<T> items, PageCursor next) {
+
+    /** @return true if another page can be requested with {@link #next()} */
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.leavetracker.repository;
+
+import com.leavetracker.model.LeaveRequest;
+
+import java.time.LocalDate;
+
+/**
+ * Keyset position in a list of leave requests ordered by {@code (start_date, id)}.
+ * The next page starts strictly after this position.
+ *
+ * @param startDate start date of the last request already seen
+ * @param id        ID of the last request already seen
+ */
+public record PageCursor(LocalDate startDate, long id) {
+
+    /**
+     * @param last the final request of the current page
+     * @return a cursor positioned just after {@code last}
+     */
+    public static PageCursor after(LeaveRequest last) {
+        return new PageCursor(last.getStartDate(), last.getId());
+    }
+}
@@ -0,0 +1,13 @@
+package com.leavetracker.repository;
+
+/**
+ * A conditional password hash replacement: applied only if the stored hash
+ * still equals {@code expectedHash}, so a password change that happened in
+ * the meantime is never overwritten.
+ *
+ * @param username     whose hash to replace
+ * @param expectedHash hash the row must currently hold
+ * @param newHash      replacement hash
+ */
+public record PasswordHashChange(String username, String expectedHash, String newHash) {
+}
@@ -1,16 +1,38 @@
 package com.leavetracker.repository;
 
+import com.leavetracker.metrics.LatencyHistogram;
+import com.leavetracker.metrics.Metrics;
 import com.leavetracker.model.User;
+import com.leavetracker.util.CacheStats;
+import com.leavetracker.util.ConnectionProvider;
 import com.leavetracker.util.DatabaseUtil;
+import com.leavetracker.util.LookupCache;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.WeakHashMap;
 
 /**
  * Persists and retrieves User records from the database.
+ * <p>
+ * Lookups by username go through a bounded {@link LookupCache}, including
+ * negative results for unknown names. The cache is shared by every repository
+ * in this JVM that uses the same {@link ConnectionProvider}, so a write through
+ * any of them invalidates the entry for all. Writes from other processes or
+ * direct SQL are not seen until the entry expires
+ * ({@code leavetracker.userCache.ttlSeconds}, default 300, and
+ * {@code leavetracker.userCache.negativeTtlSeconds}, default 30): a password
+ * change or role change made elsewhere can be stale for that long.
+ * </p>
  */
 public class UserRepository {
 
@@ -20,6 +42,43 @@ public class UserRepository {
     private static final String SELECT_SQL =
             "SELECT username, password_hash, role FROM users WHERE username = ?";
 
+    private static final String SELECT_USERNAMES_SQL =
+            "SELECT username FROM users ORDER BY username";
+
+    private static final String UPDATE_HASH_SQL =
+            "UPDATE users SET password_hash = ? WHERE username = ?";
+
+    private static final String REPLACE_HASH_SQL =
+            "UPDATE users SET password_hash = ? WHERE username = ? AND password_hash = ?";
+
+    private static final LatencyHistogram FIND_TIMER = Metrics.shared().timer("repo.user.findByUsername");
+    private static final LatencyHistogram LOAD_TIMER = Metrics.shared().timer("repo.user.load");
+
+    // one cache per database, shared by every repository instance that uses it
+    private static final Map<ConnectionProvider, LookupCache<String, User>> CACHES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ConnectionProvider connections;
+    private final LookupCache<String, User> cache;
+
+    /** Create a repository backed by the shared connection pool. */
+    public UserRepository() {
+        this(DatabaseUtil.provider());
+    }
+
+    /**
+     * Create a repository backed by the given connection source.
+     *
+     * @param connections where to obtain database connections
+     */
+    public UserRepository(ConnectionProvider connections) {
+        this.connections = connections;
+        this.cache = CACHES.computeIfAbsent(connections, c -> new LookupCache<>(
+                Integer.getInteger("leavetracker.userCache.maxSize", 1_000),
+                Duration.ofSeconds(Long.getLong("leavetracker.userCache.ttlSeconds", 300L)),
+                Duration.ofSeconds(Long.getLong("leavetracker.userCache.negativeTtlSeconds", 30L))));
+    }
+
     /**
      * Save a new user. Fails silently if the username already exists.
      *
@@ -27,7 +86,7 @@ public class UserRepository {
      * @return true if insertion succeeded; false on duplicate or error
      */
     public boolean save(User user) {
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = connections.getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
 
             ps.setString(1, user.getUsername());
@@ -38,17 +97,127 @@ public class UserRepository {
         } catch (SQLException e) {
             // duplicate key or other error
             return false;
+        } finally {
+            cache.invalidate(user.getUsername());
+        }
+    }
+
+    /**
+     * Replace a user's stored password hash. Call this whenever
+     * {@link User#setPasswordHash} is used, so cached lookups see the change.
+     *
+     * @param username     whose password changed
+     * @param passwordHash the new BCrypt hash
+     * @return true if a user row was updated
+     */
+    public boolean updatePasswordHash(String username, String passwordHash) {
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPDATE_HASH_SQL)) {
+
+            ps.setString(1, passwordHash);
+            ps.setString(2, username);
+            return ps.executeUpdate() == 1;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating password hash", e);
+        } finally {
+            cache.invalidate(username);
+        }
+    }
+
+    /**
+     * Apply many conditional hash replacements in one JDBC batch and transaction.
+     * Rows whose hash no longer matches {@link PasswordHashChange#expectedHash()}
+     * are left alone.
+     *
+     * @param changes the replacements to apply
+     * @return number of users whose hash was replaced
+     */
+    public int updatePasswordHashes(Collection<PasswordHashChange> changes) {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(REPLACE_HASH_SQL)) {
+
+            conn.setAutoCommit(false);
+            try {
+                for (PasswordHashChange c : changes) {
+                    ps.setString(1, c.newHash());
+                    ps.setString(2, c.username());
+                    ps.setString(3, c.expectedHash());
+                    ps.addBatch();
+                }
+                int updated = 0;
+                for (int count : ps.executeBatch()) {
+                    updated += Math.max(count, 0);
+                }
+                conn.commit();
+                return updated;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating password hashes", e);
+        } finally {
+            changes.forEach(c -> cache.invalidate(c.username()));
         }
     }
 
     /**
-     * Find a user by username.
+     * Find a user by username, served from cache when possible.
      *
      * @param username lookup key
      * @return Optional containing the User if found; otherwise empty
      */
     public Optional<User> findByUsername(String username) {
-        try (Connection conn = DatabaseUtil.getConnection();
+        long start = System.nanoTime();
+        try {
+            // hand out copies so callers mutating the User cannot change the cached one
+            return cache.get(username, this::loadByUsername)
+                    .map(u -> new User(u.getUsername(), u.getPasswordHash(), u.getRole()));
+        } finally {
+            FIND_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * List every registered username, bypassing the cache.
+     *
+     * @return usernames in alphabetical order
+     */
+    public List<String> findAllUsernames() {
+        List<String> names = new ArrayList<>();
+        try (Connection conn = connections.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_USERNAMES_SQL);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error listing users", e);
+        }
+        return names;
+    }
+
+    /** @return hit ratio, load time and size of the username lookup cache shared with this repository */
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    /** Forget every cached lookup, e.g. after users were changed with direct SQL. */
+    public void invalidateCache() {
+        cache.invalidateAll();
+    }
+
+    private Optional<User> loadByUsername(String username) {
+        long start = System.nanoTime();
+        try (Connection conn = connections.getConnection();
              PreparedStatement ps = conn.prepareStatement(SELECT_SQL)) {
 
             ps.setString(1, username);
@@ -62,6 +231,8 @@ public class UserRepository {
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error querying user", e);
+        } finally {
+            LOAD_TIMER.recordSince(start);
         }
         return Optional.empty();
     }
@@ -0,0 +1,152 @@
+package com.leavetracker.service;
+
+import com.leavetracker.repository.LeaveLedgerRepository;
+import com.leavetracker.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Credits monthly leave to every user.
+ * <p>
+ * The user base is split into chunks of {@code chunkSize} and each chunk is
+ * written as one batch on one of {@code threads} workers, each using its own
+ * pooled connection. Accrual is idempotent per user and month, so the nightly
+ * schedule simply credits the previous month every night and only the first
+ * run after a month ends does any work.
+ * </p>
+ */
+public class AccrualJob implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AccrualJob.class);
+
+    private final LeaveLedgerRepository ledger;
+    private final UserRepository users;
+    private final BigDecimal daysPerMonth;
+    private final int chunkSize;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "leave-accrual-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param ledger       where accruals are recorded
+     * @param users        source of the user base
+     * @param daysPerMonth days credited to each user per month
+     * @param threads      chunks written at once
+     * @param chunkSize    users per batch and transaction
+     */
+    public AccrualJob(LeaveLedgerRepository ledger, UserRepository users, BigDecimal daysPerMonth,
+                      int threads, int chunkSize) {
+        if (threads < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("threads and chunkSize must be positive");
+        }
+        this.ledger = ledger;
+        this.users = users;
+        this.daysPerMonth = daysPerMonth;
+        this.chunkSize = chunkSize;
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "leave-accrual-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Create a job using the shared pool, configured from
+     * {@code leavetracker.accrual.daysPerMonth} (default 2.5),
+     * {@code leavetracker.accrual.threads} (default 4) and
+     * {@code leavetracker.accrual.chunkSize} (default 500).
+     *
+     * @return a new job
+     */
+    public static AccrualJob fromSystemProperties() {
+        return new AccrualJob(new LeaveLedgerRepository(), new UserRepository(),
+                new BigDecimal(System.getProperty("leavetracker.accrual.daysPerMonth", "2.5")),
+                Integer.getInteger("leavetracker.accrual.threads", 4),
+                Integer.getInteger("leavetracker.accrual.chunkSize", 500));
+    }
+
+    /**
+     * Credit one month to every registered user and wait for it to finish.
+     *
+     * @param month the month to credit
+     * @return how many users were credited
+     */
+    public AccrualResult run(YearMonth month) {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        List<String> names = users.findAllUsernames();
+        List<Callable<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < names.size(); from += chunkSize) {
+            List<String> chunk = names.subList(from, Math.min(names.size(), from + chunkSize));
+            chunks.add(() -> ledger.accrue(chunk, month, daysPerMonth, today));
+        }
+        int credited = 0;
+        try {
+            for (Future<Integer> f : workers.invokeAll(chunks)) {
+                credited += f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Accrual interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Accrual failed for " + month, e.getCause());
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new AccrualResult(month, names.size(), credited, elapsed);
+    }
+
+    /**
+     * Credit the previous month every day at {@code time}, starting with the next occurrence.
+     *
+     * @param time local time of day to run at
+     */
+    public void scheduleNightly(LocalTime time) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(time);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.scheduleAtFixedRate(this::runScheduled,
+                Duration.between(now, next).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void runScheduled() {
+        try {
+            AccrualResult result = run(YearMonth.now().minusMonths(1));
+            if (result.credited() > 0) {
+                log.info("Accrued {} for {} of {} users in {} ms", result.month(),
+                        result.credited(), result.users(), result.elapsedMillis());
+            }
+        } catch (RuntimeException e) {
+            // keep the schedule alive; the month is retried tomorrow
+            log.warn("Nightly leave accrual failed", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.leavetracker.service;
+
+import java.time.YearMonth;
+
+/**
+ * Outcome of one accrual run.
+ *
+ * @param month         the month credited
+ * @param users         users considered
+ * @param credited      users newly credited; the rest already had this month
+ * @param elapsedMillis wall-clock time of the run
+ */
+public record AccrualResult(YearMonth month, int users, int credited, long elapsedMillis) {
+}
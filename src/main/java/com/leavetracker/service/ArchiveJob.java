@@ -0,0 +1,138 @@
+package com.leavetracker.service;
+
+import com.leavetracker.archive.LeaveArchive;
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.repository.LeaveRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves closed leave requests out of {@code leave_requests} into a {@link LeaveArchive}.
+ * <p>
+ * Requests that are no longer pending and ended before the cutoff are read
+ * oldest first, {@code segmentRows} at a time. Each chunk is written as one
+ * segment and only then deleted from the table, so a failure part-way leaves
+ * rows live rather than lost. The default cutoff keeps {@code keepDays} of
+ * history live, which should exceed the readiness heatmap's past window.
+ * </p>
+ * <p>
+ * A run holds the archive's write lock throughout, so runs in other
+ * processes sharing the archive directory wait rather than archive the same
+ * rows twice. Only {@link com.leavetracker.ApiApp} schedules the nightly run,
+ * and only if {@code leavetracker.archive.nightly} is not {@code false}; set
+ * it to {@code false} on all but one server sharing a database.
+ * </p>
+ */
+public class ArchiveJob implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveJob.class);
+
+    private final LeaveRequestRepository repo;
+    private final LeaveArchive archive;
+    private final int segmentRows;
+    private final int keepDays;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "leave-archive-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param repo        where live requests are stored
+     * @param archive     where closed requests are moved
+     * @param segmentRows most requests per segment file
+     * @param keepDays    days of closed history the scheduled run leaves live
+     */
+    public ArchiveJob(LeaveRequestRepository repo, LeaveArchive archive, int segmentRows, int keepDays) {
+        if (segmentRows < 1 || keepDays < 0) {
+            throw new IllegalArgumentException("segmentRows must be positive and keepDays not negative");
+        }
+        this.repo = repo;
+        this.archive = archive;
+        this.segmentRows = segmentRows;
+        this.keepDays = keepDays;
+    }
+
+    /**
+     * Create a job using the shared pool and archive, configured from
+     * {@code leavetracker.archive.segmentRows} (default 100,000) and
+     * {@code leavetracker.archive.keepDays} (default 400).
+     *
+     * @return a new job
+     */
+    public static ArchiveJob fromSystemProperties() {
+        return new ArchiveJob(new LeaveRequestRepository(), LeaveArchive.shared(),
+                Integer.getInteger("leavetracker.archive.segmentRows", 100_000),
+                Integer.getInteger("leavetracker.archive.keepDays", 400));
+    }
+
+    /**
+     * Archive every closed request that ended before {@code cutoff}.
+     *
+     * @param cutoff first day whose leave stays live
+     * @return how many requests and segments were written
+     */
+    public ArchiveResult run(LocalDate cutoff) {
+        long start = System.nanoTime();
+        long rows = 0;
+        int segments = 0;
+        try (Closeable lock = archive.lockForWriting()) {
+            List<LeaveRequest> chunk;
+            while (!(chunk = repo.findClosedBefore(cutoff, segmentRows)).isEmpty()) {
+                archive.append(chunk);
+                repo.deleteAll(chunk.stream().map(LeaveRequest::getId).toList());
+                rows += chunk.size();
+                segments++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing archive segment", e);
+        }
+        return new ArchiveResult(cutoff, rows, segments, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Archive everything older than {@code keepDays} every day at {@code time},
+     * starting with the next occurrence.
+     *
+     * @param time local time of day to run at
+     */
+    public void scheduleNightly(LocalTime time) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(time);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.scheduleAtFixedRate(this::runScheduled,
+                Duration.between(now, next).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void runScheduled() {
+        try {
+            ArchiveResult result = run(LocalDate.now().minusDays(keepDays));
+            if (result.rows() > 0) {
+                log.info("Archived {} leave request(s) ending before {} into {} segment(s) in {} ms",
+                        result.rows(), result.cutoff(), result.segments(), result.elapsedMillis());
+            }
+        } catch (RuntimeException e) {
+            // keep the schedule alive; whatever was not archived is retried tomorrow
+            log.warn("Nightly leave archiving failed", e);
+        }
+    }
+}
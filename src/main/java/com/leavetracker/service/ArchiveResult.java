@@ -0,0 +1,14 @@
+package com.leavetracker.service;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of one archive run.
+ *
+ * @param cutoff        requests ending before this day were eligible
+ * @param rows          requests moved out of the live table
+ * @param segments      segment files written
+ * @param elapsedMillis wall-clock time of the run
+ */
+public record ArchiveResult(LocalDate cutoff, long rows, int segments, long elapsedMillis) {
+}
@@ -0,0 +1,24 @@
+package com.leavetracker.service;
+
+import com.leavetracker.model.LeaveStatus;
+
+import java.util.List;
+
+/**
+ * Outcome of approving or denying many requests at once.
+ *
+ * @param decision status the requests were moved to
+ * @param applied  IDs of the requests that moved
+ * @param skipped  requested IDs that did not move, because they are missing, no longer pending
+ *                 or, for approvals, clash with approved leave or the manning limit
+ */
+public record BulkDecisionResult(LeaveStatus decision, List<Long> applied, List<Long> skipped) {
+
+    /**
+     * @param id a request ID
+     * @return true if that request moved
+     */
+    public boolean isApplied(long id) {
+        return applied.contains(id);
+    }
+}
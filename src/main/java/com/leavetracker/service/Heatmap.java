@@ -0,0 +1,62 @@
+package com.leavetracker.service;
+
+import com.leavetracker.model.LeaveType;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Number of people on approved leave per day over a date range, split by leave type.
+ *
+ * @param start  first day of the range
+ * @param byType for each leave type, one count per day starting at {@code start}
+ * @param total  all types combined, one count per day starting at {@code start}
+ */
+public record Heatmap(LocalDate start, Map<LeaveType, int[]> byType, int[] total) {
+
+    /** @return number of days covered */
+    public int days() {
+        return total.length;
+    }
+
+    /** @return last day of the range */
+    public LocalDate end() {
+        return start.plusDays(total.length - 1L);
+    }
+
+    /**
+     * @param day a day within the range
+     * @return people on leave that day
+     */
+    public int totalOn(LocalDate day) {
+        return total[index(day)];
+    }
+
+    /**
+     * @param day  a day within the range
+     * @param type leave type
+     * @return people on that type of leave that day
+     */
+    public int countOn(LocalDate day, LeaveType type) {
+        int[] counts = byType.get(type);
+        return counts == null ? 0 : counts[index(day)];
+    }
+
+    /** @return the highest daily total in the range */
+    public int peak() {
+        int peak = 0;
+        for (int out : total) {
+            peak = Math.max(peak, out);
+        }
+        return peak;
+    }
+
+    private int index(LocalDate day) {
+        long i = ChronoUnit.DAYS.between(start, day);
+        if (i < 0 || i >= total.length) {
+            throw new IllegalArgumentException(day + " is outside " + start + ".." + end());
+        }
+        return (int) i;
+    }
+}
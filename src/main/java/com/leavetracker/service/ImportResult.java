@@ -0,0 +1,16 @@
+package com.leavetracker.service;
+
+/**
+ * Outcome of a bulk leave request import.
+ *
+ * @param imported      rows stored in the database
+ * @param rejected      rows skipped because they could not be parsed or validated
+ * @param elapsedMillis wall-clock time of the import
+ */
+public record ImportResult(long imported, long rejected, long elapsedMillis) {
+
+    /** @return imported rows per second of wall-clock time */
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,262 @@
+package com.leavetracker.service;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.repository.LeaveRequestRepository;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of approved leave, used to check new requests without
+ * scanning {@code leave_requests}.
+ * <p>
+ * Each user's leave is kept in a set ordered by start day, together with the
+ * longest span that user has, so an overlap check only visits spans starting
+ * within that distance of the query. Roster-wide headcount is kept as a
+ * per-day difference array backed by a Fenwick tree: adding or removing a span
+ * is O(log days), and the headcount for each day of a range is
+ * O(log days + range length). Days before {@link #FIRST_DAY} or after
+ * {@link #LAST_DAY} are not counted.
+ * </p>
+ * Reads may run concurrently; writes take an exclusive lock.
+ */
+public class LeaveCalendar {
+
+    /** First day covered by the headcount. */
+    public static final LocalDate FIRST_DAY = LocalDate.of(2000, 1, 1);
+    /** Last day covered by the headcount. */
+    public static final LocalDate LAST_DAY = LocalDate.of(2099, 12, 31);
+
+    private static final long BASE = FIRST_DAY.toEpochDay();
+    private static final int DAYS = (int) (LAST_DAY.toEpochDay() - BASE + 1);
+    private static final Comparator<Span> BY_START =
+            Comparator.comparingLong(Span::start).thenComparingLong(Span::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Span> byId = new HashMap<>();
+    private final Map<String, UserSpans> byUser = new HashMap<>();
+    /** Headcount change on each day: +1 where a span starts, -1 the day after it ends. */
+    private final int[] delta = new int[DAYS + 1];
+    /** Fenwick tree over {@link #delta}; prefix sums give the headcount on a day. */
+    private final int[] tree = new int[DAYS + 2];
+
+    /**
+     * Build a calendar from every approved request in the repository.
+     *
+     * @param repo where leave requests are stored
+     * @return a populated calendar
+     */
+    public static LeaveCalendar load(LeaveRequestRepository repo) {
+        LeaveCalendar calendar = new LeaveCalendar();
+        repo.forEach(calendar::update);
+        return calendar;
+    }
+
+    /**
+     * Bring the index in line with a request's current status: approved
+     * requests are added (or replaced), anything else is removed.
+     *
+     * @param request the request as stored
+     */
+    public void update(LeaveRequest request) {
+        if (request.getStatus() == LeaveStatus.APPROVED) {
+            put(request.getId(), request.getUsername(), request.getStartDate(), request.getEndDate());
+        } else {
+            remove(request.getId());
+        }
+    }
+
+    /**
+     * Index a span of approved leave, replacing any span with the same ID.
+     *
+     * @param id       request ID
+     * @param username who is on leave
+     * @param start    first day of leave
+     * @param end      last day of leave
+     */
+    public void put(long id, String username, LocalDate start, LocalDate end) {
+        Span span = new Span(id, username, start.toEpochDay(), end.toEpochDay());
+        lock.writeLock().lock();
+        try {
+            Span old = byId.put(id, span);
+            if (old != null) {
+                unindex(old);
+            }
+            byUser.computeIfAbsent(username, u -> new UserSpans()).add(span);
+            addRange(span, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop a span from the index.
+     *
+     * @param id request ID
+     * @return true if the request was indexed
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Span old = byId.remove(id);
+            if (old == null) {
+                return false;
+            }
+            unindex(old);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param username whose leave to check
+     * @param start    first day of the proposed leave
+     * @param end      last day of the proposed leave
+     * @return true if any approved leave of this user shares a day with the range
+     */
+    public boolean overlaps(String username, LocalDate start, LocalDate end) {
+        lock.readLock().lock();
+        try {
+            UserSpans spans = byUser.get(username);
+            return spans != null && spans.overlaps(start.toEpochDay(), end.toEpochDay());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param start first day to report
+     * @param end   last day to report
+     * @return number of people on approved leave for each day from start to end inclusive
+     */
+    public int[] headcount(LocalDate start, LocalDate end) {
+        long first = start.toEpochDay();
+        long last = end.toEpochDay();
+        if (last < first) {
+            throw new IllegalArgumentException("end is before start");
+        }
+        int[] counts = new int[Math.toIntExact(last - first + 1)];
+        int from = (int) Math.max(first - BASE, 0);
+        int to = (int) Math.min(last - BASE, DAYS - 1);
+        if (from > to) {
+            return counts;
+        }
+        lock.readLock().lock();
+        try {
+            int out = prefix(from);
+            int offset = (int) (BASE + from - first);
+            counts[offset] = out;
+            for (int day = from + 1; day <= to; day++) {
+                out += delta[day];
+                counts[offset + day - from] = out;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    /**
+     * @param start first day to check
+     * @param end   last day to check
+     * @return the highest number of people on approved leave on any day of the range
+     */
+    public int peakHeadcount(LocalDate start, LocalDate end) {
+        int peak = 0;
+        for (int out : headcount(start, end)) {
+            peak = Math.max(peak, out);
+        }
+        return peak;
+    }
+
+    /** @return number of indexed requests */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unindex(Span span) {
+        UserSpans spans = byUser.get(span.username());
+        if (spans != null && spans.remove(span)) {
+            byUser.remove(span.username());
+        }
+        addRange(span, -1);
+    }
+
+    private void addRange(Span span, int amount) {
+        long first = Math.max(span.start() - BASE, 0);
+        long afterLast = Math.min(span.end() - BASE + 1, DAYS);
+        if (first >= afterLast) {
+            return;
+        }
+        addDelta((int) first, amount);
+        addDelta((int) afterLast, -amount);
+    }
+
+    private void addDelta(int day, int amount) {
+        delta[day] += amount;
+        for (int i = day + 1; i < tree.length; i += i & -i) {
+            tree[i] += amount;
+        }
+    }
+
+    /** @return sum of delta[0..day], i.e. the headcount on that day */
+    private int prefix(int day) {
+        int sum = 0;
+        for (int i = day + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** One approved leave, as epoch days. */
+    private record Span(long id, String username, long start, long end) {
+    }
+
+    /** A user's spans ordered by start, plus the longest span so overlap scans stay short. */
+    private static final class UserSpans {
+        private final NavigableSet<Span> spans = new TreeSet<>(BY_START);
+        private long longest;
+
+        void add(Span span) {
+            spans.add(span);
+            longest = Math.max(longest, span.end() - span.start());
+        }
+
+        /** @return true if no spans are left */
+        boolean remove(Span span) {
+            spans.remove(span);
+            if (spans.isEmpty()) {
+                return true;
+            }
+            if (span.end() - span.start() == longest) {
+                longest = spans.stream().mapToLong(s -> s.end() - s.start()).max().orElse(0);
+            }
+            return false;
+        }
+
+        boolean overlaps(long start, long end) {
+            // any span that overlaps must start no earlier than start - longest
+            Span lo = new Span(Long.MIN_VALUE, null, start - longest, 0);
+            Span hi = new Span(Long.MAX_VALUE, null, end, 0);
+            for (Span s : spans.subSet(lo, true, hi, true)) {
+                if (s.end() >= start) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.leavetracker.service;
+
+/**
+ * Thrown when a leave request clashes with approved leave or the manning limit.
+ */
+public class LeaveConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param message what the request conflicts with
+     */
+    public LeaveConflictException(String message) {
+        super(message);
+    }
+}
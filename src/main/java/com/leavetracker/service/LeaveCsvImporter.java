@@ -0,0 +1,189 @@
+package com.leavetracker.service;
+
+import com.leavetracker.audit.AuditAction;
+import com.leavetracker.audit.AuditSink;
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.repository.LeaveRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Streams leave requests from CSV into the database in fixed-size batches.
+ * <p>
+ * Expected columns: {@code username,start_date,end_date,type,reason}, dates as
+ * {@code YYYY-MM-DD}. A header row starting with {@code username} is skipped.
+ * Fields may be wrapped in double quotes (use {@code ""} for a literal quote) so
+ * reasons can contain commas. Only one batch is held in memory at a time, so
+ * the input can be arbitrarily large. Every imported request starts as PENDING.
+ * </p>
+ */
+public class LeaveCsvImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaveCsvImporter.class);
+    private static final int PROGRESS_EVERY_ROWS = 100_000;
+    private static final int MAX_REASON_LENGTH = 255;
+    private static final int MAX_USERNAME_LENGTH = 50;
+
+    private final LeaveRequestRepository repo;
+    private final LongSupplier ids;
+    private final int batchSize;
+    private final AuditSink audit;
+    private final LeaveSearchIndex search;
+
+    /**
+     * @param repo      where imported requests are saved
+     * @param ids       source of new request IDs
+     * @param batchSize rows per JDBC batch and transaction
+     */
+    public LeaveCsvImporter(LeaveRequestRepository repo, LongSupplier ids, int batchSize) {
+        this(repo, ids, batchSize, AuditSink.NONE, new LeaveSearchIndex());
+    }
+
+    /**
+     * @param repo      where imported requests are saved
+     * @param ids       source of new request IDs
+     * @param batchSize rows per JDBC batch and transaction
+     * @param audit     receives a CREATE event per saved request
+     * @param search    full-text index that saved requests are added to
+     */
+    public LeaveCsvImporter(LeaveRequestRepository repo, LongSupplier ids, int batchSize, AuditSink audit,
+                            LeaveSearchIndex search) {
+        this.repo = repo;
+        this.ids = ids;
+        this.batchSize = batchSize;
+        this.audit = audit;
+        this.search = search;
+    }
+
+    /**
+     * Import every row from {@code in}. Malformed rows are logged and counted
+     * as rejected; database errors abort the import.
+     *
+     * @param in CSV source; not closed by this method
+     * @return counts and throughput of the import
+     */
+    public ImportResult importFrom(Reader in) {
+        long start = System.nanoTime();
+        long imported = 0;
+        long rejected = 0;
+        long nextProgress = PROGRESS_EVERY_ROWS;
+        List<LeaveRequest> batch = new ArrayList<>(batchSize);
+        BufferedReader reader = in instanceof BufferedReader br ? br : new BufferedReader(in);
+
+        try {
+            String line;
+            long lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || (lineNo == 1 && line.regionMatches(true, 0, "username", 0, 8))) {
+                    continue;
+                }
+                LeaveRequest req = parse(line, lineNo);
+                if (req == null) {
+                    rejected++;
+                    continue;
+                }
+                batch.add(req);
+                if (batch.size() == batchSize) {
+                    imported += save(batch);
+                    batch.clear();
+                    if (imported >= nextProgress) {
+                        logProgress(imported, start);
+                        nextProgress += PROGRESS_EVERY_ROWS;
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                imported += save(batch);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading leave request CSV", e);
+        }
+
+        ImportResult result = new ImportResult(imported, rejected, (System.nanoTime() - start) / 1_000_000);
+        log.info("Imported {} leave request(s), rejected {}, {} rows/s",
+                result.imported(), result.rejected(), Math.round(result.rowsPerSecond()));
+        return result;
+    }
+
+    private int save(List<LeaveRequest> batch) {
+        int saved = repo.saveAll(batch, batchSize);
+        for (LeaveRequest req : batch) {
+            audit.record(AuditAction.CREATE, req.getUsername(), req.getId());
+            search.add(req);
+        }
+        return saved;
+    }
+
+    private LeaveRequest parse(String line, long lineNo) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != 5) {
+            log.warn("Line {}: expected 5 fields but found {}", lineNo, fields.size());
+            return null;
+        }
+        String username = fields.get(0).trim();
+        String reason = fields.get(4).trim();
+        try {
+            LocalDate startDate = LocalDate.parse(fields.get(1).trim());
+            LocalDate endDate = LocalDate.parse(fields.get(2).trim());
+            LeaveType type = LeaveType.parse(fields.get(3));
+            if (username.isEmpty() || username.length() > MAX_USERNAME_LENGTH
+                    || endDate.isBefore(startDate) || reason.length() > MAX_REASON_LENGTH) {
+                log.warn("Line {}: invalid leave request", lineNo);
+                return null;
+            }
+            return new LeaveRequest(ids.getAsLong(), username, startDate, endDate, type, reason);
+        } catch (DateTimeParseException e) {
+            log.warn("Line {}: invalid date ({})", lineNo, e.getParsedString());
+            return null;
+        } catch (IllegalArgumentException e) {
+            log.warn("Line {}: unknown leave type ({})", lineNo, fields.get(3).trim());
+            return null;
+        }
+    }
+
+    /** Split one CSV record, honouring double-quoted fields. */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void logProgress(long imported, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        log.info("Imported {} leave request(s) so far, {} rows/s", imported, Math.round(imported / seconds));
+    }
+}
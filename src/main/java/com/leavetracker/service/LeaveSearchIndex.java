@@ -0,0 +1,435 @@
+package com.leavetracker.service;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.repository.LeaveRequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over leave request reasons, types and usernames.
+ * <p>
+ * Every request added gets the next document number. Each term keeps a
+ * postings list of document numbers, stored as varint-encoded gaps in a
+ * byte array; since numbers only grow, adding a request only appends to the
+ * lists of its own terms. Terms are kept sorted so a prefix query is a range
+ * scan of the dictionary.
+ * </p>
+ * <p>
+ * Reason text is split into lower-case words. The username and type are
+ * indexed as {@code user:<name>} and {@code type:<type>}. A query is a list
+ * of terms that must all match; {@code OR} separates alternatives,
+ * {@code -term} excludes, and {@code term*} matches any word with that prefix,
+ * e.g. {@code funeral OR bereave* -type:vacation}.
+ * </p>
+ * The index can be saved to a file and reloaded; {@link #reconcile} then
+ * catches up with rows added or removed in the meantime. Reads may run
+ * concurrently; adds take an exclusive lock.
+ */
+public class LeaveSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaveSearchIndex.class);
+
+    static final String USER_FIELD = "user:";
+    static final String TYPE_FIELD = "type:";
+    private static final int MAGIC = 0x4C565358;
+    private static final int FORMAT = 1;
+    private static final int RECONCILE_BATCH = 10_000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final BitSet deleted = new BitSet();
+    private long[] docIds = new long[1024];
+    private int docs;
+
+    /**
+     * Build an index of every request in the repository.
+     *
+     * @param repo where leave requests are stored
+     * @return a populated index
+     */
+    public static LeaveSearchIndex build(LeaveRequestRepository repo) {
+        LeaveSearchIndex index = new LeaveSearchIndex();
+        repo.forEach(index::add);
+        return index;
+    }
+
+    /**
+     * Read a saved index and bring it up to date with the repository, or
+     * build a new one if {@code file} does not exist or cannot be read.
+     *
+     * @param file where the index was saved
+     * @param repo where leave requests are stored
+     * @return a populated index
+     */
+    public static LeaveSearchIndex load(Path file, LeaveRequestRepository repo) {
+        if (Files.exists(file)) {
+            try {
+                LeaveSearchIndex index = read(file);
+                index.reconcile(repo);
+                return index;
+            } catch (IOException e) {
+                log.warn("Could not read search index {}; rebuilding", file, e);
+            }
+        }
+        return build(repo);
+    }
+
+    /**
+     * The index shared by every service in this JVM, loaded on first use from
+     * {@code leavetracker.search.file} (default {@code ./data/search.idx})
+     * and saved there at shutdown.
+     *
+     * @return the shared index
+     */
+    public static LeaveSearchIndex shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Index a request.
+     *
+     * @param request the request as stored
+     */
+    public void add(LeaveRequest request) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(request.getReason(), tokens);
+        tokens.add(USER_FIELD + request.getUsername().toLowerCase(Locale.ROOT));
+        tokens.add(TYPE_FIELD + request.getType().name().toLowerCase(Locale.ROOT));
+        lock.writeLock().lock();
+        try {
+            if (docs == docIds.length) {
+                docIds = Arrays.copyOf(docIds, docs + (docs >> 1));
+            }
+            int doc = docs++;
+            docIds[doc] = request.getId();
+            for (String token : tokens) {
+                terms.computeIfAbsent(token, t -> new Postings()).add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param query terms to match, see the class description
+     * @param limit most IDs to return
+     * @return IDs of matching requests, most recently indexed first
+     */
+    public List<Long> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet hits = new BitSet(docs);
+            List<String> group = new ArrayList<>();
+            for (String word : query.trim().split("\\s+")) {
+                if (word.equals("OR")) {
+                    evaluate(group, hits);
+                    group.clear();
+                } else if (!word.isEmpty()) {
+                    group.add(word);
+                }
+            }
+            evaluate(group, hits);
+            hits.andNot(deleted);
+
+            List<Long> ids = new ArrayList<>(Math.min(limit, hits.cardinality()));
+            for (int doc = hits.previousSetBit(docs - 1); doc >= 0 && ids.size() < limit;
+                 doc = hits.previousSetBit(doc - 1)) {
+                ids.add(docIds[doc]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** @return number of indexed requests not known to be deleted */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs - deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the index to a file, replacing it atomically.
+     *
+     * @param file where to save
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(docs);
+            for (int i = 0; i < docs; i++) {
+                out.writeLong(docIds[i]);
+            }
+            long[] words = deleted.toLongArray();
+            out.writeInt(words.length);
+            for (long w : words) {
+                out.writeLong(w);
+            }
+            out.writeInt(terms.size());
+            for (Map.Entry<String, Postings> e : terms.entrySet()) {
+                Postings p = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeInt(p.count);
+                out.writeInt(p.last);
+                out.writeInt(p.length);
+                out.write(p.data, 0, p.length);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a saved index as it was when saved.
+     *
+     * @param file where the index was saved
+     * @return the index
+     * @throws IOException if the file cannot be read or is not an index
+     */
+    public static LeaveSearchIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException("Not a search index: " + file);
+            }
+            LeaveSearchIndex index = new LeaveSearchIndex();
+            index.docs = in.readInt();
+            index.docIds = new long[Math.max(index.docs, 1024)];
+            for (int i = 0; i < index.docs; i++) {
+                index.docIds[i] = in.readLong();
+            }
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            index.deleted.or(BitSet.valueOf(words));
+            int termCount = in.readInt();
+            for (int i = 0; i < termCount; i++) {
+                String term = in.readUTF();
+                Postings p = new Postings();
+                p.count = in.readInt();
+                p.last = in.readInt();
+                p.length = in.readInt();
+                p.data = new byte[Math.max(p.length, 8)];
+                in.readFully(p.data, 0, p.length);
+                index.terms.put(term, p);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Catch up with the repository: index rows that are missing and mark
+     * indexed requests that no longer exist as deleted.
+     *
+     * @param repo where leave requests are stored
+     */
+    public void reconcile(LeaveRequestRepository repo) {
+        long[] live = repo.findAllIds();
+        long[] known;
+        lock.writeLock().lock();
+        try {
+            for (int doc = 0; doc < docs; doc++) {
+                if (Arrays.binarySearch(live, docIds[doc]) < 0) {
+                    deleted.set(doc);
+                }
+            }
+            known = Arrays.copyOf(docIds, docs);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Arrays.sort(known);
+        List<Long> missing = new ArrayList<>();
+        int added = 0;
+        for (long id : live) {
+            if (Arrays.binarySearch(known, id) < 0) {
+                missing.add(id);
+                if (missing.size() == RECONCILE_BATCH) {
+                    added += addAll(repo, missing);
+                }
+            }
+        }
+        added += addAll(repo, missing);
+        if (added > 0 || deleted.cardinality() > 0) {
+            log.info("Search index caught up: {} added, {} deleted", added, deleted.cardinality());
+        }
+    }
+
+    private int addAll(LeaveRequestRepository repo, List<Long> ids) {
+        List<LeaveRequest> rows = repo.findByIds(ids);
+        rows.sort(Comparator.comparingLong(LeaveRequest::getId));
+        rows.forEach(this::add);
+        ids.clear();
+        return rows.size();
+    }
+
+    /** OR the documents matching one group of AND-ed terms into {@code hits}. */
+    private void evaluate(List<String> group, BitSet hits) {
+        List<BitSet> include = new ArrayList<>();
+        List<BitSet> exclude = new ArrayList<>();
+        for (String raw : group) {
+            boolean negate = raw.length() > 1 && raw.startsWith("-");
+            String term = negate ? raw.substring(1) : raw;
+            boolean prefix = term.length() > 1 && term.endsWith("*");
+            if (prefix) {
+                term = term.substring(0, term.length() - 1);
+            }
+            (negate ? exclude : include).add(match(term, prefix));
+        }
+        if (include.isEmpty() && exclude.isEmpty()) {
+            return;
+        }
+        BitSet result;
+        if (include.isEmpty()) {
+            result = new BitSet(docs);
+            result.set(0, docs);
+        } else {
+            // smallest first keeps the intermediate sets small
+            include.sort(Comparator.comparingInt(BitSet::cardinality));
+            result = include.get(0);
+            for (int i = 1; i < include.size() && !result.isEmpty(); i++) {
+                result.and(include.get(i));
+            }
+        }
+        for (BitSet ex : exclude) {
+            result.andNot(ex);
+        }
+        hits.or(result);
+    }
+
+    /** @return documents matching one query term, which may expand to several words */
+    private BitSet match(String term, boolean prefix) {
+        String lower = term.toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        if (lower.startsWith(USER_FIELD) || lower.startsWith(TYPE_FIELD)) {
+            words.add(lower);
+        } else {
+            tokenize(lower, words);
+        }
+        BitSet result = null;
+        for (int i = 0; i < words.size(); i++) {
+            BitSet docsForWord = new BitSet(docs);
+            String word = words.get(i);
+            if (prefix && i == words.size() - 1) {
+                for (Postings p : terms.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                    p.decodeInto(docsForWord);
+                }
+            } else {
+                Postings p = terms.get(word);
+                if (p != null) {
+                    p.decodeInto(docsForWord);
+                }
+            }
+            if (result == null) {
+                result = docsForWord;
+            } else {
+                result.and(docsForWord);
+            }
+        }
+        return result == null ? new BitSet() : result;
+    }
+
+    private static void tokenize(String text, Collection<String> out) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                out.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    /** Loaded on first use so processes that never search never scan the table. */
+    private static final class Shared {
+        static final LeaveSearchIndex INSTANCE = loadShared();
+
+        private static LeaveSearchIndex loadShared() {
+            Path path = Path.of(System.getProperty("leavetracker.search.file", "./data/search.idx"));
+            LeaveSearchIndex shared = load(path, new LeaveRequestRepository());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    shared.save(path);
+                } catch (IOException e) {
+                    log.warn("Could not save search index {}", path, e);
+                }
+            }, "search-index-shutdown"));
+            return shared;
+        }
+    }
+
+    /** Ascending document numbers of one term, stored as varint-encoded gaps. */
+    private static final class Postings {
+        private byte[] data = new byte[8];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        void add(int doc) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            int gap = doc - last;
+            while ((gap & ~0x7F) != 0) {
+                data[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+            last = doc;
+            count++;
+        }
+
+        void decodeInto(BitSet out) {
+            int doc = -1;
+            int pos = 0;
+            while (pos < length) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += gap;
+                out.set(doc);
+            }
+        }
+    }
+}
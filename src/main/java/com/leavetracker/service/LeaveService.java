@@ -1,19 +1,146 @@
 package com.leavetracker.service;
 
+import com.leavetracker.archive.LeaveArchive;
+import com.leavetracker.audit.AuditAction;
+import com.leavetracker.audit.AuditLog;
+import com.leavetracker.audit.AuditSink;
+import com.leavetracker.metrics.LatencyHistogram;
+import com.leavetracker.metrics.Metrics;
 import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.repository.LeaveLedgerRepository;
+import com.leavetracker.repository.LeaveRequestFilter;
 import com.leavetracker.repository.LeaveRequestRepository;
+import com.leavetracker.repository.LeaveRequestSort;
+import com.leavetracker.repository.LedgerEntry;
+import com.leavetracker.repository.Page;
+import com.leavetracker.repository.PageCursor;
+import com.leavetracker.util.DatabaseUtil;
+import com.leavetracker.util.IdGenerator;
 
+import java.io.Reader;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Handles leave request operations against the database.
+ * <p>
+ * Each operation is timed as {@code leave.<operation>} in {@link Metrics#shared()}.
+ * </p>
+ * <p>
+ * Overlap and manning checks run when a request is created and again when it
+ * is approved. Approvals are checked and indexed while holding the leave
+ * calendar's monitor, so services sharing a calendar cannot approve two
+ * clashing requests at once, and cancellations un-index under the same
+ * monitor. Like the calendar itself, this only covers one JVM.
+ * </p>
  */
 public class LeaveService {
-    private final LeaveRequestRepository repo = new LeaveRequestRepository();
-    private final AtomicLong idGenerator = new AtomicLong(System.currentTimeMillis());
+    private static final Metrics METRICS = Metrics.shared();
+    private static final LatencyHistogram CREATE_TIMER = METRICS.timer("leave.create");
+    private static final LatencyHistogram APPROVE_TIMER = METRICS.timer("leave.approve");
+    private static final LatencyHistogram DENY_TIMER = METRICS.timer("leave.deny");
+    private static final LatencyHistogram CANCEL_TIMER = METRICS.timer("leave.cancel");
+    private static final LatencyHistogram BULK_DECISION_TIMER = METRICS.timer("leave.bulkDecision");
+    private static final LatencyHistogram SEARCH_TIMER = METRICS.timer("leave.search");
+
+    private final LeaveRequestRepository repo;
+    private final LeaveLedgerRepository ledger;
+    private final IdGenerator idGenerator;
+    private final LeaveCalendar calendar;
+    private final ReadinessHeatmap heatmap;
+    private final int maxOut;
+    private final AuditSink audit;
+    private final LeaveArchive archive;
+    private final LeaveSearchIndex search;
+
+    /**
+     * Create a service using the shared database pool, ID generator, leave and search indexes,
+     * audit log and archive. The manning limit is read from
+     * {@code leavetracker.manning.maxOut} (0 = no limit).
+     */
+    public LeaveService() {
+        this(new LeaveRequestRepository(), new LeaveLedgerRepository(), DatabaseUtil.leaveRequestIds(),
+                SharedIndexes.CALENDAR, SharedIndexes.HEATMAP,
+                Integer.getInteger("leavetracker.manning.maxOut", 0), AuditLog.shared(), LeaveArchive.shared(),
+                LeaveSearchIndex.shared());
+    }
+
+    /**
+     * Create a service with explicit collaborators. Approved leave is loaded
+     * from {@code repo} into a private calendar and heatmap and every request
+     * into a private search index, the ledger uses
+     * the shared pool, no manning limit applies, nothing is audited and
+     * there is no archive.
+     *
+     * @param repo        where leave requests are stored
+     * @param idGenerator source of new request IDs
+     */
+    public LeaveService(LeaveRequestRepository repo, IdGenerator idGenerator) {
+        this(repo, idGenerator, new LeaveCalendar(), new LeaveSearchIndex());
+    }
+
+    private LeaveService(LeaveRequestRepository repo, IdGenerator idGenerator, LeaveCalendar calendar,
+                         LeaveSearchIndex search) {
+        this(repo, new LeaveLedgerRepository(), idGenerator, calendar, loadIndexes(repo, calendar, search::add), 0,
+                AuditSink.NONE, LeaveArchive.empty(), search);
+    }
+
+    /**
+     * Create a service with explicit collaborators. Only requests created
+     * through this service are searchable.
+     *
+     * @param repo        where leave requests are stored
+     * @param ledger      where balances and charges are recorded
+     * @param idGenerator source of new request IDs
+     * @param calendar    index of approved leave, kept in sync by this service
+     * @param heatmap     daily leave counts, kept in sync by this service
+     * @param maxOut      most people allowed on leave on any one day, or 0 for no limit
+     */
+    public LeaveService(LeaveRequestRepository repo, LeaveLedgerRepository ledger, IdGenerator idGenerator,
+                        LeaveCalendar calendar, ReadinessHeatmap heatmap, int maxOut) {
+        this(repo, ledger, idGenerator, calendar, heatmap, maxOut, AuditSink.NONE, LeaveArchive.empty(),
+                new LeaveSearchIndex());
+    }
+
+    /**
+     * Create a service with explicit collaborators.
+     *
+     * @param repo        where leave requests are stored
+     * @param ledger      where balances and charges are recorded
+     * @param idGenerator source of new request IDs
+     * @param calendar    index of approved leave, kept in sync by this service
+     * @param heatmap     daily leave counts, kept in sync by this service
+     * @param maxOut      most people allowed on leave on any one day, or 0 for no limit
+     * @param audit       receives an event, with the acting user, for every create, approve, deny and cancel
+     * @param archive     where closed requests are moved by {@link ArchiveJob}
+     * @param search      full-text index of requests, kept in sync by this service
+     */
+    public LeaveService(LeaveRequestRepository repo, LeaveLedgerRepository ledger, IdGenerator idGenerator,
+                        LeaveCalendar calendar, ReadinessHeatmap heatmap, int maxOut, AuditSink audit,
+                        LeaveArchive archive, LeaveSearchIndex search) {
+        this.repo = repo;
+        this.ledger = ledger;
+        this.idGenerator = idGenerator;
+        this.calendar = calendar;
+        this.heatmap = heatmap;
+        this.maxOut = maxOut;
+        this.audit = audit;
+        this.archive = archive;
+        this.search = search;
+    }
 
     /**
      * Submit a new leave request.
@@ -21,16 +148,26 @@ public class LeaveService {
      * @param username  who is requesting leave
      * @param startDate first day of leave
      * @param endDate   last day of leave
-     * @param type      leave category (e.g. VACATION, EMERGENCY)
+     * @param type      leave category
      * @param reason    explanation for the request
      * @return the saved LeaveRequest
+     * @throws LeaveConflictException if the dates overlap the user's approved leave
+     *                                or a day in the range is already at the manning limit
      */
     public LeaveRequest createRequest(String username, LocalDate startDate, LocalDate endDate,
-                                      String type, String reason) {
-        long id = idGenerator.getAndIncrement();
-        LeaveRequest request = new LeaveRequest(id, username, startDate, endDate, type, reason);
-        repo.save(request);
-        return request;
+                                      LeaveType type, String reason) {
+        long start = System.nanoTime();
+        try {
+            checkConflicts(username, startDate, endDate);
+            long id = idGenerator.nextId();
+            LeaveRequest request = new LeaveRequest(id, username, startDate, endDate, type, reason);
+            repo.save(request);
+            audit.record(AuditAction.CREATE, username, id);
+            search.add(request);
+            return request;
+        } finally {
+            CREATE_TIMER.recordSince(start);
+        }
     }
 
     /**
@@ -44,33 +181,268 @@ public class LeaveService {
     }
 
     /**
-     * Approve a pending leave request.
+     * Get a user's complete history: live requests plus any that have been
+     * archived, ordered by start date.
+     *
+     * @param username whose requests to fetch
+     * @return list of LeaveRequest (or empty if none)
+     */
+    public List<LeaveRequest> getHistoryForUser(String username) {
+        List<LeaveRequest> live = repo.findByUsername(username);
+        List<LeaveRequest> archived = archive.findByUsername(username);
+        Map<Long, LeaveRequest> byId = new LinkedHashMap<>();
+        live.forEach(r -> byId.put(r.getId(), r));
+        // a row in both places was archived just before a crash; the live copy wins
+        archived.forEach(r -> byId.putIfAbsent(r.getId(), r));
+        List<LeaveRequest> all = new ArrayList<>(byId.values());
+        all.sort(Comparator.comparing(LeaveRequest::getStartDate).thenComparingLong(LeaveRequest::getId));
+        return all;
+    }
+
+    /**
+     * Full-text search over reasons, usernames and leave types, e.g.
+     * {@code funeral OR bereave* -user:smith}. See {@link LeaveSearchIndex}
+     * for the query syntax.
+     *
+     * @param query terms to match
+     * @param limit most IDs to return
+     * @return IDs of matching requests, newest first; archived or deleted requests may be included
+     */
+    public List<Long> searchRequestIds(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return search.search(query, limit);
+        } finally {
+            SEARCH_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Full-text search that returns the matching live requests.
+     *
+     * @param query terms to match
+     * @param limit most requests to return
+     * @return matching requests, newest first
+     * @see #searchRequestIds
+     */
+    public List<LeaveRequest> searchRequests(String query, int limit) {
+        List<Long> ids = search.search(query, limit);
+        Map<Long, LeaveRequest> byId = new HashMap<>();
+        repo.findByIds(ids).forEach(r -> byId.put(r.getId(), r));
+        List<LeaveRequest> found = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            LeaveRequest r = byId.get(id);
+            if (r != null) {
+                found.add(r);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Approve a pending leave request and charge its days to the user's balance.
      *
      * @param requestId the request ID
-     * @return true if status was updated
+     * @param actor     who is approving it, recorded in the audit log
+     * @return true if status was updated; false if the request is missing or not pending
+     * @throws LeaveConflictException if the dates now overlap the user's approved leave or
+     *                                a day is at the manning limit; the request stays pending
      */
-    public boolean approveRequest(long requestId) {
-        return repo.updateStatus(requestId, "APPROVED");
+    public boolean approveRequest(long requestId, String actor) {
+        long start = System.nanoTime();
+        try {
+            LeaveRequest req = repo.findById(requestId)
+                    .filter(r -> r.getStatus() == LeaveStatus.PENDING)
+                    .orElse(null);
+            if (req == null) {
+                return false;
+            }
+            synchronized (calendar) {
+                checkConflicts(req.getUsername(), req.getStartDate(), req.getEndDate());
+                // fails if the request changed after it was read, e.g. was cancelled
+                if (!repo.transition(req, LeaveStatus.APPROVED)) {
+                    return false;
+                }
+                calendar.update(req);
+                heatmap.update(req);
+            }
+            ledger.charge(req, LocalDate.now());
+            audit.record(AuditAction.APPROVE, actor, requestId);
+            return true;
+        } finally {
+            APPROVE_TIMER.recordSince(start);
+        }
     }
 
     /**
      * Deny a pending leave request.
      *
      * @param requestId the request ID
-     * @return true if status was updated
+     * @param actor     who is denying it, recorded in the audit log
+     * @return true if status was updated; false if the request is missing or not pending
      */
-    public boolean denyRequest(long requestId) {
-        return repo.updateStatus(requestId, "DENIED");
+    public boolean denyRequest(long requestId, String actor) {
+        long start = System.nanoTime();
+        try {
+            // only pending requests can be denied, and those are never indexed or charged
+            boolean updated = repo.transition(requestId, LeaveStatus.PENDING, LeaveStatus.DENIED);
+            if (updated) {
+                audit.record(AuditAction.DENY, actor, requestId);
+            }
+            return updated;
+        } finally {
+            DENY_TIMER.recordSince(start);
+        }
     }
 
     /**
-     * Cancel a pending leave request.
+     * Cancel a pending or approved leave request, refunding any days already charged.
      *
      * @param requestId the request ID
-     * @return true if status was updated
+     * @param actor     who is cancelling it, recorded in the audit log
+     * @return true if status was updated; false if the request is missing, denied or already cancelled
+     */
+    public boolean cancelRequest(long requestId, String actor) {
+        long start = System.nanoTime();
+        try {
+            boolean updated;
+            // an approval of the same request indexes it under this monitor, so it cannot re-add it after removal
+            synchronized (calendar) {
+                updated = repo.updateStatus(requestId, LeaveStatus.CANCELLED);
+                if (updated) {
+                    calendar.remove(requestId);
+                    heatmap.remove(requestId);
+                }
+            }
+            if (updated) {
+                // a charge still in flight re-reads the status under the balance lock and skips it
+                ledger.refund(requestId, LocalDate.now());
+                audit.record(AuditAction.CANCEL, actor, requestId);
+            }
+            return updated;
+        } finally {
+            CANCEL_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Approve many pending requests in one statement and charge them in one batch.
+     * Requests that would overlap approved leave or exceed the manning limit,
+     * including through another request in the same call, are skipped.
+     *
+     * @param requestIds the requests to approve
+     * @param actor      who is approving them, recorded in the audit log
+     * @return which requests were approved and which were skipped
+     */
+    public BulkDecisionResult approveRequests(Collection<Long> requestIds, String actor) {
+        long start = System.nanoTime();
+        try {
+            return approveAll(requestIds, repo.findByIds(requestIds), actor);
+        } finally {
+            BULK_DECISION_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Deny many pending requests in one statement.
+     *
+     * @param requestIds the requests to deny
+     * @param actor      who is denying them, recorded in the audit log
+     * @return which requests were denied and which were skipped
+     */
+    public BulkDecisionResult denyRequests(Collection<Long> requestIds, String actor) {
+        long start = System.nanoTime();
+        try {
+            return decided(LeaveStatus.DENIED, requestIds,
+                    repo.transitionAll(requestIds, LeaveStatus.PENDING, LeaveStatus.DENIED), actor);
+        } finally {
+            BULK_DECISION_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Approve every pending request that matches a filter, e.g. all pending
+     * vacation starting next month. Conflicting requests are skipped as in
+     * {@link #approveRequests}, earliest start date first.
+     *
+     * @param filter which requests to approve
+     * @param actor  who is approving them, recorded in the audit log
+     * @return the requests approved, and those skipped because they conflict
      */
-    public boolean cancelRequest(long requestId) {
-        return repo.updateStatus(requestId, "CANCELLED");
+    public BulkDecisionResult approveMatching(LeaveRequestFilter filter, String actor) {
+        long start = System.nanoTime();
+        try {
+            if (filter.status() != null && filter.status() != LeaveStatus.PENDING) {
+                return decided(LeaveStatus.APPROVED, List.of(), List.of(), actor);
+            }
+            LeaveRequestFilter pending = new LeaveRequestFilter(LeaveStatus.PENDING, filter.type(),
+                    filter.username(), filter.from(), filter.to(), filter.ids());
+            return approveAll(List.of(),
+                    repo.findWindow(pending, LeaveRequestSort.DEFAULT, 0, Integer.MAX_VALUE), actor);
+        } finally {
+            BULK_DECISION_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Deny every pending request that matches a filter.
+     *
+     * @param filter which requests to deny
+     * @param actor  who is denying them, recorded in the audit log
+     * @return the requests denied; nothing is reported as skipped
+     */
+    public BulkDecisionResult denyMatching(LeaveRequestFilter filter, String actor) {
+        long start = System.nanoTime();
+        try {
+            return decided(LeaveStatus.DENIED, List.of(),
+                    repo.transitionMatching(filter, LeaveStatus.PENDING, LeaveStatus.DENIED), actor);
+        } finally {
+            BULK_DECISION_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Approve the pending {@code candidates} that pass the overlap and manning
+     * checks, counting candidates accepted earlier in the same call.
+     */
+    private BulkDecisionResult approveAll(Collection<Long> requested, List<LeaveRequest> candidates, String actor) {
+        List<LeaveRequest> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparing(LeaveRequest::getStartDate).thenComparingLong(LeaveRequest::getId));
+        Set<Long> considered = new LinkedHashSet<>(requested);
+        List<LeaveRequest> moved;
+        synchronized (calendar) {
+            LeaveCalendar accepted = new LeaveCalendar();
+            List<Long> ids = new ArrayList<>();
+            for (LeaveRequest r : sorted) {
+                considered.add(r.getId());
+                if (r.getStatus() != LeaveStatus.PENDING
+                        || conflict(r.getUsername(), r.getStartDate(), r.getEndDate(), accepted) != null) {
+                    continue;
+                }
+                accepted.put(r.getId(), r.getUsername(), r.getStartDate(), r.getEndDate());
+                ids.add(r.getId());
+            }
+            moved = repo.transitionAll(ids, LeaveStatus.PENDING, LeaveStatus.APPROVED);
+            for (LeaveRequest req : moved) {
+                calendar.update(req);
+                heatmap.update(req);
+            }
+        }
+        ledger.chargeAll(moved, LocalDate.now());
+        return decided(LeaveStatus.APPROVED, considered, moved, actor);
+    }
+
+    private BulkDecisionResult decided(LeaveStatus decision, Collection<Long> requested, List<LeaveRequest> moved,
+                                       String actor) {
+        AuditAction action = decision == LeaveStatus.APPROVED ? AuditAction.APPROVE : AuditAction.DENY;
+        Set<Long> applied = new LinkedHashSet<>();
+        for (LeaveRequest req : moved) {
+            applied.add(req.getId());
+            audit.record(action, actor, req.getId());
+        }
+        Set<Long> skipped = new LinkedHashSet<>(requested);
+        skipped.removeAll(applied);
+        return new BulkDecisionResult(decision, List.copyOf(applied), List.copyOf(skipped));
     }
 
     /**
@@ -83,8 +455,199 @@ public class LeaveService {
         return repo.findById(requestId);
     }
 
+    /**
+     * @param username  whose leave to check
+     * @param startDate first day of the proposed leave
+     * @param endDate   last day of the proposed leave
+     * @return true if the range shares a day with the user's approved leave
+     */
+    public boolean overlapsApprovedLeave(String username, LocalDate startDate, LocalDate endDate) {
+        return calendar.overlaps(username, startDate, endDate);
+    }
+
+    /**
+     * @param startDate first day to report
+     * @param endDate   last day to report
+     * @return number of people on approved leave for each day of the range
+     */
+    public int[] headcount(LocalDate startDate, LocalDate endDate) {
+        return calendar.headcount(startDate, endDate);
+    }
+
+    /**
+     * Daily counts of people on approved leave, by leave type. Ranges within
+     * a year either side of startup are served from precomputed counts.
+     *
+     * @param startDate first day to report
+     * @param endDate   last day to report
+     * @return per-day counts for the range
+     */
+    public Heatmap getReadiness(LocalDate startDate, LocalDate endDate) {
+        return heatmap.query(startDate, endDate);
+    }
+
+    /**
+     * @param username whose balance to read
+     * @return days of leave available
+     */
+    public BigDecimal getBalance(String username) {
+        return ledger.balance(username);
+    }
+
+    /**
+     * @param username whose ledger to read
+     * @return accruals, charges and refunds, oldest first
+     */
+    public List<LedgerEntry> getLedger(String username) {
+        return ledger.findByUsername(username);
+    }
+
+    /**
+     * Get every leave request, ordered by start date. The rows are streamed from
+     * the database; prefer {@link #getAllRequestsPage} for interactive screens.
+     *
+     * @return all leave requests
+     */
     public List<LeaveRequest> getAllRequests() {
         return repo.findAll();
     }
 
-}
\ No newline at end of file
+    /**
+     * Get one page of all leave requests, ordered by start date.
+     *
+     * @param after cursor from the previous page, or null for the first page
+     * @param limit maximum requests to return
+     * @return the page and the cursor for the next one
+     */
+    public Page<LeaveRequest> getAllRequestsPage(PageCursor after, int limit) {
+        return repo.findAllPage(after, limit);
+    }
+
+    /**
+     * Get one page of a user's leave requests, ordered by start date.
+     *
+     * @param username whose requests to fetch
+     * @param after    cursor from the previous page, or null for the first page
+     * @param limit    maximum requests to return
+     * @return the page and the cursor for the next one
+     */
+    public Page<LeaveRequest> getRequestsForUserPage(String username, PageCursor after, int limit) {
+        return repo.findByUsernamePage(username, after, limit);
+    }
+
+    /**
+     * Count leave requests matching a filter.
+     *
+     * @param filter criteria to apply
+     * @return number of matching requests
+     */
+    public long countRequests(LeaveRequestFilter filter) {
+        return repo.count(filter);
+    }
+
+    /**
+     * Fetch a window of filtered, sorted leave requests for display.
+     *
+     * @param filter criteria to apply
+     * @param sort   order of the full result
+     * @param offset index of the first row to return
+     * @param limit  maximum rows to return
+     * @return the requested slice
+     */
+    public List<LeaveRequest> findRequests(LeaveRequestFilter filter, LeaveRequestSort sort,
+                                           long offset, int limit) {
+        return repo.findWindow(filter, sort, offset, limit);
+    }
+
+    /**
+     * Visit every leave request without holding them all in memory, e.g. for exports.
+     *
+     * @param action called once per request, in start-date order
+     */
+    public void forEachRequest(Consumer<LeaveRequest> action) {
+        repo.forEach(action);
+    }
+
+    /**
+     * Bulk-import leave requests from CSV, e.g. a unit roster at the start of a cycle.
+     * Rows are streamed and saved in batches of {@link LeaveRequestRepository#DEFAULT_BATCH_SIZE}.
+     *
+     * @param csv rows of {@code username,start_date,end_date,type,reason}
+     * @return imported/rejected counts and throughput
+     * @see LeaveCsvImporter
+     */
+    public ImportResult importCsv(Reader csv) {
+        return importCsv(csv, LeaveRequestRepository.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Bulk-import leave requests from CSV with an explicit batch size.
+     *
+     * @param csv       rows of {@code username,start_date,end_date,type,reason}
+     * @param batchSize rows per JDBC batch and transaction
+     * @return imported/rejected counts and throughput
+     */
+    public ImportResult importCsv(Reader csv, int batchSize) {
+        return new LeaveCsvImporter(repo, idGenerator::nextId, batchSize, audit, search).importFrom(csv);
+    }
+
+    private void checkConflicts(String username, LocalDate startDate, LocalDate endDate) {
+        String conflict = conflict(username, startDate, endDate, null);
+        if (conflict != null) {
+            throw new LeaveConflictException(conflict);
+        }
+    }
+
+    /**
+     * @param pending leave being approved alongside this range, or null
+     * @return why the range clashes with approved or {@code pending} leave, or null if it does not
+     */
+    private String conflict(String username, LocalDate startDate, LocalDate endDate, LeaveCalendar pending) {
+        if (calendar.overlaps(username, startDate, endDate)
+                || (pending != null && pending.overlaps(username, startDate, endDate))) {
+            return "Dates overlap leave already approved for " + username;
+        }
+        if (maxOut > 0) {
+            if (pending == null) {
+                return calendar.peakHeadcount(startDate, endDate) >= maxOut ? manningMessage() : null;
+            }
+            int[] approved = calendar.headcount(startDate, endDate);
+            int[] alongside = pending.headcount(startDate, endDate);
+            for (int i = 0; i < approved.length; i++) {
+                if (approved[i] + alongside[i] >= maxOut) {
+                    return manningMessage();
+                }
+            }
+        }
+        return null;
+    }
+
+    private String manningMessage() {
+        return "Manning limit of " + maxOut + " on leave reached in that period";
+    }
+
+    /**
+     * Index every approved request into {@code calendar} and build a heatmap
+     * from them, in a single pass over the table that also hands every row
+     * to {@code eachRow}.
+     */
+    private static ReadinessHeatmap loadIndexes(LeaveRequestRepository repo, LeaveCalendar calendar,
+                                                Consumer<LeaveRequest> eachRow) {
+        List<LeaveRequest> approved = new ArrayList<>();
+        repo.forEach(r -> {
+            eachRow.accept(r);
+            if (r.getStatus() == LeaveStatus.APPROVED) {
+                calendar.update(r);
+                approved.add(r);
+            }
+        });
+        return ReadinessHeatmap.build(approved);
+    }
+
+    /** Lazily loaded so the database is only scanned when a service is first used. */
+    private static final class SharedIndexes {
+        static final LeaveCalendar CALENDAR = new LeaveCalendar();
+        // the shared search index is loaded from its own snapshot, see LeaveSearchIndex.shared()
+        static final ReadinessHeatmap HEATMAP = loadIndexes(new LeaveRequestRepository(), CALENDAR, r -> { });
+    }
+}
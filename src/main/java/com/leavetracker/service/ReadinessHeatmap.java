@@ -0,0 +1,287 @@
+package com.leavetracker.service;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed per-day, per-leave-type counts of approved leave.
+ * <p>
+ * Counts for a fixed window of days are built once with a difference-array
+ * sweep, split by date across a fork/join pool: each partition only visits
+ * the spans that can reach it and writes its own slice of the result.
+ * Afterwards every status change patches the window in place, so a
+ * {@link #query} inside the window is an array copy. Ranges that leave the
+ * window are swept from the stored spans on demand.
+ * </p>
+ * Reads may run concurrently; updates take an exclusive lock.
+ */
+public class ReadinessHeatmap {
+
+    /** Days before today covered by the default window. */
+    public static final int DEFAULT_PAST_DAYS = 365;
+    /** Length of the default window: a year back to a year ahead. */
+    public static final int DEFAULT_WINDOW_DAYS = 2 * 365 + 1;
+
+    /** Days per fork/join leaf. */
+    static final int PARTITION_DAYS = 32;
+
+    private static final Comparator<Span> BY_START = Comparator.comparingLong(Span::start);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long origin;
+    private final int days;
+    private final Map<LeaveType, int[]> counts = new EnumMap<>(LeaveType.class);
+    private final Map<Long, Span> spans = new HashMap<>();
+
+    private ReadinessHeatmap(LocalDate origin, int days) {
+        this.origin = origin.toEpochDay();
+        this.days = days;
+    }
+
+    /**
+     * Build the heatmap for the default window around today on the common pool.
+     *
+     * @param requests leave requests; anything not approved is ignored
+     * @return a heatmap ready to query and patch
+     */
+    public static ReadinessHeatmap build(Collection<LeaveRequest> requests) {
+        return build(requests, LocalDate.now().minusDays(DEFAULT_PAST_DAYS), DEFAULT_WINDOW_DAYS,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Build the heatmap for a window from the approved requests in {@code requests}.
+     *
+     * @param requests leave requests; anything not approved is ignored
+     * @param origin   first day of the precomputed window
+     * @param days     length of the precomputed window
+     * @param pool     where the sweep runs
+     * @return a heatmap ready to query and patch
+     */
+    public static ReadinessHeatmap build(Collection<LeaveRequest> requests, LocalDate origin, int days,
+                                         ForkJoinPool pool) {
+        ReadinessHeatmap heatmap = new ReadinessHeatmap(origin, days);
+        for (LeaveRequest r : requests) {
+            if (r.getStatus() == LeaveStatus.APPROVED) {
+                Span span = Span.of(r);
+                heatmap.spans.put(span.id(), span);
+            }
+        }
+        heatmap.counts.putAll(sweep(heatmap.spans.values(), heatmap.origin, days, pool));
+        return heatmap;
+    }
+
+    /**
+     * Bring the counts in line with a request's current status: approved
+     * requests are added (or replaced), anything else is removed.
+     *
+     * @param request the request as stored
+     */
+    public void update(LeaveRequest request) {
+        lock.writeLock().lock();
+        try {
+            boolean approved = request.getStatus() == LeaveStatus.APPROVED;
+            Span old = approved
+                    ? spans.put(request.getId(), Span.of(request))
+                    : spans.remove(request.getId());
+            if (old != null) {
+                patch(old, -1);
+            }
+            if (approved) {
+                patch(spans.get(request.getId()), 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a request from the counts.
+     *
+     * @param id request ID
+     * @return true if the request was counted
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Span old = spans.remove(id);
+            if (old == null) {
+                return false;
+            }
+            patch(old, -1);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param start first day to report
+     * @param end   last day to report
+     * @return daily counts for the range
+     */
+    public Heatmap query(LocalDate start, LocalDate end) {
+        long first = start.toEpochDay();
+        long last = end.toEpochDay();
+        if (last < first) {
+            throw new IllegalArgumentException("end is before start");
+        }
+        int n = Math.toIntExact(last - first + 1);
+        Map<LeaveType, int[]> byType = new EnumMap<>(LeaveType.class);
+        lock.readLock().lock();
+        try {
+            if (first >= origin && last < origin + days) {
+                int from = (int) (first - origin);
+                counts.forEach((type, c) -> byType.put(type, Arrays.copyOfRange(c, from, from + n)));
+            } else {
+                byType.putAll(sweep(spans.values(), first, n, ForkJoinPool.commonPool()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        int[] total = new int[n];
+        for (int[] c : byType.values()) {
+            for (int i = 0; i < n; i++) {
+                total[i] += c[i];
+            }
+        }
+        return new Heatmap(start, byType, total);
+    }
+
+    /** @return first day of the precomputed window */
+    public LocalDate windowStart() {
+        return LocalDate.ofEpochDay(origin);
+    }
+
+    /** @return last day of the precomputed window */
+    public LocalDate windowEnd() {
+        return LocalDate.ofEpochDay(origin + days - 1);
+    }
+
+    private void patch(Span span, int amount) {
+        int from = (int) Math.max(span.start() - origin, 0);
+        int to = (int) Math.min(span.end() - origin, days - 1);
+        if (from > to) {
+            return;
+        }
+        int[] c = counts.computeIfAbsent(span.type(), t -> new int[days]);
+        for (int i = from; i <= to; i++) {
+            c[i] += amount;
+        }
+    }
+
+    /**
+     * @return per-type daily counts for {@code days} days starting at epoch day {@code origin}
+     */
+    private static Map<LeaveType, int[]> sweep(Collection<Span> all, long origin, int days, ForkJoinPool pool) {
+        Span[] sorted = all.toArray(new Span[0]);
+        Arrays.parallelSort(sorted, BY_START);
+        long longest = 0;
+        boolean[] seen = new boolean[LeaveType.values().length];
+        for (Span s : sorted) {
+            longest = Math.max(longest, s.end() - s.start());
+            seen[s.type().ordinal()] = true;
+        }
+        int[][] out = new int[seen.length][days];
+        pool.invoke(new SweepTask(sorted, longest, origin, out, 0, days));
+
+        Map<LeaveType, int[]> result = new EnumMap<>(LeaveType.class);
+        for (LeaveType type : LeaveType.values()) {
+            if (seen[type.ordinal()]) {
+                result.put(type, out[type.ordinal()]);
+            }
+        }
+        return result;
+    }
+
+    /** Fills {@code out[*][from..to)} from the spans that overlap those days. */
+    private static final class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Span[] sorted;
+        private final long longest;
+        private final long origin;
+        private final int[][] out;
+        private final int from;
+        private final int to;
+
+        SweepTask(Span[] sorted, long longest, long origin, int[][] out, int from, int to) {
+            this.sorted = sorted;
+            this.longest = longest;
+            this.origin = origin;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARTITION_DAYS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SweepTask(sorted, longest, origin, out, from, mid),
+                        new SweepTask(sorted, longest, origin, out, mid, to));
+                return;
+            }
+            long first = origin + from;
+            long last = origin + to - 1;
+            int width = to - from;
+            int[][] delta = new int[out.length][width + 1];
+            // spans starting before first - longest cannot reach this partition
+            for (int i = firstStartingAtOrAfter(first - longest); i < sorted.length; i++) {
+                Span s = sorted[i];
+                if (s.start() > last) {
+                    break;
+                }
+                if (s.end() < first) {
+                    continue;
+                }
+                int lo = (int) (Math.max(s.start(), first) - first);
+                int hi = (int) (Math.min(s.end(), last) - first);
+                int t = s.type().ordinal();
+                delta[t][lo]++;
+                delta[t][hi + 1]--;
+            }
+            for (int t = 0; t < out.length; t++) {
+                int running = 0;
+                for (int d = 0; d < width; d++) {
+                    running += delta[t][d];
+                    out[t][from + d] = running;
+                }
+            }
+        }
+
+        private int firstStartingAtOrAfter(long day) {
+            int lo = 0;
+            int hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid].start() < day) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /** One approved leave, as epoch days. */
+    private record Span(long id, LeaveType type, long start, long end) {
+        static Span of(LeaveRequest r) {
+            return new Span(r.getId(), r.getType(), r.getStartDate().toEpochDay(), r.getEndDate().toEpochDay());
+        }
+    }
+}
@@ -2,19 +2,28 @@ package com.leavetracker.ui;
 
 import com.leavetracker.auth.AuthService;
 import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
 import com.leavetracker.model.User;
+import com.leavetracker.repository.LeaveRequestFilter;
+import com.leavetracker.repository.LeaveRequestSort;
+import com.leavetracker.service.BulkDecisionResult;
+import com.leavetracker.service.LeaveConflictException;
 import com.leavetracker.service.LeaveService;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.Scanner;
 
 /**
  * Handles all command-line menus and prompts.
  */
 public class ConsoleUI {
+    /** Pending requests listed before asking which to decide. */
+    private static final int REVIEW_LIMIT = 50;
+
     private final AuthService authService;
     private final LeaveService leaveService;
     private final Scanner scanner = new Scanner(System.in);
@@ -106,8 +115,8 @@ public class ConsoleUI {
             LocalDate start = LocalDate.parse(scanner.nextLine().trim());
             System.out.print("End date (YYYY-MM-DD): ");
             LocalDate end = LocalDate.parse(scanner.nextLine().trim());
-            System.out.print("Type (VACATION/EMERGENCY): ");
-            String type = scanner.nextLine().trim().toUpperCase();
+            System.out.print("Type (VACATION/EMERGENCY/OTHER): ");
+            LeaveType type = LeaveType.parse(scanner.nextLine());
             System.out.print("Reason: ");
             String reason = scanner.nextLine().trim();
 
@@ -117,11 +126,16 @@ public class ConsoleUI {
             System.out.printf("Request #%d created.%n", lr.getId());
         } catch (DateTimeParseException e) {
             System.out.println("Invalid date format, please use YYYY-MM-DD.");
+        } catch (LeaveConflictException e) {
+            System.out.println(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown leave type.");
         }
     }
 
     private void listUserRequests() {
-        List<LeaveRequest> list = leaveService.getRequestsForUser(currentUser.getUsername());
+        List<LeaveRequest> list = leaveService.getHistoryForUser(currentUser.getUsername());
+        System.out.printf("Leave balance: %s days%n", leaveService.getBalance(currentUser.getUsername()));
         if (list.isEmpty()) {
             System.out.println("No requests found.");
         } else {
@@ -130,36 +144,55 @@ public class ConsoleUI {
     }
 
     private void reviewPending() {
-        List<LeaveRequest> all = leaveService.getRequestsForUser(currentUser.getUsername());
-        // In a real app, you'd fetch *all* pending, but for demo:
-        all.stream()
-                .filter(r -> "PENDING".equals(r.getStatus()))
-                .forEach(System.out::println);
+        LeaveRequestFilter pending = new LeaveRequestFilter(LeaveStatus.PENDING, null, null, null, null);
+        List<LeaveRequest> shown = leaveService.findRequests(pending, LeaveRequestSort.DEFAULT, 0, REVIEW_LIMIT);
+        if (shown.isEmpty()) {
+            System.out.println("No pending requests.");
+            return;
+        }
+        shown.forEach(System.out::println);
+        long total = leaveService.countRequests(pending);
+        if (total > shown.size()) {
+            System.out.printf("...and %d more%n", total - shown.size());
+        }
 
-        System.out.print("Enter request ID to approve/deny (or blank to skip): ");
+        System.out.print("Request IDs to decide (comma-separated, ALL for every pending request, blank to skip): ");
         String line = scanner.nextLine().trim();
         if (line.isEmpty()) return;
         try {
-            long id = Long.parseLong(line);
-            Optional<LeaveRequest> opt = leaveService.getRequestById(id);
-            if (opt.isPresent()) {
-                LeaveRequest r = opt.get();
-                System.out.printf("1) Approve  2) Deny for request #%d%n> ", id);
-                String choice = scanner.nextLine().trim();
-                boolean ok = switch (choice) {
-                    case "1" -> leaveService.approveRequest(id);
-                    case "2" -> leaveService.denyRequest(id);
-                    default -> false;
-                };
-                System.out.println(ok ? "Done." : "Could not update.");
-            } else {
-                System.out.println("Request not found.");
+            List<Long> ids = "ALL".equalsIgnoreCase(line) ? null : parseIds(line);
+            System.out.print("1) Approve  2) Deny\n> ");
+            BulkDecisionResult result = switch (scanner.nextLine().trim()) {
+                case "1" -> ids == null ? leaveService.approveMatching(pending, currentUser.getUsername())
+                        : leaveService.approveRequests(ids, currentUser.getUsername());
+                case "2" -> ids == null ? leaveService.denyMatching(pending, currentUser.getUsername())
+                        : leaveService.denyRequests(ids, currentUser.getUsername());
+                default -> null;
+            };
+            if (result == null) {
+                System.out.println("Invalid option");
+                return;
+            }
+            System.out.printf("%s %d request(s).%n",
+                    result.decision() == LeaveStatus.APPROVED ? "Approved" : "Denied", result.applied().size());
+            if (!result.skipped().isEmpty()) {
+                System.out.println("Not pending, not found or conflicting: " + result.skipped());
             }
         } catch (NumberFormatException e) {
             System.out.println("Invalid ID.");
         }
     }
 
+    private static List<Long> parseIds(String line) {
+        List<Long> ids = new ArrayList<>();
+        for (String part : line.split(",")) {
+            if (!part.isBlank()) {
+                ids.add(Long.parseLong(part.trim()));
+            }
+        }
+        return ids;
+    }
+
     private void logout() {
         currentUser = null;
         System.out.println("Logged out.");
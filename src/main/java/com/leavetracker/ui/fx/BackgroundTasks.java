@@ -0,0 +1,48 @@
+package com.leavetracker.ui.fx;
+
+import javafx.concurrent.Task;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs database and service calls off the JavaFX application thread.
+ * Success and failure callbacks are delivered back on the FX thread.
+ */
+final class BackgroundTasks {
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "fx-background-" + SEQ.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private BackgroundTasks() {
+    }
+
+    /**
+     * Run {@code work} on a background thread.
+     *
+     * @param work      the blocking call
+     * @param onSuccess receives the result on the FX thread
+     * @param onFailure receives the error on the FX thread
+     * @param <T>       result type
+     * @return the scheduled task
+     */
+    static <T> Task<T> run(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+        task.setOnSucceeded(e -> onSuccess.accept(task.getValue()));
+        task.setOnFailed(e -> onFailure.accept(task.getException()));
+        EXECUTOR.execute(task);
+        return task;
+    }
+}
@@ -1,123 +1,340 @@
 package com.leavetracker.ui.fx;
 
 import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
 import com.leavetracker.model.User;
+import com.leavetracker.repository.LeaveRequestFilter;
+import com.leavetracker.repository.LeaveRequestSort;
+import com.leavetracker.service.BulkDecisionResult;
 import com.leavetracker.service.LeaveService;
-import javafx.collections.FXCollections;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 
-import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
 
 public class DashboardController {
+    private static final String ALL = "ALL";
+    /** Most search hits shown; the table then narrows them with the other filters. */
+    private static final int SEARCH_LIMIT = 10_000;
+
     @FXML private Label welcomeLabel;
     @FXML private TableView<LeaveRequest> requestsTable;
     @FXML private TableColumn<LeaveRequest, Long> colId;
     @FXML private TableColumn<LeaveRequest, LocalDate> colStart;
     @FXML private TableColumn<LeaveRequest, LocalDate> colEnd;
-    @FXML private TableColumn<LeaveRequest, String> colType;
+    @FXML private TableColumn<LeaveRequest, LeaveType> colType;
     @FXML private TableColumn<LeaveRequest, String> colReason;
-    @FXML private TableColumn<LeaveRequest, String> colStatus;
+    @FXML private TableColumn<LeaveRequest, LeaveStatus> colStatus;
     @FXML private TableColumn<LeaveRequest, Void> colAction;
+    @FXML private ChoiceBox<String> statusFilter;
+    @FXML private ChoiceBox<String> typeFilter;
+    @FXML private TextField userFilter;
+    @FXML private TextField searchField;
+    @FXML private DatePicker fromFilter;
+    @FXML private DatePicker toFilter;
+    @FXML private Label countLabel;
+    @FXML private HBox bulkBar;
     @FXML private Label messageLabel;
 
     private final LeaveService leaveService = new LeaveService();
+    private final LazyRequestList rows = new LazyRequestList(leaveService,
+            err -> showAlert(Alert.AlertType.ERROR,
+                    "Load Error",
+                    "Could not fetch leave requests",
+                    err.getMessage()));
+    private Map<TableColumn<LeaveRequest, ?>, LeaveRequestSort.Field> sortFields;
     private User currentUser;
 
     public void initialize() {
-        // Use PropertyValueFactory since LeaveRequest has plain getters
-        colId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colStart.setCellValueFactory(new PropertyValueFactory<>("startDate"));
-        colEnd.setCellValueFactory(new PropertyValueFactory<>("endDate"));
-        colType.setCellValueFactory(new PropertyValueFactory<>("type"));
-        colReason.setCellValueFactory(new PropertyValueFactory<>("reason"));
-        colStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
-
-        colAction.setCellFactory(col -> new TableCell<>() {
-            private final HBox buttons = new HBox(5);
-
-            @Override
-            protected void updateItem(Void item, boolean empty) {
-                super.updateItem(item, empty);
-                buttons.getChildren().clear();
-
-                if (empty) {
-                    setGraphic(null);
-                    return;
-                }
-
-                LeaveRequest req = getTableView().getItems().get(getIndex());
-                String status = req.getStatus();
-
-                if ("PENDING".equals(status)) {
-                    if ("ADMIN".equals(currentUser.getRole())) {
-                        Button approveBtn = new Button("Approve");
-                        approveBtn.setOnAction(e -> {
-                            leaveService.approveRequest(req.getId());
-                            messageLabel.setText("Approved request #" + req.getId());
-                            refreshTable();
-                        });
-
-                        Button denyBtn = new Button("Deny");
-                        denyBtn.setOnAction(e -> {
-                            leaveService.denyRequest(req.getId());
-                            messageLabel.setText("Denied request #" + req.getId());
-                            refreshTable();
-                        });
-
-                        buttons.getChildren().addAll(approveBtn, denyBtn);
-                    } else {
-                        Button cancelBtn = new Button("Cancel");
-                        cancelBtn.setOnAction(e -> {
-                            leaveService.cancelRequest(req.getId());
-                            messageLabel.setText("Cancelled request #" + req.getId());
-                            refreshTable();
-                        });
-                        buttons.getChildren().add(cancelBtn);
-                    }
-                }
+        // Plain lambdas instead of PropertyValueFactory: no reflection per cell,
+        // and rows that are still loading (null) render blank
+        colId.setCellValueFactory(c -> value(c.getValue(), LeaveRequest::getId));
+        colStart.setCellValueFactory(c -> value(c.getValue(), LeaveRequest::getStartDate));
+        colEnd.setCellValueFactory(c -> value(c.getValue(), LeaveRequest::getEndDate));
+        colType.setCellValueFactory(c -> value(c.getValue(), LeaveRequest::getType));
+        colReason.setCellValueFactory(c -> value(c.getValue(), LeaveRequest::getReason));
+        colStatus.setCellValueFactory(c -> value(c.getValue(), LeaveRequest::getStatus));
+        colAction.setCellFactory(col -> new ActionCell());
+        requestsTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
-                setGraphic(buttons);
+        // Sorting happens in SQL; the table only records which column was clicked
+        colReason.setSortable(false);
+        colAction.setSortable(false);
+        sortFields = Map.of(
+                colId, LeaveRequestSort.Field.ID,
+                colStart, LeaveRequestSort.Field.START_DATE,
+                colEnd, LeaveRequestSort.Field.END_DATE,
+                colType, LeaveRequestSort.Field.TYPE,
+                colStatus, LeaveRequestSort.Field.STATUS);
+        requestsTable.setSortPolicy(table -> {
+            LeaveRequestSort sort = currentSort();
+            if (currentUser != null && !sort.equals(rows.sort())) {
+                rows.query(rows.filter(), sort);
             }
+            return true;
         });
+        requestsTable.setItems(rows);
+        rows.addListener((ListChangeListener<LeaveRequest>) c ->
+                countLabel.setText(rows.size() + " request(s)"));
+
+        statusFilter.getItems().add(ALL);
+        for (LeaveStatus s : LeaveStatus.values()) {
+            statusFilter.getItems().add(s.name());
+        }
+        statusFilter.setValue(ALL);
+        typeFilter.getItems().add(ALL);
+        for (LeaveType t : LeaveType.values()) {
+            typeFilter.getItems().add(t.name());
+        }
+        typeFilter.setValue(ALL);
     }
 
     public void setUser(User user) {
         this.currentUser = user;
         welcomeLabel.setText("Hello, " + user.getUsername());
-        refreshTable();
+        boolean admin = "ADMIN".equals(user.getRole());
+        // Regular users only ever see their own requests
+        userFilter.setVisible(admin);
+        userFilter.setManaged(admin);
+        bulkBar.setVisible(admin);
+        bulkBar.setManaged(admin);
+        rows.query(currentFilter(), currentSort());
     }
 
     public User getCurrentUser() {
         return currentUser;
     }
 
+    /**
+     * Re-count and reload the visible rows in the background; recorded as a
+     * {@code com.leavetracker.TableRefresh} flight recorder event.
+     */
     void refreshTable() {
-        List<LeaveRequest> list;
-        if ("ADMIN".equals(currentUser.getRole())) {
-            // Admin sees everything
-            list = leaveService.getAllRequests();
-        } else {
-            // Regular user sees only their own
-            list = leaveService.getRequestsForUser(currentUser.getUsername());
+        rows.reload();
+    }
+
+    @FXML
+    private void onApplyFilter() {
+        String query = searchField.getText() == null ? "" : searchField.getText().trim();
+        if (query.isEmpty()) {
+            rows.query(currentFilter(), currentSort());
+            return;
         }
+        // the index is in memory, but resolve it off the FX thread like every other query
+        LeaveRequestFilter filter = currentFilter();
+        BackgroundTasks.run(
+                () -> leaveService.searchRequestIds(query, SEARCH_LIMIT),
+                ids -> {
+                    rows.query(filter.withIds(ids), currentSort());
+                    messageLabel.setText(ids.size() == SEARCH_LIMIT
+                            ? "Showing the newest " + SEARCH_LIMIT + " search hits; refine the search to see more"
+                            : "");
+                },
+                err -> showAlert(Alert.AlertType.ERROR,
+                        "Search Error",
+                        "Could not search leave requests",
+                        err.getMessage()));
+    }
 
-        try {
-            requestsTable.setItems(FXCollections.observableArrayList(list));
-        } catch (RuntimeException e) {
-            showAlert(Alert.AlertType.ERROR,
-                    "Load Error",
-                    "Could not fetch leave requests",
-                    e.getMessage());
+    @FXML
+    private void onClearFilter() {
+        statusFilter.setValue(ALL);
+        typeFilter.setValue(ALL);
+        userFilter.clear();
+        searchField.clear();
+        fromFilter.setValue(null);
+        toFilter.setValue(null);
+        onApplyFilter();
+    }
+
+    @FXML
+    private void onApproveSelected() {
+        decideSelected(ids -> leaveService.approveRequests(ids, currentUser.getUsername()));
+    }
+
+    @FXML
+    private void onDenySelected() {
+        decideSelected(ids -> leaveService.denyRequests(ids, currentUser.getUsername()));
+    }
+
+    @FXML
+    private void onApproveMatching() {
+        decideMatching(f -> leaveService.approveMatching(f, currentUser.getUsername()), "Approve");
+    }
+
+    @FXML
+    private void onDenyMatching() {
+        decideMatching(f -> leaveService.denyMatching(f, currentUser.getUsername()), "Deny");
+    }
+
+    /**
+     * Decide every selected pending row in one call, then patch the loaded
+     * rows in place instead of reloading the table.
+     */
+    private void decideSelected(Function<List<Long>, BulkDecisionResult> decide) {
+        List<LeaveRequest> selected = new ArrayList<>();
+        for (LeaveRequest req : requestsTable.getSelectionModel().getSelectedItems()) {
+            // rows still loading read as null
+            if (req != null && req.getStatus() == LeaveStatus.PENDING) {
+                selected.add(req);
+            }
+        }
+        if (selected.isEmpty()) {
+            messageLabel.setText("Select one or more pending requests first");
+            return;
+        }
+        List<Long> ids = selected.stream().map(LeaveRequest::getId).toList();
+        BackgroundTasks.run(
+                () -> decide.apply(ids),
+                result -> {
+                    Set<Long> applied = new HashSet<>(result.applied());
+                    for (LeaveRequest req : selected) {
+                        if (applied.contains(req.getId())) {
+                            req.setStatus(result.decision());
+                        }
+                    }
+                    requestsTable.getSelectionModel().clearSelection();
+                    requestsTable.refresh();
+                    messageLabel.setText(summary(result));
+                },
+                err -> showAlert(Alert.AlertType.ERROR,
+                        "Update Error",
+                        "Could not update the selected requests",
+                        err.getMessage()));
+    }
+
+    /** Decide every pending request matching the displayed filter and search, after confirmation. */
+    private void decideMatching(Function<LeaveRequestFilter, BulkDecisionResult> decide, String verb) {
+        LeaveRequestFilter filter = rows.filter();
+        if (filter.status() != null && filter.status() != LeaveStatus.PENDING) {
+            messageLabel.setText("The status filter excludes pending requests");
+            return;
+        }
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle(verb + " All Matching");
+        confirm.setHeaderText(verb + " every pending request that matches the current filter?");
+        if (confirm.showAndWait().filter(ButtonType.OK::equals).isEmpty()) {
+            return;
+        }
+        BackgroundTasks.run(
+                () -> decide.apply(filter),
+                result -> {
+                    rows.reload();
+                    messageLabel.setText(summary(result));
+                },
+                err -> showAlert(Alert.AlertType.ERROR,
+                        "Update Error",
+                        "Could not update the matching requests",
+                        err.getMessage()));
+    }
+
+    private static String summary(BulkDecisionResult result) {
+        String verb = result.decision() == LeaveStatus.APPROVED ? "Approved" : "Denied";
+        String text = verb + " " + result.applied().size() + " request(s)";
+        return result.skipped().isEmpty() ? text : text + "; " + result.skipped().size() + " skipped (no longer pending or conflicting)";
+    }
+
+    private LeaveRequestFilter currentFilter() {
+        String user = userFilter.getText() == null ? "" : userFilter.getText().trim();
+        LeaveRequestFilter filter = new LeaveRequestFilter(
+                ALL.equals(statusFilter.getValue()) ? null : LeaveStatus.valueOf(statusFilter.getValue()),
+                ALL.equals(typeFilter.getValue()) ? null : LeaveType.valueOf(typeFilter.getValue()),
+                user.isEmpty() ? null : user,
+                fromFilter.getValue(),
+                toFilter.getValue());
+        return "ADMIN".equals(currentUser.getRole()) ? filter : filter.forUser(currentUser.getUsername());
+    }
+
+    private LeaveRequestSort currentSort() {
+        for (TableColumn<LeaveRequest, ?> col : requestsTable.getSortOrder()) {
+            LeaveRequestSort.Field field = sortFields.get(col);
+            if (field != null) {
+                return new LeaveRequestSort(field, col.getSortType() == TableColumn.SortType.ASCENDING);
+            }
+        }
+        return LeaveRequestSort.DEFAULT;
+    }
+
+    private static <T> ReadOnlyObjectWrapper<T> value(LeaveRequest req, Function<LeaveRequest, T> getter) {
+        return new ReadOnlyObjectWrapper<>(req == null ? null : getter.apply(req));
+    }
+
+    /**
+     * Apply a status change in the background and redraw just the visible
+     * rows, instead of reloading the whole table.
+     */
+    private void changeStatus(LeaveRequest req, LongPredicate action, LeaveStatus newStatus, String verb) {
+        BackgroundTasks.run(
+                () -> action.test(req.getId()),
+                ok -> {
+                    if (!ok) {
+                        messageLabel.setText("Could not update request #" + req.getId());
+                        return;
+                    }
+                    req.setStatus(newStatus);
+                    requestsTable.refresh();
+                    messageLabel.setText(verb + " request #" + req.getId());
+                },
+                err -> showAlert(Alert.AlertType.ERROR,
+                        "Update Error",
+                        "Could not update request #" + req.getId(),
+                        err.getMessage()));
+    }
+
+    /**
+     * Action column cell. Its buttons are created once and reused as the
+     * cell is recycled across rows while scrolling.
+     */
+    private final class ActionCell extends TableCell<LeaveRequest, Void> {
+        private final Button approveBtn = new Button("Approve");
+        private final Button denyBtn = new Button("Deny");
+        private final Button cancelBtn = new Button("Cancel");
+        private final HBox adminButtons = new HBox(5, approveBtn, denyBtn);
+        private final HBox userButtons = new HBox(5, cancelBtn);
+
+        ActionCell() {
+            approveBtn.setOnAction(e -> act(id -> leaveService.approveRequest(id, currentUser.getUsername()),
+                    LeaveStatus.APPROVED, "Approved"));
+            denyBtn.setOnAction(e -> act(id -> leaveService.denyRequest(id, currentUser.getUsername()),
+                    LeaveStatus.DENIED, "Denied"));
+            cancelBtn.setOnAction(e -> act(id -> leaveService.cancelRequest(id, currentUser.getUsername()),
+                    LeaveStatus.CANCELLED, "Cancelled"));
+        }
+
+        private void act(LongPredicate action, LeaveStatus newStatus, String verb) {
+            LeaveRequest req = getTableRow().getItem();
+            if (req != null) {
+                changeStatus(req, action, newStatus, verb);
+            }
+        }
+
+        @Override
+        protected void updateItem(Void item, boolean empty) {
+            super.updateItem(item, empty);
+            LeaveRequest req = empty ? null : getTableRow().getItem();
+            if (req == null || req.getStatus() != LeaveStatus.PENDING) {
+                setGraphic(null);
+            } else if ("ADMIN".equals(currentUser.getRole())) {
+                setGraphic(adminButtons);
+            } else {
+                setGraphic(userButtons);
+            }
         }
     }
 
@@ -0,0 +1,234 @@
+package com.leavetracker.ui.fx;
+
+import com.leavetracker.jfr.TableRefreshEvent;
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.repository.LeaveRequestFilter;
+import com.leavetracker.repository.LeaveRequestSort;
+import com.leavetracker.repository.PageCursor;
+import com.leavetracker.service.LeaveService;
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Observable list of leave requests that only holds the blocks a table has
+ * actually asked for.
+ * <p>
+ * {@link #size()} is the server-side row count for the current filter. Rows
+ * are fetched in blocks of {@value #BLOCK_SIZE} the first time {@link #get(int)}
+ * touches them; until then the row reads as null and renders blank. Only the
+ * {@value #MAX_BLOCKS} most recently used blocks are kept. Filtering and
+ * sorting are done by the database. All methods must be called on the FX thread.
+ * </p>
+ * <p>
+ * A fetch whose block has scrolled out of view by the time a worker picks it
+ * up is dropped and re-requested if the row is shown again. Unfiltered rows in
+ * the default order are read with a keyset seek after the previous block when
+ * that block is cached, instead of an OFFSET scan.
+ * </p>
+ */
+class LazyRequestList extends ObservableListBase<LeaveRequest> {
+
+    static final int BLOCK_SIZE = 200;
+    static final int MAX_BLOCKS = 50;
+
+    private final LeaveService leaveService;
+    private final Consumer<Throwable> onError;
+    private final Map<Integer, List<LeaveRequest>> blocks =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<LeaveRequest>> eldest) {
+                    return size() > MAX_BLOCKS;
+                }
+            };
+    private final Set<Integer> loadingBlocks = new HashSet<>();
+
+    private LeaveRequestFilter filter = LeaveRequestFilter.NONE;
+    private LeaveRequestSort sort = LeaveRequestSort.DEFAULT;
+    private int size;
+    /** Bumped on every reload so blocks fetched for an older query are dropped. */
+    private int generation;
+    private boolean counting;
+    private boolean reloadRequested;
+    /** Block of the row the table most recently asked for; read by fetch workers. */
+    private volatile int viewBlock;
+
+    /**
+     * @param leaveService where rows are fetched from
+     * @param onError      called on the FX thread when a fetch fails
+     */
+    LazyRequestList(LeaveService leaveService, Consumer<Throwable> onError) {
+        this.leaveService = leaveService;
+        this.onError = onError;
+    }
+
+    /** @return the filter currently applied */
+    LeaveRequestFilter filter() {
+        return filter;
+    }
+
+    /** @return the sort currently applied */
+    LeaveRequestSort sort() {
+        return sort;
+    }
+
+    /**
+     * Switch to a new filter and sort and reload from the database.
+     *
+     * @param filter criteria to apply
+     * @param sort   order to display
+     */
+    void query(LeaveRequestFilter filter, LeaveRequestSort sort) {
+        this.filter = filter;
+        this.sort = sort;
+        reload();
+    }
+
+    /**
+     * Drop every cached block and re-count. Calls made while a count is
+     * running are coalesced into a single follow-up reload. Each reload is
+     * recorded as a {@link TableRefreshEvent} ending when the new size is shown.
+     */
+    void reload() {
+        if (counting) {
+            reloadRequested = true;
+            return;
+        }
+        counting = true;
+        int gen = ++generation;
+        LeaveRequestFilter f = filter;
+        TableRefreshEvent event = new TableRefreshEvent();
+        event.begin();
+        BackgroundTasks.run(
+                () -> leaveService.countRequests(f),
+                count -> {
+                    countFinished();
+                    if (gen == generation) {
+                        resize((int) Math.min(count, Integer.MAX_VALUE));
+                    }
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.rows = count;
+                        event.filter = describe(f);
+                        event.commit();
+                    }
+                },
+                err -> {
+                    countFinished();
+                    onError.accept(err);
+                });
+    }
+
+    @Override
+    public LeaveRequest get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int block = index / BLOCK_SIZE;
+        viewBlock = block;
+        List<LeaveRequest> rows = blocks.get(block);
+        if (rows == null) {
+            fetch(block);
+            return null;
+        }
+        int offset = index % BLOCK_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** @return the filter as text, with a search's ID list reduced to its size */
+    private static String describe(LeaveRequestFilter f) {
+        return f.ids() == null ? f.toString() : f.withIds(null) + " ids=" + f.ids().size();
+    }
+
+    private void countFinished() {
+        counting = false;
+        if (reloadRequested) {
+            reloadRequested = false;
+            reload();
+        }
+    }
+
+    private void resize(int newSize) {
+        int oldSize = size;
+        blocks.clear();
+        loadingBlocks.clear();
+        size = newSize;
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        }
+        if (newSize > 0) {
+            nextAdd(0, newSize);
+        }
+        endChange();
+    }
+
+    private void fetch(int block) {
+        if (!loadingBlocks.add(block)) {
+            return;
+        }
+        int gen = generation;
+        LeaveRequestFilter f = filter;
+        LeaveRequestSort s = sort;
+        PageCursor after = seekCursor(block);
+        BackgroundTasks.run(
+                () -> {
+                    // the table has scrolled on while this waited behind other fetches
+                    if (Math.abs(block - viewBlock) > 1) {
+                        return null;
+                    }
+                    if (after != null || (block == 0 && isKeysetOrder(f, s))) {
+                        return leaveService.getAllRequestsPage(after, BLOCK_SIZE).items();
+                    }
+                    return leaveService.findRequests(f, s, (long) block * BLOCK_SIZE, BLOCK_SIZE);
+                },
+                rows -> {
+                    if (gen != generation) {
+                        return;
+                    }
+                    loadingBlocks.remove(block);
+                    if (rows == null) {
+                        return;
+                    }
+                    blocks.put(block, rows);
+                    int from = block * BLOCK_SIZE;
+                    int to = Math.min(size, from + rows.size());
+                    if (to > from) {
+                        // the rows were reported as null placeholders until now
+                        beginChange();
+                        nextReplace(from, to, Collections.nCopies(to - from, null));
+                        endChange();
+                    }
+                },
+                // leave the block marked as loading so it is not retried until the next reload
+                onError);
+    }
+
+    /** @return where to seek from for {@code block}, or null to use an offset */
+    private PageCursor seekCursor(int block) {
+        if (block == 0 || !isKeysetOrder(filter, sort)) {
+            return null;
+        }
+        List<LeaveRequest> previous = blocks.get(block - 1);
+        if (previous == null || previous.size() < BLOCK_SIZE) {
+            return null;
+        }
+        return PageCursor.after(previous.get(previous.size() - 1));
+    }
+
+    /** @return true if rows come back in the {@code (start_date, id)} order that keyset pages use */
+    private static boolean isKeysetOrder(LeaveRequestFilter f, LeaveRequestSort s) {
+        return LeaveRequestFilter.NONE.equals(f) && LeaveRequestSort.DEFAULT.equals(s);
+    }
+}
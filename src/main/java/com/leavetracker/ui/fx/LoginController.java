@@ -2,6 +2,7 @@ package com.leavetracker.ui.fx;
 
 import com.leavetracker.auth.AuthService;
 import com.leavetracker.model.User;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -13,6 +14,8 @@ import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for the login/register screen.
@@ -35,30 +38,44 @@ public class LoginController {
             return;
         }
 
-        User u = auth.login(user, pass);
-        if (u != null) {
-            try {
-                FXMLLoader loader = new FXMLLoader(
-                        getClass().getResource("/fx/DashboardView.fxml")
-                );
-                Parent root = loader.load();
-                DashboardController ctrl = loader.getController();
-                ctrl.setUser(u);
+        messageLabel.setText("Signing in...");
+        // BCrypt runs on the hashing executor so the login screen stays responsive
+        auth.loginAsync(user, pass).whenComplete((u, err) -> Platform.runLater(() -> {
+            if (err != null) {
+                messageLabel.setText(isBusy(err) ? "Server busy, please try again" : "Login failed");
+            } else if (u != null) {
+                openDashboard(u);
+            } else {
+                messageLabel.setText("Login failed");
+            }
+        }));
+    }
 
-                Stage stage = (Stage) usernameField.getScene().getWindow();
-                stage.setScene(new Scene(root));
+    private void openDashboard(User u) {
+        try {
+            FXMLLoader loader = new FXMLLoader(
+                    getClass().getResource("/fx/DashboardView.fxml")
+            );
+            Parent root = loader.load();
+            DashboardController ctrl = loader.getController();
+            ctrl.setUser(u);
 
-            } catch (IOException e) {
-                showAlert(Alert.AlertType.ERROR,
-                        "Load Error",
-                        "Could not open the dashboard.",
-                        e.getMessage());
-            }
-        } else {
-            messageLabel.setText("Login failed");
+            Stage stage = (Stage) usernameField.getScene().getWindow();
+            stage.setScene(new Scene(root));
+
+        } catch (IOException e) {
+            showAlert(Alert.AlertType.ERROR,
+                    "Load Error",
+                    "Could not open the dashboard.",
+                    e.getMessage());
         }
     }
 
+    private static boolean isBusy(Throwable err) {
+        Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+        return cause instanceof RejectedExecutionException;
+    }
+
     private void showAlert(Alert.AlertType type, String title, String header, String content) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
@@ -75,7 +92,12 @@ public class LoginController {
             messageLabel.setText("Username and password cannot be blank");
             return;
         }
-        boolean ok = auth.register(user, pass, "USER");
-        messageLabel.setText(ok ? "Registered! Please login." : "User exists");
+        auth.registerAsync(user, pass, "USER").whenComplete((ok, err) -> Platform.runLater(() -> {
+            if (err != null) {
+                messageLabel.setText(isBusy(err) ? "Server busy, please try again" : "Registration failed");
+            } else {
+                messageLabel.setText(ok ? "Registered! Please login." : "User exists");
+            }
+        }));
     }
 }
\ No newline at end of file
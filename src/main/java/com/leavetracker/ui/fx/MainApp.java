@@ -1,11 +1,16 @@
 package com.leavetracker.ui.fx;
 
+import com.leavetracker.jfr.FieldRecording;
+import com.leavetracker.metrics.MetricsReporter;
+import com.leavetracker.service.AccrualJob;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.time.LocalTime;
+
 /**
  * JavaFX entry point. Loads the login screen from FXML.
  */
@@ -21,6 +26,9 @@ public class MainApp extends Application {
     }
 
     public static void main(String[] args) {
+        FieldRecording.startFromSystemProperties();
+        AccrualJob.fromSystemProperties().scheduleNightly(LocalTime.of(2, 0));
+        MetricsReporter.fromSystemProperties().start();
         launch(args);
     }
 }
\ No newline at end of file
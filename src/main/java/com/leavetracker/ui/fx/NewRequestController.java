@@ -1,6 +1,6 @@
 package com.leavetracker.ui.fx;
 
-import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveType;
 import com.leavetracker.service.LeaveService;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -15,7 +15,7 @@ public class NewRequestController {
 
     @FXML private DatePicker startDatePicker;
     @FXML private DatePicker endDatePicker;
-    @FXML private ChoiceBox<String> typeChoiceBox;
+    @FXML private ChoiceBox<LeaveType> typeChoiceBox;
     @FXML private TextArea reasonArea;
     @FXML private Label errorLabel;
 
@@ -25,7 +25,7 @@ public class NewRequestController {
     /** Populate the Type dropdown on load */
     @FXML
     public void initialize() {
-        typeChoiceBox.getItems().addAll("VACATION", "EMERGENCY");
+        typeChoiceBox.getItems().addAll(LeaveType.values());
     }
 
     /** Called by DashboardController to set itself as callback. */
@@ -37,7 +37,7 @@ public class NewRequestController {
     private void onSubmit() {
         LocalDate start = startDatePicker.getValue();
         LocalDate end   = endDatePicker.getValue();
-        String type     = typeChoiceBox.getValue();
+        LeaveType type  = typeChoiceBox.getValue();
         String reason   = reasonArea.getText().trim();
 
         // Validation
@@ -56,25 +56,21 @@ public class NewRequestController {
             return;
         }
 
-        try {
-            LeaveRequest req = leaveService.createRequest(
-                    parentController.getCurrentUser().getUsername(),
-                    start, end, type, reason
-            );
-
-            showAlert(Alert.AlertType.INFORMATION,
-                    "Request Created",
-                    null,
-                    "Leave request #" + req.getId() + " created successfully.");
-            parentController.refreshTable();
-            closeWindow();
-
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR,
-                    "Save Error",
-                    "Could not save leave request",
-                    e.getMessage());
-        }
+        String username = parentController.getCurrentUser().getUsername();
+        BackgroundTasks.run(
+                () -> leaveService.createRequest(username, start, end, type, reason),
+                req -> {
+                    showAlert(Alert.AlertType.INFORMATION,
+                            "Request Created",
+                            null,
+                            "Leave request #" + req.getId() + " created successfully.");
+                    parentController.refreshTable();
+                    closeWindow();
+                },
+                err -> showAlert(Alert.AlertType.ERROR,
+                        "Save Error",
+                        "Could not save leave request",
+                        err.getMessage()));
     }
 
     @FXML
@@ -0,0 +1,27 @@
+package com.leavetracker.util;
+
+/**
+ * Snapshot of {@link LookupCache} counters.
+ *
+ * @param size           keys currently cached
+ * @param hits           lookups answered with a cached value
+ * @param negativeHits   lookups answered with a cached "not found"
+ * @param misses         lookups that went to the loader
+ * @param evictions      entries dropped to stay within the size bound
+ * @param totalLoadNanos time spent in the loader
+ */
+public record CacheStats(int size, long hits, long negativeHits, long misses,
+                         long evictions, long totalLoadNanos) {
+
+    /** @return fraction of lookups served without calling the loader, or 0 if none were made */
+    public double hitRatio() {
+        long served = hits + negativeHits;
+        long lookups = served + misses;
+        return lookups == 0 ? 0 : (double) served / lookups;
+    }
+
+    /** @return mean loader time in milliseconds, or 0 if nothing was loaded */
+    public double averageLoadMillis() {
+        return misses == 0 ? 0 : totalLoadNanos / 1_000_000.0 / misses;
+    }
+}
@@ -0,0 +1,333 @@
+package com.leavetracker.util;
+
+import com.leavetracker.jfr.ConnectionBorrowEvent;
+import com.leavetracker.metrics.LatencyHistogram;
+import com.leavetracker.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of H2 connections.
+ * <p>
+ * Physical connections are opened lazily up to {@code maxSize} and handed out
+ * wrapped in a proxy whose {@code close()} returns them to the pool. Idle
+ * connections are validated before being borrowed again; broken ones are
+ * discarded and replaced. Each physical connection keeps its own
+ * {@link StatementCache}, so {@code prepareStatement(String)} on a pooled
+ * connection reuses statements already planned for that session.
+ * </p>
+ * Borrow waits are timed as {@code db.pool.wait} and prepared statement
+ * executions as {@code sql <text>} in the pool's {@link Metrics}; the latter
+ * are also recorded as JFR query events, with or without statement caching.
+ */
+public class ConnectionPool implements ConnectionProvider, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final Metrics metrics;
+    private final LatencyHistogram waitTimer;
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Create a pool. No connections are opened until {@link #prewarm()} or the
+     * first borrow.
+     *
+     * @param url                      JDBC URL
+     * @param user                     database user
+     * @param password                 database password
+     * @param minSize                  connections opened by {@link #prewarm()}
+     * @param maxSize                  upper bound on open connections
+     * @param borrowTimeoutMillis      how long a borrower waits for a free connection
+     * @param validationTimeoutSeconds timeout passed to {@link Connection#isValid(int)}
+     * @param statementCacheSize       prepared statements cached per connection; 0 disables caching
+     */
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize,
+                          long borrowTimeoutMillis, int validationTimeoutSeconds,
+                          int statementCacheSize) {
+        this(url, user, password, minSize, maxSize, borrowTimeoutMillis, validationTimeoutSeconds,
+                statementCacheSize, new Metrics());
+    }
+
+    /**
+     * Create a pool that records its timings into {@code metrics}.
+     *
+     * @param url                      JDBC URL
+     * @param user                     database user
+     * @param password                 database password
+     * @param minSize                  connections opened by {@link #prewarm()}
+     * @param maxSize                  upper bound on open connections
+     * @param borrowTimeoutMillis      how long a borrower waits for a free connection
+     * @param validationTimeoutSeconds timeout passed to {@link Connection#isValid(int)}
+     * @param statementCacheSize       prepared statements cached per connection; 0 disables caching
+     * @param metrics                  where borrow waits and statement timings are recorded
+     */
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize,
+                          long borrowTimeoutMillis, int validationTimeoutSeconds,
+                          int statementCacheSize, Metrics metrics) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException(
+                    "Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.metrics = metrics;
+        this.waitTimer = metrics.timer("db.pool.wait");
+    }
+
+    /**
+     * Open connections until at least {@code minSize} are idle in the pool.
+     *
+     * @throws SQLException if a connection cannot be opened
+     */
+    public void prewarm() throws SQLException {
+        while (total.get() < minSize) {
+            idle.offerLast(openPhysical());
+        }
+        log.info("Connection pool warmed with {} connection(s)", total.get());
+    }
+
+    /**
+     * Borrow a connection, waiting up to the borrow timeout if all
+     * {@code maxSize} connections are in use.
+     *
+     * @return a pooled Connection; closing it returns it to the pool
+     * @throws SQLException if the pool is closed, exhausted or the database is unreachable
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        ConnectionBorrowEvent event = new ConnectionBorrowEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                commit(event, true);
+                throw new SQLTransientConnectionException(
+                        "Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PhysicalConnection physical = takeValidIdle();
+            if (physical == null) {
+                physical = openPhysical();
+            }
+            active.incrementAndGet();
+            borrows.increment();
+            commit(event, false);
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void commit(ConnectionBorrowEvent event, boolean timedOut) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.active = active.get();
+            event.open = total.get();
+            event.timedOut = timedOut;
+            event.commit();
+        }
+    }
+
+    /** @return a point-in-time snapshot of pool usage */
+    public PoolStats stats() {
+        return new PoolStats(active.get(), idle.size(), total.get(), maxSize,
+                borrows.sum(), timeouts.sum(), waitNanos.sum(), maxWaitNanos.get(),
+                statementHits.sum(), statementMisses.sum(), statementEvictions.sum());
+    }
+
+    /**
+     * Close all idle connections and refuse further borrows. Connections that
+     * are still checked out are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        PhysicalConnection c;
+        while ((c = idle.pollFirst()) != null) {
+            closePhysical(c);
+        }
+    }
+
+    private PhysicalConnection takeValidIdle() {
+        PhysicalConnection c;
+        while ((c = idle.pollFirst()) != null) {
+            try {
+                if (c.connection.isValid(validationTimeoutSeconds)) {
+                    return c;
+                }
+            } catch (SQLException e) {
+                log.debug("Validation of pooled connection failed", e);
+            }
+            log.warn("Discarding invalid pooled connection");
+            closePhysical(c);
+        }
+        return null;
+    }
+
+    private PhysicalConnection openPhysical() throws SQLException {
+        Connection c = DriverManager.getConnection(url, user, password);
+        total.incrementAndGet();
+        StatementCache cache = statementCacheSize > 0
+                ? new StatementCache(c, statementCacheSize, statementHits, statementMisses, statementEvictions, metrics)
+                : null;
+        return new PhysicalConnection(c, cache);
+    }
+
+    private void closePhysical(PhysicalConnection c) {
+        total.decrementAndGet();
+        if (c.statements != null) {
+            c.statements.clear();
+        }
+        try {
+            c.connection.close();
+        } catch (SQLException e) {
+            log.debug("Error closing pooled connection", e);
+        }
+    }
+
+    /** Called by the proxy when a borrower closes its connection. */
+    private void release(PhysicalConnection physical) {
+        active.decrementAndGet();
+        try {
+            Connection c = physical.connection;
+            if (closed || c.isClosed()) {
+                closePhysical(physical);
+                return;
+            }
+            if (physical.statements != null) {
+                physical.statements.releaseAll();
+            }
+            if (!c.getAutoCommit()) {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+            idle.offerFirst(physical);
+        } catch (SQLException e) {
+            log.warn("Discarding pooled connection that could not be reset", e);
+            closePhysical(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void recordWait(long nanos) {
+        waitTimer.record(nanos);
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private Connection wrap(PhysicalConnection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(physical));
+    }
+
+    /** An open database session and the statements cached against it. */
+    private record PhysicalConnection(Connection connection, StatementCache statements) {
+    }
+
+    /**
+     * Forwards calls to the physical connection, except {@code close()} which
+     * hands it back to the pool and {@code prepareStatement}, whose result is
+     * instrumented and, for the single-argument form, cached. Any use after
+     * close is rejected.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private boolean released;
+
+        PooledConnectionHandler(PhysicalConnection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || physical.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical.connection + "]";
+                default:
+                    if (released) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    if (!"prepareStatement".equals(method.getName())) {
+                        return InstrumentedStatement.invokeOn(physical.connection, method, args);
+                    }
+                    String sql = (String) args[0];
+                    if (physical.statements != null && args.length == 1) {
+                        return physical.statements.prepare(sql, (Connection) proxy);
+                    }
+                    PreparedStatement ps = (PreparedStatement) InstrumentedStatement.invokeOn(
+                            physical.connection, method, args);
+                    return InstrumentedStatement.wrap(ps, sql, metrics.timer("sql " + sql), (Connection) proxy);
+            }
+        }
+    }
+}
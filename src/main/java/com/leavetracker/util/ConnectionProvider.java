@@ -0,0 +1,22 @@
+package com.leavetracker.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Source of JDBC connections for the repositories.
+ * <p>
+ * Callers must close every connection they obtain; for pooled providers
+ * closing hands the connection back instead of ending the session.
+ * </p>
+ */
+public interface ConnectionProvider {
+
+    /**
+     * Obtain a connection to the leave tracker database.
+     *
+     * @return an open Connection
+     * @throws SQLException if no connection can be provided
+     */
+    Connection getConnection() throws SQLException;
+}
@@ -1,14 +1,24 @@
 package com.leavetracker.util;
 
+import com.leavetracker.metrics.Metrics;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 /**
  * Sets up and provides connections to the H2 database.
  * <p>
- * On first load, it creates the `users` and `leave_requests` tables if they don't exist.
+ * On first load, it brings the schema up to date with {@link SchemaMigrations}
+ * and pre-warms the shared {@link ConnectionPool}. Pool sizing can be tuned with the
+ * {@code leavetracker.db.pool.min}, {@code leavetracker.db.pool.max},
+ * {@code leavetracker.db.pool.timeoutMs} and {@code leavetracker.db.statementCacheSize}
+ * system properties. The pool records its timings into {@link Metrics#shared()}.
+ * </p>
+ * <p>
+ * It also owns the shared leave request {@link IdGenerator}. By default IDs are
+ * reserved in blocks from the {@code leave_request_id_seq} sequence; set
+ * {@code leavetracker.ids=snowflake} and a distinct {@code leavetracker.ids.node}
+ * per JVM to generate them without touching the database.
  * </p>
  */
 public class DatabaseUtil {
@@ -16,39 +26,71 @@ public class DatabaseUtil {
     private static final String DB_USER = "sa";
     private static final String DB_PASS = "";
 
+    private static final ConnectionPool POOL = new ConnectionPool(
+            JDBC_URL, DB_USER, DB_PASS,
+            Integer.getInteger("leavetracker.db.pool.min", 2),
+            Integer.getInteger("leavetracker.db.pool.max", 10),
+            Long.getLong("leavetracker.db.pool.timeoutMs", 5_000L),
+            2,
+            Integer.getInteger("leavetracker.db.statementCacheSize", 32),
+            Metrics.shared());
+
+    private static final IdGenerator LEAVE_REQUEST_IDS = createIdGenerator();
+
     static {
-        // Initialize tables
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS users (
-                  username VARCHAR(50) PRIMARY KEY,
-                  password_hash VARCHAR(60) NOT NULL,
-                  role VARCHAR(20) NOT NULL
-                )
-                """);
-            stmt.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS leave_requests (
-                  id BIGINT PRIMARY KEY,
-                  username VARCHAR(50) NOT NULL,
-                  start_date DATE NOT NULL,
-                  end_date DATE NOT NULL,
-                  type VARCHAR(20) NOT NULL,
-                  reason VARCHAR(255),
-                  status VARCHAR(20) NOT NULL
-                )
-                """);
+        try {
+            new SchemaMigrator(POOL, SchemaMigrations.all()).migrate();
         } catch (SQLException e) {
-            throw new RuntimeException("Failed to initialize database tables", e);
+            throw new RuntimeException("Failed to migrate database schema", e);
         }
+
+        try {
+            POOL.prewarm();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to pre-warm connection pool", e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(POOL::close, "db-pool-shutdown"));
+
+        Metrics metrics = Metrics.shared();
+        metrics.gauge("db.pool.active", () -> POOL.stats().active());
+        metrics.gauge("db.pool.idle", () -> POOL.stats().idle());
+        metrics.gauge("db.pool.timeouts", () -> POOL.stats().timeouts());
+        metrics.gauge("db.statements.hits", () -> POOL.stats().statementHits());
+        metrics.gauge("db.statements.misses", () -> POOL.stats().statementMisses());
     }
 
     /**
-     * Opens and returns a new Connection to the H2 database.
+     * Borrows a Connection to the H2 database from the shared pool.
+     * Closing it returns it to the pool.
      *
      * @return a Connection object
      * @throws SQLException if the connection fails
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(JDBC_URL, DB_USER, DB_PASS);
+        return POOL.getConnection();
+    }
+
+    /** @return the shared provider used by the repositories */
+    public static ConnectionProvider provider() {
+        return POOL;
+    }
+
+    /** @return the generator shared by every LeaveService in this JVM */
+    public static IdGenerator leaveRequestIds() {
+        return LEAVE_REQUEST_IDS;
+    }
+
+    /** @return current usage figures for the shared pool */
+    public static PoolStats poolStats() {
+        return POOL.stats();
+    }
+
+    private static IdGenerator createIdGenerator() {
+        String kind = System.getProperty("leavetracker.ids", "hilo");
+        return switch (kind) {
+            case "hilo" -> new HiLoIdGenerator(POOL, "leave_request_id_seq");
+            case "snowflake" -> new SnowflakeIdGenerator(Integer.getInteger("leavetracker.ids.node", 0));
+            default -> throw new IllegalStateException("Unknown leavetracker.ids generator: " + kind);
+        };
     }
-}
\ No newline at end of file
+}
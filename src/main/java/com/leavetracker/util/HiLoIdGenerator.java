@@ -0,0 +1,93 @@
+package com.leavetracker.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ID generator that reserves blocks of IDs from a database sequence.
+ * <p>
+ * The sequence's {@code INCREMENT} is the block size: each {@code NEXT VALUE}
+ * hands this JVM a contiguous range that no other JVM sharing the database
+ * will receive. IDs within a block are issued lock-free; a lock is only taken
+ * to fetch the next block.
+ * </p>
+ */
+public class HiLoIdGenerator implements IdGenerator {
+
+    private static final String INCREMENT_SQL =
+            "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?";
+
+    private final ConnectionProvider connections;
+    private final String sequenceName;
+    private final String nextBlockSql;
+    private long blockSize;
+    private volatile Block block = new Block(0, 0);
+
+    /**
+     * @param connections  where to obtain database connections
+     * @param sequenceName sequence to allocate blocks from, e.g. {@code leave_request_id_seq}
+     */
+    public HiLoIdGenerator(ConnectionProvider connections, String sequenceName) {
+        this.connections = connections;
+        this.sequenceName = sequenceName;
+        this.nextBlockSql = "SELECT NEXT VALUE FOR " + sequenceName;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            synchronized (this) {
+                if (block == current) {
+                    block = allocate();
+                }
+            }
+        }
+    }
+
+    private Block allocate() {
+        try (Connection conn = connections.getConnection()) {
+            if (blockSize == 0) {
+                blockSize = readIncrement(conn);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(nextBlockSql);
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                long start = rs.getLong(1);
+                return new Block(start, start + blockSize);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error allocating ID block from " + sequenceName, e);
+        }
+    }
+
+    private long readIncrement(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INCREMENT_SQL)) {
+            ps.setString(1, sequenceName.toUpperCase());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Sequence not found: " + sequenceName);
+                }
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /** A reserved range [start, end) and the next unused value in it. */
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.leavetracker.util;
+
+/**
+ * Source of unique leave request IDs.
+ * <p>
+ * Implementations must be thread-safe and must never return the same value
+ * twice, including across JVMs that share the database.
+ * </p>
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /** @return a new, never before issued ID */
+    long nextId();
+}
@@ -0,0 +1,148 @@
+package com.leavetracker.util;
+
+import com.leavetracker.jfr.QueryEvent;
+import com.leavetracker.metrics.LatencyHistogram;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Thin wrapper that times every {@code execute*} call of a prepared statement
+ * into a {@code sql <text>} timer and, when enabled, records it as a
+ * {@link QueryEvent}. For queries the event stays open until the result set is
+ * closed so it carries the number of rows read; with the event disabled the
+ * result set is returned unwrapped. Everything else is forwarded unchanged.
+ * <p>
+ * {@link ConnectionPool} applies it to every prepared statement, whether or
+ * not the statement came from a {@link StatementCache}.
+ * </p>
+ */
+final class InstrumentedStatement {
+
+    private InstrumentedStatement() {
+    }
+
+    /**
+     * @param ps    statement to instrument
+     * @param sql   its text, as recorded on the event
+     * @param timer where execution times are recorded
+     * @param owner connection reported by {@link PreparedStatement#getConnection()}, or null to forward
+     * @return the instrumented statement
+     */
+    static PreparedStatement wrap(PreparedStatement ps, String sql, LatencyHistogram timer, Connection owner) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getConnection":
+                    return owner != null ? owner : invokeOn(ps, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (!method.getName().startsWith("execute")) {
+                        return invokeOn(ps, method, args);
+                    }
+                    QueryEvent event = new QueryEvent();
+                    event.begin();
+                    long start = System.nanoTime();
+                    try {
+                        Object result = invokeOn(ps, method, args);
+                        if (result instanceof ResultSet rs) {
+                            return event.isEnabled() ? countRows(rs, event, sql) : rs;
+                        }
+                        commit(event, sql, rowsOf(result));
+                        return result;
+                    } finally {
+                        timer.recordSince(start);
+                    }
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(
+                InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                handler);
+    }
+
+    static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** @return a result set that counts {@code next()} hits and commits the event on close */
+    private static ResultSet countRows(ResultSet rs, QueryEvent event, String sql) {
+        InvocationHandler handler = new InvocationHandler() {
+            private long rows;
+            private boolean committed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "next":
+                        Object more = invokeOn(rs, method, args);
+                        if ((Boolean) more) {
+                            rows++;
+                        }
+                        return more;
+                    case "close":
+                        try {
+                            return invokeOn(rs, method, args);
+                        } finally {
+                            if (!committed) {
+                                committed = true;
+                                commit(event, sql, rows);
+                            }
+                        }
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return invokeOn(rs, method, args);
+                }
+            }
+        };
+        return (ResultSet) Proxy.newProxyInstance(
+                InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                handler);
+    }
+
+    /** @return rows changed by an update or batch, or 0 for anything else */
+    private static long rowsOf(Object result) {
+        if (result instanceof Integer n) {
+            return n;
+        }
+        if (result instanceof Long n) {
+            return n;
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (int c : counts) {
+                rows += Math.max(c, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long c : counts) {
+                rows += Math.max(c, 0);
+            }
+        }
+        return rows;
+    }
+
+    private static void commit(QueryEvent event, String sql, long rows) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.sql = sql;
+            event.sqlId = QueryEvent.idOf(sql);
+            event.rows = rows;
+            event.commit();
+        }
+    }
+}
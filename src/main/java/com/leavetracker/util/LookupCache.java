@@ -0,0 +1,142 @@
+package com.leavetracker.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Small bounded read-through cache with expiry, for lookups that may find nothing.
+ * <p>
+ * Found values live for {@code ttl}; "not found" results are cached separately
+ * for {@code negativeTtl} so repeated lookups of unknown keys do not reach the
+ * database. When more than {@code maxSize} keys are cached the least recently
+ * used is dropped. Loads run outside the cache lock, so two threads missing
+ * on the same key at once may both load it.
+ * </p>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LookupCache<K, V> {
+
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier clock;
+    private final Map<K, Entry<V>> entries;
+    /** Bumped on every invalidation so a load that raced with a write is not cached. */
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    /**
+     * @param maxSize     most keys kept at once
+     * @param ttl         how long a found value is served from cache
+     * @param negativeTtl how long a "not found" result is served from cache; zero disables negative caching
+     */
+    public LookupCache(int maxSize, Duration ttl, Duration negativeTtl) {
+        this(maxSize, ttl, negativeTtl, System::nanoTime);
+    }
+
+    LookupCache(int maxSize, Duration ttl, Duration negativeTtl, LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return the cached result for {@code key}, calling {@code loader} on a miss
+     * or after expiry.
+     *
+     * @param key    lookup key
+     * @param loader fetches the value from the source of truth
+     * @return the value, or empty if the source has none
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        long now = clock.getAsLong();
+        Entry<V> entry;
+        long loadGeneration;
+        synchronized (entries) {
+            entry = entries.get(key);
+            loadGeneration = generation;
+        }
+        if (entry != null && now - entry.expiresAt < 0) {
+            if (entry.value == null) {
+                negativeHits.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            return Optional.of(entry.value);
+        }
+
+        misses.increment();
+        long start = clock.getAsLong();
+        Optional<V> loaded = loader.apply(key);
+        long end = clock.getAsLong();
+        loadNanos.add(end - start);
+
+        long ttl = loaded.isPresent() ? ttlNanos : negativeTtlNanos;
+        synchronized (entries) {
+            if (generation != loadGeneration) {
+                return loaded;
+            }
+            if (ttl > 0) {
+                entries.put(key, new Entry<>(loaded.orElse(null), end + ttl));
+            } else {
+                entries.remove(key);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop any cached result for {@code key}, found or not.
+     *
+     * @param key the key whose source value changed
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(key);
+        }
+    }
+
+    /** Drop every cached result. */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    /** @return hit, miss and load-time counters since creation */
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(size, hits.sum(), negativeHits.sum(), misses.sum(),
+                evictions.sum(), loadNanos.sum());
+    }
+
+    /** A cached result; a null value records that the key was not found. */
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
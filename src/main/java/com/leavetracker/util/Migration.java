@@ -0,0 +1,62 @@
+package com.leavetracker.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One versioned step of the database schema.
+ *
+ * @param version     strictly increasing schema version this step produces
+ * @param description short human-readable summary, stored in {@code schema_version}
+ * @param statements  DDL/DML executed in order, each committed with its progress;
+ *                    DDL must be guarded with {@code IF [NOT] EXISTS}, see {@link SchemaMigrator}
+ * @param checks      queries run before the first statement; any row they return stops the migration
+ */
+public record Migration(int version, String description, List<String> statements, List<Check> checks) {
+
+    /**
+     * A migration with no up-front checks.
+     *
+     * @param version     schema version
+     * @param description summary of the change
+     * @param statements  SQL to run
+     */
+    public Migration(int version, String description, List<String> statements) {
+        this(version, description, statements, List.of());
+    }
+
+    /**
+     * Convenience factory.
+     *
+     * @param version     schema version
+     * @param description summary of the change
+     * @param statements  SQL to run
+     * @return the migration
+     */
+    public static Migration of(int version, String description, String... statements) {
+        return new Migration(version, description, List.of(statements));
+    }
+
+    /**
+     * Refuse to start this migration while {@code query} returns rows, e.g.
+     * values a conversion has no mapping for.
+     *
+     * @param query   select whose first column lists the offending values
+     * @param message what is wrong; the values found are appended
+     * @return a copy of this migration with the check added
+     */
+    public Migration requireNoRows(String query, String message) {
+        List<Check> all = new ArrayList<>(checks);
+        all.add(new Check(query, message));
+        return new Migration(version, description, statements, List.copyOf(all));
+    }
+
+    /**
+     * A precondition of a migration.
+     *
+     * @param query   select that returns the offending values, if any
+     * @param message explanation reported with those values
+     */
+    public record Check(String query, String message) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.leavetracker.util;
+
+/**
+ * Snapshot of {@link ConnectionPool} usage.
+ *
+ * @param active             connections currently checked out
+ * @param idle               connections waiting in the pool
+ * @param total              physical connections currently open
+ * @param maxSize            configured upper bound on open connections
+ * @param borrows            successful borrows since start-up
+ * @param timeouts           borrows that gave up waiting for a connection
+ * @param totalWaitNanos     time borrowers spent waiting for a free slot
+ * @param maxWaitNanos       longest single wait for a free slot
+ * @param statementHits      prepareStatement calls served from a connection's statement cache
+ * @param statementMisses    prepareStatement calls that had to prepare (and plan) the SQL
+ * @param statementEvictions cached statements closed to make room for others
+ */
+public record PoolStats(int active, int idle, int total, int maxSize,
+                        long borrows, long timeouts,
+                        long totalWaitNanos, long maxWaitNanos,
+                        long statementHits, long statementMisses, long statementEvictions) {
+
+    /** @return mean wait per borrow in milliseconds, or 0 if nothing was borrowed */
+    public double averageWaitMillis() {
+        return borrows == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrows;
+    }
+
+    /** @return fraction of prepareStatement calls served from cache, or 0 if none were made */
+    public double statementHitRatio() {
+        long lookups = statementHits + statementMisses;
+        return lookups == 0 ? 0 : (double) statementHits / lookups;
+    }
+}
@@ -0,0 +1,108 @@
+package com.leavetracker.util;
+
+import java.util.List;
+
+/**
+ * The ordered list of schema migrations for the leave tracker database.
+ * <p>
+ * Append new steps at the end with the next version number; never edit a
+ * migration that has already shipped. Guard every DDL statement with
+ * {@code IF [NOT] EXISTS}: H2 commits it before its progress is saved, so a
+ * crash in between runs it again; see {@link SchemaMigrator}.
+ * </p>
+ */
+public final class SchemaMigrations {
+
+    private static final List<Migration> ALL = List.of(
+            Migration.of(1, "Create users and leave_requests tables",
+                    """
+                    CREATE TABLE IF NOT EXISTS users (
+                      username VARCHAR(50) PRIMARY KEY,
+                      password_hash VARCHAR(60) NOT NULL,
+                      role VARCHAR(20) NOT NULL
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS leave_requests (
+                      id BIGINT PRIMARY KEY,
+                      username VARCHAR(50) NOT NULL,
+                      start_date DATE NOT NULL,
+                      end_date DATE NOT NULL,
+                      type VARCHAR(20) NOT NULL,
+                      reason VARCHAR(255),
+                      status VARCHAR(20) NOT NULL
+                    )
+                    """),
+            Migration.of(2, "Index leave_requests by user, status and date range",
+                    "CREATE INDEX IF NOT EXISTS idx_leave_user_start ON leave_requests(username, start_date)",
+                    "CREATE INDEX IF NOT EXISTS idx_leave_status_start ON leave_requests(status, start_date)",
+                    "CREATE INDEX IF NOT EXISTS idx_leave_dates ON leave_requests(start_date, end_date)"),
+            Migration.of(3, "Index leave_requests for keyset pagination",
+                    "CREATE INDEX IF NOT EXISTS idx_leave_start_id ON leave_requests(start_date, id)"),
+            Migration.of(4, "Add block-allocated leave request ID sequence",
+                    "CREATE SEQUENCE IF NOT EXISTS leave_request_id_seq START WITH 1 INCREMENT BY 100",
+                    // continue above any time-based IDs issued before the sequence existed
+                    "ALTER SEQUENCE leave_request_id_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM leave_requests)"),
+            Migration.of(5, "Add leave ledger and running balances",
+                    """
+                    CREATE TABLE IF NOT EXISTS leave_ledger (
+                      id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                      username VARCHAR(50) NOT NULL,
+                      entry_date DATE NOT NULL,
+                      kind VARCHAR(10) NOT NULL,
+                      days DECIMAL(8,2) NOT NULL,
+                      request_id BIGINT,
+                      accrual_month DATE
+                    )
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_ledger_user ON leave_ledger(username, id)",
+                    "CREATE INDEX IF NOT EXISTS idx_ledger_request ON leave_ledger(request_id)",
+                    // one accrual per user per month, however often the job runs
+                    "CREATE UNIQUE INDEX IF NOT EXISTS ux_ledger_accrual ON leave_ledger(username, accrual_month)",
+                    """
+                    CREATE TABLE IF NOT EXISTS leave_balances (
+                      username VARCHAR(50) PRIMARY KEY,
+                      balance DECIMAL(8,2) NOT NULL
+                    )
+                    """,
+                    """
+                    INSERT INTO leave_balances(username, balance)
+                    SELECT u.username, 0 FROM users u
+                    WHERE NOT EXISTS (SELECT 1 FROM leave_balances b WHERE b.username = u.username)
+                    """),
+            // codes must match LeaveStatus.code() and LeaveType.code()
+            Migration.of(6, "Store leave status and type as SMALLINT codes",
+                    "ALTER TABLE leave_requests ADD COLUMN IF NOT EXISTS status_code SMALLINT",
+                    "ALTER TABLE leave_requests ADD COLUMN IF NOT EXISTS type_code SMALLINT",
+                    """
+                    UPDATE leave_requests SET
+                      status_code = CASE status WHEN 'PENDING' THEN 0 WHEN 'APPROVED' THEN 1
+                                                WHEN 'DENIED' THEN 2 WHEN 'CANCELLED' THEN 3 END,
+                      type_code = CASE UPPER(type) WHEN 'VACATION' THEN 0 WHEN 'EMERGENCY' THEN 1 ELSE 2 END
+                    """,
+                    "DROP INDEX IF EXISTS idx_leave_status_start",
+                    "ALTER TABLE leave_requests DROP COLUMN IF EXISTS status",
+                    "ALTER TABLE leave_requests DROP COLUMN IF EXISTS type",
+                    "ALTER TABLE leave_requests ALTER COLUMN IF EXISTS status_code RENAME TO status",
+                    "ALTER TABLE leave_requests ALTER COLUMN IF EXISTS type_code RENAME TO type",
+                    "ALTER TABLE leave_requests ALTER COLUMN status SET NOT NULL",
+                    "ALTER TABLE leave_requests ALTER COLUMN type SET NOT NULL",
+                    "CREATE INDEX IF NOT EXISTS idx_leave_status_start ON leave_requests(status, start_date)")
+                    // the status CASE has no fallback, so stop before any DDL rather than write NULLs
+                    .requireNoRows("""
+                            SELECT DISTINCT status FROM leave_requests
+                            WHERE status NOT IN ('PENDING', 'APPROVED', 'DENIED', 'CANCELLED')
+                            ORDER BY status
+                            """, "leave_requests has status values with no code; correct them first"),
+            Migration.of(7, "Add leave request row version for optimistic concurrency",
+                    "ALTER TABLE leave_requests ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL")
+    );
+
+    private SchemaMigrations() {
+    }
+
+    /** @return every migration, in version order */
+    public static List<Migration> all() {
+        return ALL;
+    }
+}
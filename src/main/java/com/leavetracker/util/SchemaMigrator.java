@@ -0,0 +1,274 @@
+package com.leavetracker.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Brings a database up to date by applying pending {@link Migration}s.
+ * <p>
+ * Applied versions are recorded in a {@code schema_version} table. H2 commits
+ * every DDL statement on its own, so a migration cannot be one transaction.
+ * Instead the number of statements done is saved in
+ * {@code schema_version_progress} after each one, and a failed migration
+ * resumes at the statement that failed. A DML statement commits together with
+ * its progress row; a DDL statement commits first, so a crash right after it
+ * runs that statement again. DDL steps must therefore be guarded with
+ * {@code IF [NOT] EXISTS}.
+ * </p>
+ * <p>
+ * Concurrent migrators, in this or another process, are serialized by a row in
+ * {@code schema_lock}. The row is inserted and deleted in autocommit mode so DDL
+ * commits cannot release it early. If a migrator dies while holding it, delete
+ * the row by hand.
+ * </p>
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final String CREATE_VERSION_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+              version INT PRIMARY KEY,
+              description VARCHAR(200) NOT NULL,
+              applied_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+            )
+            """;
+    private static final String SELECT_VERSION_SQL =
+            "SELECT COALESCE(MAX(version), 0) FROM schema_version";
+    private static final String INSERT_VERSION_SQL =
+            "INSERT INTO schema_version(version, description) VALUES (?, ?)";
+    private static final String CREATE_PROGRESS_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS schema_version_progress (
+              version INT PRIMARY KEY,
+              statements_done INT NOT NULL
+            )
+            """;
+    private static final String SELECT_PROGRESS_SQL =
+            "SELECT statements_done FROM schema_version_progress WHERE version = ?";
+    private static final String SAVE_PROGRESS_SQL =
+            "MERGE INTO schema_version_progress KEY(version) VALUES (?, ?)";
+    private static final String DELETE_PROGRESS_SQL =
+            "DELETE FROM schema_version_progress WHERE version = ?";
+    private static final String CREATE_LOCK_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS schema_lock (
+              id INT PRIMARY KEY,
+              locked_by VARCHAR(200) NOT NULL,
+              locked_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+            )
+            """;
+    private static final String INSERT_LOCK_SQL =
+            "INSERT INTO schema_lock(id, locked_by) VALUES (1, ?)";
+    private static final String SELECT_LOCK_SQL =
+            "SELECT locked_by, locked_on FROM schema_lock WHERE id = 1";
+    private static final String DELETE_LOCK_SQL =
+            "DELETE FROM schema_lock WHERE id = 1 AND locked_by = ?";
+    private static final String DUPLICATE_KEY_STATE = "23505";
+    private static final long DEFAULT_LOCK_TIMEOUT_MILLIS = 60_000;
+    private static final long LOCK_POLL_MILLIS = 100;
+    private static final int MAX_REPORTED_VALUES = 20;
+
+    private final ConnectionProvider connections;
+    private final List<Migration> migrations;
+    private final long lockTimeoutMillis;
+
+    /**
+     * @param connections where to obtain database connections
+     * @param migrations  the full migration history; sorted by version before use
+     */
+    public SchemaMigrator(ConnectionProvider connections, List<Migration> migrations) {
+        this(connections, migrations, DEFAULT_LOCK_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param connections       where to obtain database connections
+     * @param migrations        the full migration history; sorted by version before use
+     * @param lockTimeoutMillis how long to wait for another migrator to finish
+     */
+    public SchemaMigrator(ConnectionProvider connections, List<Migration> migrations,
+                          long lockTimeoutMillis) {
+        this.connections = connections;
+        this.migrations = migrations.stream()
+                .sorted(Comparator.comparingInt(Migration::version))
+                .toList();
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    /**
+     * Apply every pending migration.
+     *
+     * @return number of migrations applied
+     * @throws SQLException if a migration fails
+     */
+    public int migrate() throws SQLException {
+        return migrateTo(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Apply pending migrations up to and including {@code targetVersion}.
+     *
+     * @param targetVersion highest version to apply
+     * @return number of migrations applied
+     * @throws SQLException if a migration fails or the lock is not obtained in time
+     */
+    public int migrateTo(int targetVersion) throws SQLException {
+        try (Connection conn = connections.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(CREATE_VERSION_TABLE_SQL);
+                stmt.executeUpdate(CREATE_PROGRESS_TABLE_SQL);
+                stmt.executeUpdate(CREATE_LOCK_TABLE_SQL);
+            }
+            String owner = lock(conn);
+            try {
+                int current = currentVersion(conn);
+                int applied = 0;
+                for (Migration m : migrations) {
+                    if (m.version() <= current || m.version() > targetVersion) {
+                        continue;
+                    }
+                    apply(conn, m);
+                    applied++;
+                }
+                return applied;
+            } finally {
+                unlock(conn, owner);
+            }
+        }
+    }
+
+    /**
+     * @return the highest applied schema version, or 0 for an empty database
+     * @throws SQLException if the version table cannot be read
+     */
+    public int currentVersion() throws SQLException {
+        try (Connection conn = connections.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(CREATE_VERSION_TABLE_SQL);
+            }
+            return currentVersion(conn);
+        }
+    }
+
+    private int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_VERSION_SQL)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private String lock(Connection conn) throws SQLException {
+        String owner = ManagementFactory.getRuntimeMXBean().getName()
+                + "/" + Thread.currentThread().getName() + "/" + System.nanoTime();
+        long deadline = System.currentTimeMillis() + lockTimeoutMillis;
+        try (PreparedStatement insert = conn.prepareStatement(INSERT_LOCK_SQL)) {
+            insert.setString(1, owner);
+            while (true) {
+                try {
+                    insert.executeUpdate();
+                    return owner;
+                } catch (SQLException e) {
+                    if (!DUPLICATE_KEY_STATE.equals(e.getSQLState())) {
+                        throw e;
+                    }
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new SQLException("Schema migration lock is held by " + lockHolder(conn)
+                            + "; if that migrator is gone, delete the row from schema_lock");
+                }
+                try {
+                    Thread.sleep(LOCK_POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted waiting for the schema migration lock", e);
+                }
+            }
+        }
+    }
+
+    private String lockHolder(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_LOCK_SQL)) {
+            return rs.next() ? rs.getString(1) + " since " + rs.getTimestamp(2) : "nobody";
+        }
+    }
+
+    private void unlock(Connection conn, String owner) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(DELETE_LOCK_SQL)) {
+            ps.setString(1, owner);
+            ps.executeUpdate();
+        }
+    }
+
+    private void apply(Connection conn, Migration m) throws SQLException {
+        int done = progress(conn, m.version());
+        if (done == 0) {
+            // checks describe the schema before the migration, so they only hold before it starts
+            check(conn, m);
+            log.info("Applying schema migration V{}: {}", m.version(), m.description());
+        } else {
+            log.info("Resuming schema migration V{} at statement {} of {}: {}",
+                    m.version(), done + 1, m.statements().size(), m.description());
+        }
+        conn.setAutoCommit(false);
+        int next = done;
+        try (Statement stmt = conn.createStatement();
+             PreparedStatement save = conn.prepareStatement(SAVE_PROGRESS_SQL);
+             PreparedStatement finish = conn.prepareStatement(DELETE_PROGRESS_SQL);
+             PreparedStatement ps = conn.prepareStatement(INSERT_VERSION_SQL)) {
+            for (; next < m.statements().size(); next++) {
+                stmt.executeUpdate(m.statements().get(next));
+                save.setInt(1, m.version());
+                save.setInt(2, next + 1);
+                save.executeUpdate();
+                conn.commit();
+            }
+            finish.setInt(1, m.version());
+            finish.executeUpdate();
+            ps.setInt(1, m.version());
+            ps.setString(2, m.description());
+            ps.executeUpdate();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Schema migration V" + m.version() + " failed at statement "
+                    + (next + 1) + " of " + m.statements().size(), e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static void check(Connection conn, Migration m) throws SQLException {
+        for (Migration.Check c : m.checks()) {
+            List<String> found = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(c.query())) {
+                while (rs.next() && found.size() < MAX_REPORTED_VALUES) {
+                    found.add(rs.getString(1));
+                }
+            }
+            if (!found.isEmpty()) {
+                throw new SQLException("Schema migration V" + m.version() + " cannot start: "
+                        + c.message() + ": " + found);
+            }
+        }
+    }
+
+    private int progress(Connection conn, int version) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_PROGRESS_SQL)) {
+            ps.setInt(1, version);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.leavetracker.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, Snowflake-style ID generator.
+ * <p>
+ * IDs are laid out as 41 bits of milliseconds since {@link #EPOCH_MILLIS},
+ * 10 bits of node ID and 12 bits of per-millisecond sequence, so up to 1024
+ * nodes can issue 4096 IDs per millisecond each without coordination. IDs from
+ * one generator are strictly increasing: if the clock stalls or steps back,
+ * the generator keeps counting from its last timestamp instead.
+ * </p>
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    /** 2024-01-01T00:00:00Z, the zero point of the timestamp field. */
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    /** Packed (timestamp << SEQUENCE_BITS | sequence) of the last issued ID. */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param nodeId unique ID of this JVM among those sharing the database, 0..{@value #MAX_NODE_ID}
+     */
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        long now = clock.getAsLong() - EPOCH_MILLIS;
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            long prevMillis = prev >>> SEQUENCE_BITS;
+            // a sequence overflow carries into the timestamp, borrowing the next millisecond
+            next = now > prevMillis ? now << SEQUENCE_BITS : prev + 1;
+        } while (!state.compareAndSet(prev, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & SEQUENCE_MASK;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+}
@@ -0,0 +1,226 @@
+package com.leavetracker.util;
+
+import com.leavetracker.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for a single physical connection, keyed by SQL text.
+ * <p>
+ * Statements handed out are proxies whose {@code close()} closes any open
+ * result set and clears parameters and pending batches, so the next borrower
+ * of the same connection reuses the already-planned statement. A cached
+ * statement is checked out to one proxy at a time: preparing the same SQL
+ * again while it is in use, e.g. a nested lookup inside a result set loop,
+ * gets a fresh statement that is really closed on {@code close()}. Checked-out
+ * statements are never evicted; the real statement is closed when it is
+ * evicted or when the owning connection is discarded. Not thread-safe: a
+ * pooled connection is only ever used by one borrower at a time.
+ * </p>
+ * Statements are {@link InstrumentedStatement}s, so cached executions are
+ * timed and recorded like uncached ones.
+ */
+class StatementCache {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementCache.class);
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Map<String, Entry> statements = new LinkedHashMap<>(16, 0.75f, true);
+    /** Proxies handed out and not yet closed, so returning the connection can release them. */
+    private final Set<Lease> leases = new HashSet<>();
+    private final Metrics metrics;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    /**
+     * @param physical  connection the statements belong to
+     * @param maxSize   statements kept before the least recently used idle one is closed
+     * @param hits      pool-wide hit counter
+     * @param misses    pool-wide miss counter
+     * @param evictions pool-wide eviction counter
+     * @param metrics   where statement timings are recorded
+     */
+    StatementCache(Connection physical, int maxSize,
+                   LongAdder hits, LongAdder misses, LongAdder evictions, Metrics metrics) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Return the cached statement for {@code sql}, preparing it on a miss. If
+     * the cached statement is already checked out, a fresh uncached one is
+     * returned instead.
+     *
+     * @param sql   statement text
+     * @param owner connection proxy reported by {@link PreparedStatement#getConnection()}
+     * @return a statement whose close() releases it
+     * @throws SQLException if preparing fails
+     */
+    PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        Entry entry = statements.get(sql);
+        if (entry != null && entry.statement.isClosed()) {
+            statements.remove(sql);
+            entry = null;
+        }
+        if (entry != null && entry.checkedOut) {
+            misses.increment();
+            return checkOut(new Lease(instrumented(sql), sql, null), owner);
+        }
+        if (entry != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            entry = new Entry(instrumented(sql));
+            statements.put(sql, entry);
+            trim();
+        }
+        entry.checkedOut = true;
+        return checkOut(new Lease(entry.statement, sql, entry), owner);
+    }
+
+    private PreparedStatement instrumented(String sql) throws SQLException {
+        return InstrumentedStatement.wrap(physical.prepareStatement(sql), sql, metrics.timer("sql " + sql), null);
+    }
+
+    /**
+     * Release every statement still checked out, as if each proxy had been
+     * closed. Called when the connection goes back to the pool.
+     */
+    void releaseAll() {
+        for (Lease lease : new ArrayList<>(leases)) {
+            lease.release();
+        }
+    }
+
+    /** Close every cached statement. */
+    void clear() {
+        releaseAll();
+        statements.values().forEach(e -> closeQuietly(e.statement));
+        statements.clear();
+    }
+
+    /** Evict least recently used statements that are not checked out until within {@code maxSize}. */
+    private void trim() {
+        Iterator<Entry> it = statements.values().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            Entry e = it.next();
+            if (!e.checkedOut) {
+                it.remove();
+                evictions.increment();
+                closeQuietly(e.statement);
+            }
+        }
+    }
+
+    private PreparedStatement checkOut(Lease lease, Connection owner) {
+        leases.add(lease);
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> lease.invoke(proxy, method, args, owner));
+    }
+
+    /** A planned statement and whether a proxy currently holds it. */
+    private static final class Entry {
+        final PreparedStatement statement;
+        boolean checkedOut;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /** One borrower's use of a statement, from {@code prepareStatement} to {@code close}. */
+    private final class Lease {
+        private final PreparedStatement ps;
+        private final String sql;
+        /** Cache entry being borrowed, or null for a one-off statement. */
+        private final Entry entry;
+        private ResultSet open;
+        private boolean released;
+
+        Lease(PreparedStatement ps, String sql, Entry entry) {
+            this.ps = ps;
+            this.sql = sql;
+            this.entry = entry;
+        }
+
+        Object invoke(Object proxy, Method method, Object[] args, Connection owner) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release();
+                    return null;
+                case "isClosed":
+                    return released || ps.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (released) {
+                        throw new SQLException("Statement has been closed");
+                    }
+                    Object result = InstrumentedStatement.invokeOn(ps, method, args);
+                    if (result instanceof ResultSet rs) {
+                        open = rs;
+                    }
+                    return result;
+            }
+        }
+
+        void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            leases.remove(this);
+            if (entry == null) {
+                closeQuietly(ps);
+                return;
+            }
+            try {
+                if (open != null) {
+                    open.close();
+                }
+                ps.clearParameters();
+                ps.clearBatch();
+                entry.checkedOut = false;
+            } catch (SQLException e) {
+                log.debug("Discarding cached statement that could not be reset", e);
+                statements.remove(sql, entry);
+                closeQuietly(ps);
+            }
+            open = null;
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            log.debug("Error closing cached statement", e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.leavetracker.api;
+
+import com.leavetracker.auth.AuthService;
+import com.leavetracker.auth.PasswordHasher;
+import com.leavetracker.auth.SessionTokens;
+import com.leavetracker.repository.UserRepository;
+import com.leavetracker.service.LeaveService;
+import com.leavetracker.util.DatabaseUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private PasswordHasher hasher;
+    private AuthService auth;
+    private ApiServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM leave_requests");
+            stmt.executeUpdate("DELETE FROM users");
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        hasher = new PasswordHasher(PasswordHasher.MIN_COST, 2, 16);
+        UserRepository users = new UserRepository();
+        users.invalidateCache();
+        auth = new AuthService(users, hasher);
+        auth.register("alice", "pw-alice", "USER");
+        auth.register("boss", "pw-boss", "ADMIN");
+        server = new ApiServer(auth, new LeaveService(), new InetSocketAddress("127.0.0.1", 0),
+                4, 16, new SessionTokens(List.of(new byte[32]), Duration.ofMinutes(5), Clock.systemUTC()));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        hasher.close();
+    }
+
+    @Test
+    void createListAndApprove() throws Exception {
+        String alice = login("alice", "pw-alice");
+        HttpResponse<String> created = post("/api/requests", alice,
+                "{\"startDate\":\"2030-03-01\",\"endDate\":\"2030-03-04\",\"type\":\"VACATION\",\"reason\":\"Skiing\"}");
+        assertEquals(201, created.statusCode(), created.body());
+        String id = created.body().replaceAll(".*\"id\":(\\d+).*", "$1");
+
+        HttpResponse<String> mine = get("/api/requests", alice);
+        assertEquals(200, mine.statusCode());
+        assertTrue(mine.body().contains("\"reason\":\"Skiing\""), mine.body());
+
+        assertEquals(403, post("/api/requests/" + id + "/approve", alice, "").statusCode());
+
+        String boss = login("boss", "pw-boss");
+        HttpResponse<String> approved = post("/api/requests/" + id + "/approve", boss, "");
+        assertEquals(200, approved.statusCode(), approved.body());
+        assertTrue(get("/api/requests/" + id, alice).body().contains("\"status\":\"APPROVED\""));
+        assertEquals(409, post("/api/requests/" + id + "/deny", boss, "").statusCode());
+    }
+
+    @Test
+    void pagesFollowTheCursor() throws Exception {
+        String alice = login("alice", "pw-alice");
+        for (int i = 1; i <= 3; i++) {
+            String day = "2030-0" + i + "-10";
+            post("/api/requests", alice,
+                    "{\"startDate\":\"" + day + "\",\"endDate\":\"" + day + "\",\"type\":\"OTHER\"}");
+        }
+        HttpResponse<String> first = get("/api/requests?limit=2", alice);
+        String next = first.body().replaceAll(".*\"next\":\"([^\"]+)\".*", "$1");
+        assertEquals(2, count(first.body(), "\"id\":"));
+        HttpResponse<String> second = get("/api/requests?limit=2&after=" + next, alice);
+        assertEquals(1, count(second.body(), "\"id\":"));
+        assertTrue(second.body().endsWith("\"next\":null}"), second.body());
+    }
+
+    @Test
+    void rejectsBadCredentialsAndInput() throws Exception {
+        assertEquals(401, post("/api/login", null, "{\"username\":\"alice\",\"password\":\"nope\"}").statusCode());
+        assertEquals(401, get("/api/requests", null).statusCode());
+        assertEquals(401, get("/api/requests", "forged").statusCode());
+
+        String alice = login("alice", "pw-alice");
+        assertEquals(400, post("/api/requests", alice, "{not json").statusCode());
+        assertEquals(400, post("/api/requests", alice,
+                "{\"startDate\":\"2030-05-02\",\"endDate\":\"2030-05-01\",\"type\":\"OTHER\"}").statusCode());
+        assertEquals(404, get("/api/requests/123456789", alice).statusCode());
+        assertEquals(405, get("/api/login", null).statusCode());
+    }
+
+    @Test
+    void logoutRevokesTheToken() throws Exception {
+        String alice = login("alice", "pw-alice");
+        assertEquals(200, get("/api/requests", alice).statusCode());
+        assertEquals(200, post("/api/logout", alice, "").statusCode());
+        assertEquals(401, get("/api/requests", alice).statusCode());
+    }
+
+    @Test
+    void requestsBeyondTheHandlerQueueGet503() throws Exception {
+        server.close();
+        server = new ApiServer(auth, new LeaveService(), new InetSocketAddress("127.0.0.1", 0),
+                1, 1, 16, new SessionTokens(List.of(new byte[32]), Duration.ofMinutes(5), Clock.systemUTC()));
+        server.start();
+        // each login waits for a body that never comes: one holds the only handler, one fills the queue
+        try (Socket busy = stalledLogin(); Socket queued = stalledLogin()) {
+            HttpResponse<String> shed = get("/api/requests", null);
+            assertEquals(503, shed.statusCode(), shed.body());
+            assertEquals("1", shed.headers().firstValue("Retry-After").orElse(null));
+        }
+    }
+
+    private Socket stalledLogin() throws Exception {
+        Socket socket = new Socket("127.0.0.1", server.port());
+        OutputStream out = socket.getOutputStream();
+        out.write(("POST /api/login HTTP/1.1\r\nHost: localhost\r\nContent-Length: 100\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        Thread.sleep(200);
+        return socket;
+    }
+
+    private String login(String username, String password) throws Exception {
+        HttpResponse<String> r = post("/api/login", null,
+                "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}");
+        assertEquals(200, r.statusCode(), r.body());
+        Map<String, String> body = Json.parseObject(r.body());
+        assertEquals(username, body.get("username"));
+        return body.get("token");
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        return client.send(request(path, token).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String token, String body) throws Exception {
+        return client.send(request(path, token).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path));
+        if (token != null) {
+            b.header("Authorization", "Bearer " + token);
+        }
+        return b;
+    }
+
+    private static int count(String text, String needle) {
+        int n = 0;
+        for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,103 @@
+package com.leavetracker.archive;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaveArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private static LeaveRequest closed(long id, String user, LocalDate start, int days, LeaveStatus status,
+                                       String reason) {
+        LeaveRequest r = new LeaveRequest(id, user, start, start.plusDays(days - 1L), LeaveType.VACATION, reason);
+        r.setStatus(status);
+        r.setVersion(1);
+        return r;
+    }
+
+    @Test
+    void segmentsRoundTripAndSurviveReopen() throws Exception {
+        LeaveArchive archive = LeaveArchive.open(dir);
+        archive.append(List.of(
+                closed(1, "alice", LocalDate.of(2020, 1, 6), 5, LeaveStatus.APPROVED, "ski trip"),
+                closed(2, "bob", LocalDate.of(2020, 2, 3), 1, LeaveStatus.DENIED, null),
+                closed(3, "alice", LocalDate.of(2020, 3, 2), 2, LeaveStatus.CANCELLED, "ünïcode")));
+        archive.append(List.of(
+                closed(4, "carol", LocalDate.of(2021, 5, 3), 3, LeaveStatus.APPROVED, "x")));
+
+        LeaveArchive reopened = LeaveArchive.open(dir);
+        assertEquals(2, reopened.segmentCount());
+        assertEquals(4, reopened.size());
+
+        List<LeaveRequest> alice = reopened.findByUsername("alice");
+        assertEquals(List.of(1L, 3L), alice.stream().map(LeaveRequest::getId).toList());
+        LeaveRequest third = alice.get(1);
+        assertEquals(LocalDate.of(2020, 3, 3), third.getEndDate());
+        assertEquals(LeaveStatus.CANCELLED, third.getStatus());
+        assertEquals("ünïcode", third.getReason());
+        assertEquals(1, third.getVersion());
+        assertNull(reopened.findByUsername("bob").get(0).getReason());
+
+        List<LeaveRequest> feb = reopened.findOverlapping(LocalDate.of(2020, 1, 10), LocalDate.of(2020, 2, 3));
+        assertEquals(List.of(1L, 2L), feb.stream().map(LeaveRequest::getId).toList());
+        assertTrue(reopened.findByUsername("nobody").isEmpty());
+
+        reopened.append(List.of(closed(5, "dave", LocalDate.of(2022, 1, 3), 1, LeaveStatus.DENIED, "y")));
+        assertEquals(3, LeaveArchive.open(dir).segmentCount());
+    }
+
+    @Test
+    void headersLetQueriesSkipSegments() throws Exception {
+        LeaveArchive archive = LeaveArchive.open(dir);
+        for (int s = 0; s < 5; s++) {
+            archive.append(List.of(
+                    closed(s * 10 + 1, "user" + s, LocalDate.of(2019, 1, 1).plusMonths(s), 3, LeaveStatus.APPROVED, "a"),
+                    closed(s * 10 + 2, "shared", LocalDate.of(2019, 1, 10).plusMonths(s), 2, LeaveStatus.DENIED, "b")));
+        }
+        assertEquals(1, archive.segmentsToRead("user3"));
+        assertEquals(5, archive.segmentsToRead("shared"));
+        assertEquals(1, archive.findByUsername("user3").size());
+        assertEquals(5, archive.findByUsername("shared").size());
+    }
+
+    @Test
+    void incompleteSegmentsAreIgnoredAndDuplicatesCollapse() throws Exception {
+        LeaveArchive archive = LeaveArchive.open(dir);
+        LeaveRequest r = closed(7, "erin", LocalDate.of(2020, 6, 1), 2, LeaveStatus.APPROVED, "z");
+        archive.append(List.of(r));
+        archive.append(List.of(r));
+        Files.write(dir.resolve("segment-0000000099.seg.tmp"), new byte[]{1, 2, 3});
+
+        LeaveArchive reopened = LeaveArchive.open(dir);
+        assertEquals(2, reopened.segmentCount());
+        assertEquals(1, reopened.findByUsername("erin").size());
+        assertFalse(Files.exists(dir.resolve("segment-0000000099.seg.tmp")));
+    }
+
+    @Test
+    void writersSharingADirectoryNeverReuseASegment() throws Exception {
+        LeaveArchive first = LeaveArchive.open(dir);
+        LeaveArchive second = LeaveArchive.open(dir);
+        Path a = first.append(List.of(closed(1, "alice", LocalDate.of(2020, 1, 6), 1, LeaveStatus.APPROVED, "a")));
+        Path b = second.append(List.of(closed(2, "bob", LocalDate.of(2020, 1, 6), 1, LeaveStatus.DENIED, "b")));
+
+        assertNotEquals(a, b);
+        assertEquals(1, first.findByUsername("bob").size());
+        assertEquals(2, second.size());
+        assertThrows(FileAlreadyExistsException.class, () -> ArchiveSegment.write(a,
+                List.of(closed(3, "carol", LocalDate.of(2020, 1, 6), 1, LeaveStatus.APPROVED, "c"))));
+        assertEquals("alice", LeaveArchive.open(dir).findByUsername("alice").get(0).getUsername());
+    }
+}
@@ -0,0 +1,130 @@
+package com.leavetracker.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void entriesAreChainedAcrossReopen() throws Exception {
+        Path file = dir.resolve("audit.log");
+        // a ring smaller than the burst makes producers wait for the writer
+        try (AuditLog log = AuditLog.open(file, 16)) {
+            for (int i = 0; i < 100; i++) {
+                log.record(AuditAction.CREATE, "user" + i, i);
+            }
+            assertTrue(log.flush(Duration.ofSeconds(5)));
+            assertEquals(100, log.written());
+        }
+        try (AuditLog log = AuditLog.open(file)) {
+            log.record(AuditAction.LOGIN_FAILED, null, 0);
+        }
+
+        List<AuditEntry> entries = AuditLog.read(file);
+        assertEquals(101, entries.size());
+        assertEquals("user7", entries.get(7).username());
+        assertEquals(7, entries.get(7).requestId());
+        AuditEntry last = entries.get(100);
+        assertEquals(101, last.seq());
+        assertEquals(AuditAction.LOGIN_FAILED, last.action());
+        assertEquals("", last.username());
+
+        AuditVerification result = AuditVerifier.verify(file);
+        assertTrue(result.ok());
+        assertEquals(101, result.entries());
+        assertEquals(last.hash(), result.headHash());
+    }
+
+    @Test
+    void logsSharingAFileKeepOneChain() throws Exception {
+        Path file = dir.resolve("audit.log");
+        try (AuditLog first = AuditLog.open(file);
+             AuditLog second = AuditLog.open(file)) {
+            for (int i = 0; i < 1_000; i++) {
+                first.record(AuditAction.CREATE, "a", i);
+                second.record(AuditAction.APPROVE, "b", i);
+                if (i % 100 == 0) {
+                    // let the two writers take turns mid-stream
+                    assertTrue(first.flush(Duration.ofSeconds(5)));
+                }
+            }
+            assertTrue(first.flush(Duration.ofSeconds(5)));
+            assertTrue(second.flush(Duration.ofSeconds(5)));
+        }
+
+        List<AuditEntry> entries = AuditLog.read(file);
+        assertEquals(2_000, entries.size());
+        assertEquals(1_000, entries.stream().filter(e -> e.username().equals("b")).count());
+        AuditVerification result = AuditVerifier.verify(file);
+        assertTrue(result.ok());
+        assertEquals(2_000, result.entries());
+    }
+
+    @Test
+    void verifierFindsTamperedEntryAmongConcurrentWrites() throws Exception {
+        Path file = dir.resolve("audit.log");
+        int threads = 8;
+        int perThread = 20_000;
+        try (AuditLog log = AuditLog.open(file)) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String user = "user" + t;
+                Thread w = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.record(AuditAction.APPROVE, user, i);
+                    }
+                });
+                writers.add(w);
+                w.start();
+            }
+            for (Thread w : writers) {
+                w.join();
+            }
+            assertTrue(log.flush(Duration.ofSeconds(30)));
+        }
+        AuditVerification clean = AuditVerifier.verify(file);
+        assertTrue(clean.ok());
+        assertEquals((long) threads * perThread, clean.entries());
+
+        // rewrite the username of entry 100,000, which sits in the second verification range
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[]{'X'}), 99_999L * AuditFile.RECORD_SIZE + 26);
+        }
+        AuditVerification tampered = AuditVerifier.verify(file);
+        assertFalse(tampered.ok());
+        assertEquals(100_000, tampered.firstBad());
+    }
+
+    @Test
+    void partlyWrittenEntryIsDroppedOnReopen() throws Exception {
+        Path file = dir.resolve("audit.log");
+        try (AuditLog log = AuditLog.open(file)) {
+            log.record(AuditAction.LOGIN, "alice", 0);
+            log.record(AuditAction.CREATE, "alice", 42);
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(new byte[10]));
+        }
+        try (AuditLog log = AuditLog.open(file)) {
+            log.record(AuditAction.CANCEL, "alice", 42);
+        }
+
+        List<AuditEntry> entries = AuditLog.read(file);
+        assertEquals(3, entries.size());
+        assertEquals(AuditAction.CANCEL, entries.get(2).action());
+        assertTrue(AuditVerifier.verify(file).ok());
+    }
+}
@@ -1,5 +1,6 @@
 package com.leavetracker.auth;
 
+import com.leavetracker.repository.UserRepository;
 import com.leavetracker.util.DatabaseUtil;
 import com.leavetracker.model.User;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,6 +25,7 @@ class AuthServiceTest {
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        new UserRepository().invalidateCache();
         auth = new AuthService();
     }
 
@@ -61,4 +63,13 @@ class AuthServiceTest {
         User u = auth.login("ghost", "nopass");
         assertNull(u, "Login for non-existent user should return null");
     }
-}
\ No newline at end of file
+
+    @Test
+    void asyncRegisterAndLoginComplete() throws Exception {
+        assertTrue(auth.registerAsync("kate", "pw", "USER").get());
+        User u = auth.loginAsync("kate", "pw").get();
+        assertNotNull(u);
+        assertEquals("kate", u.getUsername());
+        assertNull(auth.loginAsync("kate", "bad").get());
+    }
+}
@@ -0,0 +1,56 @@
+package com.leavetracker.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    @Test
+    void hashUsesConfiguredCost() {
+        try (PasswordHasher hasher = new PasswordHasher(5, 1, 1)) {
+            String hash = hasher.hash("pw");
+            assertTrue(hash.startsWith("$2a$05$"));
+            assertTrue(hasher.verify("pw", hash));
+            assertFalse(hasher.verify("nope", hash));
+
+            HasherStats stats = hasher.stats();
+            assertEquals(1, stats.hashes());
+            assertEquals(2, stats.verifies());
+        }
+    }
+
+    @Test
+    void fullQueueRejectsNewWork() throws Exception {
+        try (PasswordHasher hasher = new PasswordHasher(4, 1, 1)) {
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Boolean> running = hasher.submit(() -> release.await(5, TimeUnit.SECONDS));
+            // wait until the single thread has picked up the first task
+            while (hasher.stats().activeThreads() == 0) {
+                Thread.onSpinWait();
+            }
+            CompletableFuture<Integer> queued = hasher.submit(() -> 1);
+            CompletableFuture<Integer> rejected = hasher.submit(() -> 2);
+
+            ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+            assertEquals(1, hasher.stats().rejectedTasks());
+
+            release.countDown();
+            assertTrue(running.get());
+            assertEquals(1, queued.get());
+        }
+    }
+
+    @Test
+    void calibrationNeverGoesBelowMinimumCost() {
+        assertEquals(PasswordHasher.MIN_COST, PasswordHasher.calibrate(Duration.ZERO));
+    }
+}
@@ -0,0 +1,91 @@
+package com.leavetracker.auth;
+
+import com.leavetracker.model.User;
+import com.leavetracker.repository.UserRepository;
+import com.leavetracker.util.DatabaseUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordRehasherTest {
+
+    private UserRepository repo;
+    private PasswordHasher weak;
+    private PasswordHasher strong;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM users");
+        }
+        repo = new UserRepository();
+        repo.invalidateCache();
+        weak = new PasswordHasher(4, 1, 4);
+        strong = new PasswordHasher(5, 1, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        weak.close();
+        strong.close();
+    }
+
+    @Test
+    void loginUpgradesWeakHashInBackground() throws Exception {
+        new AuthService(repo, weak).register("lee", "pw", "USER");
+        PasswordRehasher rehasher = new PasswordRehasher(repo, strong, 10, Duration.ofMinutes(1));
+        String oldHash = repo.findByUsername("lee").orElseThrow().getPasswordHash();
+
+        assertTrue(rehasher.maybeUpgrade("lee", "pw", oldHash).get());
+        assertEquals(1, rehasher.flush());
+
+        String newHash = repo.findByUsername("lee").orElseThrow().getPasswordHash();
+        assertEquals(5, PasswordHasher.costOf(newHash));
+        assertNotNull(new AuthService(repo, strong).login("lee", "pw"));
+    }
+
+    @Test
+    void hashAtTargetCostIsLeftAlone() throws Exception {
+        new AuthService(repo, strong).register("max", "pw", "USER");
+        PasswordRehasher rehasher = new PasswordRehasher(repo, strong, 10, Duration.ofMinutes(1));
+        String hash = repo.findByUsername("max").orElseThrow().getPasswordHash();
+        assertFalse(rehasher.maybeUpgrade("max", "pw", hash).get());
+    }
+
+    @Test
+    void concurrentPasswordChangeIsNotOverwritten() throws Exception {
+        new AuthService(repo, weak).register("ned", "pw", "USER");
+        PasswordRehasher rehasher = new PasswordRehasher(repo, strong, 10, Duration.ofMinutes(1));
+        String oldHash = repo.findByUsername("ned").orElseThrow().getPasswordHash();
+        assertTrue(rehasher.maybeUpgrade("ned", "pw", oldHash).get());
+
+        String changed = weak.hash("new-password");
+        repo.updatePasswordHash("ned", changed);
+
+        assertEquals(0, rehasher.flush());
+        User ned = repo.findByUsername("ned").orElseThrow();
+        assertEquals(changed, ned.getPasswordHash());
+    }
+
+    @Test
+    void fullBatchIsWrittenOffTheHasherThread() throws Exception {
+        new AuthService(repo, weak).register("ola", "pw", "USER");
+        PasswordRehasher rehasher = new PasswordRehasher(repo, strong, 1, Duration.ofMinutes(1));
+        String oldHash = repo.findByUsername("ola").orElseThrow().getPasswordHash();
+        assertTrue(rehasher.maybeUpgrade("ola", "pw", oldHash).get());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (rehasher.stats().written() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, rehasher.stats().written());
+        assertEquals(5, PasswordHasher.costOf(repo.findByUsername("ola").orElseThrow().getPasswordHash()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.leavetracker.auth;
+
+import com.leavetracker.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTokensTest {
+
+    private static final Duration TTL = Duration.ofMinutes(30);
+    private static final User ANN = new User("ann", "unused", "ADMIN");
+
+    private final SteppedClock clock = new SteppedClock(Instant.parse("2030-01-01T00:00:00Z"));
+    private final SessionTokens tokens = new SessionTokens(List.of("secret-0".getBytes()), TTL, clock);
+
+    @Test
+    void issuedTokenVerifiesUntilItExpires() {
+        String token = tokens.issue(ANN);
+        SessionToken session = tokens.verify(token);
+        assertNotNull(session);
+        assertEquals("ann", session.username());
+        assertTrue(session.isAdmin());
+        assertEquals(clock.instant().plus(TTL), session.expiresAt());
+
+        clock.advance(TTL.minusSeconds(1));
+        assertNotNull(tokens.verify(token));
+        clock.advance(Duration.ofSeconds(1));
+        assertNull(tokens.verify(token));
+    }
+
+    @Test
+    void rejectsTamperedForeignAndRevokedTokens() {
+        String token = tokens.issue(new User("bob", "unused", "USER"));
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        bytes[bytes.length - 33] ^= 1; // last byte of the username
+        assertNull(tokens.verify(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes)));
+        assertNull(tokens.verify("not a token"));
+        assertNull(new SessionTokens(List.of("other".getBytes()), TTL, clock).verify(token));
+
+        SessionToken session = tokens.verify(token);
+        tokens.revoke(session);
+        assertNull(tokens.verify(token));
+        assertNotNull(tokens.verify(tokens.issue(ANN)), "revoking one token leaves others valid");
+    }
+
+    @Test
+    void rotatedKeysVerifyForOneMoreLifetime() {
+        String old = tokens.issue(ANN);
+        tokens.rotate();
+        String current = tokens.issue(ANN);
+        assertEquals(1, Base64.getUrlDecoder().decode(current)[1], "new tokens carry the new key ID");
+        assertNotNull(tokens.verify(old));
+
+        clock.advance(TTL);
+        tokens.rotate();
+        assertNull(tokens.verify(old));
+        assertNull(tokens.verify(current), "expired anyway");
+        assertNotNull(tokens.verify(tokens.issue(ANN)));
+    }
+
+    @Test
+    void revocationListDropsExpiredEntries() {
+        RevocationList list = new RevocationList();
+        for (long id = 1; id <= 1_000; id++) {
+            list.add(id, id <= 500 ? 100 : 200, 0);
+        }
+        assertTrue(list.contains(1) && list.contains(1_000));
+        assertFalse(list.contains(1_001));
+        list.purge(150);
+        assertEquals(500, list.size());
+        assertFalse(list.contains(1));
+        assertTrue(list.contains(501));
+    }
+
+    /** A clock that only moves when told to. */
+    private static final class SteppedClock extends Clock {
+        private Instant now;
+
+        SteppedClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.leavetracker.bench;
+
+import com.leavetracker.api.ApiServer;
+import com.leavetracker.audit.AuditSink;
+import com.leavetracker.auth.AuthService;
+import com.leavetracker.auth.PasswordHasher;
+import com.leavetracker.auth.SessionTokens;
+import com.leavetracker.archive.LeaveArchive;
+import com.leavetracker.metrics.LatencyHistogram;
+import com.leavetracker.metrics.LatencySnapshot;
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.repository.LeaveLedgerRepository;
+import com.leavetracker.repository.LeaveRequestRepository;
+import com.leavetracker.repository.UserRepository;
+import com.leavetracker.service.LeaveCalendar;
+import com.leavetracker.service.LeaveSearchIndex;
+import com.leavetracker.service.LeaveService;
+import com.leavetracker.service.ReadinessHeatmap;
+import com.leavetracker.util.ConnectionPool;
+import com.leavetracker.util.IdGenerator;
+import com.leavetracker.util.SchemaMigrations;
+import com.leavetracker.util.SchemaMigrator;
+import com.leavetracker.util.SnowflakeIdGenerator;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test of {@link ApiServer}: many concurrent clients all
+ * sign in at once, then each repeatedly list a page of their requests (90%) or
+ * create a new one (10%) as fast as responses come back. Reports throughput
+ * and latency percentiles after a warm-up.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.leavetracker.bench.ApiLoadBenchmark [-Dexec.args="2000 30 100000"]}
+ * for 2,000 clients over 30 seconds against 100,000 seeded requests. Server and
+ * clients share the JVM and an in-memory database, so results are a lower
+ * bound for a dedicated server.
+ * </p>
+ */
+public class ApiLoadBenchmark {
+
+    private static final int USERS = 500;
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int warmupSeconds = Math.max(2, seconds / 5);
+
+        try (ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:apiload;DB_CLOSE_DELAY=-1", "sa", "",
+                8, 32, 30_000, 1, 64);
+             PasswordHasher hasher = new PasswordHasher(PasswordHasher.MIN_COST,
+                     Runtime.getRuntime().availableProcessors(), 8_192)) {
+            new SchemaMigrator(pool, SchemaMigrations.all()).migrate();
+            LeaveRequestRepository repo = new LeaveRequestRepository(pool);
+            IdGenerator ids = new SnowflakeIdGenerator(1);
+            seed(repo, ids, rows);
+            AuthService auth = new AuthService(new UserRepository(pool), hasher);
+            for (int u = 0; u < USERS; u++) {
+                auth.register(user(u), "password", "USER");
+            }
+            LeaveService leave = new LeaveService(repo, new LeaveLedgerRepository(pool), ids,
+                    new LeaveCalendar(), ReadinessHeatmap.build(List.of()), 0, AuditSink.NONE,
+                    LeaveArchive.empty(), new LeaveSearchIndex());
+
+            try (ApiServer server = new ApiServer(auth, leave, new InetSocketAddress("127.0.0.1", 0),
+                    Integer.getInteger("leavetracker.api.threads", 64), 8_192,
+                    new SessionTokens(List.of(new byte[32]), Duration.ofHours(1), Clock.systemUTC()))) {
+                server.start();
+                Run run = new Run(URI.create("http://127.0.0.1:" + server.port() + "/api/"), clients);
+                System.out.printf("%,d clients, %,d seeded requests, %ds warm-up + %ds measured%n",
+                        clients, rows, warmupSeconds, seconds);
+                long loginStart = System.nanoTime();
+                List<String> tokens = run.login();
+                long loginNanos = System.nanoTime() - loginStart;
+                System.out.printf("  sign-in:    %,d clients in %,d ms (%,.0f/s)%n",
+                        tokens.size(), loginNanos / 1_000_000, tokens.size() * 1e9 / loginNanos);
+                run.start(tokens, warmupSeconds, seconds);
+                run.report(seconds);
+            }
+        }
+    }
+
+    private static void seed(LeaveRequestRepository repo, IdGenerator ids, int rows) {
+        Random rnd = new Random(42);
+        LocalDate epoch = LocalDate.of(2020, 1, 1);
+        List<LeaveRequest> batch = new ArrayList<>(5_000);
+        for (int i = 0; i < rows; i++) {
+            LocalDate start = epoch.plusDays(rnd.nextInt(5 * 365));
+            batch.add(new LeaveRequest(ids.nextId(), user(rnd.nextInt(USERS)), start, start.plusDays(rnd.nextInt(14)),
+                    LeaveType.VACATION, "seeded request " + i));
+            if (batch.size() == 5_000) {
+                repo.saveAll(batch, 5_000);
+                batch.clear();
+            }
+        }
+        repo.saveAll(batch, 5_000);
+    }
+
+    private static String user(int n) {
+        return "user" + n;
+    }
+
+    /** One load run: every client loops until the deadline, then counts down its latch. */
+    private static final class Run {
+        private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        private final URI base;
+        private final int clients;
+        private final LatencyHistogram list = new LatencyHistogram();
+        private final LatencyHistogram create = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private long measureFrom;
+        private long deadline;
+        private CountDownLatch done;
+
+        Run(URI base, int clients) {
+            this.base = base;
+            this.clients = clients;
+        }
+
+        /** @return one bearer header per client that signed in */
+        List<String> login() throws InterruptedException {
+            List<String> tokens = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch finished = new CountDownLatch(clients);
+            for (int c = 0; c < clients; c++) {
+                HttpRequest login = HttpRequest.newBuilder(base.resolve("login"))
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"username\":\"" + user(c % USERS) + "\",\"password\":\"password\"}"))
+                        .build();
+                http.sendAsync(login, HttpResponse.BodyHandlers.ofString()).whenComplete((r, err) -> {
+                    Matcher m = err == null ? TOKEN.matcher(r.body()) : null;
+                    if (m != null && m.find()) {
+                        tokens.add("Bearer " + m.group(1));
+                    } else {
+                        errors.increment();
+                    }
+                    finished.countDown();
+                });
+            }
+            finished.await();
+            return tokens;
+        }
+
+        void start(List<String> tokens, int warmupSeconds, int seconds) throws InterruptedException {
+            measureFrom = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+            deadline = measureFrom + seconds * 1_000_000_000L;
+            done = new CountDownLatch(tokens.size());
+            tokens.forEach(this::next);
+            done.await();
+        }
+
+        private void next(String auth) {
+            if (System.nanoTime() >= deadline) {
+                done.countDown();
+                return;
+            }
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            boolean creating = rnd.nextInt(10) == 0;
+            HttpRequest.Builder b;
+            if (creating) {
+                LocalDate day = LocalDate.of(2031, 1, 1).plusDays(rnd.nextInt(365));
+                b = HttpRequest.newBuilder(base.resolve("requests")).POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"startDate\":\"" + day + "\",\"endDate\":\"" + day.plusDays(2)
+                                + "\",\"type\":\"VACATION\",\"reason\":\"load test\"}"));
+            } else {
+                b = HttpRequest.newBuilder(base.resolve("requests?limit=20")).GET();
+            }
+            HttpRequest request = b.header("Authorization", auth).build();
+            long start = System.nanoTime();
+            http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((r, err) -> {
+                long end = System.nanoTime();
+                if (err != null || r.statusCode() >= 400) {
+                    errors.increment();
+                } else if (start >= measureFrom && end <= deadline) {
+                    (creating ? create : list).record(end - start);
+                }
+                next(auth);
+            });
+        }
+
+        void report(int seconds) {
+            LatencySnapshot l = list.snapshot();
+            LatencySnapshot c = create.snapshot();
+            System.out.printf("  throughput: %,.0f requests/s, %,d errors%n",
+                    (double) (l.count() + c.count()) / seconds, errors.sum());
+            System.out.printf("  %-6s %10s %9s %9s %9s %9s %9s%n", "", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            print("list", l);
+            print("create", c);
+        }
+
+        private static void print(String name, LatencySnapshot s) {
+            System.out.printf("  %-6s %,10d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, s.count(),
+                    s.p50Nanos() / 1e6, s.p90Nanos() / 1e6, s.p99Nanos() / 1e6, s.p999Nanos() / 1e6, s.maxNanos() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.leavetracker.bench;
+
+import com.leavetracker.audit.AuditAction;
+import com.leavetracker.audit.AuditLog;
+import com.leavetracker.audit.AuditVerification;
+import com.leavetracker.audit.AuditVerifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@link AuditLog} throughput with many producer threads and
+ * {@link AuditVerifier} speed over the resulting file.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.leavetracker.bench.AuditLogBenchmark [-Dexec.args="8 250000"]}
+ * for 8 threads recording 250,000 events each. The log is written to a temp file
+ * that is deleted afterwards.
+ * </p>
+ */
+public class AuditLogBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 250_000;
+        long total = (long) threads * perThread;
+        Path file = Files.createTempFile("audit-bench", ".log");
+        try {
+            AtomicLong recordNanos = new AtomicLong();
+            CountDownLatch ready = new CountDownLatch(threads);
+            CountDownLatch go = new CountDownLatch(1);
+            long start;
+            long submitted;
+            long durable;
+            try (AuditLog log = AuditLog.open(file)) {
+                List<Thread> producers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    String user = "user" + t;
+                    Thread p = new Thread(() -> {
+                        ready.countDown();
+                        try {
+                            go.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        long s = System.nanoTime();
+                        for (int i = 0; i < perThread; i++) {
+                            log.record(AuditAction.APPROVE, user, i);
+                        }
+                        recordNanos.addAndGet(System.nanoTime() - s);
+                    });
+                    producers.add(p);
+                    p.start();
+                }
+                ready.await();
+                start = System.nanoTime();
+                go.countDown();
+                for (Thread p : producers) {
+                    p.join();
+                }
+                submitted = System.nanoTime() - start;
+                if (!log.flush(Duration.ofMinutes(5))) {
+                    throw new IllegalStateException("audit log did not drain");
+                }
+                durable = System.nanoTime() - start;
+            }
+            System.out.printf("%d threads x %,d events%n", threads, perThread);
+            System.out.printf("  record():        %.0f ns/call per thread%n", (double) recordNanos.get() / total);
+            System.out.printf("  all submitted:   %,d ms (%,.0f events/s)%n",
+                    submitted / 1_000_000, total * 1e9 / submitted);
+            System.out.printf("  all on disk:     %,d ms (%,.0f events/s)%n",
+                    durable / 1_000_000, total * 1e9 / durable);
+
+            for (int round = 0; round < 3; round++) {
+                long v = System.nanoTime();
+                AuditVerification result = AuditVerifier.verify(file);
+                long elapsed = System.nanoTime() - v;
+                System.out.printf("  verify:          %,d entries ok=%b in %,d ms (%,.0f entries/s)%n",
+                        result.entries(), result.ok(), elapsed / 1_000_000, result.entries() * 1e9 / elapsed);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.leavetracker.bench;
+
+import com.leavetracker.util.ConnectionPool;
+import com.leavetracker.util.SchemaMigrations;
+import com.leavetracker.util.SchemaMigrator;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures leave_requests lookup latency before and after the V2 index migration.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.leavetracker.bench.IndexLookupBenchmark [-Dexec.args="10000 100000"]}.
+ * Each size is seeded into a fresh in-memory database at schema V1, queried, then
+ * migrated to V2 and queried again. Later versions change column types, so
+ * they are left out to keep the comparison to the indexes alone.
+ * </p>
+ */
+public class IndexLookupBenchmark {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO leave_requests(id, username, start_date, end_date, type, reason, status) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String BY_USER_SQL =
+            "SELECT * FROM leave_requests WHERE username = ? ORDER BY start_date";
+    private static final String BY_STATUS_SQL =
+            "SELECT * FROM leave_requests WHERE status = ? AND start_date BETWEEN ? AND ?";
+    private static final String BY_DATES_SQL =
+            "SELECT * FROM leave_requests WHERE start_date BETWEEN ? AND ? AND end_date >= ?";
+
+    private static final String[] STATUSES = {"APPROVED", "APPROVED", "DENIED", "CANCELLED", "PENDING"};
+    private static final String[] TYPES = {"VACATION", "EMERGENCY"};
+    private static final LocalDate EPOCH = LocalDate.of(2020, 1, 1);
+    private static final int DAYS = 5 * 365;
+    private static final int QUERIES = 200;
+
+    public static void main(String[] args) throws SQLException {
+        int[] sizes = args.length == 0
+                ? new int[]{10_000, 100_000, 1_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        System.out.printf("%-10s %-12s %14s %14s %14s%n",
+                "rows", "schema", "byUser(us)", "byStatus(us)", "byDates(us)");
+        for (int rows : sizes) {
+            run(rows);
+        }
+    }
+
+    private static void run(int rows) throws SQLException {
+        String url = "jdbc:h2:mem:indexbench" + rows + ";DB_CLOSE_DELAY=-1";
+        try (ConnectionPool pool = new ConnectionPool(url, "sa", "", 1, 1, 60_000, 1, 16)) {
+            SchemaMigrator migrator = new SchemaMigrator(pool, SchemaMigrations.all());
+            migrator.migrateTo(1);
+            int users = Math.max(1, rows / 20);
+            seed(pool, rows, users);
+
+            report(rows, "V1 (no idx)", pool, users);
+            migrator.migrateTo(2);
+            report(rows, "V2 (idx)", pool, users);
+
+            try (Connection c = pool.getConnection();
+                 Statement st = c.createStatement()) {
+                st.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    private static void seed(ConnectionPool pool, int rows, int users) throws SQLException {
+        Random rnd = new Random(42);
+        try (Connection c = pool.getConnection();
+             PreparedStatement ps = c.prepareStatement(INSERT_SQL)) {
+            c.setAutoCommit(false);
+            for (int i = 0; i < rows; i++) {
+                LocalDate start = EPOCH.plusDays(rnd.nextInt(DAYS));
+                ps.setLong(1, i);
+                ps.setString(2, "user" + rnd.nextInt(users));
+                ps.setDate(3, Date.valueOf(start));
+                ps.setDate(4, Date.valueOf(start.plusDays(rnd.nextInt(21))));
+                ps.setString(5, TYPES[i % TYPES.length]);
+                ps.setString(6, "seed");
+                ps.setString(7, STATUSES[i % STATUSES.length]);
+                ps.addBatch();
+                if (i % 5_000 == 4_999) {
+                    ps.executeBatch();
+                    c.commit();
+                }
+            }
+            ps.executeBatch();
+            c.commit();
+        }
+    }
+
+    private static void report(int rows, String label, ConnectionPool pool, int users)
+            throws SQLException {
+        Random rnd = new Random(7);
+        try (Connection c = pool.getConnection();
+             PreparedStatement byUser = c.prepareStatement(BY_USER_SQL);
+             PreparedStatement byStatus = c.prepareStatement(BY_STATUS_SQL);
+             PreparedStatement byDates = c.prepareStatement(BY_DATES_SQL)) {
+            double userUs = time(() -> {
+                byUser.setString(1, "user" + rnd.nextInt(users));
+                drain(byUser);
+            });
+            double statusUs = time(() -> {
+                LocalDate from = EPOCH.plusDays(rnd.nextInt(DAYS));
+                byStatus.setString(1, "PENDING");
+                byStatus.setDate(2, Date.valueOf(from));
+                byStatus.setDate(3, Date.valueOf(from.plusDays(30)));
+                drain(byStatus);
+            });
+            double datesUs = time(() -> {
+                LocalDate day = EPOCH.plusDays(rnd.nextInt(DAYS));
+                byDates.setDate(1, Date.valueOf(day.minusDays(21)));
+                byDates.setDate(2, Date.valueOf(day));
+                byDates.setDate(3, Date.valueOf(day));
+                drain(byDates);
+            });
+            System.out.printf("%-10d %-12s %14.1f %14.1f %14.1f%n", rows, label, userUs, statusUs, datesUs);
+        }
+    }
+
+    private interface Query {
+        void run() throws SQLException;
+    }
+
+    /** @return mean microseconds per query after a short warm-up */
+    private static double time(Query q) throws SQLException {
+        for (int i = 0; i < QUERIES / 4; i++) {
+            q.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            q.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / QUERIES;
+    }
+
+    private static void drain(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rs.getLong(1);
+            }
+        }
+    }
+}
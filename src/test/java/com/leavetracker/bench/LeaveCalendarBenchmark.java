@@ -0,0 +1,78 @@
+package com.leavetracker.bench;
+
+import com.leavetracker.service.LeaveCalendar;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Measures {@link LeaveCalendar} load time and query latency with a large
+ * number of stored intervals.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.leavetracker.bench.LeaveCalendarBenchmark [-Dexec.args="1000000"]}.
+ * Intervals are spread over 50,000 users and five years, 1 to 21 days long.
+ * </p>
+ */
+public class LeaveCalendarBenchmark {
+
+    private static final LocalDate EPOCH = LocalDate.of(2020, 1, 1);
+    private static final int DAYS = 5 * 365;
+    private static final int USERS = 50_000;
+    private static final int QUERIES = 200_000;
+
+    public static void main(String[] args) {
+        int intervals = args.length == 0 ? 1_000_000 : Integer.parseInt(args[0]);
+        Random rnd = new Random(42);
+
+        LeaveCalendar calendar = new LeaveCalendar();
+        long start = System.nanoTime();
+        for (int i = 0; i < intervals; i++) {
+            LocalDate from = EPOCH.plusDays(rnd.nextInt(DAYS));
+            calendar.put(i, "user" + rnd.nextInt(USERS), from, from.plusDays(rnd.nextInt(21)));
+        }
+        System.out.printf("loaded %,d intervals in %d ms%n",
+                calendar.size(), (System.nanoTime() - start) / 1_000_000);
+
+        // warm up, then time
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            double overlapUs = time(() -> {
+                LocalDate from = EPOCH.plusDays(rnd.nextInt(DAYS));
+                return calendar.overlaps("user" + rnd.nextInt(USERS), from, from.plusDays(14)) ? 1 : 0;
+            });
+            double weekUs = time(() -> {
+                LocalDate from = EPOCH.plusDays(rnd.nextInt(DAYS));
+                return calendar.peakHeadcount(from, from.plusDays(6));
+            });
+            double quarterUs = time(() -> {
+                LocalDate from = EPOCH.plusDays(rnd.nextInt(DAYS));
+                return calendar.headcount(from, from.plusDays(89)).length;
+            });
+            if (report) {
+                System.out.printf("%-28s %10.3f us%n", "overlaps (15 days)", overlapUs);
+                System.out.printf("%-28s %10.3f us%n", "peakHeadcount (7 days)", weekUs);
+                System.out.printf("%-28s %10.3f us%n", "headcount (90 days)", quarterUs);
+            }
+        }
+    }
+
+    private interface Query {
+        int run();
+    }
+
+    /** @return mean microseconds per query */
+    private static double time(Query q) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            sink += q.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+        return elapsed / 1_000.0 / QUERIES;
+    }
+}
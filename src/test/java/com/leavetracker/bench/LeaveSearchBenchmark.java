@@ -0,0 +1,81 @@
+package com.leavetracker.bench;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.service.LeaveSearchIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures indexing throughput, query latency and snapshot size of
+ * {@link LeaveSearchIndex} over synthetic reasons.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.leavetracker.bench.LeaveSearchBenchmark [-Dexec.args="2000000"]}.
+ * </p>
+ */
+public class LeaveSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "family", "wedding", "funeral", "bereavement", "hospital", "surgery", "recovery", "course",
+            "training", "relocation", "move", "childcare", "school", "graduation", "father", "mother",
+            "sister", "brother", "grandmother", "grandfather", "dental", "appointment", "court", "visa",
+            "passport", "holiday", "skiing", "fishing", "honeymoon", "birth", "paternity", "exam"};
+    private static final String[] QUERIES = {
+            "funeral", "hospital surgery", "wed* OR honeymoon", "family -type:vacation",
+            "grand* user:user42", "visa OR passport OR court", "-type:emergency exam"};
+
+    public static void main(String[] args) throws IOException {
+        int requests = args.length == 0 ? 2_000_000 : Integer.parseInt(args[0]);
+        Random rnd = new Random(42);
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        LeaveSearchIndex index = new LeaveSearchIndex();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            StringBuilder reason = new StringBuilder();
+            for (int w = 2 + rnd.nextInt(5); w > 0; w--) {
+                reason.append(WORDS[rnd.nextInt(WORDS.length)]).append(' ');
+            }
+            index.add(new LeaveRequest(i, "user" + rnd.nextInt(10_000), day, day,
+                    LeaveType.values()[rnd.nextInt(LeaveType.values().length)], reason.toString()));
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("indexed %,d requests in %d ms (%,.0f/s)%n",
+                requests, elapsed / 1_000_000, requests / (elapsed / 1e9));
+
+        for (String query : QUERIES) {
+            long[] nanos = new long[50];
+            int hits = 0;
+            for (int round = 0; round < nanos.length; round++) {
+                long t = System.nanoTime();
+                hits = index.search(query, 100).size();
+                nanos[round] = System.nanoTime() - t;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%-30s %3d hits  p50 %6.2f ms  p99 %6.2f ms%n", query, hits,
+                    nanos[nanos.length / 2] / 1e6, nanos[nanos.length * 99 / 100] / 1e6);
+        }
+
+        Path file = Files.createTempFile("search", ".idx");
+        try {
+            start = System.nanoTime();
+            index.save(file);
+            long saved = System.nanoTime() - start;
+            start = System.nanoTime();
+            LeaveSearchIndex copy = LeaveSearchIndex.read(file);
+            long read = System.nanoTime() - start;
+            System.out.printf("snapshot %,d bytes (%.1f B/request), save %d ms, read %d ms, %,d live%n",
+                    Files.size(file), (double) Files.size(file) / requests, saved / 1_000_000,
+                    read / 1_000_000, copy.size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.leavetracker.bench;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.service.Heatmap;
+import com.leavetracker.service.ReadinessHeatmap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures {@link ReadinessHeatmap} build time by parallelism, and the cost of
+ * a 365-day query and a status-change patch.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.leavetracker.bench.ReadinessHeatmapBenchmark [-Dexec.args="1000000"]}.
+ * </p>
+ */
+public class ReadinessHeatmapBenchmark {
+
+    private static final LocalDate EPOCH = LocalDate.now().minusYears(2);
+    private static final int DAYS = 4 * 365;
+    private static final LeaveType[] TYPES = {LeaveType.VACATION, LeaveType.VACATION, LeaveType.VACATION,
+            LeaveType.EMERGENCY};
+    private static final int QUERIES = 2_000;
+
+    public static void main(String[] args) {
+        int count = args.length == 0 ? 1_000_000 : Integer.parseInt(args[0]);
+        Random rnd = new Random(42);
+        List<LeaveRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate start = EPOCH.plusDays(rnd.nextInt(DAYS));
+            LeaveRequest r = new LeaveRequest(i, "user" + i % 50_000, start, start.plusDays(rnd.nextInt(21)),
+                    TYPES[i % TYPES.length], "");
+            r.setStatus(LeaveStatus.APPROVED);
+            requests.add(r);
+        }
+
+        ReadinessHeatmap heatmap = null;
+        for (int threads : new int[]{1, 2, 4, Runtime.getRuntime().availableProcessors()}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                heatmap = ReadinessHeatmap.build(requests, LocalDate.now().minusDays(ReadinessHeatmap.DEFAULT_PAST_DAYS),
+                        ReadinessHeatmap.DEFAULT_WINDOW_DAYS, pool);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            pool.shutdown();
+            System.out.printf("build %,d spans, %2d threads: %8.1f ms%n", count, threads, best / 1e6);
+        }
+
+        LocalDate today = LocalDate.now();
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            Heatmap h = heatmap.query(today.minusDays(i % 100), today.minusDays(i % 100).plusDays(364));
+            sink += h.peak();
+        }
+        System.out.printf("365-day query (cached):     %8.3f ms%n", (System.nanoTime() - start) / 1e6 / QUERIES);
+
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            LeaveRequest r = requests.get(i);
+            r.setStatus(i % 2 == 0 ? LeaveStatus.CANCELLED : LeaveStatus.APPROVED);
+            heatmap.update(r);
+        }
+        System.out.printf("status change patch:        %8.3f us%n", (System.nanoTime() - start) / 1e3 / QUERIES);
+
+        start = System.nanoTime();
+        sink += heatmap.query(today.plusYears(3), today.plusYears(4)).peak();
+        System.out.printf("365-day query (uncached):   %8.1f ms%n", (System.nanoTime() - start) / 1e6);
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.leavetracker.bench;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.repository.LeaveRequestRepository;
+import com.leavetracker.util.ConnectionPool;
+import com.leavetracker.util.SchemaMigrations;
+import com.leavetracker.util.SchemaMigrator;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Measures time and heap allocated per row when streaming leave requests
+ * through {@link LeaveRequestRepository#streamAll()}.
+ * <p>
+ * Not a unit test. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.leavetracker.bench.RowMappingBenchmark [-Dexec.args="200000"]}.
+ * Allocation figures include the JDBC driver's own work and need a HotSpot JVM.
+ * </p>
+ */
+public class RowMappingBenchmark {
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length == 0 ? 200_000 : Integer.parseInt(args[0]);
+        try (ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:rowbench;DB_CLOSE_DELAY=-1",
+                "sa", "", 1, 2, 60_000, 1, 16)) {
+            new SchemaMigrator(pool, SchemaMigrations.all()).migrate();
+            LeaveRequestRepository repo = new LeaveRequestRepository(pool);
+
+            Random rnd = new Random(42);
+            List<LeaveRequest> batch = new ArrayList<>(rows);
+            LocalDate epoch = LocalDate.of(2020, 1, 1);
+            for (int i = 0; i < rows; i++) {
+                LocalDate start = epoch.plusDays(rnd.nextInt(5 * 365));
+                batch.add(new LeaveRequest(i, "user" + rnd.nextInt(10_000), start, start.plusDays(rnd.nextInt(21)),
+                        LeaveType.values()[i % 2], "seed"));
+            }
+            repo.saveAll(batch, 5_000);
+            batch = null;
+
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long thread = Thread.currentThread().getId();
+            for (int round = 0; round < 5; round++) {
+                long bytes = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                long count;
+                try (Stream<LeaveRequest> all = repo.streamAll()) {
+                    count = all.count();
+                }
+                long elapsed = System.nanoTime() - start;
+                bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+                System.out.printf("round %d: %,d rows, %6.0f ns/row, %6.0f bytes/row%n",
+                        round, count, (double) elapsed / count, (double) bytes / count);
+            }
+        }
+    }
+}
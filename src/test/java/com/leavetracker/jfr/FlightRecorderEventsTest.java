@@ -0,0 +1,116 @@
+package com.leavetracker.jfr;
+
+import com.leavetracker.auth.PasswordHasher;
+import com.leavetracker.metrics.Metrics;
+import com.leavetracker.util.ConnectionPool;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void bundledProfileEnablesApplicationEvents() {
+        Configuration config = FieldRecording.configuration();
+        assertEquals("Leave Tracker", config.getLabel());
+        assertEquals("true", config.getSettings().get("com.leavetracker.Query#enabled"));
+        assertEquals("10 ms", config.getSettings().get("com.leavetracker.Query#threshold"));
+        assertEquals("true", config.getSettings().get("jdk.JavaMonitorEnter#enabled"));
+    }
+
+    @Test
+    void recordsQueriesBorrowsAndHashes() throws Exception {
+        Path file = dir.resolve("events.jfr");
+        try (Recording recording = new Recording();
+             ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:jfrtest", "sa", "", 0, 1, 1000, 1, 4);
+             PasswordHasher hasher = new PasswordHasher(PasswordHasher.MIN_COST, 1, 1)) {
+            recording.enable(ConnectionBorrowEvent.class).withoutThreshold();
+            recording.enable(QueryEvent.class).withoutThreshold();
+            recording.enable(PasswordHashEvent.class).withoutThreshold();
+            recording.start();
+
+            try (Connection c = pool.getConnection();
+                 PreparedStatement ps = c.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, 5)");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rs.getLong(1);
+                }
+            }
+            String hash = hasher.hash("secret");
+            assertFalse(hasher.verify("wrong", hash));
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent query = only(events, "com.leavetracker.Query");
+        assertEquals("SELECT X FROM SYSTEM_RANGE(1, 5)", query.getString("sql"));
+        assertEquals(QueryEvent.idOf("SELECT X FROM SYSTEM_RANGE(1, 5)"), query.getString("sqlId"));
+        assertEquals(5, query.getLong("rows"));
+
+        RecordedEvent borrow = only(events, "com.leavetracker.ConnectionBorrow");
+        assertEquals(1, borrow.getInt("active"));
+        assertFalse(borrow.getBoolean("timedOut"));
+
+        List<RecordedEvent> hashes = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.leavetracker.PasswordHash"))
+                .toList();
+        assertEquals(2, hashes.size());
+        RecordedEvent verify = hashes.stream()
+                .filter(e -> e.getString("operation").equals("verify")).findFirst().orElseThrow();
+        assertEquals(PasswordHasher.MIN_COST, verify.getInt("cost"));
+        assertFalse(verify.getBoolean("matched"));
+    }
+
+    @Test
+    void recordsQueriesWithStatementCachingOff() throws Exception {
+        Path file = dir.resolve("uncached.jfr");
+        Metrics metrics = new Metrics();
+        String sql = "SELECT X FROM SYSTEM_RANGE(1, 3)";
+        try (Recording recording = new Recording();
+             ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:jfruncached", "sa", "", 0, 1, 1000, 1, 0, metrics)) {
+            recording.enable(QueryEvent.class).withoutThreshold();
+            recording.start();
+
+            try (Connection c = pool.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                assertSame(c, ps.getConnection());
+                while (rs.next()) {
+                    rs.getLong(1);
+                }
+            }
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        RecordedEvent query = only(RecordingFile.readAllEvents(file), "com.leavetracker.Query");
+        assertEquals(sql, query.getString("sql"));
+        assertEquals(3, query.getLong("rows"));
+        assertEquals(1, metrics.timer("sql " + sql).snapshot().count());
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
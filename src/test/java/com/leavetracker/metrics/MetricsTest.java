@@ -0,0 +1,77 @@
+package com.leavetracker.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v * 1_000);
+        }
+        LatencySnapshot s = h.snapshot();
+        assertEquals(100_000, s.count());
+        assertEquals(100_000_000L, s.maxNanos());
+        assertEquals(50_000_000, s.p50Nanos(), 50_000_000 * 0.02);
+        assertEquals(99_000_000, s.p99Nanos(), 99_000_000 * 0.02);
+        assertEquals(99_900_000, s.p999Nanos(), 99_900_000 * 0.02);
+        assertEquals(50_000_500, s.meanNanos(), 1);
+
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            assertEquals(i, LatencyHistogram.index(LatencyHistogram.highestEquivalent(i)));
+        }
+        h.record(Long.MAX_VALUE);
+        assertEquals(LatencyHistogram.MAX_VALUE, h.snapshot().maxNanos());
+    }
+
+    @Test
+    void concurrentRecordingLosesNothing() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    h.record(ThreadLocalRandom.current().nextLong(10_000_000));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, h.snapshot().count());
+    }
+
+    @Test
+    void reportCoversOnlyTheLatestInterval() {
+        Metrics metrics = new Metrics();
+        LatencyHistogram approve = metrics.timer("leave.approve");
+        metrics.counter("auth.login.failed").add(3);
+        metrics.gauge("db.pool.active", () -> 2);
+        MetricsReporter reporter = new MetricsReporter(metrics, Duration.ofSeconds(60));
+
+        assertEquals("", reporter.report());
+        approve.record(2_000_000);
+        approve.record(4_000_000);
+        String first = reporter.report();
+        assertTrue(first.contains("leave.approve") && first.contains("n=2 "), first);
+        assertTrue(first.contains("auth.login.failed") && first.contains("db.pool.active"), first);
+        assertEquals("", reporter.report());
+
+        approve.record(8_000_000);
+        assertTrue(reporter.report().contains("n=1 "));
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(3, snapshot.timer("leave.approve").count());
+        assertEquals(3, snapshot.counter("auth.login.failed"));
+        assertSame(approve, metrics.timer("leave.approve"));
+    }
+}
@@ -1,6 +1,8 @@
 package com.leavetracker.repository;
 
 import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
 import com.leavetracker.util.DatabaseUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,8 +10,10 @@ import org.junit.jupiter.api.Test;
 import java.sql.Connection;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,7 +35,7 @@ class LeaveRequestRepositoryIntegrationTest {
         LeaveRequest lr = new LeaveRequest(100, "dave",
                 LocalDate.of(2025,1,1),
                 LocalDate.of(2025,1,5),
-                "VACATION", "holiday");
+                LeaveType.VACATION, "holiday");
         assertTrue(repo.save(lr), "Insert should succeed");
 
         Optional<LeaveRequest> opt = repo.findById(100);
@@ -42,9 +46,9 @@ class LeaveRequestRepositoryIntegrationTest {
     @Test
     void findByUsernameReturnsCorrectList() {
         LeaveRequest a = new LeaveRequest(101, "ellen",
-                LocalDate.now(), LocalDate.now(), "EMERGENCY", "x");
+                LocalDate.now(), LocalDate.now(), LeaveType.EMERGENCY, "x");
         LeaveRequest b = new LeaveRequest(102, "frank",
-                LocalDate.now(), LocalDate.now(), "VACATION", "y");
+                LocalDate.now(), LocalDate.now(), LeaveType.VACATION, "y");
         repo.save(a);
         repo.save(b);
 
@@ -56,15 +60,147 @@ class LeaveRequestRepositoryIntegrationTest {
     @Test
     void updateStatusAndDelete() {
         LeaveRequest lr = new LeaveRequest(103, "gina",
-                LocalDate.now(), LocalDate.now(), "VACATION", "z");
+                LocalDate.now(), LocalDate.now(), LeaveType.VACATION, "z");
         repo.save(lr);
 
-        assertTrue(repo.updateStatus(103, "APPROVED"), "Status update should succeed");
+        assertTrue(repo.updateStatus(103, LeaveStatus.APPROVED), "Status update should succeed");
         Optional<LeaveRequest> updated = repo.findById(103);
         assertTrue(updated.isPresent());
-        assertEquals("APPROVED", updated.get().getStatus());
+        assertEquals(LeaveStatus.APPROVED, updated.get().getStatus());
 
         assertTrue(repo.delete(103), "Delete should succeed");
         assertTrue(repo.findById(103).isEmpty(), "Request should no longer exist");
     }
-}
\ No newline at end of file
+
+    @Test
+    void transitionIsCompareAndSet() {
+        repo.save(new LeaveRequest(104, "gina", LocalDate.now(), LocalDate.now(), LeaveType.VACATION, "z"));
+        LeaveRequest first = repo.findById(104).orElseThrow();
+        LeaveRequest second = repo.findById(104).orElseThrow();
+
+        assertTrue(repo.transition(first, LeaveStatus.APPROVED));
+        assertEquals(1, first.getVersion());
+        assertFalse(repo.transition(second, LeaveStatus.DENIED), "Stale copy must lose");
+        assertFalse(repo.transition(104, LeaveStatus.PENDING, LeaveStatus.DENIED), "No longer pending");
+        assertTrue(repo.transition(104, LeaveStatus.APPROVED, LeaveStatus.CANCELLED));
+
+        LeaveRequest stored = repo.findById(104).orElseThrow();
+        assertEquals(LeaveStatus.CANCELLED, stored.getStatus());
+        assertEquals(2, stored.getVersion());
+        assertThrows(IllegalArgumentException.class,
+                () -> repo.transition(104, LeaveStatus.CANCELLED, LeaveStatus.APPROVED));
+    }
+
+    @Test
+    void transitionAllOnlyMovesRowsStillInExpectedStatus() {
+        for (int i = 0; i < 5; i++) {
+            repo.save(new LeaveRequest(110 + i, "ivan", LocalDate.now(), LocalDate.now(), LeaveType.VACATION, "b"));
+        }
+        repo.transition(111, LeaveStatus.PENDING, LeaveStatus.CANCELLED);
+
+        List<LeaveRequest> moved = repo.transitionAll(List.of(110L, 111L, 112L, 999L),
+                LeaveStatus.PENDING, LeaveStatus.APPROVED);
+        assertEquals(List.of(110L, 112L), moved.stream().map(LeaveRequest::getId).sorted().toList());
+        assertTrue(moved.stream().allMatch(r -> r.getStatus() == LeaveStatus.APPROVED && r.getVersion() == 1));
+        assertEquals(LeaveStatus.CANCELLED, repo.findById(111).orElseThrow().getStatus());
+        assertEquals(LeaveStatus.PENDING, repo.findById(113).orElseThrow().getStatus());
+        assertTrue(repo.transitionAll(List.of(110L, 112L), LeaveStatus.PENDING, LeaveStatus.APPROVED).isEmpty());
+    }
+
+    @Test
+    void transitionMatchingAppliesFilterAndExpectedStatus() {
+        repo.save(new LeaveRequest(120, "judy", LocalDate.of(2025, 6, 2), LocalDate.of(2025, 6, 4),
+                LeaveType.VACATION, "a"));
+        repo.save(new LeaveRequest(121, "judy", LocalDate.of(2025, 6, 9), LocalDate.of(2025, 6, 9),
+                LeaveType.EMERGENCY, "b"));
+        repo.save(new LeaveRequest(122, "kyle", LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 3),
+                LeaveType.VACATION, "c"));
+        repo.save(new LeaveRequest(123, "kyle", LocalDate.of(2025, 6, 20), LocalDate.of(2025, 6, 21),
+                LeaveType.VACATION, "d"));
+        repo.transition(123, LeaveStatus.PENDING, LeaveStatus.CANCELLED);
+
+        LeaveRequestFilter juneVacation = new LeaveRequestFilter(null, LeaveType.VACATION, null,
+                LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30));
+        List<LeaveRequest> moved = repo.transitionMatching(juneVacation, LeaveStatus.PENDING, LeaveStatus.DENIED);
+        assertEquals(List.of(120L), moved.stream().map(LeaveRequest::getId).toList());
+        assertEquals(LeaveStatus.PENDING, repo.findById(121).orElseThrow().getStatus());
+        assertEquals(LeaveStatus.PENDING, repo.findById(122).orElseThrow().getStatus());
+        assertEquals(LeaveStatus.CANCELLED, repo.findById(123).orElseThrow().getStatus());
+    }
+
+    @Test
+    void saveAllInsertsEveryRowAcrossChunks() {
+        List<LeaveRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            batch.add(new LeaveRequest(200 + i, "hank",
+                    LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 3), LeaveType.VACATION, "roster"));
+        }
+        assertEquals(25, repo.saveAll(batch, 10));
+        assertEquals(25, repo.findByUsername("hank").size());
+    }
+
+    @Test
+    void saveAllRollsBackFailingChunk() {
+        repo.save(new LeaveRequest(305, "ivan", LocalDate.now(), LocalDate.now(), LeaveType.VACATION, "dup"));
+        List<LeaveRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(new LeaveRequest(300 + i, "ivan", LocalDate.now(), LocalDate.now(), LeaveType.VACATION, "r"));
+        }
+        assertThrows(RuntimeException.class, () -> repo.saveAll(batch, 5));
+        // first chunk (300-304) committed, second chunk (305-309) rolled back
+        assertEquals(6, repo.findByUsername("ivan").size());
+    }
+
+    @Test
+    void keysetPagesCoverEveryRowInStartDateOrder() {
+        for (int i = 0; i < 7; i++) {
+            // ids descend while dates ascend, so order must come from start_date
+            repo.save(new LeaveRequest(400 - i, "jill",
+                    LocalDate.of(2025, 3, 1 + i / 2), LocalDate.of(2025, 3, 10), LeaveType.VACATION, "p"));
+        }
+        List<Long> seen = new ArrayList<>();
+        PageCursor cursor = null;
+        int pages = 0;
+        do {
+            Page<LeaveRequest> page = repo.findByUsernamePage("jill", cursor, 3);
+            page.items().forEach(r -> seen.add(r.getId()));
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of(399L, 400L, 397L, 398L, 395L, 396L, 394L), seen);
+        assertEquals(seen, repo.findAllPage(null, 10).items().stream().map(LeaveRequest::getId).toList());
+    }
+
+    @Test
+    void streamAllReturnsEveryRow() {
+        for (int i = 0; i < 5; i++) {
+            repo.save(new LeaveRequest(500 + i, "kim", LocalDate.now(), LocalDate.now(), LeaveType.VACATION, "s"));
+        }
+        try (Stream<LeaveRequest> rows = repo.streamAll()) {
+            assertEquals(5, rows.count());
+        }
+    }
+
+    @Test
+    void windowAppliesFilterSortAndOffset() {
+        for (int i = 0; i < 6; i++) {
+            LeaveRequest lr = new LeaveRequest(600 + i, i % 2 == 0 ? "lee" : "max",
+                    LocalDate.of(2025, 4, 1 + i), LocalDate.of(2025, 4, 2 + i), LeaveType.VACATION, "w");
+            repo.save(lr);
+        }
+        repo.updateStatus(601, LeaveStatus.APPROVED);
+
+        LeaveRequestFilter lee = LeaveRequestFilter.NONE.forUser("lee");
+        assertEquals(3, repo.count(lee));
+        assertEquals(1, repo.count(new LeaveRequestFilter(LeaveStatus.APPROVED, null, null, null, null)));
+        assertEquals(2, repo.count(new LeaveRequestFilter(null, null, null,
+                LocalDate.of(2025, 4, 4), LocalDate.of(2025, 4, 4))));
+
+        LeaveRequestSort newestFirst = new LeaveRequestSort(LeaveRequestSort.Field.START_DATE, false);
+        List<Long> ids = repo.findWindow(LeaveRequestFilter.NONE, newestFirst, 1, 3).stream()
+                .map(LeaveRequest::getId).toList();
+        assertEquals(List.of(604L, 603L, 602L), ids);
+    }
+}
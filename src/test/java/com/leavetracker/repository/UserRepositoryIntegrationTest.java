@@ -1,6 +1,7 @@
 package com.leavetracker.repository;
 
 import com.leavetracker.model.User;
+import com.leavetracker.util.CacheStats;
 import com.leavetracker.util.DatabaseUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +23,7 @@ class UserRepositoryIntegrationTest {
             stmt.executeUpdate("DELETE FROM users");
         }
         userRepo = new UserRepository();
+        userRepo.invalidateCache();
     }
 
     @Test
@@ -52,4 +54,47 @@ class UserRepositoryIntegrationTest {
         assertTrue(opt.isPresent(), "Lookup should find the user");
         assertEquals("ADMIN", opt.get().getRole());
     }
-}
\ No newline at end of file
+
+    @Test
+    void repeatedLookupsAreServedFromCache() {
+        CacheStats before = userRepo.cacheStats();
+        userRepo.save(new User("dan", "h", "USER"));
+        userRepo.findByUsername("dan");
+        userRepo.findByUsername("dan");
+        userRepo.findByUsername("nobody");
+        userRepo.findByUsername("nobody");
+
+        CacheStats stats = userRepo.cacheStats();
+        assertEquals(2, stats.misses() - before.misses());
+        assertEquals(1, stats.hits() - before.hits());
+        assertEquals(1, stats.negativeHits() - before.negativeHits());
+    }
+
+    @Test
+    void repositoriesOnTheSameDatabaseShareTheCache() {
+        UserRepository other = new UserRepository();
+        assertTrue(other.findByUsername("gus").isEmpty());
+        userRepo.save(new User("gus", "h", "USER"));
+        assertTrue(other.findByUsername("gus").isPresent(),
+                "A save through one repository must invalidate the other's entry");
+    }
+
+    @Test
+    void passwordUpdateInvalidatesCachedUser() {
+        userRepo.save(new User("eve", "old", "USER"));
+        User cached = userRepo.findByUsername("eve").orElseThrow();
+        cached.setPasswordHash("tampered");
+        assertEquals("old", userRepo.findByUsername("eve").orElseThrow().getPasswordHash(),
+                "Mutating a returned User must not change the cache");
+
+        assertTrue(userRepo.updatePasswordHash("eve", "new"));
+        assertEquals("new", userRepo.findByUsername("eve").orElseThrow().getPasswordHash());
+    }
+
+    @Test
+    void saveClearsNegativeEntry() {
+        assertTrue(userRepo.findByUsername("fay").isEmpty());
+        userRepo.save(new User("fay", "h", "USER"));
+        assertTrue(userRepo.findByUsername("fay").isPresent());
+    }
+}
@@ -0,0 +1,56 @@
+package com.leavetracker.service;
+
+import com.leavetracker.model.User;
+import com.leavetracker.repository.LeaveLedgerRepository;
+import com.leavetracker.repository.UserRepository;
+import com.leavetracker.util.DatabaseUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccrualJobTest {
+
+    private final LeaveLedgerRepository ledger = new LeaveLedgerRepository();
+    private final UserRepository users = new UserRepository();
+    private AccrualJob job;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM users");
+            stmt.executeUpdate("DELETE FROM leave_ledger");
+            stmt.executeUpdate("DELETE FROM leave_balances");
+        }
+        users.invalidateCache();
+        for (int i = 0; i < 25; i++) {
+            users.save(new User("acc" + i, "x", "USER"));
+        }
+        job = new AccrualJob(ledger, users, new BigDecimal("2.5"), 3, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        job.close();
+    }
+
+    @Test
+    void creditsEveryUserOncePerMonth() {
+        AccrualResult first = job.run(YearMonth.of(2025, 1));
+        assertEquals(25, first.users());
+        assertEquals(25, first.credited());
+        assertEquals(0, job.run(YearMonth.of(2025, 1)).credited(), "Re-running a month credits nobody");
+
+        job.run(YearMonth.of(2025, 2));
+        assertEquals(0, new BigDecimal("5.0").compareTo(ledger.balance("acc7")));
+        assertEquals(2, ledger.findByUsername("acc7").size());
+    }
+}
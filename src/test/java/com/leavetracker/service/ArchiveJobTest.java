@@ -0,0 +1,72 @@
+package com.leavetracker.service;
+
+import com.leavetracker.archive.LeaveArchive;
+import com.leavetracker.audit.AuditSink;
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.repository.LeaveLedgerRepository;
+import com.leavetracker.repository.LeaveRequestRepository;
+import com.leavetracker.util.DatabaseUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveJobTest {
+
+    @TempDir
+    Path dir;
+
+    private LeaveRequestRepository repo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM leave_requests");
+        }
+        repo = new LeaveRequestRepository();
+    }
+
+    private void save(long id, LocalDate start, LeaveStatus status) {
+        LeaveRequest r = new LeaveRequest(id, "olga", start, start.plusDays(2), LeaveType.VACATION, "r" + id);
+        r.setStatus(status);
+        repo.save(r);
+    }
+
+    @Test
+    void movesOldClosedRequestsIntoSegments() throws Exception {
+        LocalDate old = LocalDate.of(2019, 3, 4);
+        save(1, old, LeaveStatus.APPROVED);
+        save(2, old.plusDays(10), LeaveStatus.DENIED);
+        save(3, old.plusDays(20), LeaveStatus.CANCELLED);
+        save(4, old.plusDays(30), LeaveStatus.PENDING);
+        save(5, LocalDate.of(2024, 1, 8), LeaveStatus.APPROVED);
+
+        LeaveArchive archive = LeaveArchive.open(dir);
+        ArchiveResult result = new ArchiveJob(repo, archive, 2, 400).run(LocalDate.of(2023, 1, 1));
+
+        assertEquals(3, result.rows());
+        assertEquals(2, result.segments());
+        assertEquals(List.of(4L, 5L), repo.findByUsername("olga").stream()
+                .map(LeaveRequest::getId).sorted().toList());
+        assertEquals(List.of(1L, 2L, 3L), archive.findByUsername("olga").stream()
+                .map(LeaveRequest::getId).toList());
+
+        LeaveService svc = new LeaveService(repo, new LeaveLedgerRepository(), DatabaseUtil.leaveRequestIds(),
+                new LeaveCalendar(), ReadinessHeatmap.build(List.of()), 0, AuditSink.NONE, archive,
+                new LeaveSearchIndex());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), svc.getHistoryForUser("olga").stream()
+                .map(LeaveRequest::getId).toList());
+
+        assertEquals(0, new ArchiveJob(repo, archive, 2, 400).run(LocalDate.of(2023, 1, 1)).rows());
+    }
+}
@@ -0,0 +1,50 @@
+package com.leavetracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaveCalendarTest {
+
+    private static final LocalDate D = LocalDate.of(2025, 3, 1);
+
+    @Test
+    void overlapFindsSpansThatStartLongBefore() {
+        LeaveCalendar calendar = new LeaveCalendar();
+        calendar.put(1, "amy", D, D.plusDays(30));
+        calendar.put(2, "amy", D.plusDays(40), D.plusDays(41));
+
+        assertTrue(calendar.overlaps("amy", D.plusDays(29), D.plusDays(29)));
+        assertTrue(calendar.overlaps("amy", D.minusDays(5), D));
+        assertFalse(calendar.overlaps("amy", D.plusDays(31), D.plusDays(39)));
+        assertFalse(calendar.overlaps("bob", D, D.plusDays(30)));
+    }
+
+    @Test
+    void headcountTracksPutReplaceAndRemove() {
+        LeaveCalendar calendar = new LeaveCalendar();
+        calendar.put(1, "amy", D, D.plusDays(2));
+        calendar.put(2, "bob", D.plusDays(1), D.plusDays(3));
+        assertArrayEquals(new int[]{0, 1, 2, 2, 1, 0}, calendar.headcount(D.minusDays(1), D.plusDays(4)));
+
+        calendar.put(2, "bob", D.plusDays(3), D.plusDays(3));
+        assertArrayEquals(new int[]{1, 1, 1, 1}, calendar.headcount(D, D.plusDays(3)));
+
+        assertTrue(calendar.remove(1));
+        assertFalse(calendar.remove(1));
+        assertEquals(1, calendar.peakHeadcount(D, D.plusDays(3)));
+        assertFalse(calendar.overlaps("amy", D, D.plusDays(2)));
+        assertEquals(1, calendar.size());
+    }
+
+    @Test
+    void daysOutsideTheCoveredRangeCountAsZero() {
+        LeaveCalendar calendar = new LeaveCalendar();
+        calendar.put(1, "amy", LocalDate.of(1999, 12, 30), LocalDate.of(2000, 1, 1));
+        assertArrayEquals(new int[]{0, 0, 1, 0},
+                calendar.headcount(LocalDate.of(1999, 12, 30), LocalDate.of(2000, 1, 2)));
+        assertTrue(calendar.overlaps("amy", LocalDate.of(1999, 12, 30), LocalDate.of(1999, 12, 30)));
+    }
+}
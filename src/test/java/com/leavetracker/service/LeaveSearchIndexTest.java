@@ -0,0 +1,62 @@
+package com.leavetracker.service;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaveSearchIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 1);
+
+    @TempDir
+    Path dir;
+
+    private static LeaveSearchIndex sample() {
+        LeaveSearchIndex index = new LeaveSearchIndex();
+        index.add(new LeaveRequest(10, "alice", DAY, DAY, LeaveType.VACATION, "Family wedding in Lisbon"));
+        index.add(new LeaveRequest(11, "bob", DAY, DAY, LeaveType.EMERGENCY, "Father in hospital"));
+        index.add(new LeaveRequest(12, "alice", DAY, DAY, LeaveType.OTHER, "Hospital follow-up, knee"));
+        index.add(new LeaveRequest(13, "carol", DAY, DAY, LeaveType.VACATION, "Wedding anniversary"));
+        return index;
+    }
+
+    @Test
+    void termsAreCaseInsensitiveAndNewestComeFirst() {
+        LeaveSearchIndex index = sample();
+        assertEquals(List.of(12L, 11L), index.search("HOSPITAL", 10));
+        assertEquals(List.of(12L), index.search("hospital", 1));
+        assertEquals(List.of(), index.search("submarine", 10));
+        assertEquals(List.of(12L), index.search("follow-up", 10));
+    }
+
+    @Test
+    void supportsPrefixAndBooleanQueriesAndFields() {
+        LeaveSearchIndex index = sample();
+        assertEquals(List.of(13L, 10L), index.search("wed*", 10));
+        assertEquals(List.of(12L), index.search("hospital user:alice", 10));
+        assertEquals(List.of(11L), index.search("hospital -user:alice", 10));
+        assertEquals(List.of(13L, 12L, 11L), index.search("anniversary OR hosp*", 10));
+        assertEquals(List.of(13L, 12L), index.search("-type:vacation -father OR user:carol", 10));
+        assertEquals(List.of(13L, 10L), index.search("type:vacation", 10));
+    }
+
+    @Test
+    void savedIndexReadsBackIdentically() throws Exception {
+        LeaveSearchIndex index = sample();
+        Path file = dir.resolve("search.idx");
+        index.save(file);
+
+        LeaveSearchIndex copy = LeaveSearchIndex.read(file);
+        assertEquals(4, copy.size());
+        assertEquals(index.search("wed* OR hospital", 10), copy.search("wed* OR hospital", 10));
+        copy.add(new LeaveRequest(14, "dave", DAY, DAY, LeaveType.VACATION, "Wedding"));
+        assertEquals(List.of(14L, 13L, 10L), copy.search("wedding", 10));
+    }
+}
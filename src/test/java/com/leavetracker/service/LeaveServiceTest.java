@@ -1,14 +1,26 @@
 package com.leavetracker.service;
 
+import com.leavetracker.archive.LeaveArchive;
+import com.leavetracker.audit.AuditAction;
 import com.leavetracker.util.DatabaseUtil;
 import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import com.leavetracker.repository.LeaveLedgerRepository;
+import com.leavetracker.repository.LeaveRequestFilter;
+import com.leavetracker.repository.LeaveRequestRepository;
+import com.leavetracker.repository.LedgerEntry;
+import com.leavetracker.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringReader;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +41,7 @@ class LeaveServiceTest {
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        new UserRepository().invalidateCache();
         svc = new LeaveService();
     }
 
@@ -37,17 +50,17 @@ class LeaveServiceTest {
         LeaveRequest lr = svc.createRequest("alice",
                 LocalDate.of(2025, 6, 1),
                 LocalDate.of(2025, 6, 5),
-                "VACATION",
+                LeaveType.VACATION,
                 "Time off");
         assertNotNull(lr);
-        assertEquals("PENDING", lr.getStatus());
+        assertEquals(LeaveStatus.PENDING, lr.getStatus());
         assertEquals("alice", lr.getUsername());
     }
 
     @Test
     void getRequestsForUserReturnsCorrectList() {
-        svc.createRequest("bob", LocalDate.now(), LocalDate.now(), "EMERGENCY", "test");
-        svc.createRequest("alice", LocalDate.now(), LocalDate.now(), "VACATION", "test2");
+        svc.createRequest("bob", LocalDate.now(), LocalDate.now(), LeaveType.EMERGENCY, "test");
+        svc.createRequest("alice", LocalDate.now(), LocalDate.now(), LeaveType.VACATION, "test2");
         List<LeaveRequest> bobList = svc.getRequestsForUser("bob");
         assertEquals(1, bobList.size());
         assertEquals("bob", bobList.get(0).getUsername());
@@ -56,28 +69,242 @@ class LeaveServiceTest {
     @Test
     void approveAndDenyChangeStatus() {
         LeaveRequest lr = svc.createRequest("carol",
-                LocalDate.now(), LocalDate.now(), "VACATION", "x");
+                LocalDate.now(), LocalDate.now(), LeaveType.VACATION, "x");
         long id = lr.getId();
-        assertTrue(svc.approveRequest(id));
+        assertTrue(svc.approveRequest(id, "admin"));
         Optional<LeaveRequest> approved = svc.getRequestById(id);
         assertTrue(approved.isPresent());
-        assertEquals("APPROVED", approved.get().getStatus());
+        assertEquals(LeaveStatus.APPROVED, approved.get().getStatus());
 
-        // Attempt to deny after approval should still return true but status moves on
-        assertTrue(svc.denyRequest(id));
-        Optional<LeaveRequest> denied = svc.getRequestById(id);
+        // Approved leave can no longer be denied
+        assertFalse(svc.denyRequest(id, "admin"));
+        assertEquals(LeaveStatus.APPROVED, svc.getRequestById(id).get().getStatus());
+
+        LeaveRequest other = svc.createRequest("carol",
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(1), LeaveType.VACATION, "x");
+        assertTrue(svc.denyRequest(other.getId(), "admin"));
+        Optional<LeaveRequest> denied = svc.getRequestById(other.getId());
         assertTrue(denied.isPresent());
-        assertEquals("DENIED", denied.get().getStatus());
+        assertEquals(LeaveStatus.DENIED, denied.get().getStatus());
+        assertFalse(svc.approveRequest(other.getId(), "admin"), "Denied is final");
     }
 
     @Test
     void cancelRequestWorks() {
         LeaveRequest lr = svc.createRequest("dave",
-                LocalDate.now(), LocalDate.now(), "EMERGENCY", "y");
+                LocalDate.now(), LocalDate.now(), LeaveType.EMERGENCY, "y");
         long id = lr.getId();
-        assertTrue(svc.cancelRequest(id));
+        assertTrue(svc.cancelRequest(id, "admin"));
         Optional<LeaveRequest> cancelled = svc.getRequestById(id);
         assertTrue(cancelled.isPresent());
-        assertEquals("CANCELLED", cancelled.get().getStatus());
+        assertEquals(LeaveStatus.CANCELLED, cancelled.get().getStatus());
+    }
+
+    @Test
+    void importCsvStoresValidRowsAndCountsRejects() {
+        String csv = """
+                username,start_date,end_date,type,reason
+                erin,2025-07-01,2025-07-10,vacation,"Family, beach"
+                erin,2025-08-01,2025-08-02,EMERGENCY,funeral
+                erin,not-a-date,2025-08-02,EMERGENCY,bad
+                erin,2025-09-05,2025-09-01,VACATION,ends before start
+                %s,2025-10-01,2025-10-02,VACATION,name too long
+                """.formatted("e".repeat(51));
+        ImportResult result = svc.importCsv(new StringReader(csv), 1);
+        assertEquals(2, result.imported());
+        assertEquals(3, result.rejected());
+
+        List<LeaveRequest> erin = svc.getRequestsForUser("erin");
+        assertEquals(2, erin.size());
+        assertTrue(erin.stream().anyMatch(r -> "Family, beach".equals(r.getReason())
+                && r.getType() == LeaveType.VACATION
+                && r.getStatus() == LeaveStatus.PENDING));
+    }
+
+    @Test
+    void createRequestRejectsOverlapAndFullDays() {
+        LeaveService limited = new LeaveService(new LeaveRequestRepository(),
+                new LeaveLedgerRepository(), DatabaseUtil.leaveRequestIds(), new LeaveCalendar(),
+                ReadinessHeatmap.build(List.of()), 2);
+        LeaveRequest first = limited.createRequest("frank",
+                LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 10), LeaveType.VACATION, "a");
+        assertTrue(limited.approveRequest(first.getId(), "admin"));
+
+        assertThrows(LeaveConflictException.class, () -> limited.createRequest("frank",
+                LocalDate.of(2025, 10, 10), LocalDate.of(2025, 10, 12), LeaveType.VACATION, "b"));
+
+        LeaveRequest other = limited.createRequest("gina",
+                LocalDate.of(2025, 10, 5), LocalDate.of(2025, 10, 6), LeaveType.VACATION, "c");
+        assertTrue(limited.approveRequest(other.getId(), "admin"));
+        assertArrayEquals(new int[]{1, 2, 2, 1}, limited.headcount(
+                LocalDate.of(2025, 10, 4), LocalDate.of(2025, 10, 7)));
+        assertEquals(2, limited.getReadiness(LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 31))
+                .countOn(LocalDate.of(2025, 10, 5), LeaveType.VACATION));
+        assertThrows(LeaveConflictException.class, () -> limited.createRequest("hank",
+                LocalDate.of(2025, 10, 6), LocalDate.of(2025, 10, 8), LeaveType.VACATION, "d"));
+
+        assertTrue(limited.cancelRequest(other.getId(), "admin"));
+        assertNotNull(limited.createRequest("hank",
+                LocalDate.of(2025, 10, 6), LocalDate.of(2025, 10, 8), LeaveType.VACATION, "d"));
+    }
+
+    @Test
+    void approvalRechecksConflictsAndLeavesLoserPending() {
+        LeaveService limited = new LeaveService(new LeaveRequestRepository(),
+                new LeaveLedgerRepository(), DatabaseUtil.leaveRequestIds(), new LeaveCalendar(),
+                ReadinessHeatmap.build(List.of()), 2);
+        // both pass the create-time check because neither is approved yet
+        LeaveRequest a = limited.createRequest("pia",
+                LocalDate.of(2026, 9, 1), LocalDate.of(2026, 9, 5), LeaveType.VACATION, "a");
+        LeaveRequest b = limited.createRequest("pia",
+                LocalDate.of(2026, 9, 4), LocalDate.of(2026, 9, 8), LeaveType.VACATION, "b");
+        assertTrue(limited.approveRequest(a.getId(), "admin"));
+        assertThrows(LeaveConflictException.class, () -> limited.approveRequest(b.getId(), "admin"));
+        assertEquals(LeaveStatus.PENDING, limited.getRequestById(b.getId()).orElseThrow().getStatus());
+
+        LeaveRequest c = limited.createRequest("quin",
+                LocalDate.of(2026, 9, 2), LocalDate.of(2026, 9, 2), LeaveType.VACATION, "c");
+        LeaveRequest d = limited.createRequest("rosa",
+                LocalDate.of(2026, 9, 2), LocalDate.of(2026, 9, 3), LeaveType.VACATION, "d");
+        BulkDecisionResult result = limited.approveRequests(List.of(d.getId(), c.getId()), "admin");
+        assertEquals(List.of(c.getId()), result.applied(), "One more fits under the limit of two");
+        assertEquals(List.of(d.getId()), result.skipped());
+        assertEquals(LeaveStatus.PENDING, limited.getRequestById(d.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void approvalChargesBalanceAndCancellationRefundsIt() {
+        BigDecimal before = svc.getBalance("ivan");
+        LeaveRequest lr = svc.createRequest("ivan",
+                LocalDate.of(2026, 1, 10), LocalDate.of(2026, 1, 14), LeaveType.VACATION, "ski");
+        assertTrue(svc.approveRequest(lr.getId(), "admin"));
+        assertFalse(svc.approveRequest(lr.getId(), "admin"), "Already approved");
+        assertEquals(0, before.subtract(new BigDecimal(5)).compareTo(svc.getBalance("ivan")),
+                "Five calendar days charged once");
+
+        assertTrue(svc.cancelRequest(lr.getId(), "admin"));
+        assertEquals(0, before.compareTo(svc.getBalance("ivan")));
+        List<LedgerEntry> entries = svc.getLedger("ivan");
+        assertEquals(LedgerEntry.REFUND, entries.get(entries.size() - 1).kind());
+    }
+
+    @Test
+    void auditRecordsWhoActedNotWhoRequested() {
+        List<String> events = new ArrayList<>();
+        LeaveService audited = new LeaveService(new LeaveRequestRepository(), new LeaveLedgerRepository(),
+                DatabaseUtil.leaveRequestIds(), new LeaveCalendar(), ReadinessHeatmap.build(List.of()), 0,
+                (action, username, requestId) -> events.add(action + " " + username),
+                LeaveArchive.empty(), new LeaveSearchIndex());
+        LeaveRequest a = audited.createRequest("tom",
+                LocalDate.of(2026, 11, 2), LocalDate.of(2026, 11, 3), LeaveType.VACATION, "a");
+        LeaveRequest b = audited.createRequest("tom",
+                LocalDate.of(2026, 12, 7), LocalDate.of(2026, 12, 7), LeaveType.VACATION, "b");
+        assertTrue(audited.approveRequest(a.getId(), "sgt"));
+        assertTrue(audited.cancelRequest(a.getId(), "tom"));
+        assertEquals(List.of(b.getId()), audited.denyRequests(List.of(b.getId()), "lt").applied());
+
+        assertEquals(List.of(AuditAction.CREATE + " tom", AuditAction.CREATE + " tom",
+                AuditAction.APPROVE + " sgt", AuditAction.CANCEL + " tom", AuditAction.DENY + " lt"), events);
+    }
+
+    @Test
+    void chargeArrivingAfterCancellationIsSkipped() {
+        BigDecimal before = svc.getBalance("sven");
+        LeaveRequest lr = svc.createRequest("sven",
+                LocalDate.of(2026, 2, 2), LocalDate.of(2026, 2, 3), LeaveType.VACATION, "x");
+        // what a slow approver still holds after a cancel got in first
+        LeaveRequest approved = svc.getRequestById(lr.getId()).orElseThrow();
+        approved.setStatus(LeaveStatus.APPROVED);
+        assertTrue(svc.cancelRequest(lr.getId(), "admin"));
+
+        LeaveLedgerRepository ledger = new LeaveLedgerRepository();
+        assertFalse(ledger.charge(approved, LocalDate.now()));
+        assertEquals(0, ledger.chargeAll(List.of(approved), LocalDate.now()));
+        assertEquals(0, before.compareTo(svc.getBalance("sven")));
+    }
+
+    @Test
+    void refundWaitsForAChargeStillInFlight() throws Exception {
+        BigDecimal before = svc.getBalance("tess");
+        LeaveRequest lr = svc.createRequest("tess",
+                LocalDate.of(2026, 2, 9), LocalDate.of(2026, 2, 10), LeaveType.VACATION, "x");
+        LeaveLedgerRepository ledger = new LeaveLedgerRepository();
+        try (Connection charging = DatabaseUtil.getConnection();
+             Statement stmt = charging.createStatement()) {
+            // a charge that has locked the balance and written its row but not yet committed
+            charging.setAutoCommit(false);
+            stmt.executeUpdate("MERGE INTO leave_balances KEY(username) SELECT 'tess', "
+                    + "COALESCE((SELECT balance FROM leave_balances WHERE username = 'tess'), 0)");
+            stmt.executeQuery("SELECT balance FROM leave_balances WHERE username = 'tess' FOR UPDATE").close();
+            stmt.executeUpdate("INSERT INTO leave_ledger(username, entry_date, kind, days, request_id) "
+                    + "VALUES ('tess', CURRENT_DATE, 'CHARGE', -2, " + lr.getId() + ")");
+            stmt.executeUpdate("UPDATE leave_balances SET balance = balance - 2 WHERE username = 'tess'");
+            try (Statement cancel = DatabaseUtil.getConnection().createStatement()) {
+                cancel.executeUpdate("UPDATE leave_requests SET status = " + LeaveStatus.CANCELLED.code()
+                        + " WHERE id = " + lr.getId());
+                cancel.getConnection().close();
+            }
+
+            boolean[] refunded = new boolean[1];
+            Thread refund = new Thread(() -> refunded[0] = ledger.refund(lr.getId(), LocalDate.now()));
+            refund.start();
+            refund.join(200);
+            assertTrue(refund.isAlive(), "refund should wait for the charge's balance lock");
+            charging.commit();
+            charging.setAutoCommit(true);
+            refund.join(5_000);
+            assertTrue(refunded[0]);
+        }
+        assertEquals(0, before.compareTo(svc.getBalance("tess")));
+    }
+
+    @Test
+    void bulkDecisionsReportPerIdOutcomesAndChargeOnce() {
+        BigDecimal before = svc.getBalance("lena");
+        LeaveRequest a = svc.createRequest("lena",
+                LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 3), LeaveType.VACATION, "a");
+        LeaveRequest b = svc.createRequest("lena",
+                LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 11), LeaveType.VACATION, "b");
+        LeaveRequest c = svc.createRequest("milo",
+                LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 9), LeaveType.EMERGENCY, "c");
+        assertTrue(svc.denyRequest(c.getId(), "admin"));
+
+        BulkDecisionResult approved = svc.approveRequests(List.of(a.getId(), b.getId(), c.getId()), "admin");
+        assertEquals(List.of(a.getId(), b.getId()), approved.applied().stream().sorted().toList());
+        assertEquals(List.of(c.getId()), approved.skipped());
+        assertFalse(approved.isApplied(c.getId()));
+        assertEquals(0, before.subtract(new BigDecimal(5)).compareTo(svc.getBalance("lena")));
+        assertTrue(svc.overlapsApprovedLeave("lena", LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 10)));
+
+        BulkDecisionResult again = svc.approveRequests(List.of(a.getId()), "admin");
+        assertTrue(again.applied().isEmpty());
+        assertEquals(0, before.subtract(new BigDecimal(5)).compareTo(svc.getBalance("lena")));
+
+        LeaveRequest d = svc.createRequest("milo",
+                LocalDate.of(2026, 4, 6), LocalDate.of(2026, 4, 7), LeaveType.VACATION, "d");
+        LeaveRequest e = svc.createRequest("milo",
+                LocalDate.of(2026, 5, 4), LocalDate.of(2026, 5, 4), LeaveType.VACATION, "e");
+        BulkDecisionResult denied = svc.denyMatching(new LeaveRequestFilter(null, LeaveType.VACATION, "milo",
+                LocalDate.of(2026, 4, 1), LocalDate.of(2026, 4, 30)), "admin");
+        assertEquals(List.of(d.getId()), denied.applied());
+        assertEquals(LeaveStatus.PENDING, svc.getRequestById(e.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void createdRequestsAreSearchableAndFilterableByHits() {
+        LeaveRequest a = svc.createRequest("nora",
+                LocalDate.of(2026, 7, 6), LocalDate.of(2026, 7, 8), LeaveType.EMERGENCY, "Grandfather's funeral in Tromsø");
+        LeaveRequest b = svc.createRequest("oskar",
+                LocalDate.of(2026, 7, 6), LocalDate.of(2026, 7, 6), LeaveType.VACATION, "Funerary arts course");
+
+        assertEquals(List.of(b.getId(), a.getId()),
+                svc.searchRequests("funer*", 10).stream().map(LeaveRequest::getId).toList());
+        assertEquals(List.of(a.getId()),
+                svc.searchRequests("funer* -type:vacation", 10).stream().map(LeaveRequest::getId).toList());
+
+        LeaveRequestFilter hits = LeaveRequestFilter.NONE.withIds(svc.searchRequestIds("tromsø OR user:oskar", 10));
+        assertEquals(2, svc.countRequests(hits));
+        assertEquals(1, svc.countRequests(hits.forUser("nora")));
+        assertEquals(0, svc.countRequests(LeaveRequestFilter.NONE.withIds(List.of())));
     }
 }
@@ -0,0 +1,83 @@
+package com.leavetracker.service;
+
+import com.leavetracker.model.LeaveRequest;
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadinessHeatmapTest {
+
+    private static final LocalDate ORIGIN = LocalDate.of(2025, 1, 1);
+
+    private static LeaveRequest approved(long id, LeaveType type, LocalDate start, LocalDate end) {
+        LeaveRequest r = new LeaveRequest(id, "u" + id, start, end, type, "");
+        r.setStatus(LeaveStatus.APPROVED);
+        return r;
+    }
+
+    @Test
+    void parallelSweepMatchesBruteForce() {
+        Random rnd = new Random(1);
+        List<LeaveRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            LocalDate start = ORIGIN.plusDays(rnd.nextInt(500) - 50);
+            LeaveRequest r = approved(i, i % 3 == 0 ? LeaveType.EMERGENCY : LeaveType.VACATION, start, start.plusDays(rnd.nextInt(30)));
+            if (i % 5 == 0) {
+                r.setStatus(LeaveStatus.DENIED);
+            }
+            requests.add(r);
+        }
+        ReadinessHeatmap heatmap = ReadinessHeatmap.build(requests, ORIGIN, 400, new ForkJoinPool(4));
+        Heatmap h = heatmap.query(ORIGIN, ORIGIN.plusDays(399));
+
+        for (int d = 0; d < 400; d++) {
+            LocalDate day = ORIGIN.plusDays(d);
+            int vacation = 0;
+            int total = 0;
+            for (LeaveRequest r : requests) {
+                if (r.getStatus() == LeaveStatus.APPROVED && !day.isBefore(r.getStartDate()) && !day.isAfter(r.getEndDate())) {
+                    total++;
+                    vacation += r.getType() == LeaveType.VACATION ? 1 : 0;
+                }
+            }
+            assertEquals(total, h.totalOn(day), "total on " + day);
+            assertEquals(vacation, h.countOn(day, LeaveType.VACATION), "vacation on " + day);
+        }
+    }
+
+    @Test
+    void statusChangesPatchTheWindow() {
+        ReadinessHeatmap heatmap = ReadinessHeatmap.build(
+                List.of(approved(1, LeaveType.VACATION, ORIGIN, ORIGIN.plusDays(4))), ORIGIN, 30, ForkJoinPool.commonPool());
+
+        heatmap.update(approved(2, LeaveType.EMERGENCY, ORIGIN.plusDays(3), ORIGIN.plusDays(5)));
+        assertArrayEquals(new int[]{1, 1, 1, 2, 2, 1, 0}, heatmap.query(ORIGIN, ORIGIN.plusDays(6)).total());
+
+        heatmap.update(approved(1, LeaveType.VACATION, ORIGIN.plusDays(1), ORIGIN.plusDays(1)));
+        assertArrayEquals(new int[]{0, 1, 0, 1, 1, 1, 0}, heatmap.query(ORIGIN, ORIGIN.plusDays(6)).total());
+
+        LeaveRequest cancelled = approved(2, LeaveType.EMERGENCY, ORIGIN.plusDays(3), ORIGIN.plusDays(5));
+        cancelled.setStatus(LeaveStatus.CANCELLED);
+        heatmap.update(cancelled);
+        assertTrue(heatmap.remove(1));
+        assertEquals(0, heatmap.query(ORIGIN, ORIGIN.plusDays(6)).peak());
+    }
+
+    @Test
+    void rangesOutsideTheWindowAreSweptOnDemand() {
+        ReadinessHeatmap heatmap = ReadinessHeatmap.build(
+                List.of(approved(1, LeaveType.VACATION, ORIGIN.minusDays(3), ORIGIN.plusDays(1))), ORIGIN, 10,
+                ForkJoinPool.commonPool());
+        Heatmap h = heatmap.query(ORIGIN.minusDays(4), ORIGIN.plusDays(2));
+        assertArrayEquals(new int[]{0, 1, 1, 1, 1, 1, 0}, h.total());
+        assertEquals(ORIGIN.plusDays(2), h.end());
+    }
+}
@@ -0,0 +1,153 @@
+package com.leavetracker.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1", "sa", "",
+                1, 2, 100, 1, 2);
+        pool.prewarm();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void prewarmOpensMinimumConnections() {
+        PoolStats stats = pool.stats();
+        assertEquals(1, stats.total());
+        assertEquals(1, stats.idle());
+        assertEquals(0, stats.active());
+    }
+
+    @Test
+    void closingReturnsConnectionToPool() throws SQLException {
+        try (Connection c = pool.getConnection()) {
+            assertEquals(1, pool.stats().active());
+        }
+        try (Connection c = pool.getConnection()) {
+            assertEquals(1, pool.stats().total(), "Second borrow should reuse the idle connection");
+        }
+        assertEquals(0, pool.stats().active());
+        assertEquals(2, pool.stats().borrows());
+    }
+
+    @Test
+    void borrowTimesOutWhenExhausted() throws SQLException {
+        try (Connection a = pool.getConnection(); Connection b = pool.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+        }
+        assertEquals(1, pool.stats().timeouts());
+    }
+
+    @Test
+    void brokenConnectionIsReplacedOnBorrow() throws SQLException {
+        Connection physical;
+        try (Connection c = pool.getConnection()) {
+            physical = c.unwrap(Connection.class);
+        }
+        physical.close();
+
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            assertTrue(st.execute("SELECT 1"));
+        }
+    }
+
+    @Test
+    void uncommittedWorkIsRolledBackOnReturn() throws SQLException {
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS t (x INT)");
+            st.executeUpdate("DELETE FROM t");
+            c.setAutoCommit(false);
+            st.executeUpdate("INSERT INTO t VALUES (1)");
+        }
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            assertTrue(c.getAutoCommit());
+            var rs = st.executeQuery("SELECT COUNT(*) FROM t");
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void preparedStatementsAreReusedAcrossBorrows() throws SQLException {
+        for (int i = 0; i < 3; i++) {
+            try (Connection c = pool.getConnection();
+                 PreparedStatement ps = c.prepareStatement("SELECT ?")) {
+                ps.setInt(1, i);
+                assertTrue(ps.execute());
+            }
+        }
+        PoolStats stats = pool.stats();
+        assertEquals(1, stats.statementMisses(), "SQL should only be prepared once");
+        assertEquals(2, stats.statementHits());
+    }
+
+    @Test
+    void leastRecentlyUsedStatementIsEvicted() throws SQLException {
+        try (Connection c = pool.getConnection()) {
+            c.prepareStatement("SELECT 1").close();
+            c.prepareStatement("SELECT 2").close();
+            c.prepareStatement("SELECT 1").close();
+            c.prepareStatement("SELECT 3").close();   // evicts SELECT 2
+            c.prepareStatement("SELECT 1").close();
+            c.prepareStatement("SELECT 2").close();
+        }
+        PoolStats stats = pool.stats();
+        assertEquals(2, stats.statementHits());
+        assertEquals(4, stats.statementMisses());
+        assertEquals(2, stats.statementEvictions());
+    }
+
+    @Test
+    void nestedUseOfTheSameSqlGetsItsOwnStatement() throws SQLException {
+        try (Connection c = pool.getConnection();
+             PreparedStatement outer = c.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, ?)")) {
+            outer.setInt(1, 3);
+            int rows = 0;
+            try (ResultSet rs = outer.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                    try (PreparedStatement inner = c.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, ?)")) {
+                        inner.setInt(1, 1);
+                        try (ResultSet r = inner.executeQuery()) {
+                            assertTrue(r.next());
+                        }
+                    }
+                }
+            }
+            assertEquals(3, rows, "inner lookups must not disturb the outer result set");
+        }
+        assertEquals(0, pool.stats().statementEvictions());
+    }
+
+    @Test
+    void closingStatementClosesItsResultSetAndCheckedOutStatementsAreNotEvicted() throws SQLException {
+        try (Connection c = pool.getConnection()) {
+            PreparedStatement held = c.prepareStatement("SELECT 1");
+            ResultSet rs = held.executeQuery();
+            c.prepareStatement("SELECT 2").close();
+            c.prepareStatement("SELECT 3").close();   // cache of 2 is full, but SELECT 1 is in use
+            assertTrue(rs.next(), "a checked-out statement must stay open");
+            held.close();
+            assertTrue(rs.isClosed());
+        }
+    }
+}
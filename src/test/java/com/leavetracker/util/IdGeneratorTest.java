@@ -0,0 +1,106 @@
+package com.leavetracker.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:idgentest", "sa", "", 1, 4, 1_000, 1, 8);
+        pool.prewarm();
+        new SchemaMigrator(pool, SchemaMigrations.all()).migrateTo(3);
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("INSERT INTO leave_requests VALUES " +
+                    "(1760000000000, 'old', DATE '2025-01-01', DATE '2025-01-02', 'VACATION', 'pre-sequence', 'PENDING')");
+        }
+        new SchemaMigrator(pool, SchemaMigrations.all()).migrate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void snowflakeIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        assertUniqueUnderContention(new SnowflakeIdGenerator(7));
+    }
+
+    @Test
+    void snowflakeStaysMonotonicWhenClockStepsBack() {
+        long[] now = {SnowflakeIdGenerator.EPOCH_MILLIS + 10_000};
+        SnowflakeIdGenerator gen = new SnowflakeIdGenerator(1, () -> now[0]);
+        long first = gen.nextId();
+        now[0] -= 5_000;
+        assertTrue(gen.nextId() > first);
+    }
+
+    @Test
+    void snowflakeNodesNeverCollide() {
+        long a = new SnowflakeIdGenerator(1, () -> SnowflakeIdGenerator.EPOCH_MILLIS + 42).nextId();
+        long b = new SnowflakeIdGenerator(2, () -> SnowflakeIdGenerator.EPOCH_MILLIS + 42).nextId();
+        assertNotEquals(a, b);
+    }
+
+    @Test
+    void hiLoStartsAboveExistingIds() {
+        long id = new HiLoIdGenerator(pool, "leave_request_id_seq").nextId();
+        assertTrue(id > 1760000000000L, "Sequence should continue above legacy time-based IDs");
+    }
+
+    @Test
+    void hiLoGeneratorsSharingDatabaseNeverOverlap() throws Exception {
+        // two generators stand in for two JVMs sharing the AUTO_SERVER database
+        HiLoIdGenerator a = new HiLoIdGenerator(pool, "leave_request_id_seq");
+        HiLoIdGenerator b = new HiLoIdGenerator(pool, "leave_request_id_seq");
+        assertUniqueUnderContention(() -> Thread.currentThread().getId() % 2 == 0 ? a.nextId() : b.nextId());
+    }
+
+    private static void assertUniqueUnderContention(IdGenerator gen) throws Exception {
+        int threads = 8;
+        int perThread = 5_000;
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(() -> {
+                long last = Long.MIN_VALUE;
+                for (int i = 0; i < perThread; i++) {
+                    long id = gen.nextId();
+                    assertTrue(seen.add(id), "Duplicate id " + id);
+                    if (gen instanceof SnowflakeIdGenerator) {
+                        assertTrue(id > last, "IDs should increase within a thread");
+                    }
+                    last = id;
+                }
+                return null;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> f : pool.invokeAll(workers)) {
+                f.get();   // rethrows assertion failures from the workers
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(threads * perThread, seen.size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.leavetracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LookupCacheTest {
+
+    private final long[] now = {0};
+    private final AtomicInteger loads = new AtomicInteger();
+    private final LookupCache<String, String> cache = new LookupCache<>(2,
+            Duration.ofSeconds(10), Duration.ofSeconds(1), () -> now[0]);
+
+    private Optional<String> load(String key) {
+        loads.incrementAndGet();
+        return key.startsWith("missing") ? Optional.empty() : Optional.of(key.toUpperCase());
+    }
+
+    @Test
+    void valuesExpireAfterTtl() {
+        assertEquals("A", cache.get("a", this::load).orElseThrow());
+        now[0] += Duration.ofSeconds(9).toNanos();
+        cache.get("a", this::load);
+        assertEquals(1, loads.get());
+        now[0] += Duration.ofSeconds(2).toNanos();
+        cache.get("a", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void negativeResultsUseShorterTtl() {
+        assertTrue(cache.get("missing", this::load).isEmpty());
+        cache.get("missing", this::load);
+        assertEquals(1, loads.get());
+        now[0] += Duration.ofSeconds(2).toNanos();
+        cache.get("missing", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedKeyIsEvicted() {
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        cache.get("a", this::load);
+        cache.get("c", this::load);   // evicts b
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.stats().evictions());
+    }
+
+    @Test
+    void loadRacingWithInvalidationIsNotCached() {
+        cache.get("a", key -> {
+            cache.invalidate(key);   // a write lands while the load is in flight
+            return Optional.of("stale");
+        });
+        assertEquals("A", cache.get("a", this::load).orElseThrow());
+    }
+}
@@ -0,0 +1,150 @@
+package com.leavetracker.util;
+
+import com.leavetracker.model.LeaveStatus;
+import com.leavetracker.model.LeaveType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ConnectionPool("jdbc:h2:mem:migratortest", "sa", "", 0, 2, 1_000, 1, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void appliesEachMigrationOnce() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(pool, SchemaMigrations.all());
+        int first = migrator.migrate();
+        assertEquals(SchemaMigrations.all().size(), first);
+        assertEquals(0, migrator.migrate(), "Second run should find nothing pending");
+        assertEquals(SchemaMigrations.all().size(), migrator.currentVersion());
+    }
+
+    @Test
+    void createsLeaveRequestIndexes() throws SQLException {
+        new SchemaMigrator(pool, SchemaMigrations.all()).migrate();
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery(
+                     "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES " +
+                     "WHERE TABLE_NAME = 'LEAVE_REQUESTS' AND INDEX_NAME IN " +
+                     "('IDX_LEAVE_USER_START', 'IDX_LEAVE_STATUS_START', 'IDX_LEAVE_DATES')")) {
+            rs.next();
+            assertEquals(3, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void statusAndTypeStringsBecomeCodes() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(pool, SchemaMigrations.all());
+        migrator.migrateTo(5);
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("INSERT INTO leave_requests VALUES "
+                    + "(1, 'a', DATE '2025-01-01', DATE '2025-01-02', 'VACATION', 'r', 'APPROVED'), "
+                    + "(2, 'b', DATE '2025-01-01', DATE '2025-01-02', 'sick', 'r', 'CANCELLED')");
+        }
+        migrator.migrate();
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT type, status FROM leave_requests ORDER BY id")) {
+            rs.next();
+            assertEquals(LeaveType.VACATION, LeaveType.fromCode(rs.getShort(1)));
+            assertEquals(LeaveStatus.APPROVED, LeaveStatus.fromCode(rs.getShort(2)));
+            rs.next();
+            assertEquals(LeaveType.OTHER, LeaveType.fromCode(rs.getShort(1)));
+            assertEquals(LeaveStatus.CANCELLED, LeaveStatus.fromCode(rs.getShort(2)));
+        }
+    }
+
+    @Test
+    void failedMigrationIsNotRecordedAndResumesAtTheFailedStatement() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(pool, List.of(
+                Migration.of(1, "ok", "CREATE TABLE a (x INT)"),
+                Migration.of(2, "broken", "INSERT INTO a VALUES (1)", "CREATE TABLE nope (")));
+        assertThrows(SQLException.class, migrator::migrate);
+        assertEquals(1, migrator.currentVersion());
+
+        SchemaMigrator fixed = new SchemaMigrator(pool, List.of(
+                Migration.of(1, "ok", "CREATE TABLE a (x INT)"),
+                Migration.of(2, "fixed", "INSERT INTO a VALUES (1)", "CREATE TABLE b (y INT)")));
+        assertEquals(1, fixed.migrate());
+        assertEquals(2, fixed.currentVersion());
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM a")) {
+            rs.next();
+            assertEquals(1, rs.getInt(1), "Statements done before the failure must not run twice");
+        }
+    }
+
+    @Test
+    void waitsForAnotherMigratorsLock() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(pool, SchemaMigrations.all(), 200);
+        migrator.migrateTo(1);
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("INSERT INTO schema_lock(id, locked_by) VALUES (1, 'other')");
+        }
+        SQLException e = assertThrows(SQLException.class, migrator::migrate);
+        assertTrue(e.getMessage().contains("other"), e.getMessage());
+        assertEquals(1, migrator.currentVersion(), "Nothing applied without the lock");
+
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("DELETE FROM schema_lock");
+        }
+        assertEquals(SchemaMigrations.all().size() - 1, migrator.migrate());
+    }
+
+    @Test
+    void unmappedStatusStopsTheCodeMigrationBeforeAnyChange() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(pool, SchemaMigrations.all());
+        migrator.migrateTo(5);
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("INSERT INTO leave_requests VALUES "
+                    + "(1, 'a', DATE '2025-01-01', DATE '2025-01-02', 'VACATION', 'r', 'ON_HOLD')");
+        }
+        SQLException e = assertThrows(SQLException.class, migrator::migrate);
+        assertTrue(e.getMessage().contains("[ON_HOLD]"), e.getMessage());
+        assertEquals(5, migrator.currentVersion());
+
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("UPDATE leave_requests SET status = 'PENDING'");
+        }
+        assertEquals(2, migrator.migrate());
+    }
+
+    @Test
+    void codeMigrationSurvivesADdlStepRunningTwice() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(pool, SchemaMigrations.all());
+        migrator.migrateTo(5);
+        List<String> v6 = SchemaMigrations.all().get(5).statements();
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("INSERT INTO leave_requests VALUES "
+                    + "(1, 'a', DATE '2025-01-01', DATE '2025-01-02', 'VACATION', 'r', 'DENIED')");
+            // as if the process died after the first DROP COLUMN committed but before its progress was saved
+            for (int i = 0; i <= 4; i++) {
+                st.executeUpdate(v6.get(i));
+            }
+            st.executeUpdate("INSERT INTO schema_version_progress VALUES (6, 4)");
+        }
+        migrator.migrate();
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT status FROM leave_requests")) {
+            rs.next();
+            assertEquals(LeaveStatus.DENIED, LeaveStatus.fromCode(rs.getShort(1)));
+        }
+    }
+}